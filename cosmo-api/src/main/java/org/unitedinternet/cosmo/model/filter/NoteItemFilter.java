@@ -17,9 +17,14 @@ package org.unitedinternet.cosmo.model.filter;
 
 import org.unitedinternet.cosmo.model.NoteItem;
 
+import net.fortuna.ical4j.model.Period;
+
 /**
  * Adds NoteItem specific criteria to ItemFilter.
  * Matches only NoteItem instances.
+ * <p>
+ * The task criteria match the VTODO of a note. They are meant for selecting
+ * candidates only: notes whose task is not indexed always match them.
  */
 public class NoteItemFilter extends ContentItemFilter {
     private FilterCriteria icalUid = null;
@@ -27,6 +32,12 @@ public class NoteItemFilter extends ContentItemFilter {
     private FilterCriteria reminderTime = null;
     private FilterCriteria modifiedSince = null;
     
+    private Period taskPeriod = null;
+    private FilterCriteria taskDue = null;
+    private FilterCriteria taskCompleted = null;
+    private FilterCriteria taskStatus = null;
+    private FilterCriteria taskCategories = null;
+    
     private Boolean hasModifications = null;
     private Boolean isModification = null;
     
@@ -115,4 +126,69 @@ public class NoteItemFilter extends ContentItemFilter {
     public void setModifiedSince(FilterCriteria modifiedSince) {
         this.modifiedSince = modifiedSince;
     }
+
+    public Period getTaskPeriod() {
+        return taskPeriod;
+    }
+
+    /**
+     * Matches notes with a task that overlaps the specified period, as
+     * defined for the VTODO time-range filter of CalDAV.
+     * @param taskPeriod
+     */
+    public void setTaskPeriod(Period taskPeriod) {
+        this.taskPeriod = taskPeriod;
+    }
+
+    public FilterCriteria getTaskDue() {
+        return taskDue;
+    }
+
+    /**
+     * Matches notes with a task DUE time (in milliseconds) matching the
+     * specified criteria.
+     * @param taskDue
+     */
+    public void setTaskDue(FilterCriteria taskDue) {
+        this.taskDue = taskDue;
+    }
+
+    public FilterCriteria getTaskCompleted() {
+        return taskCompleted;
+    }
+
+    /**
+     * Matches notes with a task COMPLETED time (in milliseconds) matching
+     * the specified criteria.
+     * @param taskCompleted
+     */
+    public void setTaskCompleted(FilterCriteria taskCompleted) {
+        this.taskCompleted = taskCompleted;
+    }
+
+    public FilterCriteria getTaskStatus() {
+        return taskStatus;
+    }
+
+    /**
+     * Matches notes with a task STATUS matching the specified criteria,
+     * an empty string for tasks without STATUS.
+     * @param taskStatus
+     */
+    public void setTaskStatus(FilterCriteria taskStatus) {
+        this.taskStatus = taskStatus;
+    }
+
+    public FilterCriteria getTaskCategories() {
+        return taskCategories;
+    }
+
+    /**
+     * Matches notes with task CATEGORIES, separated by commas, matching the
+     * specified criteria, an empty string for tasks without CATEGORIES.
+     * @param taskCategories
+     */
+    public void setTaskCategories(FilterCriteria taskCategories) {
+        this.taskCategories = taskCategories;
+    }
 }
@@ -22,6 +22,7 @@ import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.ContentItem;
 import org.unitedinternet.cosmo.model.HomeCollectionItem;
 import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.ItemTombstone;
 import org.unitedinternet.cosmo.model.NoteItem;
 import org.unitedinternet.cosmo.model.Stamp;
 import org.unitedinternet.cosmo.model.Ticket;
@@ -99,6 +100,17 @@ public interface ContentService {
      */
     public Item findItemParentByPath(String path);
 
+    /**
+     * Find the children of a collection that have one of the given names.
+     * 
+     * @param parent
+     *            parent collection
+     * @param names
+     *            names of the children to find
+     * @return set of children found, children that don't exist are not included
+     */
+    public Set<Item> findItemsByParentAndNames(CollectionItem parent, Set<String> names);
+
     /**
      * Add an item to a collection.
      * 
@@ -160,6 +172,16 @@ public interface ContentService {
      */
     public Set<ContentItem> loadChildren(CollectionItem collection, Long timestamp);
 
+    /**
+     * Load the tombstones of all items that have been removed from a
+     * collection since a given timestamp.
+     * @param collection collection
+     * @param timestamp timestamp
+     * @return tombstones of the items removed from collection after
+     *         timestamp
+     */
+    public Set<ItemTombstone> loadTombstones(CollectionItem collection, Long timestamp);
+
     /**
      * Create a new collection.
      * 
@@ -0,0 +1,175 @@
+package org.unitedinternet.cosmo.benchmarks;
+
+import java.net.URISyntaxException;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.unitedinternet.cosmo.calendar.ICalendarUtils;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.DateList;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.TimeZoneRegistry;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.parameter.Cn;
+import net.fortuna.ical4j.model.parameter.PartStat;
+import net.fortuna.ical4j.model.parameter.Role;
+import net.fortuna.ical4j.model.parameter.Rsvp;
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.model.property.Attendee;
+import net.fortuna.ical4j.model.property.Description;
+import net.fortuna.ical4j.model.property.DtEnd;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.ExDate;
+import net.fortuna.ical4j.model.property.Location;
+import net.fortuna.ical4j.model.property.Organizer;
+import net.fortuna.ical4j.model.property.RRule;
+import net.fortuna.ical4j.model.property.RecurrenceId;
+import net.fortuna.ical4j.model.property.Summary;
+import net.fortuna.ical4j.model.property.Uid;
+
+/**
+ * Generates the calendars the benchmarks run on. They are shaped after the expensive data seen in production: a
+ * daily meeting series with many rescheduled and cancelled occurrences, long attendee lists and rescheduled
+ * occurrences in the timezones of the attendees, each bringing its own VTIMEZONE.
+ */
+public final class CalendarCorpus {
+
+    /** First occurrence of every generated series, local time in the first timezone. */
+    public static final LocalDateTime SERIES_START = LocalDateTime.of(2020, 1, 6, 9, 0);
+
+    /** Bounded daily series spanning two years. */
+    public static final String DAILY_TWO_YEARS = "FREQ=DAILY;COUNT=730";
+
+    /** Daily series without end. */
+    public static final String DAILY_FOREVER = "FREQ=DAILY";
+
+    private static final String[] TIMEZONE_IDS = { "Europe/Berlin", "America/New_York", "Europe/London",
+            "America/Los_Angeles", "Asia/Tokyo", "Australia/Sydney", "Europe/Paris", "America/Chicago",
+            "Asia/Kolkata", "America/Sao_Paulo", "Europe/Moscow", "Asia/Shanghai", "America/Denver", "Africa/Cairo",
+            "Pacific/Auckland", "Europe/Bucharest", "Asia/Dubai", "America/Toronto", "Asia/Singapore",
+            "Africa/Johannesburg" };
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private static final TimeZoneRegistry REGISTRY = TimeZoneRegistryFactory.getInstance().createRegistry();
+
+    private CalendarCorpus() {
+    }
+
+    /**
+     * Maximum number of distinct timezones a generated calendar can reference.
+     */
+    public static int maxTimezones() {
+        return TIMEZONE_IDS.length;
+    }
+
+    /**
+     * Creates a daily series.
+     *
+     * @param rrule
+     *            recurrence rule of the series
+     * @param exceptions
+     *            number of rescheduled occurrences, half as many occurrences are cancelled on top
+     * @param attendees
+     *            number of attendees of the series and of every rescheduled occurrence
+     * @param timezones
+     *            number of distinct timezones used by the rescheduled occurrences, between 1 and
+     *            {@link #maxTimezones()}
+     * @return calendar with the master event, the rescheduled occurrences and the VTIMEZONEs
+     */
+    public static Calendar dailySeries(String rrule, int exceptions, int attendees, int timezones) {
+        if (timezones < 1 || timezones > TIMEZONE_IDS.length) {
+            throw new IllegalArgumentException("timezones must be between 1 and " + TIMEZONE_IDS.length);
+        }
+        String uid = "series-" + exceptions + "-" + attendees + "-" + timezones + "@cosmo.benchmark";
+        TimeZone seriesTz = timezone(0);
+
+        VEvent master = event(uid, "Daily standup", seriesTz, SERIES_START, attendees);
+        try {
+            master.getProperties().add(new RRule(rrule));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid rule " + rrule, e);
+        }
+        Calendar calendar = ICalendarUtils.createBaseCalendar(master);
+
+        // every third day is rescheduled, the day after is cancelled for every other exception
+        DateList exdates = new DateList(Value.DATE_TIME, seriesTz);
+        for (int i = 0; i < exceptions; i++) {
+            LocalDateTime occurrence = SERIES_START.plusDays(3L * i + 1);
+            TimeZone tz = timezone(i % timezones);
+            VEvent exception = event(uid, "Daily standup (moved)", tz, occurrence.plusHours(1), attendees);
+            exception.getProperties().add(new RecurrenceId(dateTime(occurrence, seriesTz)));
+            calendar.getComponents().add(exception);
+            if (i % 2 == 0) {
+                exdates.add(dateTime(occurrence.plusDays(1), seriesTz));
+            }
+        }
+        if (!exdates.isEmpty()) {
+            master.getProperties().add(new ExDate(exdates));
+        }
+
+        for (int i = 0; i < timezones; i++) {
+            calendar.getComponents().add(0, timezone(i).getVTimeZone());
+        }
+        return calendar;
+    }
+
+    /**
+     * Returns the i-th timezone of the corpus.
+     */
+    public static TimeZone timezone(int i) {
+        return REGISTRY.getTimeZone(TIMEZONE_IDS[i]);
+    }
+
+    /**
+     * Converts a local date time to an ical4j date time in the given timezone.
+     */
+    public static DateTime dateTime(LocalDateTime localDateTime, TimeZone tz) {
+        try {
+            return new DateTime(FORMAT.format(localDateTime), tz);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Converts a local date time taken as UTC to an ical4j date time.
+     */
+    public static DateTime utc(LocalDateTime localDateTime) {
+        try {
+            return new DateTime(FORMAT.format(localDateTime) + "Z");
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static VEvent event(String uid, String summary, TimeZone tz, LocalDateTime start, int attendees) {
+        VEvent event = new VEvent();
+        event.getProperties().add(new Uid(uid));
+        event.getProperties().add(new DtStart(dateTime(start, tz)));
+        event.getProperties().add(new DtEnd(dateTime(start.plusMinutes(30), tz)));
+        event.getProperties().add(new Summary(summary));
+        event.getProperties().add(new Location("Room " + (start.getDayOfYear() % 12)));
+        event.getProperties().add(new Description("Agenda: status, blockers, next steps.\n" + summary));
+        try {
+            Organizer organizer = new Organizer("mailto:organizer@example.com");
+            organizer.getParameters().add(new Cn("Organizer"));
+            event.getProperties().add(organizer);
+            for (int i = 0; i < attendees; i++) {
+                Attendee attendee = new Attendee("mailto:attendee" + i + "@example.com");
+                attendee.getParameters().add(new Cn("Attendee " + i));
+                attendee.getParameters().add(i % 5 == 0 ? Role.OPT_PARTICIPANT : Role.REQ_PARTICIPANT);
+                attendee.getParameters().add(i % 3 == 0 ? PartStat.ACCEPTED : PartStat.NEEDS_ACTION);
+                attendee.getParameters().add(Rsvp.TRUE);
+                event.getProperties().add(attendee);
+            }
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+        return event;
+    }
+}
@@ -0,0 +1,89 @@
+package org.unitedinternet.cosmo.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
+import org.unitedinternet.cosmo.calendar.query.CalendarFilterEvaluater;
+import org.unitedinternet.cosmo.calendar.query.ComponentFilter;
+import org.unitedinternet.cosmo.calendar.query.PropertyFilter;
+import org.unitedinternet.cosmo.calendar.query.TextMatchFilter;
+import org.unitedinternet.cosmo.calendar.query.TimeRangeFilter;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.Property;
+
+/**
+ * In-memory evaluation of <code>calendar-query</code> filters, the fallback used for every item the database query
+ * cannot decide.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalendarFilterEvaluaterBenchmark {
+
+    @Param({ "0", "50", "200" })
+    int exceptions;
+
+    @Param({ "5", "200" })
+    int attendees;
+
+    private final CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
+
+    private Calendar calendar;
+
+    private CalendarFilter timeRangeFilter;
+
+    private CalendarFilter attendeeFilter;
+
+    @Setup
+    public void setUp() {
+        this.calendar = CalendarCorpus.dailySeries(CalendarCorpus.DAILY_TWO_YEARS, this.exceptions, this.attendees,
+                10);
+
+        ComponentFilter event = new ComponentFilter(Component.VEVENT);
+        event.setTimeRangeFilter(new TimeRangeFilter(
+                CalendarCorpus.utc(CalendarCorpus.SERIES_START.plusMonths(11)),
+                CalendarCorpus.utc(CalendarCorpus.SERIES_START.plusMonths(11).plusWeeks(1))));
+        this.timeRangeFilter = calendarFilter(event);
+
+        ComponentFilter attendeeEvent = new ComponentFilter(Component.VEVENT);
+        PropertyFilter attendee = new PropertyFilter(Property.ATTENDEE);
+        // matches the last attendee only, so that the whole list is scanned
+        attendee.setTextMatchFilter(new TextMatchFilter("attendee" + (this.attendees - 1) + "@example.com"));
+        attendeeEvent.getPropFilters().add(attendee);
+        this.attendeeFilter = calendarFilter(attendeeEvent);
+    }
+
+    @Benchmark
+    public boolean evaluateTimeRange() {
+        return this.evaluater.evaluate(this.calendar, this.timeRangeFilter);
+    }
+
+    @Benchmark
+    public boolean evaluateAttendeeTextMatch() {
+        return this.evaluater.evaluate(this.calendar, this.attendeeFilter);
+    }
+
+    private static CalendarFilter calendarFilter(ComponentFilter componentFilter) {
+        ComponentFilter vcalendar = new ComponentFilter(Calendar.VCALENDAR);
+        vcalendar.getComponentFilters().add(componentFilter);
+        CalendarFilter filter = new CalendarFilter();
+        filter.setFilter(vcalendar);
+        return filter;
+    }
+}
@@ -0,0 +1,75 @@
+package org.unitedinternet.cosmo.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.unitedinternet.cosmo.calendar.util.CalendarUtils;
+import org.unitedinternet.cosmo.model.NoteItem;
+import org.unitedinternet.cosmo.model.hibernate.EntityConverter;
+import org.unitedinternet.cosmo.model.hibernate.HibEntityFactory;
+
+import net.fortuna.ical4j.model.Calendar;
+
+/**
+ * Conversion between calendars and items, done on every PUT and on every GET of an event with modifications.
+ * <p>
+ * Converting a calendar into items consumes the calendar, so {@link #convertEventCalendar()} includes a copy of it.
+ * {@link #copyCalendar()} measures that copy alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityConverterBenchmark {
+
+    @Param({ "0", "50", "200" })
+    int exceptions;
+
+    @Param({ "5", "200" })
+    int attendees;
+
+    private final EntityConverter converter = new EntityConverter(new HibEntityFactory());
+
+    private Calendar calendar;
+
+    private NoteItem master;
+
+    @Setup
+    public void setUp() {
+        this.calendar = CalendarCorpus.dailySeries(CalendarCorpus.DAILY_TWO_YEARS, this.exceptions, this.attendees,
+                10);
+        for (NoteItem note : this.converter.convertEventCalendar(CalendarUtils.copyCalendar(this.calendar))) {
+            if (note.getModifies() == null) {
+                this.master = note;
+            }
+        }
+    }
+
+    @Benchmark
+    public Calendar copyCalendar() {
+        return CalendarUtils.copyCalendar(this.calendar);
+    }
+
+    @Benchmark
+    public Set<NoteItem> convertEventCalendar() {
+        return this.converter.convertEventCalendar(CalendarUtils.copyCalendar(this.calendar));
+    }
+
+    @Benchmark
+    public Calendar convertNote() {
+        return this.converter.convertNote(this.master);
+    }
+}
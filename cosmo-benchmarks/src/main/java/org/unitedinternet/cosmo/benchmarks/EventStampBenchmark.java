@@ -0,0 +1,88 @@
+package org.unitedinternet.cosmo.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.unitedinternet.cosmo.model.hibernate.HibEventStamp;
+import org.unitedinternet.cosmo.model.hibernate.HibNoteItem;
+
+import net.fortuna.ical4j.model.Calendar;
+
+/**
+ * Round trips between the calendar of an event stamp and the <code>icaldata</code> column it is stored in.
+ * <p>
+ * {@link #parse()} uses a transient stamp, which is never served from the <code>EventCalendarCache</code>, while
+ * {@link #parseCached()} uses a stamp with an id and measures the copy handed out on a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventStampBenchmark {
+
+    @Param({ "0", "50", "200" })
+    int exceptions;
+
+    @Param({ "5", "200" })
+    int attendees;
+
+    @Param({ "1", "20" })
+    int timezones;
+
+    private Calendar calendar;
+
+    private HibEventStamp transientStamp;
+
+    private HibEventStamp persistentStamp;
+
+    private HibEventStamp target;
+
+    @Setup
+    public void setUp() {
+        this.calendar = CalendarCorpus.dailySeries(CalendarCorpus.DAILY_TWO_YEARS, this.exceptions, this.attendees,
+                this.timezones);
+
+        this.transientStamp = new HibEventStamp(new HibNoteItem());
+        this.transientStamp.setEventCalendar(this.calendar);
+
+        this.persistentStamp = new HibEventStamp(new HibNoteItem());
+        this.persistentStamp.setId(1L);
+        this.persistentStamp.setEventCalendar(this.calendar);
+
+        this.target = new HibEventStamp(new HibNoteItem());
+    }
+
+    @Benchmark
+    public String serialize() {
+        this.target.setEventCalendar(this.calendar);
+        return this.target.getIcaldata();
+    }
+
+    @Benchmark
+    public Calendar parse() {
+        return this.transientStamp.getEventCalendar();
+    }
+
+    @Benchmark
+    public Calendar parseCached() {
+        return this.persistentStamp.getEventCalendar();
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        this.target.setEventCalendar(this.transientStamp.getEventCalendar());
+        return this.target.getIcaldata();
+    }
+}
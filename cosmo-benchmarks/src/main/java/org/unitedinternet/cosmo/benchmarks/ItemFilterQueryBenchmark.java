@@ -0,0 +1,137 @@
+package org.unitedinternet.cosmo.benchmarks;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.MariaDB103Dialect;
+import org.hibernate.query.internal.QueryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.hibernate5.LocalSessionFactoryBuilder;
+import org.springframework.util.ReflectionUtils;
+import org.unitedinternet.cosmo.dao.query.hibernate.StandardItemFilterProcessor;
+import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.filter.EventStampFilter;
+import org.unitedinternet.cosmo.model.filter.ItemFilter;
+import org.unitedinternet.cosmo.model.filter.NoteItemFilter;
+import org.unitedinternet.cosmo.model.filter.Restrictions;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionItem;
+import org.unitedinternet.cosmo.model.hibernate.HibItem;
+
+import net.fortuna.ical4j.model.Period;
+
+/**
+ * Translation of item filters into HQL and compilation of the HQL by hibernate, as done by
+ * {@link StandardItemFilterProcessor} for every <code>calendar-query</code>.
+ * <p>
+ * The session factory is built from the cosmo mappings without a database, queries are created but never executed.
+ * {@link #timeRangeQueryDistinctRanges()} cycles through more distinct ranges than the hibernate query plan cache
+ * holds, which only hits the cache because the bounds are bound as parameters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemFilterQueryBenchmark {
+
+    private static final int DISTINCT_RANGES = 4096;
+
+    private SessionFactory sessionFactory;
+
+    private Session session;
+
+    private QueryBuilder queryBuilder;
+
+    private ItemFilter uidFilter;
+
+    private NoteItemFilter timeRangeFilter;
+
+    private NoteItemFilter[] distinctTimeRangeFilters;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        LocalSessionFactoryBuilder builder = new LocalSessionFactoryBuilder(null);
+        builder.scanPackages(HibItem.class.getPackage().getName());
+        builder.setProperty(AvailableSettings.DIALECT, MariaDB103Dialect.class.getName());
+        builder.setProperty(AvailableSettings.USE_NEW_ID_GENERATOR_MAPPINGS, "false");
+        builder.setProperty("hibernate.temp.use_jdbc_metadata_defaults", "false");
+        this.sessionFactory = builder.buildSessionFactory();
+        this.session = this.sessionFactory.openSession();
+
+        this.queryBuilder = new QueryBuilder();
+        Field em = ReflectionUtils.findField(StandardItemFilterProcessor.class, "em");
+        ReflectionUtils.makeAccessible(em);
+        ReflectionUtils.setField(em, this.queryBuilder, this.session);
+
+        this.uidFilter = new ItemFilter();
+        this.uidFilter.setUid(Restrictions.eq("f3b0c9a4-6d5e-4c1b-9a7e-0c2d8e4f1a6b"));
+
+        HibCollectionItem calendar = new HibCollectionItem();
+        this.timeRangeFilter = timeRangeFilter(calendar, 0);
+        this.distinctTimeRangeFilters = new NoteItemFilter[DISTINCT_RANGES];
+        for (int i = 0; i < DISTINCT_RANGES; i++) {
+            this.distinctTimeRangeFilters[i] = timeRangeFilter(calendar, i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.session.close();
+        this.sessionFactory.close();
+    }
+
+    @Benchmark
+    public QueryImpl<Item> uidQuery() {
+        return this.queryBuilder.build(this.uidFilter);
+    }
+
+    @Benchmark
+    public QueryImpl<Item> timeRangeQuery() {
+        return this.queryBuilder.build(this.timeRangeFilter);
+    }
+
+    @Benchmark
+    public QueryImpl<Item> timeRangeQueryDistinctRanges() {
+        NoteItemFilter filter = this.distinctTimeRangeFilters[this.next];
+        this.next = (this.next + 1) % DISTINCT_RANGES;
+        return this.queryBuilder.build(filter);
+    }
+
+    private static NoteItemFilter timeRangeFilter(HibCollectionItem parent, int dayOffset) {
+        EventStampFilter eventFilter = new EventStampFilter();
+        eventFilter.setPeriod(new Period(CalendarCorpus.utc(CalendarCorpus.SERIES_START.plusDays(dayOffset)),
+                CalendarCorpus.utc(CalendarCorpus.SERIES_START.plusDays(dayOffset + 7L))));
+        eventFilter.setTimezone(CalendarCorpus.timezone(0));
+
+        NoteItemFilter filter = new NoteItemFilter();
+        filter.setParent(parent);
+        filter.getStampFilters().add(eventFilter);
+        return filter;
+    }
+
+    /**
+     * Exposes the query building of the processor.
+     */
+    private static class QueryBuilder extends StandardItemFilterProcessor {
+
+        QueryImpl<Item> build(ItemFilter filter) {
+            return buildQuery(filter);
+        }
+    }
+}
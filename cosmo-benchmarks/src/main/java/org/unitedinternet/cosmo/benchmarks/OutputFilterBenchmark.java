@@ -0,0 +1,89 @@
+package org.unitedinternet.cosmo.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.unitedinternet.cosmo.calendar.data.OutputFilter;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Period;
+
+/**
+ * Serialization of <code>calendar-data</code> with <code>expand</code> and <code>limit-recurrence-set</code>, set
+ * up the way <code>CaldavOutputFilter</code> does for reports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputFilterBenchmark {
+
+    @Param({ "0", "50", "200" })
+    int exceptions;
+
+    @Param({ "5", "200" })
+    int attendees;
+
+    private Calendar calendar;
+
+    private OutputFilter plain;
+
+    private OutputFilter expand;
+
+    private OutputFilter limit;
+
+    @Setup
+    public void setUp() {
+        this.calendar = CalendarCorpus.dailySeries(CalendarCorpus.DAILY_TWO_YEARS, this.exceptions, this.attendees,
+                10);
+        // one month in the middle of the series
+        Period month = new Period(CalendarCorpus.utc(CalendarCorpus.SERIES_START.plusMonths(6)),
+                CalendarCorpus.utc(CalendarCorpus.SERIES_START.plusMonths(7)));
+
+        this.plain = allOf();
+        this.expand = allOf();
+        this.expand.setExpand(month);
+        this.limit = allOf();
+        this.limit.setLimit(month);
+    }
+
+    @Benchmark
+    public StringBuilder filterAll() {
+        return filter(this.plain);
+    }
+
+    @Benchmark
+    public StringBuilder filterExpand() {
+        return filter(this.expand);
+    }
+
+    @Benchmark
+    public StringBuilder filterLimit() {
+        return filter(this.limit);
+    }
+
+    private StringBuilder filter(OutputFilter filter) {
+        StringBuilder builder = new StringBuilder();
+        filter.filter(this.calendar, builder);
+        return builder;
+    }
+
+    private static OutputFilter allOf() {
+        OutputFilter filter = new OutputFilter(Calendar.VCALENDAR);
+        filter.setAllSubComponents();
+        filter.setAllProperties();
+        return filter;
+    }
+}
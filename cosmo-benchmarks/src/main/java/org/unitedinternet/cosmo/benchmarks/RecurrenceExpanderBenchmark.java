@@ -0,0 +1,67 @@
+package org.unitedinternet.cosmo.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.unitedinternet.cosmo.calendar.InstanceList;
+import org.unitedinternet.cosmo.calendar.RecurrenceExpander;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateTime;
+
+/**
+ * Expansion of recurring series, as done for time-range queries, free-busy and <code>expand</code> reports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecurrenceExpanderBenchmark {
+
+    @Param({ CalendarCorpus.DAILY_TWO_YEARS, CalendarCorpus.DAILY_FOREVER })
+    String rrule;
+
+    @Param({ "0", "50", "200" })
+    int exceptions;
+
+    @Param({ "1", "20" })
+    int timezones;
+
+    private final RecurrenceExpander expander = new RecurrenceExpander();
+
+    private Calendar calendar;
+
+    private DateTime monthStart;
+
+    private DateTime monthEnd;
+
+    @Setup
+    public void setUp() {
+        this.calendar = CalendarCorpus.dailySeries(this.rrule, this.exceptions, 10, this.timezones);
+        this.monthStart = CalendarCorpus.utc(CalendarCorpus.SERIES_START.withDayOfMonth(1).plusMonths(6));
+        this.monthEnd = CalendarCorpus.utc(CalendarCorpus.SERIES_START.withDayOfMonth(1).plusMonths(7));
+    }
+
+    @Benchmark
+    public InstanceList getOcurrencesOfMonth() {
+        return this.expander.getOcurrences(this.calendar, this.monthStart, this.monthEnd, null);
+    }
+
+    @Benchmark
+    public Date[] calculateRecurrenceRange() {
+        return this.expander.calculateRecurrenceRange(this.calendar);
+    }
+}
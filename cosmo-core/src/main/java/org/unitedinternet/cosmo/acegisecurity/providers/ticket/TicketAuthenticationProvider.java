@@ -28,6 +28,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.unitedinternet.cosmo.dao.ContentDao;
 import org.unitedinternet.cosmo.model.Item;
 import org.unitedinternet.cosmo.model.Ticket;
+import org.unitedinternet.cosmo.security.util.TicketIndex;
 import org.unitedinternet.cosmo.server.CollectionPath;
 import org.unitedinternet.cosmo.server.ItemPath;
 
@@ -42,6 +43,9 @@ public class TicketAuthenticationProvider implements AuthenticationProvider {
     @Autowired
     private ContentDao contentDao;
 
+    @Autowired
+    private TicketIndex ticketIndex;
+
     // AuthenticationProvider methods
 
     /**
@@ -111,8 +115,14 @@ public class TicketAuthenticationProvider implements AuthenticationProvider {
                 LOG.debug("authenticating ticket " + key + " for resource at path " + path);
             }
 
+            Ticket ticket = findIndexedTicket(path, key);
+            if (ticket != null) {
+                return ticket;
+            }
+
+            long generation = ticketIndex.getGeneration();
             Item item = findItem(path);
-            Ticket ticket = contentDao.getTicket(item, key);
+            ticket = contentDao.getTicket(item, key);
             if (ticket == null) {
                 return null;
             }
@@ -125,12 +135,43 @@ public class TicketAuthenticationProvider implements AuthenticationProvider {
                 return null;
             }
 
+            ticketIndex.put(ticket, path, generation);
             return ticket;
         } catch (DataAccessException e) {
             throw new AuthenticationServiceException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Finds a ticket that was already validated for the resource at the given path, without resolving the resource.
+     * @param path The path.
+     * @param key The key.
+     * @return The ticket or <code>null</code> if it has to be validated.
+     */
+    private Ticket findIndexedTicket(String path, String key) {
+        TicketIndex.Entry entry = ticketIndex.get(key);
+        if (entry == null || !entry.isGranted(path, getUid(path))) {
+            return null;
+        }
+        Ticket ticket = contentDao.findTicket(key);
+        if (ticket == null || ticket.hasTimedOut()) {
+            return null;
+        }
+        return ticket;
+    }
+
+    /**
+     * Returns the uid of the resource named by the given path or <code>null</code> if the path doesn't name one.
+     */
+    private static String getUid(String path) {
+        CollectionPath cp = CollectionPath.parse(path, true);
+        if (cp != null) {
+            return cp.getUid();
+        }
+        ItemPath ip = ItemPath.parse(path, true);
+        return ip != null ? ip.getUid() : null;
+    }
+
     /**
      * Finds item.
      * @param path The path.
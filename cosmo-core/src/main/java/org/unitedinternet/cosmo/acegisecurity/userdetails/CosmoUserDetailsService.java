@@ -56,7 +56,7 @@ public class CosmoUserDetailsService implements UserDetailsService {
         if (user == null) {
             throw new UsernameNotFoundException("user " + username + " not found");
         }
-        return new CosmoUserDetails(userDao.getUser(username));
+        return new CosmoUserDetails(user);
     }
 
     /**
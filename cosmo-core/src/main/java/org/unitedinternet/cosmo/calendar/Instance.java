@@ -108,7 +108,7 @@ public class Instance {
      * @param date The date.
      * @return The date.
      */
-    private Date copyNormalisedDate(Date date) {
+    static Date copyNormalisedDate(Date date) {
         if (date instanceof DateTime) {
             DateTime dt = new DateTime(date);
             if (!dt.isUtc() && dt.getTimeZone() != null) {
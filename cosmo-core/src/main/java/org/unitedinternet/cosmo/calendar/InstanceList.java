@@ -19,8 +19,10 @@ import static java.time.Duration.ZERO;
 
 import java.text.ParseException;
 import java.time.temporal.TemporalAmount;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
@@ -139,10 +141,80 @@ public class InstanceList extends TreeMap<String, Instance> {
      */
     public void addMaster(Component comp, Date rangeStart, Date rangeEnd) {
 
+        MasterPeriod period = getMasterPeriod(comp);
+
+        if (period == null) {
+            return;
+        }
+
+        Date start = period.getStart();
+        TemporalAmount duration = period.getDuration();
+
+        addRecurrenceDates(comp, period, rangeStart, rangeEnd);
+
+        // recurrence rules..
+        PropertyList<RRule> rRules = comp.getProperties().getProperties(Property.RRULE);
+
+        // Adjust startRange to account for instances that occur before
+        // the startRange, and end after it
+        Date adjustedRangeStart = null;
+        Date ajustedRangeEnd = null;
+
+        if (rRules.size() > 0) {
+            adjustedRangeStart = adjustStartRangeIfNecessary(rangeStart, start, duration);
+            ajustedRangeEnd = adjustEndRangeIfNecessary(rangeEnd, start);
+        }
+
+
+        for (RRule rrule : rRules) {
+            //if start and adjustedRangeStart must be in the same timezone
+
+            DateList startDates = rrule.getRecur().getDates(start, adjustedRangeStart,
+                    ajustedRangeEnd,
+                    start instanceof DateTime ? Value.DATE_TIME : Value.DATE);
+            for (int j = 0; j < startDates.size(); j++) {
+                Date sd = (Date) startDates.get(j);
+                Date startDate = org.unitedinternet.cosmo.calendar.util.Dates.getInstance(sd, start);
+                Date endDate = org.unitedinternet.cosmo.calendar.util.Dates.getInstance(new TemporalAmountAdapter(duration).getTime(sd), start);
+                Instance instance = new Instance(comp, startDate, endDate);
+                put(instance.getRid().toString(), instance);
+            }
+        }
+        // exception dates..
+        for (Date sd : getExceptionDates(comp)) {
+            Instance instance = new Instance(comp, sd, sd);
+            remove(instance.getRid().toString());
+        }
+        // exception rules..
+        PropertyList<ExRule> exRules = comp.getProperties().getProperties(Property.EXRULE);
+        if (exRules.size() > 0 && adjustedRangeStart == null) {
+            adjustedRangeStart = adjustStartRangeIfNecessary(rangeStart, start, duration);
+            ajustedRangeEnd = adjustEndRangeIfNecessary(rangeEnd, start);
+        }
+
+        for (ExRule exrule : exRules) {
+            DateList startDates = exrule.getRecur().getDates(start, adjustedRangeStart,
+                    ajustedRangeEnd,
+                    start instanceof DateTime ? Value.DATE_TIME : Value.DATE);
+            for (Date sd : startDates) {
+                Instance instance = new Instance(comp, sd, sd);
+                remove(instance.getRid().toString());
+            }
+        }
+    }
+
+    /**
+     * Gets the start, end and instance duration of a master component.
+     *
+     * @param comp The master component.
+     * @return The period or null if the component has no start date.
+     */
+    MasterPeriod getMasterPeriod(Component comp) {
+
         Date start = getStartDate(comp);
 
         if (start == null) {
-            return;
+            return null;
         }
 
         Value startValue = start instanceof DateTime ? Value.DATE_TIME : Value.DATE;
@@ -186,6 +258,22 @@ public class InstanceList extends TreeMap<String, Instance> {
             }
             duration = java.time.Duration.between(start.toInstant(), end.toInstant());
         }
+        return new MasterPeriod(start, end, duration);
+    }
+
+    /**
+     * Add the first instance of a master component without recurrence rules and
+     * its recurrence dates if they fall within the specified time range.
+     *
+     * @param comp       The master component.
+     * @param period     The period of the master component.
+     * @param rangeStart The start date in range.
+     * @param rangeEnd   The end date in range.
+     */
+    void addRecurrenceDates(Component comp, MasterPeriod period, Date rangeStart, Date rangeEnd) {
+        Date start = period.getStart();
+        Date end = period.getEnd();
+        TemporalAmount duration = period.getDuration();
 		   // Always add first instance if included in range..
         if (dateBefore(start, rangeEnd) &&
                 (dateAfter(end, rangeStart) ||
@@ -201,9 +289,9 @@ public class InstanceList extends TreeMap<String, Instance> {
             // Both PERIOD and DATE/DATE-TIME values allowed
             if (Value.PERIOD.equals(rdate.getParameters().getParameter(
                     Parameter.VALUE))) {                
-                for (Period period : rdate.getPeriods()) {                    
-                    Date periodStart = adjustFloatingDateIfNecessary(period.getStart());
-                    Date periodEnd = adjustFloatingDateIfNecessary(period.getEnd());
+                for (Period rdatePeriod : rdate.getPeriods()) {                    
+                    Date periodStart = adjustFloatingDateIfNecessary(rdatePeriod.getStart());
+                    Date periodEnd = adjustFloatingDateIfNecessary(rdatePeriod.getEnd());
                     // Add period if it overlaps rage
                     if (periodStart.before(rangeEnd)
                             && periodEnd.after(rangeStart)) {
@@ -225,61 +313,25 @@ public class InstanceList extends TreeMap<String, Instance> {
                 }
             }
         }
+    }
 
-        // recurrence rules..
-        PropertyList<RRule> rRules = comp.getProperties().getProperties(Property.RRULE);
-
-        // Adjust startRange to account for instances that occur before
-        // the startRange, and end after it
-        Date adjustedRangeStart = null;
-        Date ajustedRangeEnd = null;
-
-        if (rRules.size() > 0) {
-            adjustedRangeStart = adjustStartRangeIfNecessary(rangeStart, start, duration);
-            ajustedRangeEnd = adjustEndRangeIfNecessary(rangeEnd, start);
-        }
-
-
-        for (RRule rrule : rRules) {
-            //if start and adjustedRangeStart must be in the same timezone
-
-            DateList startDates = rrule.getRecur().getDates(start, adjustedRangeStart,
-                    ajustedRangeEnd,
-                    start instanceof DateTime ? Value.DATE_TIME : Value.DATE);
-            for (int j = 0; j < startDates.size(); j++) {
-                Date sd = (Date) startDates.get(j);
-                Date startDate = org.unitedinternet.cosmo.calendar.util.Dates.getInstance(sd, start);
-                Date endDate = org.unitedinternet.cosmo.calendar.util.Dates.getInstance(new TemporalAmountAdapter(duration).getTime(sd), start);
-                Instance instance = new Instance(comp, startDate, endDate);
-                put(instance.getRid().toString(), instance);
-            }
-        }
-        // exception dates..
+    /**
+     * Gets the exception dates of a master component.
+     *
+     * @param comp The master component.
+     * @return The dates.
+     */
+    List<Date> getExceptionDates(Component comp) {
+        List<Date> dates = new ArrayList<>();
         PropertyList<ExDate> exDates = comp.getProperties().getProperties(Property.EXDATE);
         for (ExDate exDate : exDates) {
             for (Date sd : exDate.getDates()) {
                 sd = convertToUTCIfNecessary(sd);
                 sd = adjustFloatingDateIfNecessary(sd);
-                Instance instance = new Instance(comp, sd, sd);
-                remove(instance.getRid().toString());
-            }
-        }
-        // exception rules..
-        PropertyList<ExRule> exRules = comp.getProperties().getProperties(Property.EXRULE);
-        if (exRules.size() > 0 && adjustedRangeStart == null) {
-            adjustedRangeStart = adjustStartRangeIfNecessary(rangeStart, start, duration);
-            ajustedRangeEnd = adjustEndRangeIfNecessary(rangeEnd, start);
-        }
-
-        for (ExRule exrule : exRules) {
-            DateList startDates = exrule.getRecur().getDates(start, adjustedRangeStart,
-                    ajustedRangeEnd,
-                    start instanceof DateTime ? Value.DATE_TIME : Value.DATE);
-            for (Date sd : startDates) {
-                Instance instance = new Instance(comp, sd, sd);
-                remove(instance.getRid().toString());
+                dates.add(sd);
             }
         }
+        return dates;
     }
 
     /**
@@ -300,68 +352,14 @@ public class InstanceList extends TreeMap<String, Instance> {
             return false;
         }
 
-        // First check to see that the appropriate properties are present.
-
-        // We need a DTSTART.
-        Date dtstart = getStartDate(comp);
-        if (dtstart == null) {
+        Instance instance = createOverride(comp);
+        if (instance == null) {
             return false;
         }
 
-        Value startValue = dtstart instanceof DateTime ? Value.DATE_TIME : Value.DATE;
-
-        dtstart = convertToUTCIfNecessary(dtstart);
-
-        if (dtstart instanceof DateTime) {
-            // adjust floating time if timezone is present
-            dtstart = adjustFloatingDateIfNecessary(dtstart);
-        }
-
-        // We need either DTEND or DURATION.
-        Date dtend = getEndDate(comp);
-        if (dtend == null) {
-            TemporalAmount duration;
-            if (startValue.equals(Value.DATE_TIME)) {
-                // Its an timed event with no duration
-                duration = ZERO;
-            } else {
-                // Its an all day event so duration is one day
-                duration = ONE_DAY;
-            }
-            dtend = org.unitedinternet.cosmo.calendar.util.Dates.getInstance(new TemporalAmountAdapter(duration).getTime(dtstart), dtstart);
-        } else {
-            // Convert to UTC if needed
-            dtend = convertToUTCIfNecessary(dtend);
-            if (startValue.equals(Value.DATE_TIME)) {
-                // Adjust floating end time if timezone present
-                dtend = adjustFloatingDateIfNecessary(dtend);
-                // Handle case where dtend is before dtstart, in which the duration
-                // will be 0, since it is a timed event
-                if (dtend.before(dtstart)) {
-                    dtend = org.unitedinternet.cosmo.calendar.util.Dates.getInstance(new TemporalAmountAdapter(ZERO)
-                            .getTime(dtstart), dtstart);
-                }
-            } else {
-                // Handle case where dtend is before dtstart, in which the duration
-                // will be 1 day since its an all-day event
-                if (dtend.before(dtstart)) {
-                    dtend = org.unitedinternet.cosmo.calendar.util.Dates.getInstance(
-                            new TemporalAmountAdapter(ONE_DAY).getTime(dtstart), dtstart);
-                }
-            }
-        }
-
-        // Now create the map entry
-        Date riddt = getRecurrenceId(comp);
-        riddt = convertToUTCIfNecessary(riddt);
-        if (riddt instanceof DateTime) {
-            riddt = adjustFloatingDateIfNecessary(riddt);
-        }
-
-        boolean future = getRange(comp);
-
-        Instance instance = new Instance(comp, dtstart, dtend, riddt, true,
-                future);
+        Date dtstart = instance.getStart();
+        Date dtend = instance.getEnd();
+        Date riddt = instance.getRid();
         String key = instance.getRid().toString();
 
         // Replace the master instance if it exists
@@ -477,6 +475,77 @@ public class InstanceList extends TreeMap<String, Instance> {
         return modified;
     }
 
+    /**
+     * Creates the instance of an override component.
+     *
+     * @param comp The override component.
+     * @return The instance or null if the component has no start date.
+     */
+    Instance createOverride(Component comp) {
+
+        // First check to see that the appropriate properties are present.
+
+        // We need a DTSTART.
+        Date dtstart = getStartDate(comp);
+        if (dtstart == null) {
+            return null;
+        }
+
+        Value startValue = dtstart instanceof DateTime ? Value.DATE_TIME : Value.DATE;
+
+        dtstart = convertToUTCIfNecessary(dtstart);
+
+        if (dtstart instanceof DateTime) {
+            // adjust floating time if timezone is present
+            dtstart = adjustFloatingDateIfNecessary(dtstart);
+        }
+
+        // We need either DTEND or DURATION.
+        Date dtend = getEndDate(comp);
+        if (dtend == null) {
+            TemporalAmount duration;
+            if (startValue.equals(Value.DATE_TIME)) {
+                // Its an timed event with no duration
+                duration = ZERO;
+            } else {
+                // Its an all day event so duration is one day
+                duration = ONE_DAY;
+            }
+            dtend = org.unitedinternet.cosmo.calendar.util.Dates.getInstance(new TemporalAmountAdapter(duration).getTime(dtstart), dtstart);
+        } else {
+            // Convert to UTC if needed
+            dtend = convertToUTCIfNecessary(dtend);
+            if (startValue.equals(Value.DATE_TIME)) {
+                // Adjust floating end time if timezone present
+                dtend = adjustFloatingDateIfNecessary(dtend);
+                // Handle case where dtend is before dtstart, in which the duration
+                // will be 0, since it is a timed event
+                if (dtend.before(dtstart)) {
+                    dtend = org.unitedinternet.cosmo.calendar.util.Dates.getInstance(new TemporalAmountAdapter(ZERO)
+                            .getTime(dtstart), dtstart);
+                }
+            } else {
+                // Handle case where dtend is before dtstart, in which the duration
+                // will be 1 day since its an all-day event
+                if (dtend.before(dtstart)) {
+                    dtend = org.unitedinternet.cosmo.calendar.util.Dates.getInstance(
+                            new TemporalAmountAdapter(ONE_DAY).getTime(dtstart), dtstart);
+                }
+            }
+        }
+
+        // Now create the map entry
+        Date riddt = getRecurrenceId(comp);
+        riddt = convertToUTCIfNecessary(riddt);
+        if (riddt instanceof DateTime) {
+            riddt = adjustFloatingDateIfNecessary(riddt);
+        }
+
+        boolean future = getRange(comp);
+
+        return new Instance(comp, dtstart, dtend, riddt, true, future);
+    }
+
     /**
      * Gets start date.
      *
@@ -565,7 +634,7 @@ public class InstanceList extends TreeMap<String, Instance> {
      * @param dur        The duration.
      * @return The adjusted start Range date.
      */
-    private Date adjustStartRangeIfNecessary(Date startRange, Date start, TemporalAmount dur) {
+    Date adjustStartRangeIfNecessary(Date startRange, Date start, TemporalAmount dur) {
 
         // If start is a Date, then we need to convert startRange to
         // a Date using the timezone present
@@ -604,7 +673,7 @@ public class InstanceList extends TreeMap<String, Instance> {
      * @param start    The date start.
      * @return The date.
      */
-    private Date adjustEndRangeIfNecessary(Date endRange, Date start) {
+    Date adjustEndRangeIfNecessary(Date endRange, Date start) {
 
         // If instance is DateTime or timezone is not present, then
         // do nothing
@@ -701,4 +770,31 @@ public class InstanceList extends TreeMap<String, Instance> {
                 && dateAfter(dateEnd, rangeStart);
     }
 
+    /**
+     * Start, end and instance duration of a master component.
+     */
+    static class MasterPeriod {
+
+        private final Date start;
+        private final Date end;
+        private final TemporalAmount duration;
+
+        MasterPeriod(Date start, Date end, TemporalAmount duration) {
+            this.start = start;
+            this.end = end;
+            this.duration = duration;
+        }
+
+        Date getStart() {
+            return start;
+        }
+
+        Date getEnd() {
+            return end;
+        }
+
+        TemporalAmount getDuration() {
+            return duration;
+        }
+    }
 }
@@ -0,0 +1,423 @@
+package org.unitedinternet.cosmo.calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateList;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Parameter;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.PropertyList;
+import net.fortuna.ical4j.model.Recur;
+import net.fortuna.ical4j.model.TemporalAmountAdapter;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.model.property.RRule;
+
+/**
+ * Iterator over the occurrences of a recurring component within a time range, in order of recurrence id. It yields
+ * the same instances as an {@link InstanceList} filled for the same range, but the recurrence rules are expanded in
+ * windows that double in length as the iteration proceeds and overrides are applied on the fly, so that callers that
+ * need only the first matching occurrence stop without expanding the whole range.
+ * <p>
+ * The current occurrence is exposed as epoch milliseconds, ical4j dates are only created on request:
+ *
+ * <pre>
+ * OccurrenceIterator occurrences = expander.iterateOccurrences(master, overrides, rangeStart, rangeEnd, timezone);
+ * occurrences.skipTo(date.getTime());
+ * while (occurrences.next()) {
+ *     long start = occurrences.getStart();
+ * }
+ * </pre>
+ *
+ * Overrides with a THISANDFUTURE range and exception rules affect instances beyond their own date, for those the
+ * instances are expanded up front.
+ */
+public class OccurrenceIterator {
+
+    /**
+     * Length of the first window the recurrence rules are expanded for.
+     */
+    static final long INITIAL_WINDOW = 7L * 24 * 60 * 60 * 1000;
+
+    private static final long NONE = Long.MAX_VALUE;
+
+    private static final long[] NO_DATES = new long[0];
+
+    private final InstanceList instances;
+
+    private Iterator<Instance> expanded;
+
+    private Component master;
+    private InstanceList.MasterPeriod period;
+    private Value value;
+    private final List<Recur> rules = new ArrayList<>();
+    private final Set<Long> exceptionDates = new HashSet<>();
+    private Date rulesStart;
+    private Date rulesEnd;
+    private long windowStart;
+    private long windowLength = INITIAL_WINDOW;
+    private boolean rulesDone;
+    private long[] window = NO_DATES;
+    private int windowIndex;
+
+    private Instance[] dates = new Instance[0];
+    private int dateIndex;
+
+    private Instance[] overrides = new Instance[0];
+    private boolean[] visible = new boolean[0];
+    private int overrideIndex;
+
+    private long floor = Long.MIN_VALUE;
+
+    private long recurrenceId;
+    private long start;
+    private long end;
+    private Instance instance;
+    private Component component;
+
+    /**
+     * Constructor.
+     *
+     * @param master        The master component.
+     * @param modifications The modifications to the master component.
+     * @param rangeStart    The start date in range.
+     * @param rangeEnd      The end date in range.
+     * @param timezone      Optional timezone to use for floating dates.
+     */
+    OccurrenceIterator(Component master, List<Component> modifications, Date rangeStart, Date rangeEnd,
+            TimeZone timezone) {
+        this.instances = new InstanceList();
+        this.instances.setTimezone(timezone);
+        if (needsExpansion(master, modifications)) {
+            this.instances.addMaster(master, rangeStart, rangeEnd);
+            for (Component mod : modifications) {
+                this.instances.addOverride(mod, rangeStart, rangeEnd);
+            }
+            this.expanded = this.instances.values().iterator();
+            return;
+        }
+        this.period = this.instances.getMasterPeriod(master);
+        if (this.period != null) {
+            initMaster(master, rangeStart, rangeEnd);
+        } else {
+            this.rulesDone = true;
+        }
+        initOverrides(modifications, rangeStart, rangeEnd);
+    }
+
+    /**
+     * Moves to the next occurrence.
+     *
+     * @return true if there is one and false if the iteration is over
+     */
+    public boolean next() {
+        if (this.expanded != null) {
+            while (this.expanded.hasNext()) {
+                Instance next = this.expanded.next();
+                if (next.getRid().getTime() >= this.floor) {
+                    setCurrent(next);
+                    return true;
+                }
+            }
+            return false;
+        }
+        while (true) {
+            long ruleRid = peekRule();
+            long dateRid = peekDate();
+            long overrideRid = peekOverride();
+            long masterRid = Math.min(ruleRid, dateRid);
+            if (overrideRid != NONE && overrideRid <= masterRid) {
+                // the override replaces the master instance, if any
+                if (ruleRid == overrideRid) {
+                    this.windowIndex++;
+                }
+                if (dateRid == overrideRid) {
+                    this.dateIndex++;
+                }
+                int index = this.overrideIndex++;
+                if (this.visible[index]) {
+                    setCurrent(this.overrides[index]);
+                    return true;
+                }
+                continue;
+            }
+            if (masterRid == NONE) {
+                return false;
+            }
+            if (dateRid == masterRid) {
+                this.dateIndex++;
+                if (ruleRid != masterRid) {
+                    setCurrent(this.dates[this.dateIndex - 1]);
+                    return true;
+                }
+            }
+            // instances from rules take precedence over recurrence dates
+            this.windowIndex++;
+            this.instance = null;
+            this.component = this.master;
+            this.recurrenceId = ruleRid;
+            this.start = ruleRid;
+            this.end = NONE;
+            return true;
+        }
+    }
+
+    /**
+     * Skips the occurrences whose recurrence id is before the given instant, so that the next call to {@link #next()}
+     * moves to the first occurrence on or after it. Recurrence rules are not expanded for the skipped time.
+     *
+     * @param instant epoch milliseconds
+     */
+    public void skipTo(long instant) {
+        this.floor = Math.max(this.floor, instant);
+    }
+
+    /**
+     * @return the recurrence id of the current occurrence in epoch milliseconds
+     */
+    public long getRecurrenceId() {
+        return this.recurrenceId;
+    }
+
+    /**
+     * @return the start of the current occurrence in epoch milliseconds
+     */
+    public long getStart() {
+        return this.start;
+    }
+
+    /**
+     * @return the end of the current occurrence in epoch milliseconds
+     */
+    public long getEnd() {
+        if (this.end == NONE) {
+            this.end = new TemporalAmountAdapter(this.period.getDuration()).getTime(getStartDate()).getTime();
+        }
+        return this.end;
+    }
+
+    /**
+     * @return true if the current occurrence is a modification
+     */
+    public boolean isOverridden() {
+        return this.instance != null && this.instance.isOverridden();
+    }
+
+    /**
+     * @return the component of the current occurrence
+     */
+    public Component getComponent() {
+        return this.component;
+    }
+
+    /**
+     * @return the recurrence id of the current occurrence, normalised like {@link Instance#getRid()}
+     */
+    public Date getRecurrenceIdDate() {
+        if (this.instance != null) {
+            return this.instance.getRid();
+        }
+        return Instance.copyNormalisedDate(getStartDate());
+    }
+
+    /**
+     * @return the current occurrence as an instance
+     */
+    public Instance getInstance() {
+        if (this.instance != null) {
+            return this.instance;
+        }
+        Date startDate = getStartDate();
+        return new Instance(this.master, startDate,
+                org.unitedinternet.cosmo.calendar.util.Dates.getInstance(new java.util.Date(getEnd()), startDate));
+    }
+
+    private Date getStartDate() {
+        if (this.instance != null) {
+            return this.instance.getStart();
+        }
+        return org.unitedinternet.cosmo.calendar.util.Dates.getInstance(new java.util.Date(this.start),
+                this.period.getStart());
+    }
+
+    private void setCurrent(Instance current) {
+        this.instance = current;
+        this.component = current.getComp();
+        this.recurrenceId = current.getRid().getTime();
+        this.start = current.getStart().getTime();
+        this.end = current.getEnd().getTime();
+    }
+
+    private static boolean needsExpansion(Component master, List<Component> modifications) {
+        if (!master.getProperties().getProperties(Property.EXRULE).isEmpty()) {
+            return true;
+        }
+        for (Component mod : modifications) {
+            Property rid = mod.getProperties().getProperty(Property.RECURRENCE_ID);
+            if (rid != null && rid.getParameters().getParameter(Parameter.RANGE) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void initMaster(Component comp, Date rangeStart, Date rangeEnd) {
+        this.master = comp;
+        Date seed = this.period.getStart();
+        this.value = seed instanceof DateTime ? Value.DATE_TIME : Value.DATE;
+        for (Date exDate : this.instances.getExceptionDates(comp)) {
+            this.exceptionDates.add(exDate.getTime());
+        }
+
+        // first instance and recurrence dates, usually few
+        this.instances.addRecurrenceDates(comp, this.period, rangeStart, rangeEnd);
+        List<Instance> fixed = new ArrayList<>(this.instances.size());
+        for (Instance candidate : this.instances.values()) {
+            if (!this.exceptionDates.contains(candidate.getRid().getTime())) {
+                fixed.add(candidate);
+            }
+        }
+        this.instances.clear();
+        fixed.sort(Comparator.comparingLong(candidate -> candidate.getRid().getTime()));
+        this.dates = fixed.toArray(new Instance[fixed.size()]);
+
+        PropertyList<RRule> rRules = comp.getProperties().getProperties(Property.RRULE);
+        for (RRule rrule : rRules) {
+            this.rules.add(rrule.getRecur());
+        }
+        if (this.rules.isEmpty()) {
+            this.rulesDone = true;
+            return;
+        }
+        this.rulesStart = this.instances.adjustStartRangeIfNecessary(rangeStart, seed, this.period.getDuration());
+        this.rulesEnd = this.instances.adjustEndRangeIfNecessary(rangeEnd, seed);
+        this.windowStart = this.rulesStart.getTime();
+    }
+
+    private void initOverrides(List<Component> modifications, Date rangeStart, Date rangeEnd) {
+        // a later override of the same recurrence id wins
+        Map<Long, Instance> byRid = new LinkedHashMap<>();
+        for (Component mod : modifications) {
+            if (mod.getProperties().getProperty(Property.RECURRENCE_ID) == null) {
+                continue;
+            }
+            Instance override = this.instances.createOverride(mod);
+            if (override != null) {
+                Long rid = override.getRid().getTime();
+                byRid.remove(rid);
+                byRid.put(rid, override);
+            }
+        }
+        List<Instance> sorted = new ArrayList<>(byRid.values());
+        sorted.sort(Comparator.comparingLong(override -> override.getRid().getTime()));
+        this.overrides = sorted.toArray(new Instance[sorted.size()]);
+        this.visible = new boolean[this.overrides.length];
+        for (int i = 0; i < this.overrides.length; i++) {
+            Instance override = this.overrides[i];
+            this.visible[i] = override.getStart().before(rangeEnd) && override.getEnd().after(rangeStart);
+        }
+    }
+
+    private long peekDate() {
+        while (this.dateIndex < this.dates.length) {
+            long rid = this.dates[this.dateIndex].getRid().getTime();
+            if (rid >= this.floor) {
+                return rid;
+            }
+            this.dateIndex++;
+        }
+        return NONE;
+    }
+
+    private long peekOverride() {
+        while (this.overrideIndex < this.overrides.length) {
+            long rid = this.overrides[this.overrideIndex].getRid().getTime();
+            if (rid >= this.floor) {
+                return rid;
+            }
+            this.overrideIndex++;
+        }
+        return NONE;
+    }
+
+    private long peekRule() {
+        while (true) {
+            while (this.windowIndex < this.window.length) {
+                long rid = this.window[this.windowIndex];
+                if (rid >= this.floor) {
+                    return rid;
+                }
+                this.windowIndex++;
+            }
+            if (this.rulesDone) {
+                return NONE;
+            }
+            expandWindow();
+        }
+    }
+
+    /**
+     * Expands the recurrence rules for the next window, starting at the skipped to instant if that is later.
+     */
+    private void expandWindow() {
+        boolean first = this.windowStart == this.rulesStart.getTime();
+        long from = Math.max(this.windowStart, this.floor);
+        long rangeEndTime = this.rulesEnd.getTime();
+        if (!first && from >= rangeEndTime) {
+            this.rulesDone = true;
+            this.window = NO_DATES;
+            this.windowIndex = 0;
+            return;
+        }
+        long to = from + this.windowLength;
+        boolean last = to >= rangeEndTime || to < from;
+        // boundaries between windows are exclusive, dates on them are taken from the window that starts there
+        Date periodStart = first && from == this.windowStart ? this.rulesStart : utc(from - 1);
+        Date periodEnd = last ? this.rulesEnd : utc(to);
+
+        long[] found = NO_DATES;
+        int count = 0;
+        for (Recur recur : this.rules) {
+            DateList startDates = recur.getDates(this.period.getStart(), periodStart, periodEnd, this.value);
+            for (int i = 0; i < startDates.size(); i++) {
+                long rid = startDates.get(i).getTime();
+                if (rid < from && periodStart != this.rulesStart || !last && rid >= to
+                        || this.exceptionDates.contains(rid)) {
+                    continue;
+                }
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, Math.max(16, count * 2));
+                }
+                found[count++] = rid;
+            }
+        }
+        Arrays.sort(found, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || found[distinct - 1] != found[i]) {
+                found[distinct++] = found[i];
+            }
+        }
+        this.window = distinct == found.length ? found : Arrays.copyOf(found, distinct);
+        this.windowIndex = 0;
+        this.windowStart = to;
+        this.windowLength *= 2;
+        this.rulesDone = last;
+    }
+
+    private static DateTime utc(long time) {
+        DateTime date = new DateTime(time);
+        date.setUtc(true);
+        return date;
+    }
+}
@@ -17,8 +17,14 @@ package org.unitedinternet.cosmo.calendar;
 
 import java.time.temporal.TemporalAmount;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -292,22 +298,8 @@ public class RecurrenceExpander {
      *         time range
      */
     public InstanceList getOcurrences(Calendar calendar, Date rangeStart, Date rangeEnd, TimeZone timezone) {
-        ComponentList<VEvent> vevents = calendar.getComponents().getComponents(Component.VEVENT);
-        
         List<Component> exceptions = new ArrayList<Component>();
-        Component masterComp = null;
-        
-        // get list of exceptions (VEVENT with RECURRENCEID)
-        for (Iterator<VEvent> i = vevents.iterator(); i.hasNext();) {
-            VEvent event = i.next();
-            if (event.getRecurrenceId() != null) {
-                exceptions.add(event);
-            }
-            else {
-                masterComp = event; 
-            }
-            
-        }
+        Component masterComp = getMasterAndExceptions(calendar, exceptions);
         
         return getOcurrences(masterComp, exceptions, rangeStart, rangeEnd, timezone);
     }
@@ -350,6 +342,130 @@ public class RecurrenceExpander {
     }
     
     
+    /**
+     * Iterate over the occurrences of a recurring event for given time-range without
+     * expanding them all up front.
+     * @param calendar calendar containing recurring event and modifications
+     * @param rangeStart expand start
+     * @param rangeEnd expand end
+     * @param timezone Optional timezone to use for floating dates.  If null, the
+     *        system default is used.
+     * @return OccurrenceIterator over the occurences of recurring event during
+     *         time range
+     */
+    public OccurrenceIterator iterateOccurrences(Calendar calendar, Date rangeStart, Date rangeEnd,
+                                                 TimeZone timezone) {
+        List<Component> exceptions = new ArrayList<Component>();
+        Component masterComp = getMasterAndExceptions(calendar, exceptions);
+        
+        return iterateOccurrences(masterComp, exceptions, rangeStart, rangeEnd, timezone);
+    }
+    
+    /**
+     * Iterate over the occurrences of a recurring component for given time-range
+     * without expanding them all up front.
+     * @param component recurring component to expand
+     * @param modifications modifications to recurring component
+     * @param rangeStart expand start date
+     * @param rangeEnd expand end date
+     * @param timezone Optional timezone to use for floating dates.  If null, the
+     *        system default is used.
+     * @return OccurrenceIterator over the occurences of recurring component during
+     *         time range
+     */
+    public OccurrenceIterator iterateOccurrences(Component component, List<Component> modifications,
+                                                 Date rangeStart, Date rangeEnd, TimeZone timezone) {
+        return new OccurrenceIterator(component, modifications, rangeStart, rangeEnd, timezone);
+    }
+    
+    /**
+     * Determine the modifications that change the occurrences of a recurring component
+     * in a time-range, i.e. those that replace one of its occurrences or fall within the range.
+     * @param masters recurring components
+     * @param modifications modifications to the recurring components
+     * @param rangeStart range start date
+     * @param rangeEnd range end date
+     * @return the modifications that change the occurrences, in the given order
+     */
+    public List<Component> getEffectiveModifications(List<Component> masters, List<Component> modifications,
+                                                     Date rangeStart, Date rangeEnd) {
+        if (masters.size() != 1) {
+            return getEffectiveModificationsExpanded(masters, modifications, rangeStart, rangeEnd);
+        }
+        
+        // walk the modifications in order of recurrence id along the occurrences of the master
+        InstanceList helper = new InstanceList();
+        List<Instance> overrides = new ArrayList<Instance>();
+        for (Component mod : modifications) {
+            if (mod.getProperties().getProperty(Property.RECURRENCE_ID) == null) {
+                continue;
+            }
+            Instance override = helper.createOverride(mod);
+            if (override != null) {
+                if (override.isFuture()) {
+                    // THISANDFUTURE modifications change all following occurrences
+                    return getEffectiveModificationsExpanded(masters, modifications, rangeStart, rangeEnd);
+                }
+                overrides.add(override);
+            }
+        }
+        // stable, so that modifications of the same occurrence keep their order
+        overrides.sort(Comparator.comparingLong(override -> override.getRid().getTime()));
+        
+        OccurrenceIterator occurrences = iterateOccurrences(masters.get(0), new ArrayList<Component>(0),
+                rangeStart, rangeEnd, null);
+        Set<Component> effective = Collections.newSetFromMap(new IdentityHashMap<Component, Boolean>());
+        // whether the instance of a recurrence id is in the set after the overrides seen so far
+        Map<Long, Boolean> present = new HashMap<Long, Boolean>();
+        boolean more = true;
+        boolean current = false;
+        for (Instance override : overrides) {
+            long rid = override.getRid().getTime();
+            if (more && (!current || occurrences.getRecurrenceId() < rid)) {
+                occurrences.skipTo(rid);
+                current = occurrences.next();
+                more = current;
+            }
+            boolean replaces = present.getOrDefault(rid, current && occurrences.getRecurrenceId() == rid);
+            boolean inRange = override.getStart().before(rangeEnd) && override.getEnd().after(rangeStart);
+            if (replaces || inRange) {
+                effective.add(override.getComp());
+            }
+            present.put(rid, inRange);
+        }
+        List<Component> result = new ArrayList<Component>();
+        for (Component mod : modifications) {
+            if (effective.contains(mod)) {
+                result.add(mod);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Determine the modifications that change the occurrences of recurring components
+     * by adding them to an expanded InstanceList.
+     * @param masters recurring components
+     * @param modifications modifications to the recurring components
+     * @param rangeStart range start date
+     * @param rangeEnd range end date
+     * @return the modifications that change the occurrences, in the given order
+     */
+    private List<Component> getEffectiveModificationsExpanded(List<Component> masters, List<Component> modifications,
+                                                              Date rangeStart, Date rangeEnd) {
+        InstanceList instances = new InstanceList();
+        for (Component master : masters) {
+            instances.addComponent(master, rangeStart, rangeEnd);
+        }
+        List<Component> result = new ArrayList<Component>();
+        for (Component mod : modifications) {
+            if (instances.addOverride(mod, rangeStart, rangeEnd)) {
+                result.add(mod);
+            }
+        }
+        return result;
+    }
+    
     /**
      * Determine if date is a valid occurence in recurring calendar component
      * @param calendar recurring calendar component
@@ -382,16 +498,36 @@ public class RecurrenceExpander {
         		tz = evt.getStartDate().getTimeZone();
         	}
         }
-        InstanceList instances = getOcurrences(calendar, occurrence, rangeEnd, tz);
+        OccurrenceIterator occurrences = iterateOccurrences(calendar, occurrence, rangeEnd, tz);
+        
+        // occurrences are ordered by recurrence id, so only the first one on or after the date matters
+        occurrences.skipTo(occurrence.getTime());
+        return occurrences.next() && occurrences.getRecurrenceId() == occurrence.getTime();
+    }
+    
+    /**
+     * Gets the master component of a calendar and collects its exceptions.
+     * @param calendar The calendar.
+     * @param exceptions List the exceptions (VEVENT with RECURRENCEID) are added to.
+     * @return The master component.
+     */
+    private Component getMasterAndExceptions(Calendar calendar, List<Component> exceptions) {
+        ComponentList<VEvent> vevents = calendar.getComponents().getComponents(Component.VEVENT);
+        
+        Component masterComp = null;
         
-        for(Iterator<Instance> it = instances.values().iterator(); it.hasNext();) {
-            Instance instance = it.next();
-            if(instance.getRid().getTime()==occurrence.getTime()) {
-                return true;
+        // get list of exceptions (VEVENT with RECURRENCEID)
+        for (Iterator<VEvent> i = vevents.iterator(); i.hasNext();) {
+            VEvent event = i.next();
+            if (event.getRecurrenceId() != null) {
+                exceptions.add(event);
             }
+            else {
+                masterComp = event; 
+            }
+            
         }
-        
-        return false;
+        return masterComp;
     }
     
     /**
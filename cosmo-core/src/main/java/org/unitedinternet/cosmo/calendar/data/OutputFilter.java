@@ -20,6 +20,7 @@ import java.net.URISyntaxException;
 import java.text.ParseException;
 import java.time.Duration;
 import java.time.temporal.TemporalAmount;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -31,6 +32,7 @@ import org.unitedinternet.cosmo.CosmoException;
 import org.unitedinternet.cosmo.calendar.ICalendarUtils;
 import org.unitedinternet.cosmo.calendar.Instance;
 import org.unitedinternet.cosmo.calendar.InstanceList;
+import org.unitedinternet.cosmo.calendar.RecurrenceExpander;
 
 import net.fortuna.ical4j.model.Calendar;
 import net.fortuna.ical4j.model.Component;
@@ -131,8 +133,8 @@ public class OutputFilter {
         Calendar newCal = new Calendar();
         newCal.getProperties().addAll(calendar.getProperties());
        
-        InstanceList instances = new InstanceList();
-        ComponentList<CalendarComponent> overrides = new ComponentList<>();
+        List<Component> masters = new ArrayList<>();
+        List<Component> overrides = new ArrayList<>();
         
         // Limit range
         Period period = getLimit();
@@ -147,9 +149,7 @@ public class OutputFilter {
                 if (comp.getProperties().
                     getProperty(Property.RECURRENCE_ID) == null) {
                     newCal.getComponents().add(comp);
-                    // seed the InstanceList with master component
-                    instances.addComponent((CalendarComponent)comp, period.getStart(),
-                                           period.getEnd());
+                    masters.add(comp);
                 }
                 // Keep track of overrides, we'll process later
                 else {
@@ -160,12 +160,11 @@ public class OutputFilter {
             }
         }
         
-        // Add override components to InstanceList.
-        // Only add override if it changes anything about the InstanceList.
-        for (CalendarComponent comp : overrides) {
-            if (instances.addOverride(comp, period.getStart(), period.getEnd())) {
-                newCal.getComponents().add(comp);
-            }
+        // Only add override if it changes anything about the occurrences
+        // of the master component.
+        for (Component comp : new RecurrenceExpander().getEffectiveModifications(masters, overrides,
+                period.getStart(), period.getEnd())) {
+            newCal.getComponents().add((CalendarComponent) comp);
         }
         
         return newCal;
@@ -15,7 +15,9 @@
  */
 package org.unitedinternet.cosmo.calendar.query;
 
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import net.fortuna.ical4j.model.Period;
 import net.fortuna.ical4j.model.component.VFreeBusy;
@@ -67,6 +69,18 @@ public interface CalendarQueryProcessor {
      * @return True if the item matches the provided filter.
      */
     boolean filterQuery(ICalendarItem item, CalendarFilter filter);
+
+    /**
+     * <p>
+     * Executes an export query against a collection. Passes the stored
+     * iCalendar data of every event of the collection to the consumer, one
+     * event at a time, so that the collection can be written out without
+     * loading all of its items.
+     * </p>
+     * @param collection The collection.
+     * @param consumer The consumer of the iCalendar data of each event.
+     */
+    void exportQuery(CollectionItem collection, Consumer<String> consumer);
     
     /**
      * <p>
@@ -81,6 +95,21 @@ public interface CalendarQueryProcessor {
      */
     VFreeBusy freeBusyQuery(User user, Period period);
 
+    /**
+     * <p>
+     * Executes a free-busy query against several users, as for a scheduling
+     * request with many attendees. Returns the <code>VFREEBUSY</code> of
+     * each user in the order of the users. A query that can't be completed
+     * in time yields <code>null</code> for the user instead of delaying the
+     * results of the others.
+     * </p>
+     * @param users The users.
+     * @param period The period.
+     * @return VFreeBusy of each user, <code>null</code> if it is not
+     *         available.
+     */
+    List<VFreeBusy> freeBusyQuery(List<User> users, Period period);
+
     /**
      * <p>
      * Executes a free-busy query against a collection. Returns a
@@ -0,0 +1,154 @@
+package org.unitedinternet.cosmo.calendar.query.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.dao.external.ExternalCollectionItem;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
+import org.unitedinternet.cosmo.model.CollectionItem;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Period;
+import net.fortuna.ical4j.model.TimeZone;
+
+/**
+ * Busy time of calendar collections, so that free-busy queries don't expand the events of a collection again as
+ * long as it does not change.
+ * <p>
+ * Entries are keyed on the entity tag of the collection, which changes with every write to the collection or its
+ * items, so a write makes the entries of the previous tag unreachable and they age out of the cache. Busy time is
+ * computed for a window made of whole blocks of <code>cosmo.freebusy.cache.window</code> milliseconds around the
+ * queried period, so that queries of overlapping periods share an entry. Collections of external calendars are not
+ * cached, their entity tag does not change with the content.
+ */
+@Component
+public class BusyIntervalCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    /** One week. */
+    public static final long DEFAULT_WINDOW = 7L * 24 * 60 * 60 * 1000;
+
+    @Value("${cosmo.freebusy.cache.maxSize:" + DEFAULT_MAX_SIZE + "}")
+    private int maxSize;
+
+    @Value("${cosmo.freebusy.cache.window:" + DEFAULT_WINDOW + "}")
+    private long window;
+
+    private final Map<String, BusyIntervals> entries = new LinkedHashMap<String, BusyIntervals>(64, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BusyIntervals> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Default constructor.
+     */
+    public BusyIntervalCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_WINDOW);
+    }
+
+    public BusyIntervalCache(int maxSize, long window) {
+        this.maxSize = maxSize;
+        this.window = window;
+    }
+
+    @PostConstruct
+    public void registerMeters() {
+        FunctionCounter.builder(CosmoMetrics.FREEBUSY_CACHE, this, BusyIntervalCache::getHitCount)
+                .tags("result", "hit").register(CosmoMetrics.registry());
+        FunctionCounter.builder(CosmoMetrics.FREEBUSY_CACHE, this, BusyIntervalCache::getMissCount)
+                .tags("result", "miss").register(CosmoMetrics.registry());
+        Gauge.builder(CosmoMetrics.FREEBUSY_CACHE_SIZE, this, BusyIntervalCache::size)
+                .register(CosmoMetrics.registry());
+    }
+
+    /**
+     * Returns <code>true</code> if the busy time of the collection can be cached.
+     */
+    public boolean isCacheable(CollectionItem collection) {
+        return this.maxSize > 0 && collection.getUid() != null && collection.getEntityTag() != null
+                && !(collection instanceof ExternalCollectionItem);
+    }
+
+    /**
+     * Returns the window whose busy time is cached for queries of the given period.
+     *
+     * @param period
+     *            queried period
+     * @return the period extended to whole blocks
+     */
+    public Period getWindow(Period period) {
+        long start = Math.floorDiv(period.getStart().getTime(), this.window) * this.window;
+        long end = -Math.floorDiv(-period.getEnd().getTime(), this.window) * this.window;
+        return new Period(utc(start), utc(end));
+    }
+
+    /**
+     * Returns the busy time of the collection in the given window.
+     *
+     * @param collection
+     *            calendar collection
+     * @param timezone
+     *            timezone floating times of the collection are taken in, can be <code>null</code>
+     * @param window
+     *            window as returned by {@link #getWindow(Period)}
+     * @return busy time, <code>null</code> if not cached
+     */
+    public synchronized BusyIntervals get(CollectionItem collection, TimeZone timezone, Period window) {
+        BusyIntervals intervals = this.entries.get(key(collection, timezone, window));
+        if (intervals != null) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+        return intervals;
+    }
+
+    /**
+     * Caches the busy time of the collection in the given window.
+     */
+    public synchronized void put(CollectionItem collection, TimeZone timezone, Period window,
+            BusyIntervals intervals) {
+        this.entries.put(key(collection, timezone, window), intervals);
+    }
+
+    public synchronized long getHitCount() {
+        return this.hits;
+    }
+
+    public synchronized long getMissCount() {
+        return this.misses;
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    private static String key(CollectionItem collection, TimeZone timezone, Period window) {
+        return collection.getUid() + ':' + collection.getEntityTag() + ':'
+                + (timezone != null ? timezone.getID() : "") + ':' + window.getStart().getTime() + ':'
+                + window.getEnd().getTime();
+    }
+
+    private static DateTime utc(long millis) {
+        DateTime dateTime = new DateTime(millis);
+        dateTime.setUtc(true);
+        return dateTime;
+    }
+}
@@ -0,0 +1,117 @@
+package org.unitedinternet.cosmo.calendar.query.impl;
+
+import java.util.Arrays;
+
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Period;
+import net.fortuna.ical4j.model.PeriodList;
+
+/**
+ * Busy, busy tentative and busy unavailable time of a collection as merged and sorted intervals in milliseconds
+ * since the epoch.
+ * <p>
+ * As the intervals of each type are disjoint and sorted by start, they are sorted by end too, so the intervals that
+ * overlap a range are found by a binary search over the ends. Intervals are clipped to the range they are read for.
+ */
+public final class BusyIntervals {
+
+    private static final int BUSY = 0;
+    private static final int TENTATIVE = 1;
+    private static final int UNAVAILABLE = 2;
+
+    private final long[][] starts = new long[3][];
+
+    private final long[][] ends = new long[3][];
+
+    private BusyIntervals() {
+    }
+
+    /**
+     * Creates the intervals of the given periods.
+     *
+     * @param busyPeriods
+     *            busy periods, in any order and possibly overlapping
+     * @param busyTentativePeriods
+     *            busy tentative periods
+     * @param busyUnavailablePeriods
+     *            busy unavailable periods
+     * @return merged intervals
+     */
+    public static BusyIntervals of(PeriodList busyPeriods, PeriodList busyTentativePeriods,
+            PeriodList busyUnavailablePeriods) {
+        BusyIntervals intervals = new BusyIntervals();
+        intervals.merge(BUSY, busyPeriods);
+        intervals.merge(TENTATIVE, busyTentativePeriods);
+        intervals.merge(UNAVAILABLE, busyUnavailablePeriods);
+        return intervals;
+    }
+
+    /**
+     * Adds the intervals that overlap the given range to the period lists, clipped to the range.
+     *
+     * @param range
+     *            range of the free-busy query
+     * @param busyPeriods
+     *            list the busy periods are added to
+     * @param busyTentativePeriods
+     *            list the busy tentative periods are added to
+     * @param busyUnavailablePeriods
+     *            list the busy unavailable periods are added to
+     */
+    public void addTo(Period range, PeriodList busyPeriods, PeriodList busyTentativePeriods,
+            PeriodList busyUnavailablePeriods) {
+        long from = range.getStart().getTime();
+        long to = range.getEnd().getTime();
+        addTo(BUSY, from, to, busyPeriods);
+        addTo(TENTATIVE, from, to, busyTentativePeriods);
+        addTo(UNAVAILABLE, from, to, busyUnavailablePeriods);
+    }
+
+    /**
+     * Returns the number of intervals of all types.
+     */
+    public int size() {
+        return this.starts[BUSY].length + this.starts[TENTATIVE].length + this.starts[UNAVAILABLE].length;
+    }
+
+    private void merge(int type, PeriodList periods) {
+        long[][] sorted = new long[periods.size()][];
+        int i = 0;
+        for (Period period : periods) {
+            sorted[i++] = new long[] { period.getStart().getTime(), period.getEnd().getTime() };
+        }
+        Arrays.sort(sorted, (a, b) -> Long.compare(a[0], b[0]));
+
+        long[] mergedStarts = new long[sorted.length];
+        long[] mergedEnds = new long[sorted.length];
+        int count = 0;
+        for (long[] interval : sorted) {
+            if (count > 0 && interval[0] <= mergedEnds[count - 1]) {
+                mergedEnds[count - 1] = Math.max(mergedEnds[count - 1], interval[1]);
+            } else {
+                mergedStarts[count] = interval[0];
+                mergedEnds[count] = interval[1];
+                count++;
+            }
+        }
+        this.starts[type] = Arrays.copyOf(mergedStarts, count);
+        this.ends[type] = Arrays.copyOf(mergedEnds, count);
+    }
+
+    private void addTo(int type, long from, long to, PeriodList periods) {
+        long[] typeStarts = this.starts[type];
+        long[] typeEnds = this.ends[type];
+        // first interval ending after the start of the range
+        int i = Arrays.binarySearch(typeEnds, from);
+        i = i < 0 ? -i - 1 : i + 1;
+        for (; i < typeStarts.length && typeStarts[i] < to; i++) {
+            periods.add(new Period(utc(Math.max(typeStarts[i], from)), utc(Math.min(typeEnds[i], to))));
+        }
+    }
+
+    private static DateTime utc(long millis) {
+        DateTime dateTime = new DateTime(millis);
+        dateTime.setUtc(true);
+        return dateTime;
+    }
+}
@@ -0,0 +1,203 @@
+package org.unitedinternet.cosmo.calendar.query.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unitedinternet.cosmo.CosmoInterruptedException;
+
+/**
+ * Runs the parts of a free-busy query in parallel on a pool of <code>cosmo.freebusy.parallel.threads</code> threads
+ * shared by all requests.
+ * <p>
+ * Each task runs in its own read-only transaction, and so with its own persistence context, because hibernate
+ * sessions can't be shared between threads. Tasks must therefore load the entities they need themselves and return
+ * detached results only. Each worker holds a database connection while it runs, next to the one of the waiting
+ * request, so the pool is limited to half of <code>spring.datasource.hikari.maximum-pool-size</code>.
+ * <p>
+ * A request waits at most <code>cosmo.freebusy.parallel.timeout</code> milliseconds for its tasks, the tasks that
+ * did not finish by then are cancelled. When the queue of the pool is full, the request waits for space in the queue
+ * until the same deadline and drops the tasks that could not be queued.
+ */
+@Component
+public class FreeBusyQueryExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FreeBusyQueryExecutor.class);
+
+    public static final int DEFAULT_THREADS = 4;
+
+    public static final long DEFAULT_TIMEOUT = 10000;
+
+    public static final int DEFAULT_CONNECTION_POOL_SIZE = 10;
+
+    private static final int QUEUE_SIZE_PER_THREAD = 16;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int threads;
+
+    private final long timeout;
+
+    /**
+     * Deadline of the request submitting tasks on the current thread, in {@link System#nanoTime()}.
+     */
+    private final ThreadLocal<Long> deadline = new ThreadLocal<>();
+
+    private ThreadPoolExecutor executor;
+
+    public FreeBusyQueryExecutor(PlatformTransactionManager transactionManager, int threads, long timeout) {
+        this(transactionManager, threads, timeout, DEFAULT_CONNECTION_POOL_SIZE);
+    }
+
+    @Autowired
+    public FreeBusyQueryExecutor(PlatformTransactionManager transactionManager,
+            @Value("${cosmo.freebusy.parallel.threads:" + DEFAULT_THREADS + "}") int threads,
+            @Value("${cosmo.freebusy.parallel.timeout:" + DEFAULT_TIMEOUT + "}") long timeout,
+            @Value("${spring.datasource.hikari.maximum-pool-size:" + DEFAULT_CONNECTION_POOL_SIZE + "}")
+            int connectionPoolSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.threads = Math.min(threads, connectionPoolSize / 2);
+        this.timeout = timeout;
+        if (this.threads < threads) {
+            LOG.warn("[FreeBusy] Using {} instead of {} threads to leave connections of the pool of {} to requests",
+                    this.threads, threads, connectionPoolSize);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (this.threads > 1) {
+            AtomicInteger count = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(this.threads * QUEUE_SIZE_PER_THREAD), runnable -> {
+                        Thread thread = new Thread(runnable, "freebusy-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, this::waitForQueue);
+        }
+    }
+
+    /**
+     * Rejection policy waiting for space in the queue until the deadline of the submitting request.
+     */
+    private void waitForQueue(Runnable task, ThreadPoolExecutor pool) {
+        Long until = this.deadline.get();
+        long remaining = until != null ? until - System.nanoTime() : 0;
+        try {
+            if (pool.isShutdown() || remaining <= 0 || !pool.getQueue().offer(task, remaining, TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("free-busy query task could not be queued before the deadline");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("thread interrupted while queueing free-busy query task", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if tasks run in parallel, <code>false</code> if free-busy queries have to be
+     * processed by the calling thread.
+     */
+    public boolean isEnabled() {
+        return this.executor != null;
+    }
+
+    /**
+     * Runs the given tasks and waits until all of them are done or the deadline of the request has passed.
+     *
+     * @param tasks
+     *            tasks to run
+     * @return the results in the order of the tasks, <code>null</code> for the tasks that failed or did not finish
+     *         in time
+     */
+    public <T> List<T> invokeAll(List<? extends Supplier<T>> tasks) {
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeout);
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        this.deadline.set(until);
+        try {
+            for (Supplier<T> task : tasks) {
+                Callable<T> callable = () -> this.transactionTemplate.execute(status -> task.get());
+                Future<T> future = null;
+                try {
+                    future = this.executor.submit(callable);
+                } catch (RejectedExecutionException e) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        cancelAll(futures);
+                        throw new CosmoInterruptedException("thread interrupted while querying free-busy", e);
+                    }
+                }
+                futures.add(future);
+            }
+        } finally {
+            this.deadline.remove();
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        int missed = 0;
+        for (Future<T> future : futures) {
+            T result = null;
+            try {
+                if (future == null) {
+                    missed++;
+                } else {
+                    result = future.get(Math.max(0, until - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+            } catch (TimeoutException | CancellationException e) {
+                future.cancel(true);
+                missed++;
+            } catch (ExecutionException e) {
+                missed++;
+                LOG.warn("[FreeBusy] query task failed", e.getCause());
+            } catch (InterruptedException e) {
+                cancelAll(futures);
+                throw new CosmoInterruptedException("thread interrupted while querying free-busy", e);
+            }
+            results.add(result);
+        }
+        if (missed > 0) {
+            LOG.warn("[FreeBusy] {} of {} query tasks failed or did not finish within {} ms", missed,
+                    tasks.size(), this.timeout);
+        }
+        return results;
+    }
+
+    private static void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+}
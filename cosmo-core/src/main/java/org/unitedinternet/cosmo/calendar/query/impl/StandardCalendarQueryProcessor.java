@@ -15,15 +15,19 @@
  */
 package org.unitedinternet.cosmo.calendar.query.impl;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 import org.unitedinternet.cosmo.calendar.Instance;
 import org.unitedinternet.cosmo.calendar.InstanceList;
@@ -80,12 +84,25 @@ public class StandardCalendarQueryProcessor implements CalendarQueryProcessor {
     
     private EntityConverter entityConverter;
     
+    private FreeBusyQueryExecutor freeBusyQueryExecutor = null;
+    
+    private BusyIntervalCache busyIntervalCache = null;
+    
     public StandardCalendarQueryProcessor(EntityConverter entityConverter, ContentDao contentDao, CalendarDao calendarDao) {
     	this.calendarDao = calendarDao;
     	this.contentDao = contentDao;
     	this.entityConverter = entityConverter;
     }
     
+    @Autowired
+    public StandardCalendarQueryProcessor(EntityConverter entityConverter, ContentDao contentDao,
+            CalendarDao calendarDao, FreeBusyQueryExecutor freeBusyQueryExecutor,
+            BusyIntervalCache busyIntervalCache) {
+        this(entityConverter, contentDao, calendarDao);
+        this.freeBusyQueryExecutor = freeBusyQueryExecutor;
+        this.busyIntervalCache = busyIntervalCache;
+    }
+    
     /* (non-Javadoc)
      * @see org.unitedinternet.cosmo.calendar.query.CalendarQueryProcessor#filterQuery
      * (org.unitedinternet.cosmo.model.CollectionItem, org.unitedinternet.cosmo.calendar.query.CalendarFilter)
@@ -130,6 +147,22 @@ public class StandardCalendarQueryProcessor implements CalendarQueryProcessor {
         }
     }
 
+    /* (non-Javadoc)
+     * @see org.unitedinternet.cosmo.calendar.query.CalendarQueryProcessor#exportQuery
+     * (org.unitedinternet.cosmo.model.CollectionItem, java.util.function.Consumer)
+     */
+    /**
+     * Export query.
+     * @param collection The collection item.
+     * @param consumer The consumer of the iCalendar data of each event.
+     */
+    public void exportQuery(CollectionItem collection, Consumer<String> consumer) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("exporting events of collection " + collection.getUid());
+        }
+        calendarDao.forEachEventData(collection, consumer);
+    }
+
     /* (non-Javadoc)
      * @see org.unitedinternet.cosmo.calendar.query.CalendarQueryProcessor#freeBusyQuery
      * (org.unitedinternet.cosmo.model.User, net.fortuna.ical4j.model.Period)
@@ -145,6 +178,78 @@ public class StandardCalendarQueryProcessor implements CalendarQueryProcessor {
         PeriodList busyTentativePeriods = new PeriodList();
         PeriodList busyUnavailablePeriods = new PeriodList();
         
+        for (CollectionItem collection : getFreeBusyCollections(user)) {
+            doFreeBusyQuery(busyPeriods, busyTentativePeriods, busyUnavailablePeriods,
+                    collection, period);  
+        }
+
+        return createVFreeBusy(busyPeriods, busyTentativePeriods,
+                busyUnavailablePeriods, period);
+    }
+    
+    /* (non-Javadoc)
+     * @see org.unitedinternet.cosmo.calendar.query.CalendarQueryProcessor#freeBusyQuery
+     * (java.util.List, net.fortuna.ical4j.model.Period)
+     */
+    /**
+     * VFreeBusy query for several users. The collections of all users are queried in parallel when a
+     * <code>FreeBusyQueryExecutor</code> is available, one user after the other otherwise.
+     * @param users The users.
+     * @param period The period.
+     * @return VFreeBusy of each user, <code>null</code> for the users whose collections could not all be
+     *         queried in time.
+     */
+    public List<VFreeBusy> freeBusyQuery(List<User> users, Period period) {
+        List<VFreeBusy> results = new ArrayList<VFreeBusy>(users.size());
+        if (freeBusyQueryExecutor == null || !freeBusyQueryExecutor.isEnabled()) {
+            for (User user : users) {
+                results.add(freeBusyQuery(user, period));
+            }
+            return results;
+        }
+        
+        // one task per collection, the tasks of all users share one deadline
+        List<Integer> owners = new ArrayList<Integer>();
+        List<Supplier<PeriodList[]>> tasks = new ArrayList<Supplier<PeriodList[]>>();
+        for (int i = 0; i < users.size(); i++) {
+            for (CollectionItem collection : getFreeBusyCollections(users.get(i))) {
+                String uid = collection.getUid();
+                owners.add(i);
+                tasks.add(() -> doFreeBusyQuery(uid, period));
+            }
+        }
+        List<PeriodList[]> parts = freeBusyQueryExecutor.invokeAll(tasks);
+        
+        PeriodList[][] periods = new PeriodList[users.size()][];
+        for (int i = 0; i < periods.length; i++) {
+            periods[i] = new PeriodList[] { new PeriodList(), new PeriodList(), new PeriodList() };
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            int owner = owners.get(i);
+            if (periods[owner] == null) {
+                continue;
+            }
+            if (parts.get(i) == null) {
+                // free-busy missing a collection would report busy time as free
+                periods[owner] = null;
+                continue;
+            }
+            for (int type = 0; type < periods[owner].length; type++) {
+                periods[owner][type].addAll(parts.get(i)[type]);
+            }
+        }
+        for (int i = 0; i < periods.length; i++) {
+            results.add(periods[i] == null ? null
+                    : createVFreeBusy(periods[i][0], periods[i][1], periods[i][2], period));
+        }
+        return results;
+    }
+    
+    /**
+     * Returns the calendar collections of the user's home that are included in free-busy rollups.
+     */
+    private List<CollectionItem> getFreeBusyCollections(User user) {
+        List<CollectionItem> collections = new ArrayList<CollectionItem>();
         HomeCollectionItem home = contentDao.getRootItem(user);
         for(Item item: home.getChildren()) {
             if(! (item instanceof CollectionItem)) {
@@ -156,13 +261,25 @@ public class StandardCalendarQueryProcessor implements CalendarQueryProcessor {
                     collection.isExcludeFreeBusyRollup()) {
                 continue;
             }
-            
-            doFreeBusyQuery(busyPeriods, busyTentativePeriods, busyUnavailablePeriods,
-                    collection, period);  
+            collections.add(collection);
         }
-
-        return createVFreeBusy(busyPeriods, busyTentativePeriods,
-                busyUnavailablePeriods, period);
+        return collections;
+    }
+    
+    /**
+     * Free-busy query of a single collection, run by a task of the <code>FreeBusyQueryExecutor</code>. The
+     * collection is loaded again in the persistence context of the task.
+     * @param uid The uid of the collection.
+     * @param period The period.
+     * @return Busy, busy tentative and busy unavailable periods of the collection.
+     */
+    private PeriodList[] doFreeBusyQuery(String uid, Period period) {
+        PeriodList[] periods = new PeriodList[] { new PeriodList(), new PeriodList(), new PeriodList() };
+        Item item = contentDao.findItemByUid(uid);
+        if (item instanceof CollectionItem) {
+            doFreeBusyQuery(periods[0], periods[1], periods[2], (CollectionItem) item, period);
+        }
+        return periods;
     }
     
     /* (non-Javadoc)
@@ -229,8 +346,39 @@ public class StandardCalendarQueryProcessor implements CalendarQueryProcessor {
             return;
         }
         
-        HashSet<ContentItem> results = new HashSet<ContentItem>();
         TimeZone tz = ccs.getTimezone();
+        if (busyIntervalCache == null || !busyIntervalCache.isCacheable(collection)) {
+            collectBusyPeriods(collection, tz, period, busyPeriods, busyTentativePeriods, busyUnavailablePeriods);
+            return;
+        }
+        
+        Period window = busyIntervalCache.getWindow(period);
+        BusyIntervals intervals = busyIntervalCache.get(collection, tz, window);
+        if (intervals == null) {
+            PeriodList windowBusyPeriods = new PeriodList();
+            PeriodList windowBusyTentativePeriods = new PeriodList();
+            PeriodList windowBusyUnavailablePeriods = new PeriodList();
+            collectBusyPeriods(collection, tz, window, windowBusyPeriods, windowBusyTentativePeriods,
+                    windowBusyUnavailablePeriods);
+            intervals = BusyIntervals.of(windowBusyPeriods, windowBusyTentativePeriods,
+                    windowBusyUnavailablePeriods);
+            busyIntervalCache.put(collection, tz, window, intervals);
+        }
+        intervals.addTo(period, busyPeriods, busyTentativePeriods, busyUnavailablePeriods);
+    }
+    
+    /**
+     * Adds the busy periods of all items of the collection that occur during the given period.
+     * @param collection The collection item.
+     * @param tz The timezone of the collection.
+     * @param period The period.
+     * @param busyPeriods The period list.
+     * @param busyTentativePeriods The period list.
+     * @param busyUnavailablePeriods The busy unavailable periods periods.
+     */
+    private void collectBusyPeriods(CollectionItem collection, TimeZone tz, Period period, PeriodList busyPeriods,
+            PeriodList busyTentativePeriods, PeriodList busyUnavailablePeriods) {
+        HashSet<ContentItem> results = new HashSet<ContentItem>();
         
         // For the time being, use CalendarFilters to get relevant
         // items.
@@ -482,4 +630,12 @@ public class StandardCalendarQueryProcessor implements CalendarQueryProcessor {
         this.contentDao = contentDao;
     }
 
+    public void setFreeBusyQueryExecutor(FreeBusyQueryExecutor freeBusyQueryExecutor) {
+        this.freeBusyQueryExecutor = freeBusyQueryExecutor;
+    }
+
+    public void setBusyIntervalCache(BusyIntervalCache busyIntervalCache) {
+        this.busyIntervalCache = busyIntervalCache;
+    }
+
 }
@@ -16,6 +16,7 @@
 package org.unitedinternet.cosmo.dao;
 
 import java.util.Set;
+import java.util.function.Consumer;
 
 import net.fortuna.ical4j.model.Calendar;
 import net.fortuna.ical4j.model.Date;
@@ -88,4 +89,15 @@ public interface CalendarDao {
      */
     public Set<ICalendarItem> findCalendarEvents(Calendar calendar, User cosmoUser);
 
+    /**
+     * Passes the stored iCalendar data of every event of a collection to the consumer, one event at a time, without
+     * loading the items of the collection.
+     *
+     * @param collection
+     *            collection to export
+     * @param consumer
+     *            consumer of the iCalendar data of each event stamp
+     */
+    public void forEachEventData(CollectionItem collection, Consumer<String> consumer);
+
 }
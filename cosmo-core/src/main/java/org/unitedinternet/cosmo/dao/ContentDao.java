@@ -19,6 +19,7 @@ import java.util.Set;
 
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.ContentItem;
+import org.unitedinternet.cosmo.model.ItemTombstone;
 import org.unitedinternet.cosmo.model.User;
 
 /**
@@ -167,6 +168,15 @@ public interface ContentDao extends ItemDao {
      */
     public Set<ContentItem> loadChildren(CollectionItem collection, Long timestamp);
     
+    /**
+     * Load all item tombstones of a collection that have been created since a
+     * given timestamp.
+     * @param collection collection
+     * @param timestamp timestamp
+     * @return tombstones of the items removed from collection after timestamp
+     */
+    public Set<ItemTombstone> loadTombstones(CollectionItem collection, Long timestamp);
+    
     /**
      * Removes all items from a given collection.
      * @param collection The collection which contains all items which will be deleted.
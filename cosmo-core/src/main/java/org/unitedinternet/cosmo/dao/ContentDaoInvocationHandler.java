@@ -1,7 +1,14 @@
 package org.unitedinternet.cosmo.dao;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,19 +16,27 @@ import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.CosmoException;
 import org.unitedinternet.cosmo.dao.external.ContentDaoExternal;
 import org.unitedinternet.cosmo.dao.external.ExternalCollectionItem;
 import org.unitedinternet.cosmo.dao.external.UuidExternalGenerator;
 import org.unitedinternet.cosmo.dao.hibernate.ContentDaoImpl;
 import org.unitedinternet.cosmo.dao.subscription.ContentDaoSubscriptionImpl;
 import org.unitedinternet.cosmo.dao.subscription.UuidSubscriptionGenerator;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.filter.NoteItemFilter;
 import org.unitedinternet.cosmo.model.hibernate.HibCollectionSubscriptionItem;
 
+import io.micrometer.core.instrument.Timer;
+
 /**
  * <code>InvocationHandler</code> that delegates the method calls to appropriate DAO implementation.
- * 
+ * <p>
+ * The routing of each method is worked out once: whether it is {@link ExternalizableContent}, which of its arguments
+ * can carry the path that selects the DAO, and a method handle to call it with. The DAO implementations are looked
+ * up once as well, so that a call only inspects the arguments that matter and is dispatched directly.
+ *
  * @author daniel grigore
  *
  */
@@ -30,86 +45,159 @@ public class ContentDaoInvocationHandler implements InvocationHandler, Applicati
 
     private static final Logger LOG = LoggerFactory.getLogger(ContentDaoInvocationHandler.class);
 
-    private static final int WRAPPED_COUNT = 100;
+    private static final String ROUTE_INTERNAL = "internal";
+
+    private static final String ROUTE_EXTERNAL = "external";
+
+    private static final String ROUTE_SUBSCRIPTION = "subscription";
+
+    private static final String[] ROUTES = { ROUTE_INTERNAL, ROUTE_EXTERNAL, ROUTE_SUBSCRIPTION };
+
+    private static final int INTERNAL = 0;
+
+    private static final int EXTERNAL = 1;
+
+    private static final int SUBSCRIPTION = 2;
+
+    /**
+     * Types of the arguments a path is taken from.
+     */
+    private static final Class<?>[] PATH_TYPES = { String.class, NoteItemFilter.class, ExternalCollectionItem.class,
+            HibCollectionSubscriptionItem.class };
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private static final MethodType DISPATCH_TYPE = MethodType.methodType(Object.class, Object.class,
+            Object[].class);
 
     private ApplicationContext applicationContext;
 
-    public ContentDaoInvocationHandler() {
+    private final Map<Method, Route> routes = new ConcurrentHashMap<>();
 
+    private volatile ContentDao[] daos;
+
+    public ContentDaoInvocationHandler() {
+        for (Method method : ContentDao.class.getMethods()) {
+            this.routes.put(method, new Route(method));
+        }
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        String path = getPath(args);
-        ContentDao dao = this.getContentDao(method, args);
+        Route route = this.routes.computeIfAbsent(method, Route::new);
+        int target = route.externalizable ? getTarget(getPath(route, args)) : INTERNAL;
+        ContentDao dao = getDaos()[target];
+        Timer.Sample sample = Timer.start(CosmoMetrics.registry());
+        Throwable failure = null;
         try {
-            return method.invoke(dao, args);
-        } catch (Exception e) {
-            Throwable unwrapped = unwrap(e);
+            return route.handle.invokeExact((Object) dao, args != null ? args : NO_ARGS);
+        } catch (Throwable t) {
+            failure = t;
             LOG.error("Exc {} with msg '{}' caught when calling method {} with args length {} at path: {}",
-                    unwrapped.getClass().getSimpleName(), unwrapped.getMessage(), method.getName(), args.length, path);
-            throw unwrapped;
+                    t.getClass().getSimpleName(), t.getMessage(), method.getName(), args != null ? args.length : 0,
+                    getPath(route, args));
+            throw t;
+        } finally {
+            sample.stop(failure == null ? route.timers[target]
+                    : CosmoMetrics.timer(CosmoMetrics.CONTENT_DAO, "method", method.getName(), "dao",
+                            ROUTES[target], CosmoMetrics.TAG_EXCEPTION, CosmoMetrics.exception(failure)));
         }
     }
 
-    private static String getPath(Object[] args) {
+    private static String getPath(Route route, Object[] args) {
         String path = null;
-        if (args != null) {
-            for (Object arg : args) {
-                if (arg instanceof String) {
-                    // Method findItemByPath(String) or findItemByPath(String, String)
-                    path = (String) arg;
-                } else if (arg instanceof NoteItemFilter) {
-                    // Method findItems(NoteItemFilter)
-                    NoteItemFilter filter = (NoteItemFilter) arg;
-                    CollectionItem parent = filter.getParent();
-                    if (parent != null) {
-                        path = parent.getUid();
-                    }
-                } else if (arg instanceof ExternalCollectionItem) {
-                    ExternalCollectionItem external = (ExternalCollectionItem) arg;
-                    if (external.getDelegate() != null) {
-                        path = external.getDelegate().getUid();
-                    }
-                } else if (arg instanceof HibCollectionSubscriptionItem) {
-                    HibCollectionSubscriptionItem subscription = (HibCollectionSubscriptionItem) arg;
-                    path = subscription.getUid();
+        if (args == null) {
+            return path;
+        }
+        for (int index : route.pathArgs) {
+            Object arg = args[index];
+            if (arg instanceof String) {
+                // Method findItemByPath(String) or findItemByPath(String, String)
+                path = (String) arg;
+            } else if (arg instanceof NoteItemFilter) {
+                // Method findItems(NoteItemFilter)
+                NoteItemFilter filter = (NoteItemFilter) arg;
+                CollectionItem parent = filter.getParent();
+                if (parent != null) {
+                    path = parent.getUid();
+                }
+            } else if (arg instanceof ExternalCollectionItem) {
+                ExternalCollectionItem external = (ExternalCollectionItem) arg;
+                if (external.getDelegate() != null) {
+                    path = external.getDelegate().getUid();
                 }
+            } else if (arg instanceof HibCollectionSubscriptionItem) {
+                HibCollectionSubscriptionItem subscription = (HibCollectionSubscriptionItem) arg;
+                path = subscription.getUid();
             }
         }
         return path;
     }
 
-    private static Throwable unwrap(Throwable t) {
-        Throwable unwrapped = t;
-        int count = 0;
-        while (unwrapped.getCause() != null && !unwrapped.getCause().equals(unwrapped)) {
-            unwrapped = t.getCause();
-            count++;
-            if (count > WRAPPED_COUNT) {
-                break;
+    private static int getTarget(String path) {
+        if (path != null) {
+            if (UuidExternalGenerator.get().containsUuid(path)) {
+                return EXTERNAL;
+            } else if (UuidSubscriptionGenerator.get().containsUuid(path)) {
+                return SUBSCRIPTION;
             }
         }
-        return unwrapped;
+        return INTERNAL;
     }
 
-    private ContentDao getContentDao(Method method, Object[] args) {
-        if (method.isAnnotationPresent(ExternalizableContent.class)) {
-            String path = getPath(args);
-            if (path != null) {
-                if (UuidExternalGenerator.get().containsUuid(path)) {
-                    return this.applicationContext.getBean(ContentDaoExternal.class);
-                } else if (UuidSubscriptionGenerator.get().containsUuid(path)) {
-                    return this.applicationContext.getBean(ContentDaoSubscriptionImpl.class);
-                }
-            }
+    private ContentDao[] getDaos() {
+        ContentDao[] result = this.daos;
+        if (result == null) {
+            // looked up on first use as the DAOs depend on beans that depend on the proxy
+            result = new ContentDao[] { this.applicationContext.getBean(ContentDaoImpl.class),
+                    this.applicationContext.getBean(ContentDaoExternal.class),
+                    this.applicationContext.getBean(ContentDaoSubscriptionImpl.class) };
+            this.daos = result;
         }
-        return applicationContext.getBean(ContentDaoImpl.class);
+        return result;
     }
 
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
+        this.daos = null;
     }
 
+    /**
+     * Routing of a method, worked out once.
+     */
+    private static class Route {
+
+        private final String name;
+        private final boolean externalizable;
+        private final int[] pathArgs;
+        private final MethodHandle handle;
+        private final Timer[] timers = new Timer[ROUTES.length];
+
+        Route(Method method) {
+            this.name = method.getName();
+            this.externalizable = method.isAnnotationPresent(ExternalizableContent.class);
+            List<Integer> indexes = new ArrayList<>();
+            Class<?>[] types = method.getParameterTypes();
+            for (int i = 0; i < types.length; i++) {
+                for (Class<?> pathType : PATH_TYPES) {
+                    if (types[i].isAssignableFrom(pathType)) {
+                        indexes.add(i);
+                        break;
+                    }
+                }
+            }
+            this.pathArgs = indexes.stream().mapToInt(Integer::intValue).toArray();
+            try {
+                this.handle = MethodHandles.publicLookup().unreflect(method)
+                        .asSpreader(Object[].class, types.length).asType(DISPATCH_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new CosmoException("cannot dispatch " + method, e);
+            }
+            for (int target = 0; target < ROUTES.length; target++) {
+                this.timers[target] = CosmoMetrics.timer(CosmoMetrics.CONTENT_DAO, "method", this.name, "dao",
+                        ROUTES[target], CosmoMetrics.TAG_EXCEPTION, CosmoMetrics.NONE);
+            }
+        }
+    }
 }
@@ -264,6 +264,18 @@ public interface ItemDao extends Dao {
      */
     public Set<CollectionItem> findCollectionItems(CollectionItem collectionItem);
 
+    /**
+     * Find the children of a collection that have one of the given names. The stamps of the items found are fetched
+     * along with them.
+     * 
+     * @param parent
+     *            parent collection item
+     * @param names
+     *            names of the children to find
+     * @return set of children found, children that don't exist are not included
+     */
+    public Set<Item> findItemsByParentAndNames(CollectionItem parent, Set<String> names);
+
     /**
      * Find a set of items using an ItemFilter.
      * 
@@ -27,6 +27,7 @@ import org.unitedinternet.cosmo.model.EventExceptionStamp;
 import org.unitedinternet.cosmo.model.EventStamp;
 import org.unitedinternet.cosmo.model.HomeCollectionItem;
 import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.ItemTombstone;
 import org.unitedinternet.cosmo.model.NoteItem;
 import org.unitedinternet.cosmo.model.Stamp;
 import org.unitedinternet.cosmo.model.Ticket;
@@ -366,6 +367,11 @@ public class ContentDaoExternal implements ContentDao {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Set<Item> findItemsByParentAndNames(CollectionItem parent, Set<String> names) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public Set<Item> findItems(ItemFilter[] filters) {
         throw new UnsupportedOperationException();
@@ -449,6 +455,11 @@ public class ContentDaoExternal implements ContentDao {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Set<ItemTombstone> loadTombstones(CollectionItem collection, Long timestamp) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void removeItemsFromCollection(CollectionItem collection) {
         throw new UnsupportedOperationException();
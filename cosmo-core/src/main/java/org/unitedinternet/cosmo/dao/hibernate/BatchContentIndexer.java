@@ -0,0 +1,195 @@
+package org.unitedinternet.cosmo.dao.hibernate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.CosmoException;
+import org.unitedinternet.cosmo.CosmoInterruptedException;
+import org.unitedinternet.cosmo.model.BaseEventStamp;
+import org.unitedinternet.cosmo.model.ContentItem;
+import org.unitedinternet.cosmo.model.NoteItem;
+import org.unitedinternet.cosmo.model.Stamp;
+import org.unitedinternet.cosmo.model.hibernate.EventOccurrenceIndexer;
+import org.unitedinternet.cosmo.model.hibernate.EventStampInterceptor;
+import org.unitedinternet.cosmo.model.hibernate.HibBaseEventStamp;
+import org.unitedinternet.cosmo.model.hibernate.HibEventStamp;
+
+/**
+ * Computes the time-range indexes and occurrences of the events of a batch of new items before they are persisted.
+ * <p>
+ * The items of a batch are grouped into units of a master and its modifications, as the indexes of a master depend
+ * on its modifications and the other way round. Units are independent of each other and are indexed by a pool of
+ * <code>cosmo.content.batch.threads</code> threads shared by all batches. This only works on new items that are not
+ * part of any persistence context yet, modifications of masters that are not in the batch are left to be indexed
+ * when they are created. When the pool is busy the calling thread indexes its units itself.
+ */
+@Component
+public class BatchContentIndexer {
+
+    public static final int DEFAULT_THREADS = 4;
+
+    @Autowired
+    private EventStampInterceptor eventStampInterceptor;
+
+    @Autowired
+    private EventOccurrenceIndexer occurrenceIndexer;
+
+    @Value("${cosmo.content.batch.threads:" + DEFAULT_THREADS + "}")
+    private int threads;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        if (this.threads > 1) {
+            AtomicInteger count = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(this.threads), runnable -> {
+                        Thread thread = new Thread(runnable, "batch-index-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Groups the items of a batch into units that can be created one after the other: each master comes first,
+     * followed by its modifications in the batch. Modifications of masters that are not in the batch make up a unit
+     * on their own and come last.
+     *
+     * @param contents
+     *            new items
+     * @return units in the order the items are to be created
+     */
+    public List<List<ContentItem>> group(Set<ContentItem> contents) {
+        Map<NoteItem, List<ContentItem>> masters = new IdentityHashMap<>();
+        Map<ContentItem, List<ContentItem>> units = new LinkedHashMap<>();
+        List<ContentItem> modifications = new ArrayList<>();
+        for (ContentItem content : contents) {
+            if (isModification(content)) {
+                modifications.add(content);
+                continue;
+            }
+            List<ContentItem> unit = new ArrayList<>();
+            unit.add(content);
+            units.put(content, unit);
+            if (content instanceof NoteItem) {
+                masters.put((NoteItem) content, unit);
+            }
+        }
+        List<List<ContentItem>> result = new ArrayList<>(units.values());
+        for (ContentItem content : modifications) {
+            NoteItem modification = (NoteItem) content;
+            List<ContentItem> unit = masters.get(modification.getModifies());
+            if (unit != null) {
+                // the occurrences of the master are computed with its modifications
+                modification.getModifies().addModification(modification);
+                unit.add(modification);
+            } else {
+                result.add(Collections.singletonList(content));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the time-range indexes and occurrences of the events of the given units.
+     *
+     * @param units
+     *            units as returned by {@link #group(Set)}
+     * @return the items that were indexed
+     */
+    public Set<ContentItem> index(List<List<ContentItem>> units) {
+        List<List<ContentItem>> indexable = new ArrayList<>(units.size());
+        for (List<ContentItem> unit : units) {
+            if (!isModification(unit.get(0))) {
+                indexable.add(unit);
+            }
+        }
+        Set<ContentItem> indexed = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (this.executor == null || indexable.size() < 2) {
+            indexed.addAll(new Slice(indexable).call());
+            return indexed;
+        }
+        int sliceSize = (indexable.size() + this.threads - 1) / this.threads;
+        List<Future<List<ContentItem>>> futures = new ArrayList<>(this.threads);
+        for (int i = 0; i < indexable.size(); i += sliceSize) {
+            futures.add(this.executor.submit(
+                    new Slice(indexable.subList(i, Math.min(i + sliceSize, indexable.size())))));
+        }
+        try {
+            for (Future<List<ContentItem>> future : futures) {
+                indexed.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new CosmoInterruptedException("thread interrupted while indexing batch", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CosmoException(e.getCause());
+        }
+        return indexed;
+    }
+
+    private static boolean isModification(ContentItem content) {
+        return content instanceof NoteItem && ((NoteItem) content).getModifies() != null;
+    }
+
+    /**
+     * Indexes a part of the units. A unit is never split between slices, so no item is read by two threads.
+     */
+    private class Slice implements Callable<List<ContentItem>> {
+
+        private final List<List<ContentItem>> units;
+
+        Slice(List<List<ContentItem>> units) {
+            this.units = units;
+        }
+
+        @Override
+        public List<ContentItem> call() {
+            List<ContentItem> indexed = new ArrayList<>();
+            for (List<ContentItem> unit : this.units) {
+                for (ContentItem content : unit) {
+                    Stamp stamp = content.getStamp(BaseEventStamp.class);
+                    if (stamp instanceof HibBaseEventStamp) {
+                        HibBaseEventStamp eventStamp = (HibBaseEventStamp) stamp;
+                        eventStamp.setTimeRangeIndex(eventStampInterceptor.calculateEventStampIndexes(eventStamp));
+                        if (eventStamp instanceof HibEventStamp) {
+                            occurrenceIndexer.index(eventStamp);
+                        }
+                    }
+                    indexed.add(content);
+                }
+            }
+            return indexed;
+        }
+    }
+}
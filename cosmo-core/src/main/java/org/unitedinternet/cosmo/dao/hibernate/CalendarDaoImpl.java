@@ -18,15 +18,20 @@ package org.unitedinternet.cosmo.dao.hibernate;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.orm.hibernate5.SessionFactoryUtils;
 import org.springframework.stereotype.Repository;
 import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
@@ -37,9 +42,11 @@ import org.unitedinternet.cosmo.dao.query.hibernate.CalendarFilterConverter;
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.ContentItem;
 import org.unitedinternet.cosmo.model.EntityFactory;
+import org.unitedinternet.cosmo.model.BaseEventStamp;
 import org.unitedinternet.cosmo.model.ICalendarItem;
 import org.unitedinternet.cosmo.model.Item;
 import org.unitedinternet.cosmo.model.NoteItem;
+import org.unitedinternet.cosmo.model.Stamp;
 import org.unitedinternet.cosmo.model.User;
 import org.unitedinternet.cosmo.model.filter.EventStampFilter;
 import org.unitedinternet.cosmo.model.filter.ItemFilter;
@@ -61,6 +68,11 @@ public class CalendarDaoImpl implements CalendarDao {
 
     private static final Logger LOG = LoggerFactory.getLogger(CalendarDaoImpl.class);
 
+    public static final int DEFAULT_EXPORT_FETCH_SIZE = 500;
+
+    private static final String QUERY_EVENT_DATA = "select s.icaldata from HibBaseEventStamp s join s.item i "
+            + "join i.parentDetails pd where pd.primaryKey.collection=:parent order by s.id";
+
     @Autowired
     private EntityFactory entityFactory;
 
@@ -70,6 +82,12 @@ public class CalendarDaoImpl implements CalendarDao {
     @Autowired
     private EntityConverter entityConverter;
 
+    @Autowired
+    private CollectionScanEvaluator collectionScanEvaluator;
+
+    @Value("${cosmo.calendar.export.fetchSize:" + DEFAULT_EXPORT_FETCH_SIZE + "}")
+    private int exportFetchSize = DEFAULT_EXPORT_FETCH_SIZE;
+
     @PersistenceContext
     private EntityManager em;
 
@@ -123,10 +141,20 @@ public class CalendarDaoImpl implements CalendarDao {
             }
             /*
              * Use brute-force method if CalendarFilter can't be translated to an ItemFilter (slower but at least gets
-             * the job done). // TODO Check to see if this branch is really used in CalDAV clients.
+             * the job done). A first pass filter, if there is one, narrows the items down to the candidates,
+             * otherwise the whole collection is scanned in chunks.
              */
             Set<ICalendarItem> results = new HashSet<ICalendarItem>();
-            Set<Item> itemsToProcess = collection.getChildren();
+            Set<Item> itemsToProcess = null;
+            if (collection instanceof HibCollectionItem) {
+                ItemFilter firstPassFilter = filterConverter.getFirstPassFilter(collection, filter);
+                if (firstPassFilter == null) {
+                    return collectionScanEvaluator.evaluate(collection, filter);
+                }
+                itemsToProcess = itemFilterProcessor.processFilter(firstPassFilter);
+            } else {
+                itemsToProcess = collection.getChildren();
+            }
             CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
 
             // Evaluate filter against all calendar items
@@ -200,6 +228,43 @@ public class CalendarDaoImpl implements CalendarDao {
         }
     }
 
+    /*
+     * The data is read as scalar values with a forward only cursor, so neither the items nor the parsed calendars of
+     * the collection are held in memory at once.
+     */
+    @Override
+    public void forEachEventData(CollectionItem collection, Consumer<String> consumer) {
+        if (!(collection instanceof HibCollectionItem)) {
+            for (Item item : collection.getChildren()) {
+                if (!(item instanceof NoteItem)) {
+                    continue;
+                }
+                for (Stamp stamp : item.getStamps()) {
+                    if (stamp instanceof BaseEventStamp) {
+                        consumer.accept(((BaseEventStamp) stamp).getEventCalendar().toString());
+                    }
+                }
+            }
+            return;
+        }
+        ScrollableResults results = null;
+        try {
+            results = this.em.unwrap(Session.class).createQuery(QUERY_EVENT_DATA, String.class)
+                    .setParameter("parent", collection).setFetchSize(this.exportFetchSize).setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            while (results.next()) {
+                consumer.accept((String) results.get(0));
+            }
+        } catch (HibernateException e) {
+            this.em.clear();
+            throw SessionFactoryUtils.convertHibernateAccessException(e);
+        } finally {
+            if (results != null) {
+                results.close();
+            }
+        }
+    }
+
     public ItemFilterProcessor getItemFilterProcessor() {
         return itemFilterProcessor;
     }
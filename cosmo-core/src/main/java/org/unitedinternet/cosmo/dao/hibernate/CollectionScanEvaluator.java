@@ -0,0 +1,219 @@
+package org.unitedinternet.cosmo.dao.hibernate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.CosmoException;
+import org.unitedinternet.cosmo.CosmoInterruptedException;
+import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
+import org.unitedinternet.cosmo.calendar.query.CalendarFilterEvaluater;
+import org.unitedinternet.cosmo.model.CollectionItem;
+import org.unitedinternet.cosmo.model.ICalendarItem;
+import org.unitedinternet.cosmo.model.hibernate.EntityConverter;
+import org.unitedinternet.cosmo.model.hibernate.HibICalendarItem;
+import org.unitedinternet.cosmo.model.hibernate.HibItem;
+
+import net.fortuna.ical4j.model.Calendar;
+
+/**
+ * Evaluates a <code>CalendarFilter</code> against every item of a collection, for filters that can't be translated
+ * into a query.
+ * <p>
+ * Items are read in chunks of <code>cosmo.calendar.query.scan.chunkSize</code> ordered by id, and the items of each
+ * chunk are detached from the persistence context afterwards, so that only the ids of the matching items are kept
+ * while scanning and memory does not grow with the size of the collection. Items the persistence context held before
+ * the scan stay managed, together with any changes the caller made to them. The items of a chunk are converted by
+ * the calling thread, which owns the session, and evaluated by a pool of
+ * <code>cosmo.calendar.query.scan.threads</code> threads shared by all queries. When the pool is busy the calling
+ * thread evaluates its chunk itself.
+ */
+@Component
+public class CollectionScanEvaluator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CollectionScanEvaluator.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    public static final int DEFAULT_THREADS = 4;
+
+    private static final String QUERY_CHUNK = "select i from HibICalendarItem i join i.parentDetails pd "
+            + "where pd.primaryKey.collection=:parent and i.id > :lastId order by i.id";
+
+    private static final String QUERY_ITEMS = "select i from HibICalendarItem i where i.id in (:ids)";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private EntityConverter entityConverter;
+
+    @Value("${cosmo.calendar.query.scan.chunkSize:" + DEFAULT_CHUNK_SIZE + "}")
+    private int chunkSize;
+
+    @Value("${cosmo.calendar.query.scan.threads:" + DEFAULT_THREADS + "}")
+    private int threads;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        if (this.threads > 1) {
+            AtomicInteger count = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(this.threads), runnable -> {
+                        Thread thread = new Thread(runnable, "collection-scan-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Finds the items of the given collection that match the filter.
+     *
+     * @param collection
+     *            persistent collection to scan
+     * @param filter
+     *            filter to evaluate
+     * @return matching items
+     */
+    public Set<ICalendarItem> evaluate(CollectionItem collection, CalendarFilter filter) {
+        Set<Serializable> managedIds = this.getManagedItemIds();
+        List<Long> matches = new ArrayList<>();
+        long lastId = Long.MIN_VALUE;
+        int scanned = 0;
+        List<HibICalendarItem> chunk;
+        do {
+            chunk = this.em.createQuery(QUERY_CHUNK, HibICalendarItem.class).setParameter("parent", collection)
+                    .setParameter("lastId", lastId).setMaxResults(this.chunkSize).getResultList();
+            List<Long> ids = new ArrayList<>(chunk.size());
+            List<Calendar> calendars = new ArrayList<>(chunk.size());
+            for (HibICalendarItem item : chunk) {
+                lastId = item.getId();
+                Calendar calendar = this.entityConverter.convertContent(item);
+                if (calendar != null) {
+                    ids.add(item.getId());
+                    calendars.add(calendar);
+                }
+                // the converted calendar is all that is needed from the item
+                if (!managedIds.contains(item.getId())) {
+                    this.em.detach(item);
+                }
+            }
+            scanned += chunk.size();
+            matches.addAll(this.evaluate(ids, calendars, filter));
+        } while (chunk.size() == this.chunkSize);
+
+        LOG.debug("[Scan] {} of {} items in collection {} matched", matches.size(), scanned, collection.getUid());
+
+        Set<ICalendarItem> results = new HashSet<>(matches.size());
+        for (int i = 0; i < matches.size(); i += this.chunkSize) {
+            List<Long> ids = matches.subList(i, Math.min(i + this.chunkSize, matches.size()));
+            results.addAll(this.em.createQuery(QUERY_ITEMS, HibICalendarItem.class).setParameter("ids", ids)
+                    .getResultList());
+        }
+        return results;
+    }
+
+    /**
+     * Returns the ids of the items held by the persistence context.
+     */
+    private Set<Serializable> getManagedItemIds() {
+        Set<Serializable> ids = new HashSet<>();
+        for (Object key : this.em.unwrap(Session.class).getStatistics().getEntityKeys()) {
+            EntityKey entityKey = (EntityKey) key;
+            if (HibItem.class.isAssignableFrom(entityKey.getPersister().getMappedClass())) {
+                ids.add(entityKey.getIdentifier());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Evaluates the calendars of a chunk, split into one slice per thread.
+     */
+    private List<Long> evaluate(List<Long> ids, List<Calendar> calendars, CalendarFilter filter) {
+        if (this.executor == null || calendars.size() < 2) {
+            return new Slice(ids, calendars, filter).call();
+        }
+        int sliceSize = (calendars.size() + this.threads - 1) / this.threads;
+        List<Future<List<Long>>> futures = new ArrayList<>(this.threads);
+        for (int i = 0; i < calendars.size(); i += sliceSize) {
+            int end = Math.min(i + sliceSize, calendars.size());
+            futures.add(this.executor.submit(new Slice(ids.subList(i, end), calendars.subList(i, end), filter)));
+        }
+        List<Long> matches = new ArrayList<>();
+        try {
+            for (Future<List<Long>> future : futures) {
+                matches.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new CosmoInterruptedException("thread interrupted while evaluating calendar filter", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CosmoException(e.getCause());
+        }
+        return matches;
+    }
+
+    /**
+     * Evaluates a part of a chunk. <code>CalendarFilterEvaluater</code> is not thread safe, so each slice uses its
+     * own.
+     */
+    private static class Slice implements Callable<List<Long>> {
+
+        private final List<Long> ids;
+        private final List<Calendar> calendars;
+        private final CalendarFilter filter;
+
+        Slice(List<Long> ids, List<Calendar> calendars, CalendarFilter filter) {
+            this.ids = ids;
+            this.calendars = calendars;
+            this.filter = filter;
+        }
+
+        @Override
+        public List<Long> call() {
+            CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
+            List<Long> matches = new ArrayList<>();
+            for (int i = 0; i < this.calendars.size(); i++) {
+                if (evaluater.evaluate(this.calendars.get(i), this.filter)) {
+                    matches.add(this.ids.get(i));
+                }
+            }
+            return matches;
+        }
+    }
+}
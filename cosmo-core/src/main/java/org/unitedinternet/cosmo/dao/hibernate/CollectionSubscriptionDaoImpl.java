@@ -5,9 +5,11 @@ import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.unitedinternet.cosmo.dao.CollectionSubscriptionDao;
 import org.unitedinternet.cosmo.model.CollectionSubscription;
+import org.unitedinternet.cosmo.security.util.AuthorizationCache;
 
 /**
  * 
@@ -20,6 +22,9 @@ public class CollectionSubscriptionDaoImpl implements CollectionSubscriptionDao
     @PersistenceContext
     private EntityManager em;
 
+    @Autowired
+    private AuthorizationCache authorizationCache;
+
     /**
      * Default one
      */
@@ -36,6 +41,7 @@ public class CollectionSubscriptionDaoImpl implements CollectionSubscriptionDao
     @Override
     public void addOrUpdate(CollectionSubscription collectionSubscription) {
         this.em.persist(collectionSubscription);        
+        this.authorizationCache.invalidate();
     }
 
     @Override
@@ -54,5 +60,6 @@ public class CollectionSubscriptionDaoImpl implements CollectionSubscriptionDao
     public void delete(CollectionSubscription subscription) {
         this.em.remove(subscription);
         this.em.flush();
+        this.authorizationCache.invalidate();
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.unitedinternet.cosmo.dao.hibernate;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -24,16 +25,25 @@ import java.util.Set;
 import javax.persistence.FlushModeType;
 import javax.persistence.TypedQuery;
 
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.unitedinternet.cosmo.dao.ContentDao;
 import org.unitedinternet.cosmo.dao.ModelValidationException;
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.ContentItem;
+import org.unitedinternet.cosmo.model.EventStamp;
 import org.unitedinternet.cosmo.model.ICalendarItem;
 import org.unitedinternet.cosmo.model.IcalUidInUseException;
 import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.ItemTombstone;
 import org.unitedinternet.cosmo.model.NoteItem;
+import org.unitedinternet.cosmo.model.Stamp;
 import org.unitedinternet.cosmo.model.User;
+import org.unitedinternet.cosmo.model.hibernate.EventOccurrenceIndexer;
+import org.unitedinternet.cosmo.model.hibernate.HibBaseEventStamp;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionChange;
 import org.unitedinternet.cosmo.model.hibernate.HibCollectionItem;
 import org.unitedinternet.cosmo.model.hibernate.HibItem;
 import org.unitedinternet.cosmo.model.hibernate.HibItemTombstone;
@@ -44,6 +54,23 @@ import org.unitedinternet.cosmo.model.hibernate.HibItemTombstone;
 @Repository
 public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
 
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final String SQL_INCREMENT_CHANGES = "INSERT INTO collection_change (collectionid, changes, "
+            + "modifieddate) VALUES (:id, 1, :now) ON DUPLICATE KEY UPDATE changes = changes + 1, "
+            + "modifieddate = GREATEST(modifieddate, VALUES(modifieddate))";
+
+    private static final String SQL_DELETE_CHANGES = "DELETE FROM collection_change WHERE collectionid = :id";
+
+    @Autowired
+    private EventOccurrenceIndexer occurrenceIndexer;
+
+    @Autowired
+    private BatchContentIndexer batchContentIndexer;
+
+    @Value("${cosmo.content.batch.size:" + DEFAULT_BATCH_SIZE + "}")
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
     public ContentDaoImpl() {
         super();
     }
@@ -75,6 +102,8 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
 
         this.em.persist(collection);
         this.em.flush();
+        createCollectionChange(collection);
+        invalidateMissingPaths(collection);
 
         return collection;
     }
@@ -155,13 +184,39 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
         return content;
     }
 
+    /**
+     * Creates the items of a batch in chunks of <code>cosmo.content.batch.size</code> items. The events of the batch
+     * are indexed up front, in parallel, and each chunk is flushed and removed from the persistence context once it
+     * is written, so that neither the unit of work nor the memory grows with the size of the batch. A master and its
+     * modifications are always written in the same chunk.
+     */
     @Override
     public void createBatchContent(CollectionItem parent, Set<ContentItem> contents) {
-        for (ContentItem content : contents) {
-            createContentInternal(parent, content);
+        List<List<ContentItem>> units = this.batchContentIndexer.group(contents);
+        Set<ContentItem> indexed = this.batchContentIndexer.index(units);
+        List<ContentItem> chunk = new ArrayList<>();
+        for (List<ContentItem> unit : units) {
+            for (ContentItem content : unit) {
+                createContentInternal(parent, content, !indexed.contains(content));
+                chunk.add(content);
+            }
+            if (chunk.size() >= this.batchSize) {
+                flushAndDetach(chunk);
+                chunk.clear();
+            }
         }
         this.em.flush();
+    }
 
+    /**
+     * Writes the pending changes and detaches the given new items. The parent collections of the items stay in the
+     * persistence context.
+     */
+    private void flushAndDetach(List<ContentItem> contents) {
+        this.em.flush();
+        for (ContentItem content : contents) {
+            this.em.detach(content);
+        }
     }
 
     @Override
@@ -188,13 +243,29 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
         return content;
     }
 
+    /**
+     * Records a change to the children of the given collection. The change counter of the collection is incremented
+     * in the database instead of updating the collection itself, so that concurrent writes into the same collection
+     * only wait for each other's row lock on the counter and never fail on the version of the collection.
+     */
     @Override
     public CollectionItem updateCollectionTimestamp(CollectionItem collection) {
-        if (!this.em.contains(collection)) {
-            collection = (CollectionItem) this.em.merge(collection);
+        if (!(collection instanceof HibCollectionItem) || ((HibCollectionItem) collection).getId() == null) {
+            if (!this.em.contains(collection)) {
+                collection = (CollectionItem) this.em.merge(collection);
+            }
+            collection.updateTimestamp();
+            this.em.flush();
+            return collection;
         }
-        collection.updateTimestamp();
+        HibCollectionItem hibCollection = (HibCollectionItem) collection;
         this.em.flush();
+        this.em.createNativeQuery(SQL_INCREMENT_CHANGES).setParameter("id", hibCollection.getId())
+                .setParameter("now", System.currentTimeMillis()).unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(HibCollectionChange.class).executeUpdate();
+        HibCollectionChange change = this.em.find(HibCollectionChange.class, hibCollection.getId());
+        this.em.refresh(change);
+        hibCollection.setChange(change);
         return collection;
     }
 
@@ -267,6 +338,15 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
         return children;
     }
 
+    @Override
+    public Set<ItemTombstone> loadTombstones(CollectionItem collection, Long timestamp) {
+        TypedQuery<ItemTombstone> query = this.em
+                .createNamedQuery("itemTombstone.by.parent.timestamp", ItemTombstone.class)
+                .setParameter("parent", collection).setParameter("timestamp", timestamp);
+        query.setFlushMode(FlushModeType.COMMIT);
+        return new HashSet<ItemTombstone>(query.getResultList());
+    }
+
     @Override
     public void initializeItem(Item item) {
         super.initializeItem(item);
@@ -323,6 +403,7 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
                 // Remove mod from master's collection
                 note.getModifies().removeModification(note);
                 note.getModifies().updateTimestamp();
+                indexOccurrences(note.getModifies());
             } else {
                 // Mods will be removed by Hibernate cascading rules, but we need to add tombstones for mods
                 for (NoteItem mod : note.getModifications()) {
@@ -331,6 +412,7 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
             }
         }
         this.em.remove(content);
+        invalidatePaths(content);
     }
 
     private void removeContentCommon(ContentItem content) {
@@ -347,7 +429,12 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
          * children is removed, and any children who have no parent collection are then removed.
          */
         removeItemsFromCollection(collection);
+        if (collection instanceof HibCollectionItem && ((HibCollectionItem) collection).getId() != null) {
+            this.em.createNativeQuery(SQL_DELETE_CHANGES).setParameter("id", ((HibCollectionItem) collection).getId())
+                    .unwrap(NativeQuery.class).addSynchronizedEntityClass(HibCollectionChange.class).executeUpdate();
+        }
         this.em.remove(collection);
+        invalidatePaths(collection);
     }
 
     @Override
@@ -385,6 +472,7 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
 
         getHibItem(collection).addTombstone(new HibItemTombstone(collection, note));
         ((HibItem) note).removeParent(collection);
+        invalidatePaths(note);
 
         for (NoteItem mod : note.getModifications()) {
             removeNoteItemFromCollectionInternal(mod, collection);
@@ -398,6 +486,16 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
     }
 
     protected void createContentInternal(CollectionItem parent, ContentItem content) {
+        createContentInternal(parent, content, true);
+    }
+
+    /**
+     * Creates an item in a collection.
+     *
+     * @param index
+     *            <code>false</code> if the occurrences of the events of the item are already indexed
+     */
+    private void createContentInternal(CollectionItem parent, ContentItem content, boolean index) {
 
         if (parent == null) {
             throw new IllegalArgumentException("parent cannot be null");
@@ -456,7 +554,11 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
                 this.em.merge(parent);
             }
         }
+        if (index) {
+            indexOccurrences(content);
+        }
         this.em.persist(content);
+        invalidateMissingPaths(content);
     }
 
     protected void createContentInternal(Set<CollectionItem> parents, ContentItem content) {
@@ -522,7 +624,9 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
             }
         }
 
+        indexOccurrences(content);
         this.em.persist(content);
+        invalidateMissingPaths(content);
     }
 
     protected void updateContentInternal(ContentItem content) {
@@ -541,8 +645,12 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
             throw new IllegalArgumentException("content must have owner");
         }
 
+        invalidateRenamedPaths(content);
+
         content.updateTimestamp();
 
+        indexOccurrences(content);
+
         if (isNoteModification(content)) {
             // ensure master is dirty so that etag gets updated
             ((NoteItem) content).getModifies().updateTimestamp();
@@ -550,6 +658,18 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
 
     }
 
+    /**
+     * Updates the indexed occurrences of the given item when it is a recurring event. Modifications are expanded as
+     * part of their master, so the master is indexed again instead.
+     */
+    private void indexOccurrences(ContentItem content) {
+        Item item = isNoteModification(content) ? ((NoteItem) content).getModifies() : content;
+        Stamp stamp = item.getStamp(EventStamp.class);
+        if (stamp instanceof HibBaseEventStamp) {
+            this.occurrenceIndexer.index((HibBaseEventStamp) stamp);
+        }
+    }
+
     protected void updateCollectionInternal(CollectionItem collection) {
         if (collection == null) {
             throw new IllegalArgumentException("collection cannot be null");
@@ -558,6 +678,7 @@ public class ContentDaoImpl extends ItemDaoImpl implements ContentDao {
         if (collection.getOwner() == null) {
             throw new IllegalArgumentException("collection must have owner");
         }
+        invalidateRenamedPaths(collection);
         collection.updateTimestamp();
     }
 
@@ -15,9 +15,11 @@
  */
 package org.unitedinternet.cosmo.dao.hibernate;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
@@ -27,9 +29,14 @@ import javax.persistence.TypedQuery;
 
 import org.hibernate.Hibernate;
 import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.NativeQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.token.TokenService;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.unitedinternet.cosmo.CosmoException;
 import org.unitedinternet.cosmo.dao.DuplicateItemNameException;
 import org.unitedinternet.cosmo.dao.ItemDao;
@@ -37,6 +44,7 @@ import org.unitedinternet.cosmo.dao.ItemNotFoundException;
 import org.unitedinternet.cosmo.dao.ModelValidationException;
 import org.unitedinternet.cosmo.dao.query.ItemFilterProcessor;
 import org.unitedinternet.cosmo.dao.query.ItemPathTranslator;
+import org.unitedinternet.cosmo.dao.query.hibernate.ItemPathCache;
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.EventStamp;
 import org.unitedinternet.cosmo.model.HomeCollectionItem;
@@ -48,11 +56,15 @@ import org.unitedinternet.cosmo.model.UidInUseException;
 import org.unitedinternet.cosmo.model.User;
 import org.unitedinternet.cosmo.model.filter.ItemFilter;
 import org.unitedinternet.cosmo.model.hibernate.BaseModelObject;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionChange;
 import org.unitedinternet.cosmo.model.hibernate.HibCollectionItem;
 import org.unitedinternet.cosmo.model.hibernate.HibEventStamp;
 import org.unitedinternet.cosmo.model.hibernate.HibHomeCollectionItem;
 import org.unitedinternet.cosmo.model.hibernate.HibItem;
 import org.unitedinternet.cosmo.model.hibernate.HibItemTombstone;
+import org.unitedinternet.cosmo.model.hibernate.HibTicket;
+import org.unitedinternet.cosmo.security.util.AuthorizationCache;
+import org.unitedinternet.cosmo.security.util.TicketIndex;
 import org.unitedinternet.cosmo.util.VersionFourGenerator;
 
 /**
@@ -61,18 +73,35 @@ import org.unitedinternet.cosmo.util.VersionFourGenerator;
 @Repository
 public abstract class ItemDaoImpl implements ItemDao {
 
+    /**
+     * Maximum number of names bound to a single <code>in</code> clause.
+     */
+    private static final int NAMES_BATCH_SIZE = 500;
+
+    private static final String SQL_CREATE_CHANGES =
+            "INSERT IGNORE INTO collection_change (collectionid, changes, modifieddate) VALUES (:id, 0, 0)";
+
     @Autowired
     private VersionFourGenerator idGenerator = null;
 
     @Autowired
     private TokenService ticketKeyGenerator = null;
 
+    @Autowired
+    private AuthorizationCache authorizationCache;
+
+    @Autowired
+    private TicketIndex ticketIndex;
+
     @Autowired
     private ItemPathTranslator itemPathTranslator = null;
 
     @Autowired
     private ItemFilterProcessor itemFilterProcessor = null;
 
+    @Autowired
+    private ItemPathCache itemPathCache = null;
+
     @PersistenceContext
     protected EntityManager em;
 
@@ -186,6 +215,8 @@ public abstract class ItemDaoImpl implements ItemDao {
         setBaseItemProps(newItem);
         this.em.persist(newItem);
         this.em.flush();
+        createCollectionChange(newItem);
+        invalidateMissingPaths(newItem);
         return newItem;
 
     }
@@ -217,13 +248,27 @@ public abstract class ItemDaoImpl implements ItemDao {
             throw new IllegalArgumentException("key cannot be null");
         }
 
+        Long ticketId = this.ticketIndex.getTicketId(key);
+        if (ticketId != null) {
+            // served by the second level cache of the tickets
+            Ticket ticket = this.em.find(HibTicket.class, ticketId);
+            if (ticket != null && key.equals(ticket.getKey())) {
+                return ticket;
+            }
+            this.ticketIndex.invalidate(key);
+        }
+
+        long generation = this.ticketIndex.getGeneration();
         // prevent auto flushing when looking up ticket
         this.em.setFlushMode(FlushModeType.COMMIT);
         TypedQuery<Ticket> query = this.em.createNamedQuery("ticket.by.key", Ticket.class).setParameter("key", key);
         query.setFlushMode(FlushModeType.COMMIT);
         List<Ticket> ticketList = query.getResultList();
-        return ticketList.size() > 0 ? ticketList.get(0) : null;
-
+        if (ticketList.isEmpty()) {
+            return null;
+        }
+        this.ticketIndex.put(ticketList.get(0), null, generation);
+        return ticketList.get(0);
     }
 
     @Override
@@ -250,6 +295,8 @@ public abstract class ItemDaoImpl implements ItemDao {
         this.em.persist(ticket);
         this.em.merge(item);        
         this.em.flush();        
+        this.authorizationCache.invalidate();
+        this.ticketIndex.invalidate(ticket.getKey());
     }
 
     @Override
@@ -265,6 +312,8 @@ public abstract class ItemDaoImpl implements ItemDao {
         this.em.merge(item);
         item.removeTicket(ticket);
         this.em.flush();
+        this.authorizationCache.invalidate();
+        this.ticketIndex.invalidate(ticket.getKey());
 
     }
 
@@ -313,6 +362,7 @@ public abstract class ItemDaoImpl implements ItemDao {
         Item newItem = copyItemInternal(item, newParent, deepCopy);
         newItem.setName(copyName);
         this.em.flush();
+        invalidateMissingPaths(newItem);
 
     }
 
@@ -361,6 +411,10 @@ public abstract class ItemDaoImpl implements ItemDao {
             ((HibItem) item).removeParent(oldParent);
         }
         this.em.flush();
+        invalidatePaths(item);
+        invalidateMissingPaths(item);
+        this.authorizationCache.invalidate();
+        invalidateTicketPaths();
     }
 
     @Override
@@ -395,6 +449,30 @@ public abstract class ItemDaoImpl implements ItemDao {
         return children;
     }
 
+    @Override
+    public Set<Item> findItemsByParentAndNames(CollectionItem parent, Set<String> names) {
+        Set<Item> children = new HashSet<>();
+        List<String> batch = new ArrayList<>(NAMES_BATCH_SIZE);
+        for (String name : names) {
+            batch.add(name);
+            if (batch.size() == NAMES_BATCH_SIZE) {
+                children.addAll(findItemsByParentAndNamesInternal(parent, batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            children.addAll(findItemsByParentAndNamesInternal(parent, batch));
+        }
+        return children;
+    }
+
+    private List<Item> findItemsByParentAndNamesInternal(CollectionItem parent, List<String> names) {
+        TypedQuery<Item> query = this.em.createNamedQuery("item.by.parent.names", Item.class)
+                .setParameter("parent", parent).setParameter("names", names);
+        query.setFlushMode(FlushModeType.COMMIT);
+        return query.getResultList();
+    }
+
     @Override
     public Set<Item> findItems(ItemFilter filter) {
         return itemFilterProcessor.processFilter(filter);
@@ -461,6 +539,7 @@ public abstract class ItemDaoImpl implements ItemDao {
         // save Item before attempting deep copy
         this.em.persist(item2);
         this.em.flush();
+        createCollectionChange(item2);
 
         // copy children if collection and deepCopy = true
         if (deepCopy == true && item instanceof CollectionItem) {
@@ -473,6 +552,16 @@ public abstract class ItemDaoImpl implements ItemDao {
         return item2;
     }
 
+    /**
+     * Creates the change counter of a new collection, which the collection reads lazily and so expects to exist.
+     */
+    protected void createCollectionChange(Item item) {
+        if (item instanceof HibCollectionItem) {
+            this.em.createNativeQuery(SQL_CREATE_CHANGES).setParameter("id", ((HibCollectionItem) item).getId())
+                    .unwrap(NativeQuery.class).addSynchronizedEntityClass(HibCollectionChange.class).executeUpdate();
+        }
+    }
+
     /**
      * Checks to see if a parent Item is currently a child of a target item. If so, then this would put the hierarchy
      * into a loop and is not allowed.
@@ -649,6 +738,7 @@ public abstract class ItemDaoImpl implements ItemDao {
         }
         getHibItem(collection).addTombstone(new HibItemTombstone(collection, item));
         ((HibItem) item).removeParent(collection);
+        invalidatePaths(item);
         // If the item belongs to no collection, then it should be purged.
 
         if (item.getParents().size() == 0) {
@@ -662,10 +752,99 @@ public abstract class ItemDaoImpl implements ItemDao {
         this.em.merge(collection);
         ((HibCollectionItem) collection).removeTombstone(item);
         ((HibItem) item).addParent(collection);
+        invalidateMissingPaths(item);
     }
 
     protected void removeItemInternal(Item item) {
         this.em.remove(item);
+        invalidatePaths(item);
+    }
+
+    /**
+     * Drops all cached paths of the given item and of its descendants, now and again once the transaction commits so
+     * that lookups running concurrently can't cache the state before the commit. The paths below a collection may be
+     * cached without the path of the collection itself, so all paths are dropped for collections.
+     */
+    protected void invalidatePaths(Item item) {
+        if (item instanceof CollectionItem) {
+            itemPathCache.clear();
+            afterCommit(itemPathCache::clear);
+            return;
+        }
+        Long id = getBaseModelObject(item).getId();
+        itemPathCache.invalidate(id);
+        afterCommit(() -> itemPathCache.invalidate(id));
+    }
+
+    /**
+     * Drops the cached paths of the given item and the paths tickets were validated for if its name changed since it
+     * was loaded, to be called by updates before they are flushed.
+     */
+    protected void invalidateRenamedPaths(Item item) {
+        if (!isRenamed(item)) {
+            return;
+        }
+        invalidatePaths(item);
+        invalidateMissingPaths(item);
+        invalidateTicketPaths();
+    }
+
+    /**
+     * Drops the paths tickets were validated for as another resource may now be found at them, now and again once the
+     * transaction commits.
+     */
+    protected void invalidateTicketPaths() {
+        this.ticketIndex.invalidatePaths();
+        afterCommit(this.ticketIndex::invalidatePaths);
+    }
+
+    private boolean isRenamed(Item item) {
+        Long id = getBaseModelObject(item).getId();
+        if (id == null || id < 0) {
+            return false;
+        }
+        HibItem managed = this.em.find(HibItem.class, id);
+        if (managed == null) {
+            return false;
+        }
+        EntityEntry entry = this.em.unwrap(SessionImplementor.class).getPersistenceContext()
+                .getEntry(Hibernate.unproxy(managed));
+        return entry == null || entry.getLoadedState() == null
+                || !Objects.equals(entry.getLoadedValue("name"), item.getName());
+    }
+
+    /**
+     * Drops the cached entries stating that the path of the given item doesn't exist, to be called whenever an item
+     * gets a new path. Entries are dropped now and again once the transaction commits.
+     */
+    protected void invalidateMissingPaths(Item item) {
+        String name = item.getName();
+        List<Long> parentIds = new ArrayList<Long>();
+        for (CollectionItem parent : item.getParents()) {
+            parentIds.add(getBaseModelObject(parent).getId());
+        }
+        if (parentIds.isEmpty()) {
+            parentIds.add(null);
+        }
+        Runnable invalidation = () -> {
+            for (Long parentId : parentIds) {
+                itemPathCache.invalidateMissing(parentId, name);
+            }
+        };
+        invalidation.run();
+        afterCommit(invalidation);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     protected BaseModelObject getBaseModelObject(Object obj) {
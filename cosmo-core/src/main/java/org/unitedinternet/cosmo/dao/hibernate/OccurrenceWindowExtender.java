@@ -0,0 +1,170 @@
+package org.unitedinternet.cosmo.dao.hibernate;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unitedinternet.cosmo.model.hibernate.EventOccurrenceIndexer;
+import org.unitedinternet.cosmo.model.hibernate.HibBaseEventStamp;
+import org.unitedinternet.cosmo.model.hibernate.HibEventOccurrence;
+
+/**
+ * Extends the indexed occurrences of recurring events to the time ranges of queries that reached past them, so that
+ * queries don't write.
+ * <p>
+ * Extensions run one after the other on a single background thread, each in its own transaction. The stamp is
+ * locked and expanded again from its current state, and only the occurrence rows and the window are written, with
+ * native statements, so that the stamp and its item keep their modification date and etag. Extensions are dropped
+ * when one for the same stamp is already pending, when the window would not cover the range, for instance because
+ * the series has too many occurrences in it, or when more than <code>cosmo.event.occurrences.queueSize</code> are
+ * waiting.
+ */
+@Component
+public class OccurrenceWindowExtender {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OccurrenceWindowExtender.class);
+
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    private static final String SQL_DELETE_OCCURRENCES = "DELETE FROM event_occurrence WHERE stampid = :id";
+
+    private static final String SQL_INSERT_OCCURRENCES = "INSERT IGNORE INTO event_occurrence (stampid, startdate, "
+            + "enddate) VALUES ";
+
+    private static final String SQL_UPDATE_WINDOW = "UPDATE event_stamp SET occurrencesstart = :start, "
+            + "occurrencesend = :end WHERE stampid = :id";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final EventOccurrenceIndexer occurrenceIndexer;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int queueSize;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor executor;
+
+    @Autowired
+    public OccurrenceWindowExtender(PlatformTransactionManager transactionManager,
+            EventOccurrenceIndexer occurrenceIndexer,
+            @Value("${cosmo.event.occurrences.queueSize:" + DEFAULT_QUEUE_SIZE + "}") int queueSize) {
+        this.occurrenceIndexer = occurrenceIndexer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queueSize = queueSize;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (this.queueSize > 0) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(this.queueSize), runnable -> {
+                        Thread thread = new Thread(runnable, "occurrences-1");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedules the extension of the indexed occurrences of the given stamp to the given range.
+     *
+     * @param stampId
+     *            id of a persistent event stamp
+     * @param rangeStart
+     *            start of the range
+     * @param rangeEnd
+     *            end of the range
+     */
+    public void extend(Long stampId, Date rangeStart, Date rangeEnd) {
+        if (this.executor == null || !this.pending.add(stampId)) {
+            return;
+        }
+        Date start = new Date(rangeStart.getTime());
+        Date end = new Date(rangeEnd.getTime());
+        try {
+            this.executor.execute(() -> {
+                try {
+                    this.transactionTemplate.execute(status -> this.extendNow(stampId, start, end));
+                } catch (RuntimeException e) {
+                    LOG.warn("[Occurrences] Could not extend the occurrences of stamp {}", stampId, e);
+                } finally {
+                    this.pending.remove(stampId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.pending.remove(stampId);
+            LOG.debug("[Occurrences] Dropped the extension of the occurrences of stamp {}", stampId);
+        }
+    }
+
+    /**
+     * Extends the indexed occurrences of the given stamp to the given range in the current transaction.
+     *
+     * @return <code>true</code> if the occurrences were written
+     */
+    boolean extendNow(Long stampId, Date rangeStart, Date rangeEnd) {
+        // serializes with updates of the series, which are expanded again on write anyway
+        HibBaseEventStamp stamp = this.em.find(HibBaseEventStamp.class, stampId, LockModeType.PESSIMISTIC_WRITE);
+        if (stamp == null) {
+            return false;
+        }
+        EventOccurrenceIndexer.Expansion expansion = this.occurrenceIndexer.expand(stamp, rangeStart, rangeEnd);
+        if (expansion == null || !expansion.covers(rangeStart, rangeEnd)) {
+            return false;
+        }
+
+        this.em.createNativeQuery(SQL_DELETE_OCCURRENCES).setParameter("id", stampId).unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("event_occurrence").executeUpdate();
+        if (!expansion.getOccurrences().isEmpty()) {
+            StringBuilder sql = new StringBuilder(SQL_INSERT_OCCURRENCES);
+            for (int i = 0; i < expansion.getOccurrences().size(); i++) {
+                sql.append(i > 0 ? ", " : "").append("(:id, :start").append(i).append(", :end").append(i).append(')');
+            }
+            NativeQuery<?> insert = this.em.createNativeQuery(sql.toString()).unwrap(NativeQuery.class);
+            insert.setParameter("id", stampId);
+            int index = 0;
+            for (HibEventOccurrence occurrence : expansion.getOccurrences()) {
+                insert.setParameter("start" + index, occurrence.getStartDate());
+                insert.setParameter("end" + index, occurrence.getEndDate());
+                index++;
+            }
+            insert.addSynchronizedQuerySpace("event_occurrence").executeUpdate();
+        }
+        this.em.createNativeQuery(SQL_UPDATE_WINDOW).setParameter("start", expansion.getStart())
+                .setParameter("end", expansion.getEnd()).setParameter("id", stampId).unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("event_stamp").executeUpdate();
+        // the loaded stamp is stale now
+        this.em.detach(stamp);
+        return true;
+    }
+}
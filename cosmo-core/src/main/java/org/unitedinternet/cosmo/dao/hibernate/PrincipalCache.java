@@ -0,0 +1,165 @@
+package org.unitedinternet.cosmo.dao.hibernate;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * Cache of username and email to user id mappings used by {@link UserDaoImpl}, so that looking up the user of every
+ * authenticated request resolves to a lookup by id, which is served by the second level cache of the users.
+ * <p>
+ * Only the ids are cached, not the users, so that each session gets its own managed user. The cache therefore only
+ * saves queries while the second level cache is enabled with <code>cosmo.hibernate.cache.enabled</code>. Without it
+ * the lookup by id is a query as well, and the cache should be disabled by setting its size to 0.
+ * <p>
+ * Entries expire after <code>cosmo.user.cache.ttl</code> milliseconds, which bounds the staleness caused by changes
+ * made by other nodes, and at most <code>cosmo.user.cache.maxSize</code> entries are kept. Updating or removing a user
+ * drops all its entries. Each invalidation increments a generation counter so that lookups that started before the
+ * invalidation don't store what they resolved.
+ */
+@Component
+public class PrincipalCache {
+
+    public static final long DEFAULT_TTL = 60000;
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    @Value("${cosmo.user.cache.ttl:" + DEFAULT_TTL + "}")
+    private long ttl;
+
+    @Value("${cosmo.user.cache.maxSize:" + DEFAULT_MAX_SIZE + "}")
+    private int maxSize;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(256, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private final Counter hits = CosmoMetrics.registry().counter(CosmoMetrics.USER_CACHE, "result", "hit");
+
+    private final Counter misses = CosmoMetrics.registry().counter(CosmoMetrics.USER_CACHE, "result", "miss");
+
+    private long generation;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Default constructor.
+     */
+    public PrincipalCache() {
+        this(DEFAULT_TTL, DEFAULT_MAX_SIZE);
+    }
+
+    public PrincipalCache(long ttl, int maxSize) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return this.ttl > 0 && this.maxSize > 0;
+    }
+
+    public static String usernameKey(String username) {
+        return "username:" + username;
+    }
+
+    public static String emailKey(String email) {
+        return "email:" + email;
+    }
+
+    /**
+     * Returns the current generation which must be passed when storing the result of a lookup.
+     */
+    public synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Returns the id of the user cached for the given key or <code>null</code> if there is none.
+     */
+    public synchronized Long getUserId(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Entry entry = this.entries.get(key);
+        if (entry != null && entry.expires < System.currentTimeMillis()) {
+            this.entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            this.missCount++;
+            this.misses.increment();
+            return null;
+        }
+        this.hitCount++;
+        this.hits.increment();
+        return entry.userId;
+    }
+
+    public synchronized void putUserId(String key, Long userId, long generation) {
+        if (!isEnabled() || userId == null || userId < 0 || generation != this.generation) {
+            return;
+        }
+        this.entries.put(key, new Entry(userId, System.currentTimeMillis() + this.ttl));
+    }
+
+    /**
+     * Removes a single stale entry.
+     */
+    public synchronized void remove(String key) {
+        this.entries.remove(key);
+    }
+
+    /**
+     * Removes all entries resolving to the given user.
+     */
+    public synchronized void invalidate(Long userId) {
+        this.generation++;
+        for (Iterator<Entry> it = this.entries.values().iterator(); it.hasNext();) {
+            if (it.next().userId.equals(userId)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        this.generation++;
+        this.entries.clear();
+    }
+
+    public synchronized int getSize() {
+        return this.entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    private static class Entry {
+
+        private final Long userId;
+        private final long expires;
+
+        Entry(Long userId, long expires) {
+            this.userId = userId;
+            this.expires = expires;
+        }
+    }
+}
@@ -44,6 +44,9 @@ public class UserDaoImpl implements UserDao {
     @Autowired
     private VersionFourGenerator idGenerator;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @PersistenceContext
     private EntityManager em;
 
@@ -78,7 +81,13 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public User getUser(String username) {
-        return findUserByUsername(username);
+        String key = PrincipalCache.usernameKey(username);
+        HibUser user = findCachedUser(key);
+        if (user != null && username.equalsIgnoreCase(user.getUsername())) {
+            return user;
+        }
+        long generation = this.principalCache.getGeneration();
+        return cacheUser(key, findUserByUsername(username), generation);
     }
 
     @Override
@@ -94,8 +103,13 @@ public class UserDaoImpl implements UserDao {
         if (email == null) {
             throw new IllegalArgumentException("email required");
         }
-        return findUserByEmail(email);
-
+        String key = PrincipalCache.emailKey(email);
+        HibUser user = findCachedUser(key);
+        if (user != null && email.equalsIgnoreCase(user.getEmail())) {
+            return user;
+        }
+        long generation = this.principalCache.getGeneration();
+        return cacheUser(key, findUserByEmail(email), generation);
     }
 
     public void removeUser(String username) {
@@ -115,6 +129,7 @@ public class UserDaoImpl implements UserDao {
         // TODO: Should probably let DB take care of this with cascade constaint
         this.em.remove(user);
         this.em.flush();
+        this.principalCache.invalidate(getBaseModelObject(user).getId());
 
     }
 
@@ -135,6 +150,7 @@ public class UserDaoImpl implements UserDao {
         user.updateTimestamp();
         this.em.merge(user);
         this.em.flush();
+        this.principalCache.invalidate(getBaseModelObject(user).getId());
 
         return user;
     }
@@ -154,6 +170,31 @@ public class UserDaoImpl implements UserDao {
         this.idGenerator = idGenerator;
     }
 
+    /**
+     * Returns the user whose id is cached for the given key, loaded by id so that it is served by the second level
+     * cache. The caller has to verify that the user still matches the key, a stale entry is removed then.
+     */
+    private HibUser findCachedUser(String key) {
+        Long userId = this.principalCache.getUserId(key);
+        if (userId == null) {
+            return null;
+        }
+        HibUser user = this.em.find(HibUser.class, userId);
+        if (user == null) {
+            this.principalCache.remove(key);
+        }
+        return user;
+    }
+
+    private User cacheUser(String key, User user, long generation) {
+        if (user != null) {
+            this.principalCache.putUserId(key, getBaseModelObject(user).getId(), generation);
+        } else {
+            this.principalCache.remove(key);
+        }
+        return user;
+    }
+
     private User findUserByUsername(String username) {
         List<HibUser> usersList = this.em.createQuery(" FROM HibUser u WHERE u.username= :username", HibUser.class)
                 .setParameter("username", username).getResultList();
@@ -24,6 +24,7 @@ import org.unitedinternet.cosmo.calendar.query.TimeRangeFilter;
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.EventStamp;
 import org.unitedinternet.cosmo.model.filter.EventStampFilter;
+import org.unitedinternet.cosmo.model.filter.FilterCriteria;
 import org.unitedinternet.cosmo.model.filter.ItemFilter;
 import org.unitedinternet.cosmo.model.filter.NoteItemFilter;
 import org.unitedinternet.cosmo.model.filter.Restrictions;
@@ -42,6 +43,10 @@ public class CalendarFilterConverter {
     private static final String PROP_UID = "UID";
     private static final String PROP_DESCRIPTION = "DESCRIPTION";
     private static final String PROP_SUMMARY = "SUMMARY";
+    private static final String PROP_DUE = "DUE";
+    private static final String PROP_COMPLETED = "COMPLETED";
+    private static final String PROP_STATUS = "STATUS";
+    private static final String PROP_CATEGORIES = "CATEGORIES";
 
     /**
      * Constructor.
@@ -100,14 +105,16 @@ public class CalendarFilterConverter {
         ComponentFilter compFilter = (ComponentFilter) rootFilter.getComponentFilters().get(0);
 
         // handle finding VTODO for now
-        if (COMP_VTODO.equalsIgnoreCase(compFilter.getName())) {
-            return createFirstPassTaskFilter(calendar);
+        if (COMP_VTODO.equalsIgnoreCase(compFilter.getName()) && compFilter.getIsNotDefinedFilter() == null) {
+            NoteItemFilter filter = createFirstPassTaskFilter(calendar);
+            handleTaskCompFilter(compFilter, filter);
+            return filter;
         }
 
         return null;
     }
 
-    private ItemFilter createFirstPassTaskFilter(CollectionItem collection) {
+    private NoteItemFilter createFirstPassTaskFilter(CollectionItem collection) {
         NoteItemFilter filter = new NoteItemFilter();
         filter.setParent(collection);
         filter.setIsModification(false);
@@ -115,6 +122,53 @@ public class CalendarFilterConverter {
         return filter;
     }
 
+    /**
+     * Narrows the first pass for tasks down to the parts of the filter the task index can match. Sub-component,
+     * param and negated text-match filters are left to the second pass.
+     */
+    private void handleTaskCompFilter(ComponentFilter compFilter, NoteItemFilter itemFilter) {
+        TimeRangeFilter trf = compFilter.getTimeRangeFilter();
+        if (trf != null) {
+            itemFilter.setTaskPeriod(trf.getPeriod());
+        }
+
+        for (PropertyFilter propFilter : compFilter.getPropFilters()) {
+            if (!propFilter.getParamFilters().isEmpty()) {
+                continue;
+            }
+            boolean notDefined = propFilter.getIsNotDefinedFilter() != null;
+            TextMatchFilter textMatch = notDefined ? null : propFilter.getTextMatchFilter();
+            if (textMatch != null && textMatch.isNegateCondition()) {
+                continue;
+            }
+
+            if (PROP_COMPLETED.equalsIgnoreCase(propFilter.getName())) {
+                itemFilter.setTaskCompleted(notDefined ? Restrictions.isNull() : Restrictions.isNotNull());
+            } else if (PROP_DUE.equalsIgnoreCase(propFilter.getName())) {
+                itemFilter.setTaskDue(notDefined ? Restrictions.isNull() : Restrictions.isNotNull());
+            } else if (PROP_STATUS.equalsIgnoreCase(propFilter.getName())) {
+                itemFilter.setTaskStatus(toIndexCriteria(notDefined, textMatch));
+            } else if (PROP_CATEGORIES.equalsIgnoreCase(propFilter.getName())) {
+                itemFilter.setTaskCategories(toIndexCriteria(notDefined, textMatch));
+            }
+        }
+    }
+
+    /**
+     * Criteria for a property indexed as text, which is empty if the property is not defined.
+     */
+    private FilterCriteria toIndexCriteria(boolean notDefined, TextMatchFilter textMatch) {
+        if (notDefined) {
+            return Restrictions.eq("");
+        }
+        return textMatch != null ? toLikeCriteria(textMatch) : Restrictions.neq("");
+    }
+
+    private FilterCriteria toLikeCriteria(TextMatchFilter textMatch) {
+        return textMatch.isCaseless() ? Restrictions.ilike(textMatch.getValue())
+                : Restrictions.like(textMatch.getValue());
+    }
+
     private void handleCompFilter(ComponentFilter compFilter, NoteItemFilter itemFilter) {
 
         if (COMP_VEVENT.equalsIgnoreCase(compFilter.getName())) {
@@ -23,10 +23,14 @@ import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 
 import org.apache.abdera.i18n.text.UrlEncoding;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.unitedinternet.cosmo.dao.query.ItemPathTranslator;
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.hibernate.BaseModelObject;
+import org.unitedinternet.cosmo.model.hibernate.HibItem;
 
 /**
  * Default implementation for ItempPathTranslator. This implementation expects paths to be of the format:
@@ -35,9 +39,14 @@ import org.unitedinternet.cosmo.model.Item;
 @Repository
 public class DefaultItemPathTranslator implements ItemPathTranslator {
 
+    private static final String ROOT_UID_PREFIX = "uid:";
+
     @PersistenceContext
     private EntityManager em;
 
+    @Autowired
+    private ItemPathCache itemPathCache;
+
     public DefaultItemPathTranslator() {
 
     }
@@ -100,62 +109,98 @@ public class DefaultItemPathTranslator implements ItemPathTranslator {
     /**
      * Finds item by the given path.
      *
-     * @param session
-     *            The current session.
      * @param path
      *            The given path.
      * @return The expected item.
      */
     @Override
     public Item findItemByPath(String path) {
-
-        if (path == null || "".equals(path)) {
+        String[] segments = splitPath(path);
+        if (segments == null) {
             return null;
         }
+        return findItemBySegments("", null, segments);
+    }
 
-        if (path.charAt(0) == '/') {
-            path = path.substring(1, path.length());
-        }
-
-        String[] segments = path.split("/");
-
-        if (segments.length == 0) {
+    /**
+     * Finds item by path.
+     *
+     * @param path
+     *            The given path.
+     * @param root
+     *            The collection root.
+     * @return The expected item.
+     */
+    private Item findItemByPathInternal(String path, CollectionItem root) {
+        String[] segments = splitPath(path);
+        if (segments == null) {
             return null;
         }
-        String username = decode(segments[0]);
-
-        String rootName = username;
-        Item rootItem = findRootItemByOwnerAndName(username, rootName);
+        return findItemBySegments(ROOT_UID_PREFIX + root.getUid(), root, segments);
+    }
 
-        // If parent item doesn't exist don't go any further
-        if (rootItem == null) {
-            return null;
+    /**
+     * Resolves the given path segments starting with the longest prefix known to the cache. If <code>root</code> is
+     * <code>null</code> the first segment is the name of a user's home collection.
+     */
+    private Item findItemBySegments(String base, Item root, String[] segments) {
+        long generation = this.itemPathCache.getGeneration();
+        Item parentItem = root;
+        int resolved = 0;
+        for (int i = segments.length; i > 0; i--) {
+            String key = cacheKey(base, segments, i);
+            Item cached = findCachedItem(key, decode(segments[i - 1]));
+            if (cached != null) {
+                parentItem = cached;
+                resolved = i;
+                break;
+            }
         }
 
-        Item parentItem = rootItem;
-        for (int i = 1; i < segments.length; i++) {
-            Item nextItem = findItemByParentAndName(parentItem, decode(segments[i]));
-            parentItem = nextItem;
+        for (int i = resolved; i < segments.length; i++) {
+            String name = decode(segments[i]);
+            boolean isRoot = root == null && i == 0;
+            Long parentId = isRoot ? null : ((BaseModelObject) parentItem).getId();
             // if any parent item doesn't exist then bail now
-            if (parentItem == null) {
+            if (this.itemPathCache.isMissing(parentId, name)) {
                 return null;
             }
+            Item nextItem = isRoot ? findRootItemByOwnerAndName(name, name) : findItemByParentAndName(parentItem, name);
+            if (nextItem == null) {
+                this.itemPathCache.putMissing(parentId, name, generation);
+                return null;
+            }
+            parentItem = nextItem;
+            this.itemPathCache.putItemId(cacheKey(base, segments, i + 1), ((BaseModelObject) parentItem).getId(),
+                    generation);
         }
 
         return parentItem;
     }
 
-    /**
-     * Finds item by path.
-     *
-     * @param path
-     *            The given path.
-     * @param root
-     *            The collection root.
-     * @return The expected item.
-     */
-    private Item findItemByPathInternal(String path, CollectionItem root) {
+    private Item findCachedItem(String key, String name) {
+        Long itemId = this.itemPathCache.getItemId(key);
+        if (itemId == null) {
+            return null;
+        }
+        HibItem item = this.em.find(HibItem.class, itemId);
+        // the item might have been removed or renamed by another node
+        if (item == null || !name.equals(item.getName())) {
+            this.itemPathCache.remove(key);
+            return null;
+        }
+        return (Item) Hibernate.unproxy(item);
+    }
+
+    private static String cacheKey(String base, String[] segments, int length) {
+        StringBuilder key = new StringBuilder(base);
+        for (int i = 0; i < length; i++) {
+            key.append('/').append(segments[i]);
+        }
+        return key.toString();
+    }
 
+    private static String[] splitPath(String path) {
         if (path == null || "".equals(path)) {
             return null;
         }
@@ -169,18 +214,7 @@ public class DefaultItemPathTranslator implements ItemPathTranslator {
         if (segments.length == 0) {
             return null;
         }
-
-        Item parentItem = root;
-        for (int i = 0; i < segments.length; i++) {
-            Item nextItem = findItemByParentAndName(parentItem, decode(segments[i]));
-            parentItem = nextItem;
-            // if any parent item doesn't exist then bail now
-            if (parentItem == null) {
-                return null;
-            }
-        }
-
-        return parentItem;
+        return segments;
     }
 
     protected Item findRootItemByOwnerAndName(String username, String name) {
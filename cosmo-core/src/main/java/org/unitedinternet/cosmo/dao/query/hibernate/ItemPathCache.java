@@ -0,0 +1,257 @@
+package org.unitedinternet.cosmo.dao.query.hibernate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+
+/**
+ * Cache of path to item id mappings used by {@link DefaultItemPathTranslator}, including negative entries for names
+ * that don't resolve to an item in a given parent.
+ * <p>
+ * Entries expire after a configurable time to live which bounds the staleness caused by changes made by other nodes.
+ * Local changes are reported by the DAO layer once committed: removing, moving or renaming an item drops all paths
+ * of the item and below, which for collections means all paths, and creating an item or giving it a new name drops
+ * the negative entry of its name in each of its parents. Each
+ * invalidation increments a generation counter so that lookups that started before the invalidation don't store
+ * what they resolved.
+ */
+@Component
+public class ItemPathCache {
+
+    public static final long DEFAULT_TTL = 30000;
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    @Value("${cosmo.item.path.cache.ttl:" + DEFAULT_TTL + "}")
+    private long ttl;
+
+    @Value("${cosmo.item.path.cache.maxSize:" + DEFAULT_MAX_SIZE + "}")
+    private int maxSize;
+
+    private final Map<String, Entry> items = new LinkedHashMap<String, Entry>(256, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private final Map<String, Long> missing = new LinkedHashMap<String, Long>(256, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private long generation;
+
+    private long hits;
+
+    private long missingHits;
+
+    private long misses;
+
+    /**
+     * Default constructor.
+     */
+    public ItemPathCache() {
+        this(DEFAULT_TTL, DEFAULT_MAX_SIZE);
+    }
+
+    public ItemPathCache(long ttl, int maxSize) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return this.ttl > 0 && this.maxSize > 0;
+    }
+
+    @PostConstruct
+    public void registerMeters() {
+        FunctionCounter.builder(CosmoMetrics.PATH_CACHE, this, ItemPathCache::getHitCount).tags("result", "hit")
+                .register(CosmoMetrics.registry());
+        FunctionCounter.builder(CosmoMetrics.PATH_CACHE, this, ItemPathCache::getMissingHitCount)
+                .tags("result", "missing").register(CosmoMetrics.registry());
+        FunctionCounter.builder(CosmoMetrics.PATH_CACHE, this, ItemPathCache::getMissCount).tags("result", "miss")
+                .register(CosmoMetrics.registry());
+        Gauge.builder(CosmoMetrics.PATH_CACHE_SIZE, this, ItemPathCache::getSize).register(CosmoMetrics.registry());
+    }
+
+    /**
+     * Returns the current generation which must be passed when storing the result of a lookup.
+     */
+    public synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Returns the id of the item cached for the given path or <code>null</code> if there is none.
+     */
+    public synchronized Long getItemId(String path) {
+        Entry entry = this.items.get(path);
+        if (entry == null) {
+            this.misses++;
+            return null;
+        }
+        if (entry.expires < System.currentTimeMillis()) {
+            this.items.remove(path);
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        return entry.itemId;
+    }
+
+    /**
+     * Returns <code>true</code> if the given parent is known to have no child of the given name. A <code>null</code>
+     * parent stands for the root items.
+     */
+    public synchronized boolean isMissing(Long parentId, String name) {
+        String key = missingKey(parentId, name);
+        Long expires = this.missing.get(key);
+        if (expires == null) {
+            return false;
+        }
+        if (expires < System.currentTimeMillis()) {
+            this.missing.remove(key);
+            return false;
+        }
+        this.missingHits++;
+        return true;
+    }
+
+    public synchronized void putItemId(String path, Long itemId, long generation) {
+        if (!isEnabled() || itemId == null || itemId < 0 || generation != this.generation) {
+            return;
+        }
+        this.items.put(path, new Entry(itemId, System.currentTimeMillis() + this.ttl));
+    }
+
+    public synchronized void putMissing(Long parentId, String name, long generation) {
+        if (!isEnabled() || generation != this.generation) {
+            return;
+        }
+        this.missing.put(missingKey(parentId, name), System.currentTimeMillis() + this.ttl);
+    }
+
+    /**
+     * Removes a single stale entry.
+     */
+    public synchronized void remove(String path) {
+        this.items.remove(path);
+    }
+
+    /**
+     * Removes all paths resolving to the given item as well as all paths below them.
+     */
+    public synchronized void invalidate(Long itemId) {
+        this.generation++;
+        if (itemId == null || this.items.isEmpty()) {
+            return;
+        }
+        List<String> prefixes = new ArrayList<String>();
+        for (Map.Entry<String, Entry> entry : this.items.entrySet()) {
+            if (itemId.equals(entry.getValue().itemId)) {
+                prefixes.add(entry.getKey() + "/");
+            }
+        }
+        if (prefixes.isEmpty()) {
+            return;
+        }
+        for (Iterator<Map.Entry<String, Entry>> it = this.items.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Entry> entry = it.next();
+            if (itemId.equals(entry.getValue().itemId) || startsWithAny(entry.getKey(), prefixes)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the negative entry of the given name in the given parent, to be called whenever an item is created or
+     * gets a new path.
+     */
+    public synchronized void invalidateMissing(Long parentId, String name) {
+        this.generation++;
+        this.missing.remove(missingKey(parentId, name));
+    }
+
+    public synchronized void clear() {
+        this.generation++;
+        this.items.clear();
+        this.missing.clear();
+    }
+
+    public synchronized int getSize() {
+        return this.items.size() + this.missing.size();
+    }
+
+    /**
+     * Returns the number of paths found in the cache.
+     */
+    public synchronized long getHitCount() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of names found to be missing in the cache.
+     */
+    public synchronized long getMissingHitCount() {
+        return this.missingHits;
+    }
+
+    /**
+     * Returns the number of paths not found in the cache.
+     */
+    public synchronized long getMissCount() {
+        return this.misses;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private static String missingKey(Long parentId, String name) {
+        return parentId != null ? parentId + "/" + name : "/" + name;
+    }
+
+    private static boolean startsWithAny(String path, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Entry {
+
+        private final Long itemId;
+        private final long expires;
+
+        Entry(Long itemId, long expires) {
+            this.itemId = itemId;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.unitedinternet.cosmo.dao.query.hibernate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+
+/**
+ * Exposes the hits and misses of the hibernate query plan cache as meters, so that the share of item filter queries
+ * that reuse the plan of their shape can be watched.
+ * <p>
+ * Hibernate only counts them with statistics enabled, which is done here unless
+ * <code>cosmo.query.planCache.statistics</code> is <code>false</code>. Statistics are switched on at runtime rather
+ * than with <code>hibernate.generate_statistics</code>, which would also log the metrics of every session.
+ */
+@Component
+public class QueryPlanCacheMetrics {
+
+    private final Statistics statistics;
+
+    @Value("${cosmo.query.planCache.statistics:true}")
+    private boolean enabled;
+
+    public QueryPlanCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @PostConstruct
+    public void registerMeters() {
+        if (this.enabled) {
+            this.statistics.setStatisticsEnabled(true);
+        }
+        FunctionCounter.builder(CosmoMetrics.QUERY_PLAN_CACHE, this.statistics, Statistics::getQueryPlanCacheHitCount)
+                .tags("result", "hit").register(CosmoMetrics.registry());
+        FunctionCounter.builder(CosmoMetrics.QUERY_PLAN_CACHE, this.statistics, Statistics::getQueryPlanCacheMissCount)
+                .tags("result", "miss").register(CosmoMetrics.registry());
+    }
+}
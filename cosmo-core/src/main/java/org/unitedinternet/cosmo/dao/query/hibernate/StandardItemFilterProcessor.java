@@ -31,11 +31,13 @@ import javax.persistence.TypedQuery;
 import org.hibernate.query.internal.QueryImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.unitedinternet.cosmo.CosmoConstants;
 import org.unitedinternet.cosmo.calendar.Instance;
 import org.unitedinternet.cosmo.calendar.InstanceList;
 import org.unitedinternet.cosmo.calendar.RecurrenceExpander;
+import org.unitedinternet.cosmo.dao.hibernate.OccurrenceWindowExtender;
 import org.unitedinternet.cosmo.dao.query.ItemFilterProcessor;
 import org.unitedinternet.cosmo.model.ContentItem;
 import org.unitedinternet.cosmo.model.EventStamp;
@@ -58,6 +60,8 @@ import org.unitedinternet.cosmo.model.filter.NullExpression;
 import org.unitedinternet.cosmo.model.filter.StampFilter;
 import org.unitedinternet.cosmo.model.filter.StringAttributeFilter;
 import org.unitedinternet.cosmo.model.filter.TextAttributeFilter;
+import org.unitedinternet.cosmo.model.hibernate.HibBaseEventStamp;
+import org.unitedinternet.cosmo.model.hibernate.HibEventTimeRangeIndex;
 import org.unitedinternet.cosmo.model.hibernate.HibNoteItem;
 import org.unitedinternet.cosmo.util.NoteOccurrenceUtil;
 
@@ -72,6 +76,10 @@ public class StandardItemFilterProcessor  implements ItemFilterProcessor {
     
     @PersistenceContext
     private EntityManager em;
+
+    @Autowired
+    private OccurrenceWindowExtender windowExtender;
+
     
     /**
      * Constructor.
@@ -176,7 +184,7 @@ public class StandardItemFilterProcessor  implements ItemFilterProcessor {
         }
 
         handleAttributeFilters(selectBuf, whereBuf, params, filter);
-        handleStampFilters(selectBuf, whereBuf, filter);
+        handleStampFilters(selectBuf, whereBuf, params, filter);
 
     }
 
@@ -213,10 +221,11 @@ public class StandardItemFilterProcessor  implements ItemFilterProcessor {
         formatExpression(whereBuf, params, alias + ".value", filter.getValue());
     }
 
-    private void handleStampFilters(StringBuilder selectBuf, StringBuilder whereBuf, ItemFilter filter) {
+    private void handleStampFilters(StringBuilder selectBuf, StringBuilder whereBuf, HashMap<String, Object> params,
+            ItemFilter filter) {
         for (StampFilter stampFilter : filter.getStampFilters()) {
             if (stampFilter instanceof EventStampFilter) {
-                handleEventStampFilter(selectBuf, whereBuf, (EventStampFilter) stampFilter);
+                handleEventStampFilter(selectBuf, whereBuf, params, (EventStampFilter) stampFilter);
             } else {
                 handleStampFilter(whereBuf, stampFilter);
             }
@@ -247,7 +256,8 @@ public class StandardItemFilterProcessor  implements ItemFilterProcessor {
         params.put(param, filter.getQname());
     }
 
-    private void handleEventStampFilter(StringBuilder selectBuf, StringBuilder whereBuf, EventStampFilter filter) {
+    private void handleEventStampFilter(StringBuilder selectBuf, StringBuilder whereBuf,
+            HashMap<String, Object> params, EventStampFilter filter) {
 
         selectBuf.append(", HibBaseEventStamp es");
         appendWhere(whereBuf, "es.item=i");
@@ -261,26 +271,71 @@ public class StandardItemFilterProcessor  implements ItemFilterProcessor {
             }
         }
 
-        // handle time range
+        // handle time range, all bounds are parameters so that the query plan only depends on the filter shape
         if (filter.getPeriod() != null) {
-            whereBuf.append(" and ( ");
-            whereBuf.append("(es.timeRangeIndex.isFloating=true and es.timeRangeIndex.startDate < '"
-                    + filter.getFloatEnd() + "'");
-            whereBuf.append(" and es.timeRangeIndex.endDate > '" + filter.getFloatStart() + "')");
-
-            whereBuf.append(" or (es.timeRangeIndex.isFloating=false and " + "es.timeRangeIndex.startDate < '"
-                    + filter.getUTCEnd() + "'");
-            whereBuf.append(" and es.timeRangeIndex.endDate > '" + filter.getUTCStart() + "')");
-
-            // edge case where start==end
+            params.put("utcStartMillis", HibEventTimeRangeIndex.toMillis(filter.getUTCStart()));
+            params.put("utcEndMillis", HibEventTimeRangeIndex.toMillis(filter.getUTCEnd()));
+            params.put("utcStart", filter.getUTCStart());
+            params.put("utcEnd", filter.getUTCEnd());
+            params.put("floatStart", filter.getFloatStart());
+            params.put("floatEnd", filter.getFloatEnd());
+            params.put("occurrencesLower", occurrencesLowerBound(filter));
+            params.put("occurrencesUpper", occurrencesUpperBound(filter));
+
+            // range predicate on the numeric index, the window of floating events covers every timezone
+            whereBuf.append(" and es.timeRangeIndex.startMillis < :utcEndMillis"
+                    + " and es.timeRangeIndex.endMillis >= :utcStartMillis");
+
+            // exact match: non-floating events by instant, with start==end as edge case, floating events by wall
+            // clock time in the timezone of the filter
+            whereBuf.append(" and ((es.timeRangeIndex.isFloating=false and "
+                    + "(es.timeRangeIndex.endMillis > :utcStartMillis"
+                    + " or es.timeRangeIndex.startMillis=es.timeRangeIndex.endMillis))");
+            whereBuf.append(" or (es.timeRangeIndex.isFloating=true and ((es.timeRangeIndex.startDate < :floatEnd"
+                    + " and es.timeRangeIndex.endDate > :floatStart)");
             whereBuf.append(" or (es.timeRangeIndex.startDate=es.timeRangeIndex.endDate and "
-                    + "(es.timeRangeIndex.startDate='" + filter.getFloatStart() + "' or es.timeRangeIndex.startDate='"
-                    + filter.getUTCStart() + "'))");
+                    + "es.timeRangeIndex.startDate=:floatStart))))");
 
-            whereBuf.append(")");
+            // recurring series whose occurrences are indexed for the range must have an occurrence in it
+            whereBuf.append(" and (es.timeRangeIndex.isRecurring=false or es.occurrencesEnd is null or "
+                    + "es.occurrencesStart > :occurrencesLower or es.occurrencesEnd < :occurrencesUpper or "
+                    + "exists (select os.id from HibBaseEventStamp os join os.occurrences o where os=es and "
+                    + "((es.timeRangeIndex.isFloating=true and o.startDate < :floatEnd and o.endDate > :floatStart) "
+                    + "or (es.timeRangeIndex.isFloating=false and o.startDate < :utcEnd and o.endDate > :utcStart) "
+                    + "or (o.startDate=o.endDate and (o.startDate=:floatStart or o.startDate=:utcStart)))))");
         }
     }
 
+    /**
+     * Start of the time range as compared to the indexed occurrences window, which is the earlier of the floating
+     * and the UTC start.
+     */
+    private static String occurrencesLowerBound(EventStampFilter filter) {
+        String floatStart = filter.getFloatStart();
+        String utcStart = filter.getUTCStart();
+        return floatStart.compareTo(utcStart) < 0 ? floatStart : utcStart;
+    }
+
+    /**
+     * End of the time range as compared to the indexed occurrences window, which is the later of the floating and
+     * the UTC end.
+     */
+    private static String occurrencesUpperBound(EventStampFilter filter) {
+        String floatEnd = filter.getFloatEnd();
+        String utcEnd = filter.getUTCEnd();
+        return floatEnd.compareTo(utcEnd) > 0 ? floatEnd : utcEnd;
+    }
+
+    /**
+     * Whether the occurrences of the given stamp are indexed for the whole time range of the filter, in which case
+     * the query already matched the series only if it occurs in the range.
+     */
+    private static boolean isOccurrenceIndexed(HibBaseEventStamp stamp, EventStampFilter filter) {
+        return stamp.getOccurrencesStart() != null && stamp.getOccurrencesEnd() != null
+                && stamp.getOccurrencesStart().compareTo(occurrencesLowerBound(filter)) <= 0
+                && stamp.getOccurrencesEnd().compareTo(occurrencesUpperBound(filter)) >= 0;
+    }
+
     private void handleNoteItemFilter(StringBuilder selectBuf, StringBuilder whereBuf, HashMap<String, Object> params,
             NoteItemFilter filter) {
         selectBuf.append("select i from HibNoteItem i");
@@ -336,6 +391,42 @@ public class StandardItemFilterProcessor  implements ItemFilterProcessor {
         if (filter.getModifiedSince() != null) {
             formatExpression(whereBuf, params, "i.modifiedDate", filter.getModifiedSince());
         }
+
+        handleTaskCriteria(whereBuf, params, filter);
+    }
+
+    /**
+     * Task criteria are matched against the task index of the note. Notes whose task is not indexed, recognizable
+     * by a missing range, always match, as do notes whose status or categories did not fit the index.
+     */
+    private void handleTaskCriteria(StringBuilder whereBuf, HashMap<String, Object> params, NoteItemFilter filter) {
+        if (filter.getTaskPeriod() != null) {
+            params.put("taskStartMillis", filter.getTaskPeriod().getStart().getTime());
+            params.put("taskEndMillis", filter.getTaskPeriod().getEnd().getTime());
+            appendWhere(whereBuf, "(i.taskIndex.startMillis is null or (i.taskIndex.startMillis <= :taskEndMillis"
+                    + " and i.taskIndex.endMillis >= :taskStartMillis))");
+        }
+        if (filter.getTaskDue() != null) {
+            appendTaskExpression(whereBuf, params, "i.taskIndex.due", filter.getTaskDue(), false);
+        }
+        if (filter.getTaskCompleted() != null) {
+            appendTaskExpression(whereBuf, params, "i.taskIndex.completed", filter.getTaskCompleted(), false);
+        }
+        if (filter.getTaskStatus() != null) {
+            appendTaskExpression(whereBuf, params, "i.taskIndex.status", filter.getTaskStatus(), true);
+        }
+        if (filter.getTaskCategories() != null) {
+            appendTaskExpression(whereBuf, params, "i.taskIndex.categories", filter.getTaskCategories(), true);
+        }
+    }
+
+    private void appendTaskExpression(StringBuilder whereBuf, HashMap<String, Object> params, String propName,
+            FilterCriteria fc, boolean nullIfUnknown) {
+        String unknown = "i.taskIndex.startMillis is null";
+        if (nullIfUnknown && !(fc instanceof NullExpression)) {
+            unknown += " or " + propName + " is null";
+        }
+        appendWhere(whereBuf, "(" + unknown + " or " + toExpression(params, propName, fc) + ")");
     }
 
     private void handleContentItemFilter(StringBuilder selectBuf, StringBuilder whereBuf, HashMap<String, Object> params,
@@ -368,7 +459,8 @@ public class StandardItemFilterProcessor  implements ItemFilterProcessor {
      * Because a timeRange query requires two passes: one to get the list of possible events that occur in the range,
      * and one to expand recurring events if necessary. This is required because we only index a start and end for the
      * entire recurrence series, and expansion is required to determine if the event actually occurs, and to return
-     * individual occurences.
+     * individual occurences. Series whose occurrences are indexed for the whole range are only expanded to return
+     * individual occurrences.
      */
     @Override
     public Set<Item> processResults(List<Item> results, ItemFilter itemFilter) {
@@ -441,12 +533,28 @@ public class StandardItemFilterProcessor  implements ItemFilterProcessor {
             return results;
         }
 
+        // If the occurrences are indexed for the time range the query only
+        // matched the series if it occurs in the range
+        HibBaseEventStamp hibStamp = eventStamp instanceof HibBaseEventStamp ? (HibBaseEventStamp) eventStamp : null;
+        boolean indexed = hibStamp != null && isOccurrenceIndexed(hibStamp, filter);
+        if (indexed && !filter.isExpandRecurringEvents()) {
+            if (includeMasterInResults) {
+                results.add(note);
+            }
+            return results;
+        }
+
         // Otherwise, expand the recurring item to determine if it actually
         // occurs in the time range specified
         RecurrenceExpander expander = new RecurrenceExpander();
         InstanceList instances = expander.getOcurrences(eventStamp.getEvent(), eventStamp.getExceptions(),
                 filter.getPeriod().getStart(), filter.getPeriod().getEnd(), filter.getTimezone());
 
+        // and have the indexed occurrences extended to the range so that the next query doesn't have to
+        if (!indexed && hibStamp != null && isPersistent(hibStamp)) {
+            this.windowExtender.extend(hibStamp.getId(), filter.getPeriod().getStart(), filter.getPeriod().getEnd());
+        }
+
         // If recurring event occurs in range, add master unless the filter
         // is configured to not return the master
         if (instances.size() > 0 && includeMasterInResults) {
@@ -472,8 +580,16 @@ public class StandardItemFilterProcessor  implements ItemFilterProcessor {
         return results;
     }
 
+    private static boolean isPersistent(HibBaseEventStamp stamp) {
+        return stamp.getId() != null && stamp.getId() != -1;
+    }
+
     private void formatExpression(StringBuilder whereBuf, HashMap<String, Object> params, String propName,
             FilterCriteria fc) {
+        appendWhere(whereBuf, toExpression(params, propName, fc));
+    }
+
+    private String toExpression(HashMap<String, Object> params, String propName, FilterCriteria fc) {
 
         StringBuilder expBuf = new StringBuilder();
 
@@ -534,7 +650,7 @@ public class StandardItemFilterProcessor  implements ItemFilterProcessor {
             expBuf.append(":" + param);
         }
 
-        appendWhere(whereBuf, expBuf.toString());
+        return expBuf.toString();
     }
 
 }
@@ -17,6 +17,7 @@ import org.unitedinternet.cosmo.model.CollectionSubscription;
 import org.unitedinternet.cosmo.model.ContentItem;
 import org.unitedinternet.cosmo.model.HomeCollectionItem;
 import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.ItemTombstone;
 import org.unitedinternet.cosmo.model.Stamp;
 import org.unitedinternet.cosmo.model.Ticket;
 import org.unitedinternet.cosmo.model.TicketType;
@@ -184,6 +185,11 @@ public class ContentDaoSubscriptionImpl implements ContentDao {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Set<Item> findItemsByParentAndNames(CollectionItem parent, Set<String> names) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Set<Item> findItems(ItemFilter filter) {
@@ -307,6 +313,11 @@ public class ContentDaoSubscriptionImpl implements ContentDao {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Set<ItemTombstone> loadTombstones(CollectionItem collection, Long timestamp) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void removeItemsFromCollection(CollectionItem collection) {
         throw new UnsupportedOperationException();
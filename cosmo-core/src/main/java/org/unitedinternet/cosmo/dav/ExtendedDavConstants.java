@@ -62,6 +62,13 @@ public interface ExtendedDavConstants extends DavConstants {
     DavPropertyName CURRENTUSERPRINCIPAL =
             DavPropertyName.create("current-user-principal", NAMESPACE);
 
+    /** The WebDAV collection synchronization (RFC 6578) name <code>sync-token</code> */
+    String XML_SYNC_TOKEN = "sync-token";
+
+    /** The WebDAV collection synchronization property <code>DAV:sync-token</code> */
+    DavPropertyName SYNCTOKEN =
+        DavPropertyName.create(XML_SYNC_TOKEN, NAMESPACE);
+
 
     String QN_PROPFIND =
         DomUtil.getExpandedName(XML_PROPFIND, NAMESPACE);
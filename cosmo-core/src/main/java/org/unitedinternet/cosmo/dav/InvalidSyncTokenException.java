@@ -0,0 +1,23 @@
+package org.unitedinternet.cosmo.dav;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * An exception indicating that the sync token submitted with a
+ * <code>DAV:sync-collection</code> report is not valid for the targeted
+ * collection (the <code>DAV:valid-sync-token</code> precondition of RFC 6578).
+ */
+@SuppressWarnings("serial")
+public class InvalidSyncTokenException extends ForbiddenException {
+
+    public InvalidSyncTokenException(String message) {
+        super(message);
+    }
+
+    protected void writeContent(XMLStreamWriter writer)
+        throws XMLStreamException {
+        writer.writeStartElement(NAMESPACE.getURI(), "valid-sync-token");
+        writer.writeEndElement();
+    }
+}
@@ -74,9 +74,8 @@ public abstract class CaldavMultiStatusReport extends MultiStatusReport
         MultiStatusResponse msr =
             super.buildMultiStatusResponse(resource, props);
 
-        DavCalendarResource dcr = (DavCalendarResource) resource;
-        if (getPropFindProps().contains(CALENDARDATA)) {
-            msr.add(new CalendarData(readCalendarData(dcr)));
+        if (getPropFindProps().contains(CALENDARDATA) && resource instanceof DavCalendarResource) {
+            msr.add(new CalendarData(readCalendarData((DavCalendarResource) resource)));
         }
 
         return msr;
@@ -19,8 +19,10 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -39,6 +41,7 @@ import org.unitedinternet.cosmo.dav.DavContent;
 import org.unitedinternet.cosmo.dav.UnprocessableEntityException;
 import org.unitedinternet.cosmo.dav.WebDavResource;
 import org.unitedinternet.cosmo.dav.impl.DavCalendarResource;
+import org.unitedinternet.cosmo.dav.impl.DavCollectionBase;
 import org.w3c.dom.Element;
 
 /**
@@ -60,6 +63,7 @@ public class MultigetReport extends CaldavMultiStatusReport {
                             NAMESPACE_CALDAV, MultigetReport.class);
 
     private Set<String> hrefs;
+    private Map<String, WebDavResource> targets;
 
     // Report methods
 
@@ -157,34 +161,61 @@ public class MultigetReport extends CaldavMultiStatusReport {
         throws CosmoDavException {}
 
     /**
-     * Resolves the hrefs provided in the report info to resources.
+     * Resolves the hrefs provided in the report info to resources. Members of
+     * stored collections are resolved in bulk.
      */
     protected void runQuery()
         throws CosmoDavException {
-        DavPropertyNameSet propspec = createResultPropSpec();
-
         if (getResource() instanceof DavCollection) {
-            DavCollection collection = (DavCollection) getResource();
-            for (String href : hrefs) {
-                WebDavResource target = collection.findMember(href);
-                if (target != null) {
-                    getMultiStatus().addResponse(buildMultiStatusResponse(target, propspec));
-                }
-                else {
-                    getMultiStatus().addResponse(new MultiStatusResponse(href,404));
-                }
-            }
+            targets = findMembers((DavCollection) getResource());
             return;
         }
 
         if (getResource() instanceof DavCalendarResource) {
-            getMultiStatus().addResponse(buildMultiStatusResponse(getResource(), propspec));
+            getResults().add(getResource());
             return;
         }
 
         throw new UnprocessableEntityException(getType() + " report not supported for non-calendar resources");
     }
 
+    /**
+     * Writes a response for each requested href, with a 404 status for those
+     * that don't resolve to a member.
+     */
+    protected void writeResponses(ResponseWriter writer)
+        throws CosmoDavException {
+        if (targets == null) {
+            super.writeResponses(writer);
+            return;
+        }
+        DavPropertyNameSet propspec = createResultPropSpec();
+        for (String href : hrefs) {
+            WebDavResource target = targets.get(href);
+            if (target != null) {
+                writer.write(buildMultiStatusResponse(target, propspec));
+            }
+            else {
+                writer.write(new MultiStatusResponse(href, 404));
+            }
+        }
+    }
+
+    private Map<String, WebDavResource> findMembers(DavCollection collection)
+        throws CosmoDavException {
+        if (collection instanceof DavCollectionBase) {
+            return ((DavCollectionBase) collection).findMembers(hrefs);
+        }
+        Map<String, WebDavResource> targets = new HashMap<String, WebDavResource>();
+        for (String href : hrefs) {
+            WebDavResource target = collection.findMember(href);
+            if (target != null) {
+                targets.put(href, target);
+            }
+        }
+        return targets;
+    }
+
     private static URL normalizeHref(URL context,
                                      String href)
         throws CosmoDavException {
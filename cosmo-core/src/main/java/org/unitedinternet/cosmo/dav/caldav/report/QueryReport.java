@@ -16,7 +16,11 @@
 package org.unitedinternet.cosmo.dav.caldav.report;
 
 import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
+import org.apache.jackrabbit.webdav.property.DavPropertyNameSet;
 import org.apache.jackrabbit.webdav.version.report.ReportInfo;
 import org.apache.jackrabbit.webdav.version.report.ReportType;
 import org.apache.jackrabbit.webdav.xml.DomUtil;
@@ -31,6 +35,7 @@ import org.unitedinternet.cosmo.dav.caldav.SupportedCollationException;
 import org.unitedinternet.cosmo.dav.caldav.TimeZoneExtractor;
 import org.unitedinternet.cosmo.dav.impl.DavCalendarCollection;
 import org.unitedinternet.cosmo.dav.impl.DavCalendarResource;
+import org.unitedinternet.cosmo.model.ContentItem;
 import org.w3c.dom.Element;
 
 import net.fortuna.ical4j.model.component.VTimeZone;
@@ -51,6 +56,12 @@ public class QueryReport extends CaldavMultiStatusReport {
     private VTimeZone tz;
     private CalendarFilter queryFilter;
 
+    /**
+     * Items matching the query in each calendar collection, turned into resources only while writing the responses.
+     */
+    private Map<DavCalendarCollection, Set<ContentItem>> memberItems =
+        new LinkedHashMap<DavCalendarCollection, Set<ContentItem>>();
+
     // Report methods
 
     public ReportType getType() {
@@ -120,12 +131,13 @@ public class QueryReport extends CaldavMultiStatusReport {
 
     /**
     * <p>
-    * Runs the report query against the members of the collection. All
-    * resulting members are added to the results list.
+    * Runs the report query against the members of the collection. The
+    * matching items are kept and written as responses one at a time by
+    * {@link #writeResponses(ResponseWriter)}.
     * </p>
     * <p>
     * If the collection is a calendar collection, attempts to match the query
-    * filter using {@link DavCalendarCollection#findMembers(CalendarFilter)}.
+    * filter using {@link DavCalendarCollection#findMemberItems(CalendarFilter)}.
     * Otherwise does nothing, as only calendar resources can match the query,
     * and regular collections cannot contain calendar resources.
     * </p>
@@ -133,13 +145,31 @@ public class QueryReport extends CaldavMultiStatusReport {
     protected void doQueryChildren(DavCollection collection) throws CosmoDavException {
         if (collection instanceof DavCalendarCollection) {
             DavCalendarCollection dcc = (DavCalendarCollection) collection;
-            getResults().addAll(dcc.findMembers(queryFilter));
+            memberItems.put(dcc, dcc.findMemberItems(queryFilter));
             return;
         }
         // if it's a regular collection, there won't be any calendar resources
         // within it to match the query
     }
 
+    /**
+     * Writes the responses of the matching resources, creating the resource
+     * of each matching member only when its response is written.
+     */
+    protected void writeResponses(ResponseWriter writer)
+        throws CosmoDavException {
+        super.writeResponses(writer);
+        DavPropertyNameSet propspec = createResultPropSpec();
+        for (Map.Entry<DavCalendarCollection, Set<ContentItem>> entry : memberItems.entrySet()) {
+            for (ContentItem memberItem : entry.getValue()) {
+                DavCalendarResource member = entry.getKey().toMemberResource(memberItem);
+                if (member != null) {
+                    writer.write(buildMultiStatusResponse(member, propspec));
+                }
+            }
+        }
+    }
+
     // our methods
 
     public CalendarFilter getQueryFilter() {
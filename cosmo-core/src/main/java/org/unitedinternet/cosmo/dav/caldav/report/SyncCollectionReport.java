@@ -0,0 +1,142 @@
+package org.unitedinternet.cosmo.dav.caldav.report;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.jackrabbit.webdav.DavServletResponse;
+import org.apache.jackrabbit.webdav.MultiStatusResponse;
+import org.apache.jackrabbit.webdav.version.report.ReportInfo;
+import org.apache.jackrabbit.webdav.version.report.ReportType;
+import org.apache.jackrabbit.webdav.xml.DomUtil;
+import org.unitedinternet.cosmo.dav.BadRequestException;
+import org.unitedinternet.cosmo.dav.CosmoDavException;
+import org.unitedinternet.cosmo.dav.DavCollection;
+import org.unitedinternet.cosmo.dav.UnprocessableEntityException;
+import org.unitedinternet.cosmo.dav.WebDavResource;
+import org.unitedinternet.cosmo.dav.impl.DavCalendarCollection;
+import org.unitedinternet.cosmo.dav.property.SyncToken;
+import org.unitedinternet.cosmo.dav.util.MultiStatusWriter;
+import org.w3c.dom.Element;
+
+/**
+ * <p>
+ * Represents the <code>DAV:sync-collection</code> report defined by RFC 6578 that allows clients to retrieve the
+ * members of a calendar collection that have been changed or removed since a previous synchronization.
+ * </p>
+ * <p>
+ * Changed members are reported with the requested properties, removed members are reported with a 404 status. Only
+ * <code>DAV:sync-level</code> 1 is supported and <code>DAV:limit</code> is ignored.
+ * </p>
+ */
+public class SyncCollectionReport extends CaldavMultiStatusReport {
+
+    private static final String ELEMENT_SYNC_COLLECTION = "sync-collection";
+    private static final String ELEMENT_SYNC_LEVEL = "sync-level";
+
+    public static final ReportType REPORT_TYPE_SYNC_COLLECTION =
+        ReportType.register(ELEMENT_SYNC_COLLECTION, NAMESPACE, SyncCollectionReport.class);
+
+    private String syncToken;
+    private String newSyncToken;
+    private Set<String> removedHrefs = new HashSet<String>();
+
+    // Report methods
+
+    public ReportType getType() {
+        return REPORT_TYPE_SYNC_COLLECTION;
+    }
+
+    // ReportBase methods
+
+    /**
+     * <p>
+     * Parses the report info, extracting the sync token, the properties and the output filter.
+     * </p>
+     * <pre>
+     * <!ELEMENT sync-collection (sync-token, sync-level, limit?, prop)>
+     * </pre>
+     *
+     * @throws CosmoDavException if the report info is not of the correct type
+     */
+    protected void parseReport(ReportInfo info) throws CosmoDavException {
+        if (! getType().isRequestedReportType(info)) {
+            throw new CosmoDavException("Report not of type " + getType().getReportName());
+        }
+
+        Element report = getReportElementFrom(info);
+        Element token = DomUtil.getChildElement(report, XML_SYNC_TOKEN, NAMESPACE);
+        if (token == null) {
+            throw new BadRequestException("Expected " + XML_SYNC_TOKEN + " element");
+        }
+        syncToken = DomUtil.getTextTrim(token);
+
+        Element level = DomUtil.getChildElement(report, ELEMENT_SYNC_LEVEL, NAMESPACE);
+        if (level != null && !"1".equals(DomUtil.getTextTrim(level))) {
+            throw new BadRequestException("Unsupported " + ELEMENT_SYNC_LEVEL + " " + DomUtil.getTextTrim(level));
+        }
+
+        setPropFindProps(info.getPropertyNameSet());
+        setPropFindType(PROPFIND_BY_PROPERTY);
+        setOutputFilter(findOutputFilter(info));
+    }
+
+    protected void doQuerySelf(WebDavResource resource)
+        throws CosmoDavException {}
+
+    protected void doQueryChildren(DavCollection collection)
+        throws CosmoDavException {}
+
+    /**
+     * Collects the members changed and removed since the submitted sync token.
+     */
+    protected void runQuery()
+        throws CosmoDavException {
+        if (! (getResource() instanceof DavCalendarCollection)) {
+            throw new UnprocessableEntityException(getType() + " report not supported for non-calendar collections");
+        }
+        DavCalendarCollection collection = (DavCalendarCollection) getResource();
+
+        Long since = collection.parseSyncToken(syncToken);
+        newSyncToken = collection.getSyncToken();
+        getResults().addAll(collection.findMembersChangedSince(since));
+        removedHrefs = collection.findMemberHrefsRemovedSince(since);
+        // members re-created under the name of a removed one are reported as changed only
+        for (WebDavResource member : getResults()) {
+            removedHrefs.remove(member.getResourceLocator().getHref(false));
+        }
+    }
+
+    /**
+     * Writes the changed members followed by the removed ones.
+     */
+    protected void writeResponses(ResponseWriter writer) throws CosmoDavException {
+        super.writeResponses(writer);
+        for (String href : removedHrefs) {
+            writer.write(new MultiStatusResponse(href, 404));
+        }
+    }
+
+    /**
+     * Writes the multistatus response including the removed members and the new sync token.
+     */
+    protected void output(DavServletResponse response) throws CosmoDavException {
+        try {
+            MultiStatusWriter writer = MultiStatusWriter.open(response);
+            writeResponses(msr -> write(writer, msr));
+            write(writer, new SyncToken(newSyncToken));
+            writer.finish();
+        } catch (CosmoDavException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CosmoDavException(e);
+        }
+    }
+
+    public String getNewSyncToken() {
+        return newSyncToken;
+    }
+
+    public Set<String> getRemovedHrefs() {
+        return removedHrefs;
+    }
+}
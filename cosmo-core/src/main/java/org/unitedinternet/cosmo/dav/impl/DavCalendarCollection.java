@@ -15,8 +15,10 @@
  */
 package org.unitedinternet.cosmo.dav.impl;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.xml.namespace.QName;
@@ -24,6 +26,7 @@ import javax.xml.namespace.QName;
 import org.apache.jackrabbit.webdav.io.InputContext;
 import org.apache.jackrabbit.webdav.property.DavPropertyName;
 import org.apache.jackrabbit.webdav.property.DavPropertySet;
+import org.apache.jackrabbit.webdav.version.report.ReportType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
@@ -34,6 +37,7 @@ import org.unitedinternet.cosmo.dav.CosmoDavException;
 import org.unitedinternet.cosmo.dav.DavCollection;
 import org.unitedinternet.cosmo.dav.DavResourceFactory;
 import org.unitedinternet.cosmo.dav.DavResourceLocator;
+import org.unitedinternet.cosmo.dav.InvalidSyncTokenException;
 import org.unitedinternet.cosmo.dav.LockedException;
 import org.unitedinternet.cosmo.dav.ProtectedPropertyModificationException;
 import org.unitedinternet.cosmo.dav.UnprocessableEntityException;
@@ -41,6 +45,8 @@ import org.unitedinternet.cosmo.dav.WebDavResource;
 import org.unitedinternet.cosmo.dav.acl.DavAce;
 import org.unitedinternet.cosmo.dav.acl.DavAcl;
 import org.unitedinternet.cosmo.dav.acl.DavPrivilege;
+import org.unitedinternet.cosmo.dav.acl.report.PrincipalMatchReport;
+import org.unitedinternet.cosmo.dav.acl.report.PrincipalPropertySearchReport;
 import org.unitedinternet.cosmo.dav.caldav.CaldavConstants;
 import org.unitedinternet.cosmo.dav.caldav.InvalidCalendarLocationException;
 import org.unitedinternet.cosmo.dav.caldav.InvalidCalendarResourceException;
@@ -57,7 +63,12 @@ import org.unitedinternet.cosmo.dav.caldav.property.MaxResourceSize;
 import org.unitedinternet.cosmo.dav.caldav.property.SupportedCalendarComponentSet;
 import org.unitedinternet.cosmo.dav.caldav.property.SupportedCalendarData;
 import org.unitedinternet.cosmo.dav.caldav.property.SupportedCollationSet;
+import org.unitedinternet.cosmo.dav.caldav.report.FreeBusyReport;
+import org.unitedinternet.cosmo.dav.caldav.report.MultigetReport;
+import org.unitedinternet.cosmo.dav.caldav.report.QueryReport;
+import org.unitedinternet.cosmo.dav.caldav.report.SyncCollectionReport;
 import org.unitedinternet.cosmo.dav.property.DisplayName;
+import org.unitedinternet.cosmo.dav.property.SyncToken;
 import org.unitedinternet.cosmo.dav.property.WebDavProperty;
 import org.unitedinternet.cosmo.icalendar.ICalendarConstants;
 import org.unitedinternet.cosmo.model.CalendarCollectionStamp;
@@ -70,6 +81,7 @@ import org.unitedinternet.cosmo.model.EntityFactory;
 import org.unitedinternet.cosmo.model.EventStamp;
 import org.unitedinternet.cosmo.model.IcalUidInUseException;
 import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.ItemTombstone;
 import org.unitedinternet.cosmo.model.NoteItem;
 import org.unitedinternet.cosmo.model.StampUtils;
 import org.unitedinternet.cosmo.model.Ticket;
@@ -94,6 +106,7 @@ import net.fortuna.ical4j.model.component.VTimeZone;
  * <li><code>CALDAV:supported-calendar-data</code> (protected)</li>
  * <li><code>CALDAV:max-resource-size</code> (protected)</li>
  * <li><code>CS:getctag</code> (protected)</li>
+ * <li><code>DAV:sync-token</code> (protected)</li>
  * <li><code>XC:calendar-color</code></li>
  * <li><code>XC:calendar-visible</code></li>
  * </ul>
@@ -106,6 +119,16 @@ public class DavCalendarCollection extends DavCollectionBase implements CaldavCo
     private static final Logger LOG = LoggerFactory.getLogger(DavCalendarCollection.class);
     
     private static final Set<String> DEAD_PROPERTY_FILTER = new HashSet<String>();
+    private static final Set<ReportType> REPORT_TYPES = new HashSet<ReportType>();
+
+    private static final String SYNC_TOKEN_PREFIX = NS_COSMO + "/sync/";
+
+    /**
+     * Milliseconds before the timestamp of a sync token from which changes are reported again. Covers changes made
+     * in the same millisecond as the token and transactions committing after the token was issued with an earlier
+     * timestamp.
+     */
+    static final long SYNC_TOKEN_WINDOW = 60 * 1000L;
 
     static {
         registerLiveProperty(CALENDARDESCRIPTION);
@@ -114,9 +137,17 @@ public class DavCalendarCollection extends DavCollectionBase implements CaldavCo
         registerLiveProperty(SUPPORTEDCALENDARDATA);
         registerLiveProperty(MAXRESOURCESIZE);
         registerLiveProperty(GET_CTAG);
+        registerLiveProperty(SYNCTOKEN);
         registerLiveProperty(XCaldavConstants.CALENDAR_COLOR);
         registerLiveProperty(XCaldavConstants.CALENDAR_VISIBLE);
 
+        REPORT_TYPES.add(FreeBusyReport.REPORT_TYPE_CALDAV_FREEBUSY);
+        REPORT_TYPES.add(MultigetReport.REPORT_TYPE_CALDAV_MULTIGET);
+        REPORT_TYPES.add(QueryReport.REPORT_TYPE_CALDAV_QUERY);
+        REPORT_TYPES.add(SyncCollectionReport.REPORT_TYPE_SYNC_COLLECTION);
+        REPORT_TYPES.add(PrincipalMatchReport.REPORT_TYPE_PRINCIPAL_MATCH);
+        REPORT_TYPES.add(PrincipalPropertySearchReport.REPORT_TYPE_PRINCIPAL_PROPERTY_SEARCH);
+
         DEAD_PROPERTY_FILTER.add(CalendarCollectionStamp.class.getName());
     }
 
@@ -169,17 +200,124 @@ public class DavCalendarCollection extends DavCollectionBase implements CaldavCo
     public Set<DavCalendarResource> findMembers(CalendarFilter filter) throws CosmoDavException {
         Set<DavCalendarResource> members = new HashSet<DavCalendarResource>();
 
-        CollectionItem collection = (CollectionItem) getItem();
-        for (ContentItem memberItem : getCalendarQueryProcesor().filterQuery(collection, filter)) {
-            WebDavResource resource = memberToResource(memberItem);
+        for (ContentItem memberItem : findMemberItems(filter)) {
+            DavCalendarResource resource = toMemberResource(memberItem);
             if (resource != null) {
-                members.add((DavCalendarResource) resource);
+                members.add(resource);
             }
         }
 
         return members;
     }
 
+    /**
+     * Returns the member items in this calendar collection matching the given filter. Callers that handle one member
+     * at a time turn each item into a resource with {@link #toMemberResource(ContentItem)} when they get to it.
+     */
+    public Set<ContentItem> findMemberItems(CalendarFilter filter) throws CosmoDavException {
+        CollectionItem collection = (CollectionItem) getItem();
+        return getCalendarQueryProcesor().filterQuery(collection, filter);
+    }
+
+    /**
+     * Returns the resource of the given member item or <code>null</code> if the item is not a calendar resource.
+     */
+    public DavCalendarResource toMemberResource(ContentItem memberItem) throws CosmoDavException {
+        WebDavResource resource = memberToResource(memberItem);
+        return resource instanceof DavCalendarResource ? (DavCalendarResource) resource : null;
+    }
+
+    /**
+     * Returns the current sync token of this collection as defined by RFC 6578. The token is derived from the
+     * modification date of the collection which is updated whenever a member is added, changed or removed.
+     */
+    public String getSyncToken() {
+        Long modifiedDate = getItem().getModifiedDate();
+        return SYNC_TOKEN_PREFIX + getItem().getUid() + "/" + (modifiedDate != null ? modifiedDate : 0L);
+    }
+
+    /**
+     * Returns the timestamp encoded in a sync token issued by this collection or <code>null</code> if the token is
+     * empty, which requests an initial synchronization.
+     * 
+     * @throws InvalidSyncTokenException
+     *             if the token was not issued by this collection
+     */
+    public Long parseSyncToken(String token) throws CosmoDavException {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String prefix = SYNC_TOKEN_PREFIX + getItem().getUid() + "/";
+        if (!token.startsWith(prefix)) {
+            throw new InvalidSyncTokenException("Sync token " + token + " not issued by " + getResourcePath());
+        }
+        long timestamp;
+        try {
+            timestamp = Long.parseLong(token.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            throw new InvalidSyncTokenException("Malformed sync token " + token);
+        }
+        Long modifiedDate = getItem().getModifiedDate();
+        if (timestamp < 0 || timestamp > (modifiedDate != null ? modifiedDate : 0L)) {
+            throw new InvalidSyncTokenException("Sync token " + token + " is not valid for " + getResourcePath());
+        }
+        return timestamp;
+    }
+
+    /**
+     * Returns the member resources of this collection that have been created or modified since the given timestamp
+     * or all member resources if the timestamp is <code>null</code>. Modifications of recurring events are reported
+     * by means of their master. Members changed within {@link #SYNC_TOKEN_WINDOW} before the timestamp are reported
+     * again, which RFC 6578 allows, so that no change is missed.
+     */
+    public Set<WebDavResource> findMembersChangedSince(Long timestamp) throws CosmoDavException {
+        CollectionItem collection = (CollectionItem) getItem();
+        Map<String, Item> changed = new HashMap<String, Item>();
+        for (ContentItem memberItem : getContentService().loadChildren(collection, syncWindowStart(timestamp))) {
+            Item item = memberItem;
+            if (memberItem instanceof NoteItem && ((NoteItem) memberItem).getModifies() != null) {
+                item = ((NoteItem) memberItem).getModifies();
+            }
+            changed.put(item.getUid(), item);
+        }
+
+        Set<WebDavResource> members = new HashSet<WebDavResource>();
+        for (Item item : changed.values()) {
+            WebDavResource resource = memberToResource(item);
+            if (resource != null) {
+                members.add(resource);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Returns the hrefs of the members that have been removed from this collection since the given timestamp, within
+     * the same window as {@link #findMembersChangedSince(Long)}. The result may include hrefs of members that have
+     * been re-created under the same name in the meantime.
+     */
+    public Set<String> findMemberHrefsRemovedSince(Long timestamp) throws CosmoDavException {
+        Set<String> hrefs = new HashSet<String>();
+        if (timestamp == null) {
+            return hrefs;
+        }
+        CollectionItem collection = (CollectionItem) getItem();
+        for (ItemTombstone tombstone : getContentService().loadTombstones(collection, syncWindowStart(timestamp))) {
+            String name = tombstone.getItemName();
+            if (name != null) {
+                hrefs.add(memberLocator(name).getHref(false));
+            }
+        }
+        return hrefs;
+    }
+
+    /**
+     * Returns the timestamp after which changes are looked up for a sync token timestamp.
+     */
+    private static Long syncWindowStart(Long timestamp) {
+        return timestamp != null ? Math.max(timestamp - SYNC_TOKEN_WINDOW, -1L) : null;
+    }
+
     /**
      * Returns the member collection resources in this calendar collection.
      * 
@@ -261,6 +399,9 @@ public class DavCalendarCollection extends DavCollectionBase implements CaldavCo
         if (item != null && item.getEntityTag() != null) {
             properties.add(new GetCTag(item.getEntityTag()));
         }
+        if (item != null) {
+            properties.add(new SyncToken(getSyncToken()));
+        }
 
         properties.add(new SupportedCalendarComponentSet());
         properties.add(new SupportedCollationSet());
@@ -280,6 +421,10 @@ public class DavCalendarCollection extends DavCollectionBase implements CaldavCo
         }
     }
 
+    public Set<ReportType> getReportTypes() {
+        return REPORT_TYPES;
+    }
+
     /**
      * The CALDAV:supported-calendar-component-set property is used to specify restrictions on the calendar component
      * types that calendar object resources may contain in a calendar collection. Any attempt by the client to store
@@ -301,7 +446,8 @@ public class DavCalendarCollection extends DavCollectionBase implements CaldavCo
         }
 
         if (!(create && name.equals(SUPPORTEDCALENDARCOMPONENTSET)) && (name.equals(SUPPORTEDCALENDARCOMPONENTSET)
-                || name.equals(SUPPORTEDCALENDARDATA) || name.equals(MAXRESOURCESIZE) || name.equals(GET_CTAG))) {
+                || name.equals(SUPPORTEDCALENDARDATA) || name.equals(MAXRESOURCESIZE) || name.equals(GET_CTAG)
+                || name.equals(SYNCTOKEN))) {
             throw new ProtectedPropertyModificationException(name);
         }
 
@@ -332,7 +478,7 @@ public class DavCalendarCollection extends DavCollectionBase implements CaldavCo
         }
 
         if (name.equals(SUPPORTEDCALENDARCOMPONENTSET) || name.equals(SUPPORTEDCALENDARDATA)
-                || name.equals(MAXRESOURCESIZE) || name.equals(GET_CTAG)) {
+                || name.equals(MAXRESOURCESIZE) || name.equals(GET_CTAG) || name.equals(SYNCTOKEN)) {
             throw new ProtectedPropertyModificationException(name);
         }
 
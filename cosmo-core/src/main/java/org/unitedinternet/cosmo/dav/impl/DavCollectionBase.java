@@ -21,13 +21,16 @@ import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 
+import org.apache.abdera.i18n.text.UrlEncoding;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.jackrabbit.webdav.DavResourceIterator;
 import org.apache.jackrabbit.webdav.DavResourceIteratorImpl;
@@ -41,6 +44,9 @@ import org.apache.jackrabbit.webdav.version.report.ReportType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.unitedinternet.cosmo.CosmoException;
+import org.unitedinternet.cosmo.dao.external.ExternalCollectionItem;
+import org.unitedinternet.cosmo.dao.external.UuidExternalGenerator;
+import org.unitedinternet.cosmo.dao.subscription.UuidSubscriptionGenerator;
 import org.unitedinternet.cosmo.dav.CosmoDavException;
 import org.unitedinternet.cosmo.dav.DavCollection;
 import org.unitedinternet.cosmo.dav.DavContent;
@@ -62,8 +68,11 @@ import org.unitedinternet.cosmo.model.ContentItem;
 import org.unitedinternet.cosmo.model.EntityFactory;
 import org.unitedinternet.cosmo.model.Item;
 import org.unitedinternet.cosmo.model.User;
+import org.unitedinternet.cosmo.model.hibernate.BaseModelObject;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionSubscriptionItem;
 import org.unitedinternet.cosmo.util.ContentTypeUtil;
 import org.unitedinternet.cosmo.util.DomWriter;
+import org.unitedinternet.cosmo.util.UriTemplate;
 import org.w3c.dom.Element;
 
 /**
@@ -233,6 +242,46 @@ public class DavCollectionBase extends DavItemResourceBase implements DavItemCol
         return memberToResource(href);
     }
 
+    /**
+     * Resolves the given hrefs to member resources. Hrefs of direct members of a stored collection are resolved in bulk
+     * by name, any other href is resolved one at a time as in {@link #findMember(String)}.
+     * 
+     * @param hrefs
+     *            hrefs to resolve
+     * @return the resources found keyed by href, hrefs that don't resolve to a resource are not included
+     */
+    public Map<String, WebDavResource> findMembers(Set<String> hrefs) throws CosmoDavException {
+        Map<String, WebDavResource> found = new HashMap<String, WebDavResource>();
+        Map<String, String> hrefsByName = new HashMap<String, String>();
+        boolean stored = hasStoredMembers();
+        for (String href : hrefs) {
+            String name = stored ? memberName(href) : null;
+            if (name == null || hrefsByName.containsKey(name)) {
+                WebDavResource resource = findMember(href);
+                if (resource != null) {
+                    found.put(href, resource);
+                }
+            } else {
+                hrefsByName.put(name, href);
+            }
+        }
+        if (hrefsByName.isEmpty()) {
+            return found;
+        }
+
+        CollectionItem collection = (CollectionItem) getItem();
+        for (Item item : getContentService().findItemsByParentAndNames(collection, hrefsByName.keySet())) {
+            String href = hrefsByName.get(item.getName());
+            DavResourceLocator locator = getResourceLocator().getFactory()
+                    .createResourceLocatorByUri(getResourceLocator().getContext(), href);
+            WebDavResource resource = getResourceFactory().createResource(locator, item);
+            if (resource != null) {
+                found.put(href, resource);
+            }
+        }
+        return found;
+    }
+
     // DavItemCollection
 
     public boolean isCalendarCollection() {
@@ -364,16 +413,74 @@ public class DavCollectionBase extends DavItemResourceBase implements DavItemCol
     }
 
     protected WebDavResource memberToResource(Item item) throws CosmoDavException {
+        return getResourceFactory().createResource(memberLocator(item.getName()), item);
+    }
+
+    protected DavResourceLocator memberLocator(String name) throws CosmoDavException {
         String path;
         try {
-            path = getResourcePath() + "/" + URLEncoder.encode(item.getName(), "UTF-8");
+            path = getResourcePath() + "/" + URLEncoder.encode(name, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             throw new CosmoDavException(e);
         }
-        DavResourceLocator locator = getResourceLocator().getFactory()
+        return getResourceLocator().getFactory()
                 .createResourceLocatorByPath(getResourceLocator().getContext(),
                         path);
-        return getResourceFactory().createResource(locator, item);
+    }
+
+    /**
+     * Returns <code>true</code> if the members of this collection are stored as children of its own item and can so
+     * be looked up by name. Members of subscriptions belong to the target collection and members of external
+     * collections aren't stored at all.
+     */
+    private boolean hasStoredMembers() {
+        Item item = getItem();
+        if (item == null || item.getUid() == null || item instanceof HibCollectionSubscriptionItem
+                || item instanceof ExternalCollectionItem || UuidExternalGenerator.get().containsUuid(item.getUid())
+                || UuidSubscriptionGenerator.get().containsUuid(item.getUid())) {
+            return false;
+        }
+        return !(item instanceof BaseModelObject) || ((BaseModelObject) item).getId() != null;
+    }
+
+    /**
+     * Returns the name of the direct member of this collection the given href refers to or <code>null</code> if the
+     * href refers to any other resource. The href may address the member below the DAV path of this collection, such
+     * as <code>/dav/{username}/{calendar}/{name}</code>, or below <code>/collection/{uid}</code>.
+     */
+    private String memberName(String href) throws CosmoDavException {
+        String uid = getItem().getUid();
+        DavResourceLocator locator = getResourceLocator().getFactory()
+                .createResourceLocatorByUri(getResourceLocator().getContext(), href);
+        String path = normalizePath(locator.getPath());
+        String collectionPath = normalizePath(getResourceLocator().getPath()) + "/";
+        String segment = null;
+        if (path.startsWith(collectionPath)) {
+            segment = path.substring(collectionPath.length());
+        } else {
+            // the segment is decoded below, so it is matched as is
+            UriTemplate.Match match = TEMPLATE_COLLECTION.match(false, path);
+            if (match != null && uid.equals(match.get("uid")) && match.get("*") != null) {
+                segment = match.get("*").substring(1);
+            }
+        }
+        if (segment == null || segment.isEmpty() || segment.contains("/")) {
+            return null;
+        }
+        // same decoding as applied by the item path translator
+        try {
+            return UrlEncoding.decode(segment, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new CosmoDavException(e);
+        }
+    }
+
+    /**
+     * Returns the given locator path without repeated and trailing slashes.
+     */
+    private static String normalizePath(String path) {
+        String normalized = path.replaceAll("/{2,}", "/");
+        return normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized;
     }
 
     protected WebDavResource memberToResource(String uri) throws CosmoDavException {
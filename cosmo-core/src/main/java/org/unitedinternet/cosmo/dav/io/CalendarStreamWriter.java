@@ -0,0 +1,156 @@
+package org.unitedinternet.cosmo.dav.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import net.fortuna.ical4j.model.property.CalScale;
+import net.fortuna.ical4j.model.property.ProdId;
+import net.fortuna.ical4j.model.property.Version;
+
+/**
+ * Writes a calendar made of the stored iCalendar data of many events without parsing it.
+ * <p>
+ * Each stored calendar contributes its first VEVENT, which is copied line by line, and the VTIMEZONEs it brings,
+ * of which only the first one of each TZID is written. Lines are copied as they are, so they keep the folding of the
+ * stored data.
+ */
+public class CalendarStreamWriter implements Consumer<String> {
+
+    private static final String CRLF = "\r\n";
+
+    private static final String BEGIN = "BEGIN:";
+
+    private static final String END = "END:";
+
+    private static final String VEVENT = "VEVENT";
+
+    private static final String VTIMEZONE = "VTIMEZONE";
+
+    private final Writer writer;
+
+    private final Set<String> timezoneIds = new HashSet<>();
+
+    private int events;
+
+    public CalendarStreamWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the beginning of the calendar.
+     *
+     * @param productId
+     *            value of the PRODID property
+     */
+    public void begin(String productId) throws IOException {
+        this.writer.write(BEGIN + "VCALENDAR" + CRLF);
+        this.writer.write(new ProdId(productId).toString());
+        this.writer.write(Version.VERSION_2_0.toString());
+        this.writer.write(CalScale.GREGORIAN.toString());
+    }
+
+    /**
+     * Writes the event of a stored calendar.
+     *
+     * @param icaldata
+     *            stored iCalendar data of an event
+     */
+    @Override
+    public void accept(String icaldata) {
+        try {
+            write(icaldata);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the end of the calendar.
+     */
+    public void end() throws IOException {
+        this.writer.write(END + "VCALENDAR" + CRLF);
+        this.writer.flush();
+    }
+
+    /**
+     * Returns the number of events written so far.
+     */
+    public int getEventCount() {
+        return this.events;
+    }
+
+    private void write(String icaldata) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(icaldata));
+        boolean eventWritten = false;
+        // nesting below VCALENDAR and name of the top level component being read
+        int depth = 0;
+        String component = null;
+        List<String> timezone = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            boolean begin = line.startsWith(BEGIN);
+            boolean end = line.startsWith(END);
+            if (begin && depth++ == 1) {
+                component = line.substring(BEGIN.length()).trim().toUpperCase();
+            }
+            if (VEVENT.equals(component) && !eventWritten) {
+                this.writer.write(line);
+                this.writer.write(CRLF);
+            } else if (VTIMEZONE.equals(component)) {
+                timezone.add(line);
+            }
+            if (end && --depth == 1) {
+                if (VEVENT.equals(component) && !eventWritten) {
+                    eventWritten = true;
+                    this.events++;
+                } else if (VTIMEZONE.equals(component)) {
+                    writeTimezone(timezone);
+                    timezone.clear();
+                }
+                component = null;
+            }
+        }
+    }
+
+    private void writeTimezone(List<String> lines) throws IOException {
+        if (!this.timezoneIds.add(getTimezoneId(lines))) {
+            return;
+        }
+        for (String line : lines) {
+            this.writer.write(line);
+            this.writer.write(CRLF);
+        }
+    }
+
+    /**
+     * Returns the unfolded TZID property of a VTIMEZONE.
+     */
+    private static String getTimezoneId(List<String> lines) {
+        StringBuilder tzid = new StringBuilder();
+        for (String line : lines) {
+            if (tzid.length() > 0) {
+                if (line.startsWith(" ") || line.startsWith("\t")) {
+                    tzid.append(line, 1, line.length());
+                    continue;
+                }
+                break;
+            }
+            if (line.regionMatches(true, 0, "TZID", 0, 4) && line.length() > 4
+                    && (line.charAt(4) == ':' || line.charAt(4) == ';')) {
+                tzid.append(line);
+            }
+        }
+        return tzid.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package org.unitedinternet.cosmo.dav.property;
+
+/**
+ * Represents the DAV:sync-token property defined by RFC 6578.
+ */
+public class SyncToken extends StandardDavProperty {
+
+    public SyncToken(String token) {
+        super(SYNCTOKEN, token, true);
+    }
+}
@@ -18,8 +18,13 @@ package org.unitedinternet.cosmo.dav.provider;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+
 import org.apache.jackrabbit.webdav.DavConstants;
 import org.apache.jackrabbit.webdav.DavException;
+import org.apache.jackrabbit.webdav.DavResource;
+import org.apache.jackrabbit.webdav.DavResourceIterator;
 import org.apache.jackrabbit.webdav.MultiStatus;
 import org.apache.jackrabbit.webdav.MultiStatusResponse;
 import org.apache.jackrabbit.webdav.Status;
@@ -61,6 +66,7 @@ import org.unitedinternet.cosmo.dav.impl.DavOutboxCollection;
 import org.unitedinternet.cosmo.dav.io.DavInputContext;
 import org.unitedinternet.cosmo.dav.report.ReportBase;
 import org.unitedinternet.cosmo.dav.ticket.TicketConstants;
+import org.unitedinternet.cosmo.dav.util.MultiStatusWriter;
 import org.unitedinternet.cosmo.model.EntityFactory;
 import org.unitedinternet.cosmo.model.Item;
 import org.unitedinternet.cosmo.model.Ticket;
@@ -151,10 +157,27 @@ public abstract class BaseProvider implements DavProvider, DavConstants, AclCons
         // check must be done manually here.
         checkPropFindAccess(resource, props, type);
 
-        MultiStatus ms = new MultiStatus();
-        ms.addResourceProperties(resource, props, type, depth);
+        try {
+            MultiStatusWriter writer = MultiStatusWriter.open(response);
+            writePropFindResponses(writer, resource, props, type, depth);
+            writer.finish();
+        } catch (XMLStreamException | ParserConfigurationException e) {
+            throw new CosmoDavException(e);
+        }
+    }
 
-        response.sendMultiStatus(ms);
+    /**
+     * Writes the properties of the resource and, depending on the depth, of its members. Each response is written
+     * as soon as it is built instead of collecting all of them first.
+     */
+    private static void writePropFindResponses(MultiStatusWriter writer, DavResource resource,
+            DavPropertyNameSet props, int type, int depth) throws XMLStreamException {
+        writer.write(new MultiStatusResponse(resource, props, type));
+        if (depth > 0 && resource.isCollection()) {
+            for (DavResourceIterator i = resource.getMembers(); i.hasNext();) {
+                writePropFindResponses(writer, i.nextResource(), props, type, depth - 1);
+            }
+        }
     }
 
     /**
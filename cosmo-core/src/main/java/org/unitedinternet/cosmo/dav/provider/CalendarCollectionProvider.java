@@ -18,6 +18,7 @@ package org.unitedinternet.cosmo.dav.provider;
 import static org.unitedinternet.cosmo.icalendar.ICalendarConstants.ICALENDAR_MEDIA_TYPE;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Enumeration;
 import java.util.Set;
 
@@ -39,6 +40,7 @@ import org.unitedinternet.cosmo.dav.caldav.InvalidCalendarLocationException;
 import org.unitedinternet.cosmo.dav.caldav.MissingParentException;
 import org.unitedinternet.cosmo.dav.impl.DavCalendarCollection;
 import org.unitedinternet.cosmo.dav.impl.DavItemCollection;
+import org.unitedinternet.cosmo.dav.io.CalendarStreamWriter;
 import org.unitedinternet.cosmo.model.BaseEventStamp;
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.EntityFactory;
@@ -138,31 +140,34 @@ public class CalendarCollectionProvider extends CollectionProvider {
         DavCalendarCollection davCollection = DavCalendarCollection.class.cast(resource);
         CollectionItem collectionItem = (CollectionItem) davCollection.getItem();
 
-        Calendar result = getCalendarFromCollection(request, collectionItem);
-
         Ticket contextTicket = getSecurityContext().getTicket();
         Set<Ticket> collectionTickets = collectionItem.getTickets();
-        if (contextTicket != null && collectionTickets != null) {
-            if (collectionTickets.contains(contextTicket) && contextTicket.isFreeBusy()) {
-                result = FreeBusyUtil.getFreeBusyCalendar(result, this.productId);
-            }
-        }
+        boolean freeBusy = contextTicket != null && collectionTickets != null
+                && collectionTickets.contains(contextTicket) && contextTicket.isFreeBusy();
+
         response.setHeader("ETag", "\""+ resource.getETag() +"\"");
         response.setContentType(ICALENDAR_MEDIA_TYPE);
         response.setCharacterEncoding(CHARSET_UTF8);
-        response.getWriter().write(result.toString());
+        if (freeBusy) {
+            Calendar result = getCalendarFromCollection(request, collectionItem);
+            result = FreeBusyUtil.getFreeBusyCalendar(result, this.productId);
+            response.getWriter().write(result.toString());
+        } else {
+            // the stored events are written as they are, without building the whole calendar in memory
+            CalendarStreamWriter writer = new CalendarStreamWriter(response.getWriter());
+            writer.begin(getProductId(request));
+            try {
+                getResourceFactory().getCalendarQueryProcessor().exportQuery(collectionItem, writer);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.end();
+            LOG.debug("Exported {} events of collection {}", writer.getEventCount(), collectionItem.getUid());
+        }
         response.flushBuffer();
     }
 
-    
-
-    /**
-     * @param collectionItem
-     * @return
-     */
-    private Calendar getCalendarFromCollection(DavRequest req, CollectionItem collectionItem) {
-        Calendar result = new Calendar();
-
+    private String getProductId(DavRequest req) {
         if (productId == null) {
             synchronized (this) {
                 if (productId == null) {
@@ -172,8 +177,17 @@ public class CalendarCollectionProvider extends CollectionProvider {
                 }
             }
         }
+        return productId;
+    }
+
+    /**
+     * @param collectionItem
+     * @return
+     */
+    private Calendar getCalendarFromCollection(DavRequest req, CollectionItem collectionItem) {
+        Calendar result = new Calendar();
 
-        result.getProperties().add(new ProdId(productId));
+        result.getProperties().add(new ProdId(getProductId(req)));
         result.getProperties().add(Version.VERSION_2_0);
         result.getProperties().add(CalScale.GREGORIAN);
 
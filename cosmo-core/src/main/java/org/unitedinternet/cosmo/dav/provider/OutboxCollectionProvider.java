@@ -16,6 +16,8 @@
 package org.unitedinternet.cosmo.dav.provider;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +58,8 @@ public class OutboxCollectionProvider extends CollectionProvider {
     
     private static final Logger LOG = LoggerFactory.getLogger(OutboxCollectionProvider.class);
 
+    private static final String SERVICE_UNAVAILABLE = "5.1;Service unavailable";
+
     public OutboxCollectionProvider(DavResourceFactory resourceFactory, EntityFactory entityFactory) {
         super(resourceFactory, entityFactory);
     }
@@ -100,48 +104,62 @@ public class OutboxCollectionProvider extends CollectionProvider {
             Date periodEnd =  vFreeBusy.getEndDate().getDate();
             Period period = new Period(new DateTime(periodStrart), new DateTime(periodEnd));
 
-            User user = null;
+            // responses in the order of the attendees, the free-busy of all known users is queried at once
+            List<ScheduleResponse> responses = new ArrayList<>();
+            List<ScheduleResponse> userResponses = new ArrayList<>();
+            List<Attendee> attendees = new ArrayList<>();
+            List<User> users = new ArrayList<>();
             PropertyList<Attendee> freeBusyProperties = vFreeBusy.getProperties(Property.ATTENDEE);
             for (Attendee attendee : freeBusyProperties) {
+                ScheduleResponse resp = new ScheduleResponse(attendee.getCalAddress().toString());
+                responses.add(resp);
+                User user = null;
                 // since we might have multiple responses for one user lets create a flag here
                 try {
                     String email = attendee.getCalAddress().getSchemeSpecificPart();
                     user = getResourceFactory().getUserService().getUserByEmail(email);
                 } catch (Exception e) {
-                    ScheduleResponse resp = new ScheduleResponse(attendee.getCalAddress().toString());
                     resp.setStatus(RequestStatus.CLIENT_ERROR);
-                    ms.addResponse(resp);
                     continue;
                 }
 
                 // Handle case where user doesn't exist.
                 // Not sure what to return, it seems CalendarServer returns the following
                 if (user == null) {
-                    ScheduleResponse resp = new ScheduleResponse(attendee.getCalAddress().toString());
                     resp.setStatus("3.7;Invalid Calendar User");
-                    ms.addResponse(resp);
                     continue;
                 }
+                userResponses.add(resp);
+                attendees.add(attendee);
+                users.add(user);
+            }
 
-                /*
-                 * TODO Apple iCal send this property, need to be taken into action
-                 * 
-                 * 
-                 * 
-                 * https://trac.calendarserver.org/browser/CalendarServer/trunk/doc/Extensions/icalendar-maskuids-02.txt?
-                 * rev=1510 120 Property Name: X-CALENDARSERVER-MASK-UID 121 122 Purpose: This property indicates the
-                 * unique identifier for a calendar 123 component that is to be ignored when calculating free-busy time.
-                 * 124
-                 */
-                VFreeBusy vfb = getResourceFactory().getCalendarQueryProcessor().freeBusyQuery(user, period);
-                vfb.getProperties().add(attendee);
+            /*
+             * TODO Apple iCal send this property, need to be taken into action
+             * 
+             * 
+             * 
+             * https://trac.calendarserver.org/browser/CalendarServer/trunk/doc/Extensions/icalendar-maskuids-02.txt?
+             * rev=1510 120 Property Name: X-CALENDARSERVER-MASK-UID 121 122 Purpose: This property indicates the
+             * unique identifier for a calendar 123 component that is to be ignored when calculating free-busy time.
+             * 124
+             */
+            List<VFreeBusy> results = getResourceFactory().getCalendarQueryProcessor().freeBusyQuery(users, period);
+            for (int i = 0; i < users.size(); i++) {
+                ScheduleResponse resp = userResponses.get(i);
+                VFreeBusy vfb = results.get(i);
+                if (vfb == null) {
+                    // the attendee's calendars could not be queried in time
+                    resp.setStatus(SERVICE_UNAVAILABLE);
+                    continue;
+                }
+                vfb.getProperties().add(attendees.get(i));
                 vfb.getProperties().add(vFreeBusy.getOrganizer());
                 Calendar cal = ICalendarUtils.createBaseCalendar(vfb);
                 cal.getProperties().add(Method.REPLY);
-                ScheduleResponse resp = new ScheduleResponse(attendee.getCalAddress().toString());
                 resp.setCalendarData(cal.toString());
-                ms.addResponse(resp);
             }
+            responses.forEach(ms::addResponse);
         }
     }
 }
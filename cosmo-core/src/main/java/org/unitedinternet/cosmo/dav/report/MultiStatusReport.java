@@ -15,12 +15,16 @@
  */
 package org.unitedinternet.cosmo.dav.report;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.apache.jackrabbit.webdav.DavServletResponse;
 import org.apache.jackrabbit.webdav.MultiStatus;
 import org.apache.jackrabbit.webdav.MultiStatusResponse;
 import org.apache.jackrabbit.webdav.property.DavPropertyNameSet;
+import org.apache.jackrabbit.webdav.xml.XmlSerializable;
 import org.unitedinternet.cosmo.dav.CosmoDavException;
 import org.unitedinternet.cosmo.dav.WebDavResource;
+import org.unitedinternet.cosmo.dav.util.MultiStatusWriter;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -42,23 +46,46 @@ public abstract class MultiStatusReport extends ReportBase {
     // our methods
 
     /**
-     * Generates and writes the multistatus response.
+     * Generates and writes the multistatus response. Each response is written as soon as it is built.
      */
     protected void output(DavServletResponse response) throws CosmoDavException {
         try {
-            buildMultistatus();
-            response.sendXmlResponse(multistatus, 207);
+            MultiStatusWriter writer = MultiStatusWriter.open(response);
+            writeResponses(msr -> write(writer, msr));
+            writer.finish();
+        } catch (CosmoDavException e) {
+            throw e;
         } catch (Exception e) {
             throw new CosmoDavException(e);
         }
     }
 
+    /**
+     * Writes the given response, converting stream errors.
+     */
+    protected static void write(MultiStatusWriter writer, XmlSerializable serializable) throws CosmoDavException {
+        try {
+            writer.write(serializable);
+        } catch (XMLStreamException e) {
+            throw new CosmoDavException(e);
+        }
+    }
+
+    /**
+     * Builds the complete multistatus in memory, for callers that need it as a DOM element.
+     */
     public final void buildMultistatus() throws CosmoDavException {
+        writeResponses(multistatus::addResponse);
+    }
 
+    /**
+     * Builds the response for each resource in the results, passing each one to the given writer as soon as it is
+     * built. Subclasses that report more than the results override this method.
+     */
+    protected void writeResponses(ResponseWriter writer) throws CosmoDavException {
         DavPropertyNameSet resultProps = this.createResultPropSpec();
         for (WebDavResource resource : this.getResults()) {
-            MultiStatusResponse response = this.buildMultiStatusResponse(resource, resultProps);
-            multistatus.addResponse(response);
+            writer.write(this.buildMultiStatusResponse(resource, resultProps));
         }
     }
 
@@ -85,6 +112,7 @@ public abstract class MultiStatusReport extends ReportBase {
     public final Element toXml(Document document) {
         try {
             runQuery();
+            buildMultistatus();
         } catch (CosmoDavException e) {
             throw new RuntimeException(e);
         }
@@ -92,6 +120,15 @@ public abstract class MultiStatusReport extends ReportBase {
         return multistatus.toXml(document);
     }
 
+    /**
+     * Receives the responses of a report one at a time.
+     */
+    @FunctionalInterface
+    protected interface ResponseWriter {
+
+        void write(MultiStatusResponse response) throws CosmoDavException;
+    }
+
     public int getPropFindType() {
         return propfindType;
     }
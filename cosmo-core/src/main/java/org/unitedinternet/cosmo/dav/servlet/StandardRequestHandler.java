@@ -16,7 +16,10 @@
 package org.unitedinternet.cosmo.dav.servlet;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -63,12 +66,15 @@ import org.unitedinternet.cosmo.dav.provider.HomeCollectionProvider;
 import org.unitedinternet.cosmo.dav.provider.OutboxCollectionProvider;
 import org.unitedinternet.cosmo.dav.provider.UserPrincipalCollectionProvider;
 import org.unitedinternet.cosmo.dav.provider.UserPrincipalProvider;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
 import org.unitedinternet.cosmo.model.EntityFactory;
 import org.unitedinternet.cosmo.security.CosmoSecurityException;
 import org.unitedinternet.cosmo.security.ItemSecurityException;
 import org.unitedinternet.cosmo.security.Permission;
 import org.unitedinternet.cosmo.server.ServerConstants;
 
+import io.micrometer.core.instrument.Timer;
+
 /**
  * <p>
  * An implementation of the Spring {@link HttpRequestHandler} that
@@ -83,6 +89,10 @@ public class StandardRequestHandler implements HttpRequestHandler, ServerConstan
     
     private static final Logger LOG = LoggerFactory.getLogger(StandardRequestHandler.class);
 
+    private static final Set<String> METHODS = new HashSet<>(Arrays.asList("OPTIONS", "GET", "HEAD", "POST",
+            "PROPFIND", "PROPPATCH", "DELETE", "COPY", "MOVE", "REPORT", "MKTICKET", "DELTICKET", "ACL", "MKCOL",
+            "MKCALENDAR", "PUT"));
+
     private DavResourceLocatorFactory locatorFactory;
     
     private DavResourceFactory resourceFactory;
@@ -234,11 +244,56 @@ public class StandardRequestHandler implements HttpRequestHandler, ServerConstan
      * is created by calling {@link #createProvider(WebDavResource)}. The
      * specific provider method is chosen by examining the request method.
      * </p>
+     * <p>
+     * The time spent is recorded in the {@link CosmoMetrics#DAV_REQUESTS} timer.
+     * </p>
      */
     protected void process(DavRequest request,
                            DavResponse response,
                            WebDavResource resource)
         throws IOException, CosmoDavException {
+        Timer.Sample sample = Timer.start(CosmoMetrics.registry());
+        Exception failure = null;
+        try {
+            dispatch(request, response, resource);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            sample.stop(CosmoMetrics.timer(CosmoMetrics.DAV_REQUESTS, "method", getMethod(request), "resource",
+                    resource.getClass().getSimpleName(), "report", getReportType(request),
+                    CosmoMetrics.TAG_EXCEPTION, CosmoMetrics.exception(failure)));
+        }
+    }
+
+    /**
+     * Returns the method of the request, <code>OTHER</code> for methods that are not supported so that clients can't
+     * make up tag values.
+     */
+    private static String getMethod(DavRequest request) {
+        String method = request.getMethod();
+        return METHODS.contains(method) ? method : "OTHER";
+    }
+
+    /**
+     * Returns the local name of the report requested by a REPORT request, <code>none</code> for other requests.
+     */
+    private static String getReportType(DavRequest request) {
+        if (!"REPORT".equals(request.getMethod())) {
+            return CosmoMetrics.NONE;
+        }
+        try {
+            String name = request.getReportInfo().getReportName();
+            return name.substring(name.indexOf('}') + 1);
+        } catch (CosmoDavException | RuntimeException e) {
+            return "invalid";
+        }
+    }
+
+    private void dispatch(DavRequest request,
+                          DavResponse response,
+                          WebDavResource resource)
+        throws IOException, CosmoDavException {
         DavProvider provider = createProvider(resource);
 
         if (request.getMethod().equals("OPTIONS")) {
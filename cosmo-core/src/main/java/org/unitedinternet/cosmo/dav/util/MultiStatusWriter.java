@@ -0,0 +1,215 @@
+package org.unitedinternet.cosmo.dav.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.jackrabbit.webdav.DavConstants;
+import org.apache.jackrabbit.webdav.DavServletResponse;
+import org.apache.jackrabbit.webdav.xml.DomUtil;
+import org.apache.jackrabbit.webdav.xml.XmlSerializable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.unitedinternet.cosmo.dav.impl.StandardDavResponse;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Writes a <code>DAV:multistatus</code> document to a stream one response at a time.
+ * <p>
+ * Each response is built as a small DOM fragment of a scratch document and serialized right away, so that memory
+ * use doesn't grow with the number of responses as it does when the whole multistatus is built as one DOM document
+ * before writing it.
+ * <p>
+ * With trace logging of {@link StandardDavResponse} enabled, a copy of the document is kept and dumped once finished,
+ * as for the responses sent by {@link StandardDavResponse#sendXmlResponse}.
+ */
+public class MultiStatusWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StandardDavResponse.class);
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private static final String CONTENT_TYPE = "text/xml; charset=UTF-8";
+
+    private static final String ENCODING = "UTF-8";
+
+    private final XMLStreamWriter writer;
+
+    private final Document document;
+
+    /**
+     * Namespace bindings declared by each open element.
+     */
+    private final Deque<Map<String, String>> scopes = new ArrayDeque<>();
+
+    /**
+     * Copy of the document written so far, only kept for trace logging.
+     */
+    private final ByteArrayOutputStream dump;
+
+    public MultiStatusWriter(OutputStream out) throws XMLStreamException, ParserConfigurationException {
+        this.dump = LOG.isTraceEnabled() ? new ByteArrayOutputStream() : null;
+        this.writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(this.dump != null ? new CopyingOutputStream(out,
+                this.dump) : out, ENCODING);
+        this.document = DomUtil.createDocument();
+        this.writer.writeStartDocument(ENCODING, "1.0");
+        this.writeStartElement(DavConstants.NAMESPACE.getPrefix(), DavConstants.XML_MULTISTATUS,
+                DavConstants.NAMESPACE.getURI());
+    }
+
+    /**
+     * Sets the multistatus status code and content type on the given response and returns a writer for its body.
+     */
+    public static MultiStatusWriter open(HttpServletResponse response)
+            throws IOException, XMLStreamException, ParserConfigurationException {
+        response.setStatus(DavServletResponse.SC_MULTI_STATUS);
+        response.setContentType(CONTENT_TYPE);
+        return new MultiStatusWriter(response.getOutputStream());
+    }
+
+    /**
+     * Writes the given response, or any other child element of <code>DAV:multistatus</code>.
+     */
+    public void write(XmlSerializable serializable) throws XMLStreamException {
+        this.writeElement(serializable.toXml(this.document));
+    }
+
+    /**
+     * Closes the <code>DAV:multistatus</code> element and flushes the document. The underlying stream is left open.
+     */
+    public void finish() throws XMLStreamException {
+        this.writer.writeEndElement();
+        this.scopes.pop();
+        this.writer.writeEndDocument();
+        this.writer.flush();
+        this.writer.close();
+        if (this.dump != null) {
+            StringBuilder sb = new StringBuilder("\n------------------------ Dump of response -------------------\n");
+            sb.append("Status: ").append(DavServletResponse.SC_MULTI_STATUS).append("\n");
+            sb.append(new String(this.dump.toByteArray(), StandardCharsets.UTF_8));
+            sb.append("\n------------------------ End dump of response -------------------");
+            LOG.trace(sb.toString());
+        }
+    }
+
+    private void writeElement(Element element) throws XMLStreamException {
+        String localName = element.getLocalName() != null ? element.getLocalName() : element.getNodeName();
+        this.writeStartElement(element.getPrefix(), localName, element.getNamespaceURI());
+
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            String namespaceUri = attribute.getNamespaceURI();
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(namespaceUri)) {
+                // declarations are written as needed by the elements and attributes using them
+                continue;
+            }
+            if (namespaceUri == null || namespaceUri.isEmpty()) {
+                String name = attribute.getLocalName() != null ? attribute.getLocalName() : attribute.getName();
+                this.writer.writeAttribute(name, attribute.getValue());
+            } else {
+                String prefix = attribute.getPrefix() != null ? attribute.getPrefix() : "";
+                this.declare(prefix, namespaceUri);
+                this.writer.writeAttribute(prefix, namespaceUri, attribute.getLocalName(), attribute.getValue());
+            }
+        }
+
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                this.writeElement((Element) child);
+                break;
+            case Node.TEXT_NODE:
+            case Node.CDATA_SECTION_NODE:
+                this.writer.writeCharacters(child.getNodeValue());
+                break;
+            default:
+                break;
+            }
+        }
+
+        this.writer.writeEndElement();
+        this.scopes.pop();
+    }
+
+    private void writeStartElement(String prefix, String localName, String namespaceUri) throws XMLStreamException {
+        this.scopes.push(new HashMap<String, String>());
+        if (namespaceUri == null || namespaceUri.isEmpty()) {
+            this.writer.writeStartElement(localName);
+            String defaultNamespace = this.lookup("");
+            if (defaultNamespace != null && !defaultNamespace.isEmpty()) {
+                this.writer.writeDefaultNamespace("");
+                this.scopes.peek().put("", "");
+            }
+            return;
+        }
+        String elementPrefix = prefix != null ? prefix : "";
+        this.writer.writeStartElement(elementPrefix, localName, namespaceUri);
+        this.declare(elementPrefix, namespaceUri);
+    }
+
+    private void declare(String prefix, String namespaceUri) throws XMLStreamException {
+        if (namespaceUri.equals(this.lookup(prefix))) {
+            return;
+        }
+        if (prefix.isEmpty()) {
+            this.writer.writeDefaultNamespace(namespaceUri);
+        } else {
+            this.writer.writeNamespace(prefix, namespaceUri);
+        }
+        this.scopes.peek().put(prefix, namespaceUri);
+    }
+
+    private String lookup(String prefix) {
+        for (Iterator<Map<String, String>> it = this.scopes.iterator(); it.hasNext();) {
+            String namespaceUri = it.next().get(prefix);
+            if (namespaceUri != null) {
+                return namespaceUri;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stream writing to the target stream and to a copy.
+     */
+    private static class CopyingOutputStream extends FilterOutputStream {
+
+        private final OutputStream copy;
+
+        CopyingOutputStream(OutputStream out, OutputStream copy) {
+            super(out);
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.copy.write(b, off, len);
+        }
+    }
+}
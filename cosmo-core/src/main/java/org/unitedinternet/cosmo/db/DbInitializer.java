@@ -15,12 +15,14 @@
  */
 package org.unitedinternet.cosmo.db;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -38,6 +40,13 @@ import org.hibernate.tool.hbm2ddl.SchemaValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.unitedinternet.cosmo.calendar.util.CalendarUtils;
+import org.unitedinternet.cosmo.model.ServerProperty;
+import org.unitedinternet.cosmo.model.hibernate.HibEventTimeRangeIndex;
+import org.unitedinternet.cosmo.model.hibernate.HibICalendarItem;
+import org.unitedinternet.cosmo.model.hibernate.HibTaskIndex;
+
+import net.fortuna.ical4j.data.ParserException;
 
 /**
  * XXX - Run this spring context is about to start. A helper class that initializes the Cosmo database schema and populates the
@@ -49,12 +58,33 @@ public class DbInitializer {
 
     private static final String PATH_SCHEMA = "/db/cosmo-schema.sql";
 
+    private static final String PATH_MIGRATIONS = "/db/migration/";
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
     private EntityManagerFactory localSessionFactory;
 
     private DataSource datasource;
 
     private Collection<? extends DatabaseInitializationCallback> callbacks = Collections.emptyList();
 
+    /**
+     * Steps bringing a schema created by an earlier version up to date, in the order they were added. The schema
+     * version is the number of steps applied, so steps are only ever appended.
+     */
+    private final List<Runnable> migrations = Arrays.asList(
+            () -> this.executeStatements(PATH_MIGRATIONS + "1-event-occurrences.sql"),
+            () -> {
+                this.executeStatements(PATH_MIGRATIONS + "2-time-range-index.sql");
+                LOG.info("[DB-startup] Backfilled numeric time-range index of {} event stamps.",
+                        this.backfillTimeRangeIndex());
+            },
+            () -> {
+                this.executeStatements(PATH_MIGRATIONS + "3-task-index.sql");
+                LOG.info("[DB-startup] Backfilled task index of {} notes.", this.backfillTaskIndex());
+            },
+            () -> this.executeStatements(PATH_MIGRATIONS + "4-collection-changes.sql"));
+
     /**
      * Performs initialization tasks if required.
      * 
@@ -64,15 +94,118 @@ public class DbInitializer {
         // Create DB schema if not present
         if (!isSchemaInitialized()) {
             this.executeStatements(PATH_SCHEMA);
+            this.setSchemaVersion(this.migrations.size());
             LOG.info("[DB-startup] Cosmo database structure created successfully.");
             for (DatabaseInitializationCallback callback : callbacks) {
                 callback.execute();
             }
+        } else {
+            this.migrate();
         }
         // More thorough schema validation
         validateSchema();
     }
 
+    /**
+     * Brings a schema created by an earlier version up to date by applying the migration steps that were not applied
+     * to it yet. Each step is idempotent, so that a step interrupted half way or run by two nodes starting at the
+     * same time can be run again.
+     */
+    public void migrate() {
+        for (int version = this.getSchemaVersion(); version < this.migrations.size(); version++) {
+            LOG.info("[DB-startup] Migrating schema to version {}.", version + 1);
+            this.migrations.get(version).run();
+            this.setSchemaVersion(version + 1);
+        }
+    }
+
+    /**
+     * @return the number of migration steps applied to the schema, <code>0</code> for schemas created before
+     *         migrations were versioned
+     */
+    int getSchemaVersion() {
+        List<String> values = new JdbcTemplate(this.datasource).queryForList(
+                "select propertyvalue from server_properties where propertyname=?", String.class,
+                ServerProperty.PROP_SCHEMA_VERSION);
+        return values.isEmpty() || values.get(0) == null ? 0 : Integer.parseInt(values.get(0));
+    }
+
+    private void setSchemaVersion(int version) {
+        new JdbcTemplate(this.datasource).update("insert into server_properties (propertyname, propertyvalue) "
+                + "values (?, ?) on duplicate key update propertyvalue=values(propertyvalue)",
+                ServerProperty.PROP_SCHEMA_VERSION, String.valueOf(version));
+    }
+
+    /**
+     * Computes <code>startmillis</code> and <code>endmillis</code> of event stamps stored before these columns
+     * existed, in batches of {@value #BACKFILL_BATCH_SIZE} rows.
+     * 
+     * @return the number of updated event stamps
+     */
+    int backfillTimeRangeIndex() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(this.datasource);
+        int updated = 0;
+        List<Object[]> batch;
+        do {
+            batch = jdbcTemplate.query(
+                    "select stampid, startdate, enddate, isfloating from event_stamp "
+                            + "where startmillis is null and startdate is not null limit " + BACKFILL_BATCH_SIZE,
+                    (rs, rowNum) -> {
+                        boolean floating = rs.getBoolean("isfloating");
+                        return new Object[] {
+                                HibEventTimeRangeIndex.toStartMillis(rs.getString("startdate"), floating),
+                                HibEventTimeRangeIndex.toEndMillis(rs.getString("enddate"), floating),
+                                rs.getLong("stampid") };
+                    });
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate("update event_stamp set startmillis=?, endmillis=? where stampid=?", batch);
+                updated += batch.size();
+            }
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+        return updated;
+    }
+
+    /**
+     * Computes the task index of the notes with a VTODO, in batches of {@value #BACKFILL_BATCH_SIZE} rows. Notes
+     * whose task can't be indexed or parsed get an empty index and stay candidates of every task query.
+     * 
+     * @return the number of updated notes
+     */
+    int backfillTaskIndex() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(this.datasource);
+        int updated = 0;
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = jdbcTemplate.query("select i.id, a.textvalue from item i join attribute a on a.itemid=i.id "
+                    + "where i.itemtype='note' and i.id>? and a.namespace=? and a.localname=? "
+                    + "and a.textvalue like '%BEGIN:VTODO%' order by i.id limit " + BACKFILL_BATCH_SIZE,
+                    (rs, rowNum) -> toTaskIndexRow(rs.getLong("id"), rs.getString("textvalue")), lastId,
+                    HibICalendarItem.ATTR_ICALENDAR.getNamespace(), HibICalendarItem.ATTR_ICALENDAR.getLocalName());
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate("update item set taskstartmillis=?, taskendmillis=?, taskdue=?, "
+                        + "taskcompleted=?, taskstatus=?, taskcategories=? where id=?", batch);
+                updated += batch.size();
+                lastId = (Long) batch.get(batch.size() - 1)[6];
+            }
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+        return updated;
+    }
+
+    private static Object[] toTaskIndexRow(long id, String icalendar) {
+        HibTaskIndex index = null;
+        try {
+            index = HibTaskIndex.of(CalendarUtils.parseCalendar(icalendar));
+        } catch (ParserException | IOException e) {
+            LOG.warn("[DB-startup] Not indexing the task of item {}: {}", id, e.getMessage());
+        }
+        if (index == null) {
+            return new Object[] { null, null, null, null, null, null, id };
+        }
+        return new Object[] { index.getStartMillis(), index.getEndMillis(), index.getDue(), index.getCompleted(),
+                index.getStatus(), index.getCategories(), id };
+    }
+
     public void executeStatements(String resource) {
         JdbcTemplate jdbcTemplate = new JdbcTemplate(this.datasource);
         for (String statement : this.readStatements(resource)) {
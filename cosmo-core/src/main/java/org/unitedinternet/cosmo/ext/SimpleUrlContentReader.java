@@ -11,9 +11,14 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.annotation.PreDestroy;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
 
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -21,16 +26,20 @@ import org.apache.http.config.ConnectionConfig;
 import org.apache.http.config.MessageConstraints;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.protocol.RequestUserAgent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.calendar.util.CalendarUtils;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
 import org.unitedinternet.cosmo.model.Item;
 import org.unitedinternet.cosmo.model.NoteItem;
 import org.unitedinternet.cosmo.model.Stamp;
 
+import io.micrometer.core.instrument.Timer;
 import net.fortuna.ical4j.data.CalendarBuilder;
 import net.fortuna.ical4j.data.ParserException;
 import net.fortuna.ical4j.model.Calendar;
@@ -49,6 +58,8 @@ public class SimpleUrlContentReader implements UrlContentReader {
     private static final int MAX_LINE_LENGTH = 8192;
     private static final int MAX_HEADER_COUNT = 30;
     private static final int MAX_REDIRECTS = 10;
+    private static final int MAX_CONNECTIONS = 100;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 10;
 
     private static final String Q_MARK = "?";
     private static final String AND = "&";
@@ -68,6 +79,8 @@ public class SimpleUrlContentReader implements UrlContentReader {
 
     @Autowired
     private ProxyFactory proxyFactory;
+
+    private volatile CloseableHttpClient client;
     
     public SimpleUrlContentReader(ContentConverter converter, Validator validator) {
         this.converter = converter;
@@ -91,7 +104,39 @@ public class SimpleUrlContentReader implements UrlContentReader {
      * @return content read from the specified <code>url</code>
      */
     public Set<NoteItem> getContent(String url, int timeoutInMillis, RequestOptions options) {
-        CloseableHttpClient client = null;
+        UrlContent content = this.read(url, timeoutInMillis, options, false);
+        return content != null ? content.getItems() : null;
+    }
+
+    @Override
+    public UrlContent getContent(String url, int timeoutInMillis, String entityTag, String lastModified) {
+        RequestOptions.RequestOptionsBuilder builder = RequestOptions.builder();
+        if (entityTag != null) {
+            builder.withHeader(HttpHeaders.IF_NONE_MATCH, entityTag);
+        }
+        if (lastModified != null) {
+            builder.withHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+        return this.read(url, timeoutInMillis, builder.build(), true);
+    }
+
+    /**
+     * Reads the content, recording the time spent in the {@link CosmoMetrics#EXTERNAL_FETCH} timer and the size of
+     * the content read in {@link CosmoMetrics#EXTERNAL_FETCH_SIZE}.
+     */
+    private UrlContent read(String url, int timeoutInMillis, RequestOptions options, boolean keepCalendar) {
+        Timer.Sample sample = Timer.start(CosmoMetrics.registry());
+        String outcome = "error";
+        try {
+            UrlContent content = this.doRead(url, timeoutInMillis, options, keepCalendar);
+            outcome = content != null ? "ok" : "not_modified";
+            return content;
+        } finally {
+            sample.stop(CosmoMetrics.timer(CosmoMetrics.EXTERNAL_FETCH, "outcome", outcome));
+        }
+    }
+
+    private UrlContent doRead(String url, int timeoutInMillis, RequestOptions options, boolean keepCalendar) {
         CloseableHttpResponse response = null;
         try {
             URL source = build(url, options);
@@ -99,9 +144,12 @@ public class SimpleUrlContentReader implements UrlContentReader {
             for (Entry<String, String> entry : options.headers().entrySet()) {
                 request.addHeader(entry.getKey(), entry.getValue());
             }
+            request.setConfig(buildConfig(timeoutInMillis, source));
 
-            client = buildClient(timeoutInMillis, source);
-            response = client.execute(request);
+            response = this.getClient().execute(request);
+            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                return null;
+            }
 
             InputStream contentStream = null;
             ByteArrayOutputStream baos = null;
@@ -124,14 +172,18 @@ public class SimpleUrlContentReader implements UrlContentReader {
                     }
                     baos.write(buffer, 0, offset);
                 }
+                CosmoMetrics.bytes(CosmoMetrics.EXTERNAL_FETCH_SIZE).record(counter.get());
                 Calendar calendar = new CalendarBuilder().build(new ByteArrayInputStream(baos.toByteArray()));
                 this.postProcess(calendar);
 
+                // conversion alters the calendar so the copy is taken before
+                Calendar copy = keepCalendar ? CalendarUtils.copyCalendar(calendar) : null;
                 Set<NoteItem> externalItems = converter.asItems(calendar);
 
                 validate(externalItems);
 
-                return externalItems;
+                return new UrlContent(externalItems, copy, headerValue(response, HttpHeaders.ETAG),
+                        headerValue(response, HttpHeaders.LAST_MODIFIED));
             } finally {
                 close(contentStream);
                 close(baos);
@@ -140,21 +192,49 @@ public class SimpleUrlContentReader implements UrlContentReader {
             throw new ExternalContentInvalidException(e);
         } finally {
             close(response);
-            close(client);
         }
     }
 
-    private CloseableHttpClient buildClient(int timeoutInMillis, URL url) {
-        RequestConfig config = RequestConfig.custom().setConnectionRequestTimeout(timeoutInMillis)
-                .setConnectTimeout(timeoutInMillis).setRedirectsEnabled(true).setMaxRedirects(MAX_REDIRECTS)
+    /**
+     * Returns the client shared by all requests. Connections are pooled and kept alive so that subsequent requests
+     * to the same host don't have to connect again.
+     */
+    private CloseableHttpClient getClient() {
+        CloseableHttpClient result = this.client;
+        if (result == null) {
+            synchronized (this) {
+                result = this.client;
+                if (result == null) {
+                    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+                    connectionManager.setMaxTotal(MAX_CONNECTIONS);
+                    connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+                    connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setMessageConstraints(MessageConstraints.custom().setMaxHeaderCount(MAX_HEADER_COUNT)
+                                    .setMaxLineLength(MAX_LINE_LENGTH).build())
+                            .build());
+                    result = HttpClientBuilder.create().setConnectionManager(connectionManager)
+                            .addInterceptorLast(new RequestUserAgent(this.userAgent)).build();
+                    this.client = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        close(this.client);
+    }
+
+    private RequestConfig buildConfig(int timeoutInMillis, URL url) {
+        return RequestConfig.custom().setConnectionRequestTimeout(timeoutInMillis).setConnectTimeout(timeoutInMillis)
+                .setSocketTimeout(timeoutInMillis).setRedirectsEnabled(true).setMaxRedirects(MAX_REDIRECTS)
                 .setProxy(this.proxyFactory.getProxy(url)).build();
-        return HttpClientBuilder.create().setDefaultRequestConfig(config)
-                .setDefaultConnectionConfig(
-                        ConnectionConfig
-                                .custom().setMessageConstraints(MessageConstraints.custom()
-                                        .setMaxHeaderCount(MAX_HEADER_COUNT).setMaxLineLength(MAX_LINE_LENGTH).build())
-                                .build()).addInterceptorLast(new RequestUserAgent(this.userAgent))
-                .build();
+    }
+
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
     }
 
     private void postProcess(Calendar calendar) {
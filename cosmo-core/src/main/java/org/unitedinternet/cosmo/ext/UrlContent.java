@@ -0,0 +1,53 @@
+package org.unitedinternet.cosmo.ext;
+
+import java.util.Set;
+
+import org.unitedinternet.cosmo.model.NoteItem;
+
+import net.fortuna.ical4j.model.Calendar;
+
+/**
+ * Validated content read from an URL together with the validators needed to revalidate it with a conditional
+ * request.
+ */
+public class UrlContent {
+
+    private final Set<NoteItem> items;
+    private final Calendar calendar;
+    private final String entityTag;
+    private final String lastModified;
+
+    /**
+     *
+     * @param items
+     *            items converted from the content
+     * @param calendar
+     *            copy of the post processed calendar taken before conversion
+     * @param entityTag
+     *            value of the <code>ETag</code> response header or <code>null</code>
+     * @param lastModified
+     *            value of the <code>Last-Modified</code> response header or <code>null</code>
+     */
+    public UrlContent(Set<NoteItem> items, Calendar calendar, String entityTag, String lastModified) {
+        this.items = items;
+        this.calendar = calendar;
+        this.entityTag = entityTag;
+        this.lastModified = lastModified;
+    }
+
+    public Set<NoteItem> getItems() {
+        return items;
+    }
+
+    public Calendar getCalendar() {
+        return calendar;
+    }
+
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+}
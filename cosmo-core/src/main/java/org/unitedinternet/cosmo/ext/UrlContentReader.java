@@ -23,4 +23,22 @@ public interface UrlContentReader {
      */
     Set<NoteItem> getContent(String url, int timeoutInMillis) throws ExternalContentRuntimeException;
 
+    /**
+     * Gets and validates the content from the specified <code>url</code> unless it has not changed since it was read
+     * with the specified validators.
+     *
+     * @param url
+     *            URL where to get content from
+     * @param timeoutInMillis
+     *            how much time to wait before throwing an exception
+     * @param entityTag
+     *            entity tag of the content read previously, sent as <code>If-None-Match</code>, may be
+     *            <code>null</code>
+     * @param lastModified
+     *            last modification date of the content read previously, sent as <code>If-Modified-Since</code>, may
+     *            be <code>null</code>
+     * @return the validated content or <code>null</code> if the server reported the content as not modified
+     */
+    UrlContent getContent(String url, int timeoutInMillis, String entityTag, String lastModified)
+            throws ExternalContentRuntimeException;
 }
\ No newline at end of file
@@ -1,14 +1,23 @@
 package org.unitedinternet.cosmo.ext;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.calendar.util.CalendarUtils;
 import org.unitedinternet.cosmo.model.NoteItem;
 
 /**
  * <code>ContentSource</code> component that can read ICS content from public URL-s like HTTP URL-s or local file URL-s.
- * 
+ * <p>
+ * Validated content is cached per URL for <code>external.content.cache.ttl</code> milliseconds. Expired content is
+ * revalidated with a conditional request and only read again if the server reports it as modified. Concurrent
+ * requests for the same URL wait for a single read instead of each reading the URL. The items handed out are
+ * converted from a copy of the cached calendar for each call since callers attach them to their collection. At most
+ * <code>external.content.cache.maxSize</code> URL-s are cached, the least recently used one is dropped first.
+ *
  * @author daniel grigore
  * @author corneliu dobrota
  *
@@ -18,16 +27,89 @@ public class UrlContentSource implements ContentSource {
 
     private final UrlContentReader contentReader;
 
+    private final ContentConverter converter;
+
     @Value("${external.content.connection.timeout}")
     private int timeoutInMillis;
 
-    public UrlContentSource(UrlContentReader contentReader) {
+    @Value("${external.content.cache.ttl:60000}")
+    private long ttl;
+
+    @Value("${external.content.cache.maxSize:1000}")
+    private int maxSize;
+
+    private final Map<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public UrlContentSource(UrlContentReader contentReader, ContentConverter converter) {
         super();
         this.contentReader = contentReader;
+        this.converter = converter;
     }
 
     @Override
     public Set<NoteItem> getContent(String url) {
-        return this.contentReader.getContent(url, this.timeoutInMillis);
+        if (this.ttl <= 0) {
+            return this.contentReader.getContent(url, this.timeoutInMillis);
+        }
+        CacheEntry entry = this.getEntry(url);
+        synchronized (entry) {
+            long now = System.currentTimeMillis();
+            if (entry.content != null && entry.expires > now) {
+                return this.copyItems(entry);
+            }
+            String entityTag = entry.content != null ? entry.content.getEntityTag() : null;
+            String lastModified = entry.content != null ? entry.content.getLastModified() : null;
+            UrlContent content = this.contentReader.getContent(url, this.timeoutInMillis, entityTag, lastModified);
+            if (content == null) {
+                if (entry.content == null) {
+                    return null;
+                }
+                // not modified
+                entry.expires = now + this.ttl;
+                return this.copyItems(entry);
+            }
+            entry.expires = now + this.ttl;
+            entry.content = new UrlContent(null, content.getCalendar(), content.getEntityTag(),
+                    content.getLastModified());
+            return content.getItems();
+        }
+    }
+
+    private Set<NoteItem> copyItems(CacheEntry entry) {
+        return this.converter.asItems(CalendarUtils.copyCalendar(entry.content.getCalendar()));
+    }
+
+    private CacheEntry getEntry(String url) {
+        synchronized (this.entries) {
+            return this.entries.computeIfAbsent(url, key -> new CacheEntry());
+        }
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getSize() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    private static class CacheEntry {
+
+        private UrlContent content;
+        private long expires;
     }
-}
\ No newline at end of file
+}
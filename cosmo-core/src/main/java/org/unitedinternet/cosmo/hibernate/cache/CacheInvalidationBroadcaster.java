@@ -0,0 +1,33 @@
+package org.unitedinternet.cosmo.hibernate.cache;
+
+import java.io.Serializable;
+
+/**
+ * Publishes changes of cached entities and collections to the other nodes of a cluster so that they can drop their
+ * copies via {@link SecondLevelCacheInvalidator}. Changes are published only after the transaction that made them
+ * committed.
+ * <p>
+ * No implementation is provided, a bean implementing this interface enables the publishing.
+ */
+public interface CacheInvalidationBroadcaster {
+
+    /**
+     * Called after the entity with the given name and id was updated or deleted.
+     *
+     * @param entityName
+     *            the hibernate entity name
+     * @param id
+     *            the entity id
+     */
+    void entityChanged(String entityName, Serializable id);
+
+    /**
+     * Called after the collection with the given role owned by the entity with the given id was changed.
+     *
+     * @param role
+     *            the collection role, for instance <code>org.unitedinternet.cosmo.model.hibernate.HibItem.stamps</code>
+     * @param ownerId
+     *            the id of the entity owning the collection
+     */
+    void collectionChanged(String role, Serializable ownerId);
+}
@@ -0,0 +1,95 @@
+package org.unitedinternet.cosmo.hibernate.cache;
+
+import java.io.Serializable;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Hibernate listener handing the changes of cached entities and collections to a
+ * {@link CacheInvalidationBroadcaster} once the transaction making them has committed.
+ */
+public class CacheInvalidationListener implements PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionUpdateEventListener, PostCollectionRecreateEventListener, PostCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 5117624719573154306L;
+
+    private final transient CacheInvalidationBroadcaster broadcaster;
+
+    public CacheInvalidationListener(CacheInvalidationBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        this.entityChanged(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        this.entityChanged(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        // publishing is deferred through the action queue instead
+        return false;
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        this.collectionChanged(event);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        this.collectionChanged(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        this.collectionChanged(event);
+    }
+
+    private void entityChanged(EventSource session, EntityPersister persister, Serializable id) {
+        if (!persister.canWriteToCache()) {
+            return;
+        }
+        String entityName = persister.getEntityName();
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+            if (success) {
+                this.broadcaster.entityChanged(entityName, id);
+            }
+        });
+    }
+
+    private void collectionChanged(AbstractCollectionEvent event) {
+        Serializable ownerId = event.getAffectedOwnerIdOrNull();
+        if (ownerId == null || event.getCollection().getRole() == null) {
+            return;
+        }
+        String role = event.getCollection().getRole();
+        CollectionPersister persister = event.getSession().getFactory().getMetamodel().collectionPersister(role);
+        if (!persister.hasCache()) {
+            return;
+        }
+        event.getSession().getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+            if (success) {
+                this.broadcaster.collectionChanged(role, ownerId);
+            }
+        });
+    }
+}
@@ -0,0 +1,153 @@
+package org.unitedinternet.cosmo.hibernate.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.cache.CacheManager;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Configuration;
+import org.unitedinternet.cosmo.model.hibernate.HibAttribute;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionSubscription;
+import org.unitedinternet.cosmo.model.hibernate.HibItem;
+import org.unitedinternet.cosmo.model.hibernate.HibNoteItem;
+import org.unitedinternet.cosmo.model.hibernate.HibPreference;
+import org.unitedinternet.cosmo.model.hibernate.HibStamp;
+import org.unitedinternet.cosmo.model.hibernate.HibTicket;
+import org.unitedinternet.cosmo.model.hibernate.HibUser;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Enables the hibernate second level cache for the <code>@Cache</code> annotated entities and collections together
+ * with the query cache for the cacheable named queries.
+ * <p>
+ * The regions live in an in-process JCache manager backed by Caffeine. Each region is bounded by the maximum size
+ * configured for its group (items, stamps, users, tickets) and entries expire <code>cosmo.hibernate.cache.ttl</code>
+ * milliseconds after they were written, which bounds how stale an entry changed by another node can get when no
+ * {@link CacheInvalidationBroadcaster} is present.
+ * <p>
+ * The regions are local to each node, so a deployment running more than one node must provide a
+ * {@link CacheInvalidationBroadcaster} bean that evicts the changed entries on the other nodes. Without one, startup
+ * fails unless <code>cosmo.hibernate.cache.singleNode</code> states that this is the only node using the database.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cosmo.hibernate.cache.enabled", havingValue = "true")
+public class SecondLevelCacheConfiguration implements HibernatePropertiesCustomizer {
+
+    static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    static final List<String> ITEM_REGIONS = Collections.unmodifiableList(Arrays.asList(HibItem.class.getName(),
+            HibItem.class.getName() + ".attributes", HibItem.class.getName() + ".stamps",
+            HibItem.class.getName() + ".parentDetails", HibAttribute.class.getName(),
+            HibNoteItem.class.getName() + ".modifications"));
+
+    static final List<String> STAMP_REGIONS = Collections.singletonList(HibStamp.class.getName());
+
+    static final List<String> USER_REGIONS = Collections.unmodifiableList(Arrays.asList(HibUser.class.getName(),
+            HibUser.class.getName() + ".preferences", HibPreference.class.getName(),
+            HibCollectionSubscription.class.getName()));
+
+    static final List<String> TICKET_REGIONS = Collections.unmodifiableList(Arrays.asList(HibTicket.class.getName(),
+            HibTicket.class.getName() + ".privileges", HibItem.class.getName() + ".tickets"));
+
+    private final ObjectProvider<CacheInvalidationBroadcaster> broadcaster;
+
+    @Value("${cosmo.hibernate.cache.singleNode:false}")
+    private boolean singleNode;
+
+    @Value("${cosmo.hibernate.cache.ttl:300000}")
+    private long ttl;
+
+    @Value("${cosmo.hibernate.cache.items.maxSize:100000}")
+    private long itemsMaxSize;
+
+    @Value("${cosmo.hibernate.cache.stamps.maxSize:50000}")
+    private long stampsMaxSize;
+
+    @Value("${cosmo.hibernate.cache.users.maxSize:10000}")
+    private long usersMaxSize;
+
+    @Value("${cosmo.hibernate.cache.tickets.maxSize:10000}")
+    private long ticketsMaxSize;
+
+    @Value("${cosmo.hibernate.cache.queries.enabled:true}")
+    private boolean queriesEnabled;
+
+    @Value("${cosmo.hibernate.cache.queries.maxSize:10000}")
+    private long queriesMaxSize;
+
+    private CaffeineCachingProvider cachingProvider;
+
+    private CacheManager cacheManager;
+
+    public SecondLevelCacheConfiguration(ObjectProvider<CacheInvalidationBroadcaster> broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        if (!this.singleNode && this.broadcaster.getIfAvailable() == null) {
+            throw new IllegalStateException("The second level cache needs a CacheInvalidationBroadcaster bean to "
+                    + "invalidate the other nodes, set cosmo.hibernate.cache.singleNode to true when running a "
+                    + "single node");
+        }
+        hibernateProperties.put("hibernate.cache.use_second_level_cache", Boolean.TRUE);
+        hibernateProperties.put("hibernate.cache.use_query_cache", this.queriesEnabled);
+        hibernateProperties.put("hibernate.cache.region.factory_class", "jcache");
+        hibernateProperties.put("hibernate.javax.cache.cache_manager", this.getCacheManager());
+        hibernateProperties.put("hibernate.javax.cache.missing_cache_strategy", "create-warn");
+    }
+
+    /**
+     * Gets the cache manager holding the regions, creating it on first use.
+     */
+    public synchronized CacheManager getCacheManager() {
+        if (this.cacheManager == null) {
+            this.cachingProvider = new CaffeineCachingProvider();
+            this.cacheManager = this.cachingProvider.getCacheManager(this.cachingProvider.getDefaultURI(),
+                    this.getClass().getClassLoader());
+            this.createRegions(ITEM_REGIONS, this.itemsMaxSize);
+            this.createRegions(STAMP_REGIONS, this.stampsMaxSize);
+            this.createRegions(USER_REGIONS, this.usersMaxSize);
+            this.createRegions(TICKET_REGIONS, this.ticketsMaxSize);
+            if (this.queriesEnabled) {
+                this.createRegions(Collections.singletonList(QUERY_RESULTS_REGION), this.queriesMaxSize);
+                // timestamps must outlive any cached query result, so they are neither bounded nor expired
+                this.cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, new CaffeineConfiguration<Object, Object>());
+            }
+        }
+        return this.cacheManager;
+    }
+
+    private void createRegions(List<String> regionNames, long maxSize) {
+        for (String regionName : regionNames) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+            if (this.ttl > 0) {
+                configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(this.ttl)));
+            }
+            this.cacheManager.createCache(regionName, configuration);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (this.cachingProvider != null) {
+            this.cachingProvider.close();
+            this.cachingProvider = null;
+            this.cacheManager = null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.unitedinternet.cosmo.hibernate.cache;
+
+import java.io.Serializable;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entry point for cross-node invalidation of the hibernate second level cache.
+ * <p>
+ * When a {@link CacheInvalidationBroadcaster} bean is present, the changes of cached entities and collections made
+ * on this node are handed to it after commit. The receiving side of the broadcast is expected to call
+ * {@link #evictEntity(String, Serializable)} and {@link #evictCollection(String, Serializable)} on the other nodes.
+ * Evicting is a no-op when the second level cache is disabled.
+ */
+@Component
+public class SecondLevelCacheInvalidator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SecondLevelCacheInvalidator.class);
+
+    private final SessionFactoryImplementor sessionFactory;
+
+    private final ObjectProvider<CacheInvalidationBroadcaster> broadcaster;
+
+    public SecondLevelCacheInvalidator(EntityManagerFactory entityManagerFactory,
+            ObjectProvider<CacheInvalidationBroadcaster> broadcaster) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.broadcaster = broadcaster;
+    }
+
+    @PostConstruct
+    public void registerListener() {
+        CacheInvalidationBroadcaster instance = this.broadcaster.getIfAvailable();
+        if (instance == null) {
+            return;
+        }
+        CacheInvalidationListener listener = new CacheInvalidationListener(instance);
+        EventListenerRegistry registry = this.sessionFactory.getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+        LOG.info("[Cache] Publishing second level cache changes to {}", instance.getClass().getName());
+    }
+
+    /**
+     * Drops the cached state of the entity with the given name and id.
+     */
+    public void evictEntity(String entityName, Serializable id) {
+        this.sessionFactory.getCache().evictEntityData(entityName, id);
+    }
+
+    /**
+     * Drops the cached state of the collection with the given role owned by the entity with the given id.
+     */
+    public void evictCollection(String role, Serializable ownerId) {
+        this.sessionFactory.getCache().evictCollectionData(role, ownerId);
+    }
+
+    /**
+     * Drops everything held by the second level cache and the query cache.
+     */
+    public void evictAll() {
+        this.sessionFactory.getCache().evictAllRegions();
+    }
+}
@@ -0,0 +1,109 @@
+package org.unitedinternet.cosmo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters recorded by Cosmo.
+ * <p>
+ * Meters are registered with the global Micrometer registry, to which Spring Boot adds the registries it configures,
+ * so that classes that are not beans, like entities, record to the same registries as beans do. They are exposed by
+ * the <code>/actuator/metrics</code> endpoint. As long as no registry is configured, as in unit tests, recording does
+ * nothing.
+ */
+public final class CosmoMetrics {
+
+    /** Timer of DAV requests, tagged by method, resource type, report type and exception. */
+    public static final String DAV_REQUESTS = "cosmo.dav.requests";
+
+    /** Timer of <code>ContentDao</code> calls, tagged by method and by the DAO that served them. */
+    public static final String CONTENT_DAO = "cosmo.dao.content";
+
+    /** Timer of the time spent waiting for collection locks, tagged by whether the lock was acquired. */
+    public static final String LOCK_WAIT = "cosmo.lock.wait";
+
+    /** Gauge of the threads waiting for a collection lock. */
+    public static final String LOCK_WAITING = "cosmo.lock.waiting";
+
+    /** Gauge of the collection locks held in memory. */
+    public static final String LOCK_COUNT = "cosmo.lock.count";
+
+    /** Timer of the parsing of stored event calendars. */
+    public static final String CALENDAR_PARSE = "cosmo.calendar.parse";
+
+    /** Timer of the serialization of event calendars to be stored. */
+    public static final String CALENDAR_SERIALIZE = "cosmo.calendar.serialize";
+
+    /** Timer of the requests for external calendar content, tagged by outcome. */
+    public static final String EXTERNAL_FETCH = "cosmo.external.fetch";
+
+    /** Distribution of the size of the external calendar content read, in bytes. */
+    public static final String EXTERNAL_FETCH_SIZE = "cosmo.external.fetch.size";
+
+    /** Counter of the lookups of users by username or email, tagged by whether the user id was cached. */
+    public static final String USER_CACHE = "cosmo.cache.users";
+
+    /** Counter of the lookups and evictions of the parsed event calendar cache, tagged by result. */
+    public static final String CALENDAR_CACHE = "cosmo.cache.calendars";
+
+    /** Gauge of the parsed event calendars cached. */
+    public static final String CALENDAR_CACHE_SIZE = "cosmo.cache.calendars.size";
+
+    /** Gauge of the weight of the parsed event calendar cache, in characters of icaldata. */
+    public static final String CALENDAR_CACHE_WEIGHT = "cosmo.cache.calendars.weight";
+
+    /** Counter of the lookups of the item path cache, tagged by whether an item or a missing name was cached. */
+    public static final String PATH_CACHE = "cosmo.cache.paths";
+
+    /** Gauge of the paths and missing names cached. */
+    public static final String PATH_CACHE_SIZE = "cosmo.cache.paths.size";
+
+    /** Counter of the lookups of the busy time of calendar collections, tagged by whether it was cached. */
+    public static final String FREEBUSY_CACHE = "cosmo.cache.freebusy";
+
+    /** Gauge of the busy time entries cached. */
+    public static final String FREEBUSY_CACHE_SIZE = "cosmo.cache.freebusy.size";
+
+    /** Counter of the lookups of the hibernate query plan cache, tagged by result. */
+    public static final String QUERY_PLAN_CACHE = "cosmo.cache.queryplans";
+
+    public static final String TAG_EXCEPTION = "exception";
+
+    public static final String NONE = "none";
+
+    private CosmoMetrics() {
+    }
+
+    public static MeterRegistry registry() {
+        return Metrics.globalRegistry;
+    }
+
+    /**
+     * Returns the timer of the given name and tags. Timers are created on first use and looked up afterwards.
+     *
+     * @param name
+     *            name of the timer
+     * @param tags
+     *            tag keys and values
+     * @return the timer
+     */
+    public static Timer timer(String name, String... tags) {
+        return Timer.builder(name).tags(tags).register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Returns the distribution summary of the given name, in bytes.
+     */
+    public static DistributionSummary bytes(String name) {
+        return DistributionSummary.builder(name).baseUnit("bytes").register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Returns the value of the exception tag for the given exception.
+     */
+    public static String exception(Throwable t) {
+        return t != null ? t.getClass().getSimpleName() : NONE;
+    }
+}
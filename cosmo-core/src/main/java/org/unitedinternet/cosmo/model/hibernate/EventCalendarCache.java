@@ -0,0 +1,187 @@
+package org.unitedinternet.cosmo.model.hibernate;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.unitedinternet.cosmo.calendar.util.CalendarUtils;
+
+import net.fortuna.ical4j.model.Calendar;
+
+/**
+ * Bounded LRU cache of parsed event calendars, shared by all <code>HibBaseEventStamp</code> instances.
+ * <p>
+ * Entries are keyed by stamp id and only served when both the version of the owning item and the raw
+ * <code>icaldata</code> still match the ones the calendar was parsed from. The cache is weighed by the length of the
+ * cached <code>icaldata</code> so that a few huge calendars can not push the heap usage beyond the configured limit.
+ * Cached calendars are never handed out directly, callers always get their own copy.
+ */
+public class EventCalendarCache {
+
+    /**
+     * Default maximum weight, counted in characters of <code>icaldata</code>.
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 8 * 1024 * 1024;
+
+    private static volatile EventCalendarCache instance = new EventCalendarCache(DEFAULT_MAX_WEIGHT);
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final long maxWeight;
+    private long weight;
+
+    public EventCalendarCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public static EventCalendarCache getInstance() {
+        return instance;
+    }
+
+    public static void setInstance(EventCalendarCache cache) {
+        instance = cache;
+    }
+
+    /**
+     * Returns a private copy of the cached calendar for the specified stamp or <code>null</code> if there is no valid
+     * entry.
+     *
+     * @param stampId
+     *            stamp id
+     * @param version
+     *            version of the item owning the stamp
+     * @param icaldata
+     *            the raw data the stamp currently holds
+     * @return a copy of the cached calendar or <code>null</code>
+     */
+    public Calendar get(Long stampId, Integer version, String icaldata) {
+        if (!isCacheable(stampId) || this.maxWeight <= 0) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = this.entries.get(stampId);
+        }
+        if (entry == null || !entry.matches(version, icaldata)) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        this.hits.incrementAndGet();
+        return CalendarUtils.copyCalendar(entry.calendar);
+    }
+
+    /**
+     * Caches the specified calendar. The calendar must not be handed out or modified afterwards by the caller.
+     *
+     * @param stampId
+     *            stamp id
+     * @param version
+     *            version of the item owning the stamp
+     * @param icaldata
+     *            the raw data <code>calendar</code> was parsed from
+     * @param calendar
+     *            parsed calendar
+     * @return <code>true</code> if the calendar was cached, <code>false</code> if the caller still owns it
+     */
+    public boolean put(Long stampId, Integer version, String icaldata, Calendar calendar) {
+        if (!isCacheable(stampId) || this.maxWeight <= 0 || icaldata.length() > this.maxWeight) {
+            return false;
+        }
+        Entry entry = new Entry(version, icaldata, calendar);
+        synchronized (this) {
+            Entry old = this.entries.put(stampId, entry);
+            if (old != null) {
+                this.weight -= old.weight();
+            }
+            this.weight += entry.weight();
+            Iterator<Map.Entry<Long, Entry>> it = this.entries.entrySet().iterator();
+            while (this.weight > this.maxWeight && it.hasNext()) {
+                Entry eldest = it.next().getValue();
+                it.remove();
+                this.weight -= eldest.weight();
+                this.evictions.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes any cached calendar of the specified stamp.
+     *
+     * @param stampId
+     *            stamp id
+     */
+    public void invalidate(Long stampId) {
+        if (!isCacheable(stampId)) {
+            return;
+        }
+        synchronized (this) {
+            Entry old = this.entries.remove(stampId);
+            if (old != null) {
+                this.weight -= old.weight();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+        this.weight = 0;
+    }
+
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+
+    public synchronized int getSize() {
+        return this.entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return this.weight;
+    }
+
+    public long getMaxWeight() {
+        return this.maxWeight;
+    }
+
+    private static boolean isCacheable(Long stampId) {
+        return stampId != null && stampId.longValue() > 0;
+    }
+
+    private static class Entry {
+
+        private final Integer version;
+        private final String icaldata;
+        private final Calendar calendar;
+
+        Entry(Integer version, String icaldata, Calendar calendar) {
+            this.version = version;
+            this.icaldata = icaldata;
+            this.calendar = calendar;
+        }
+
+        boolean matches(Integer version, String icaldata) {
+            if (this.version == null ? version != null : !this.version.equals(version)) {
+                return false;
+            }
+            return this.icaldata == icaldata || this.icaldata.equals(icaldata);
+        }
+
+        long weight() {
+            return this.icaldata.length();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.unitedinternet.cosmo.model.hibernate;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+
+/**
+ * Sizes the shared {@link EventCalendarCache} and exposes its counters as meters. A maximum weight of <code>0</code>
+ * disables the cache.
+ */
+@Component
+public class EventCalendarCacheConfig {
+
+    @Value("${cosmo.event.calendar.cache.maxWeight:" + EventCalendarCache.DEFAULT_MAX_WEIGHT + "}")
+    private long maxWeight;
+
+    /**
+     * Default constructor.
+     */
+    public EventCalendarCacheConfig() {
+
+    }
+
+    @PostConstruct
+    public void initEventCalendarCache() {
+        EventCalendarCache.setInstance(new EventCalendarCache(this.maxWeight));
+        // meters read the current instance as tests may replace it
+        FunctionCounter.builder(CosmoMetrics.CALENDAR_CACHE, this, c -> EventCalendarCache.getInstance().getHitCount())
+                .tags("result", "hit").register(CosmoMetrics.registry());
+        FunctionCounter.builder(CosmoMetrics.CALENDAR_CACHE, this, c -> EventCalendarCache.getInstance().getMissCount())
+                .tags("result", "miss").register(CosmoMetrics.registry());
+        FunctionCounter
+                .builder(CosmoMetrics.CALENDAR_CACHE, this, c -> EventCalendarCache.getInstance().getEvictionCount())
+                .tags("result", "eviction").register(CosmoMetrics.registry());
+        Gauge.builder(CosmoMetrics.CALENDAR_CACHE_SIZE, this, c -> EventCalendarCache.getInstance().getSize())
+                .register(CosmoMetrics.registry());
+        Gauge.builder(CosmoMetrics.CALENDAR_CACHE_WEIGHT, this, c -> EventCalendarCache.getInstance().getWeight())
+                .register(CosmoMetrics.registry());
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+}
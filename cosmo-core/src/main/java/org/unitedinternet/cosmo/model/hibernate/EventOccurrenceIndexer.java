@@ -0,0 +1,244 @@
+package org.unitedinternet.cosmo.model.hibernate;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.calendar.Instance;
+import org.unitedinternet.cosmo.calendar.InstanceList;
+import org.unitedinternet.cosmo.calendar.RecurrenceExpander;
+
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.component.VEvent;
+
+/**
+ * Materializes the occurrences of recurring events into the <code>event_occurrence</code> table so that time-range
+ * queries can match them with a range scan instead of expanding the recurrence rules of every series.
+ * <p>
+ * Occurrences are indexed for a rolling window of <code>cosmo.event.occurrences.past</code> days before and
+ * <code>cosmo.event.occurrences.future</code> days after the time of indexing. The window is extended in the
+ * background when a query reaches past it, see <code>OccurrenceWindowExtender</code>. At most
+ * <code>cosmo.event.occurrences.maxCount</code> occurrences are indexed per series, the window of a series with more
+ * occurrences is narrowed to the range at hand, so that writing a frequent series stays cheap and queries beyond its
+ * window keep expanding it.
+ */
+@Component
+public class EventOccurrenceIndexer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventOccurrenceIndexer.class);
+
+    /**
+     * Extra expansion on each side of the window so that floating occurrences, whose instant depends on the
+     * timezone of the query, are covered for the whole window.
+     */
+    private static final long FLOATING_MARGIN = TimeUnit.DAYS.toMillis(1);
+
+    @Value("${cosmo.event.occurrences.past:30}")
+    private int pastDays;
+
+    @Value("${cosmo.event.occurrences.future:180}")
+    private int futureDays;
+
+    @Value("${cosmo.event.occurrences.maxCount:250}")
+    private int maxCount;
+
+    public EventOccurrenceIndexer() {
+        this(30, 180, 250);
+    }
+
+    public EventOccurrenceIndexer(int pastDays, int futureDays, int maxCount) {
+        this.pastDays = pastDays;
+        this.futureDays = futureDays;
+        this.maxCount = maxCount;
+    }
+
+    /**
+     * Indexes the occurrences of the given stamp for the rolling window around the current time.
+     *
+     * @param stamp
+     *            event stamp to index
+     */
+    public void index(HibBaseEventStamp stamp) {
+        this.index(stamp, null, null);
+    }
+
+    /**
+     * Indexes the occurrences of the given stamp for the rolling window around the current time, extended to cover
+     * the already indexed window and the given range.
+     *
+     * @param stamp
+     *            event stamp to index
+     * @param rangeStart
+     *            start of a range the window must cover, may be <code>null</code>
+     * @param rangeEnd
+     *            end of a range the window must cover, may be <code>null</code>
+     */
+    public void index(HibBaseEventStamp stamp, Date rangeStart, Date rangeEnd) {
+        Expansion expansion = this.expand(stamp, rangeStart, rangeEnd);
+        if (expansion == null) {
+            this.clear(stamp);
+            return;
+        }
+        // only touch the rows that actually changed
+        stamp.getOccurrences().retainAll(expansion.getOccurrences());
+        stamp.getOccurrences().addAll(expansion.getOccurrences());
+        stamp.setOccurrencesWindow(expansion.getStart(), expansion.getEnd());
+    }
+
+    /**
+     * Computes the occurrences {@link #index(HibBaseEventStamp, Date, Date)} would index without changing the stamp.
+     * <p>
+     * When the series has more than <code>maxCount</code> occurrences in the whole window, the window is narrowed to
+     * the given range, or to the rolling window from the current time on when there is no range. If there are still
+     * too many, the window ends before the first occurrence left out.
+     *
+     * @param stamp
+     *            event stamp to expand
+     * @param rangeStart
+     *            start of a range the window must cover, may be <code>null</code>
+     * @param rangeEnd
+     *            end of a range the window must cover, may be <code>null</code>
+     * @return the occurrences and their window or <code>null</code> if the stamp is not to be indexed
+     */
+    public Expansion expand(HibBaseEventStamp stamp, Date rangeStart, Date rangeEnd) {
+        VEvent event = stamp.getEvent();
+        if (event == null || !stamp.isRecurring()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        long windowStart = now - TimeUnit.DAYS.toMillis(this.pastDays);
+        long windowEnd = now + TimeUnit.DAYS.toMillis(this.futureDays);
+        long narrowStart = now;
+        long narrowEnd = windowEnd;
+        if (stamp.getOccurrencesStart() != null && stamp.getOccurrencesEnd() != null) {
+            windowStart = Math.min(windowStart, parse(stamp.getOccurrencesStart()));
+            windowEnd = Math.max(windowEnd, parse(stamp.getOccurrencesEnd()));
+        }
+        if (rangeStart != null && rangeEnd != null) {
+            // the range is compared to the window both as instant and as wall clock time of the query
+            narrowStart = rangeStart.getTime() - FLOATING_MARGIN;
+            narrowEnd = rangeEnd.getTime() + FLOATING_MARGIN;
+            windowStart = Math.min(windowStart, narrowStart);
+            windowEnd = Math.max(windowEnd, narrowEnd);
+        }
+
+        RecurrenceExpander expander = new RecurrenceExpander();
+        InstanceList instances = expander.getOcurrences(event, stamp.getExceptions(),
+                utc(windowStart - FLOATING_MARGIN), utc(windowEnd + FLOATING_MARGIN), null);
+        List<Instance> indexed = new ArrayList<>(instances.values());
+        if (indexed.size() > this.maxCount) {
+            windowStart = narrowStart;
+            windowEnd = narrowEnd;
+            indexed = overlapping(indexed, windowStart - FLOATING_MARGIN, windowEnd + FLOATING_MARGIN);
+        }
+        if (indexed.size() > this.maxCount) {
+            indexed.sort(Comparator.comparing(Instance::getStart));
+            // end the window before the first occurrence left out, wherever the floating occurrences fall
+            long cutoff = indexed.get(this.maxCount).getStart().getTime() - FLOATING_MARGIN;
+            if (cutoff <= windowStart) {
+                LOG.debug("[Occurrences] Not indexing {} occurrences of stamp {}", indexed.size(), stamp.getId());
+                return null;
+            }
+            windowEnd = Math.min(windowEnd, cutoff);
+            indexed = indexed.subList(0, this.maxCount);
+        }
+
+        Set<HibEventOccurrence> occurrences = new HashSet<>(indexed.size());
+        for (Instance instance : indexed) {
+            String start = EventStampInterceptor.fromDateToStringNoTimezone(instance.getStart());
+            String end = instance.getEnd() != null ? EventStampInterceptor.fromDateToStringNoTimezone(instance.getEnd())
+                    : start;
+            occurrences.add(new HibEventOccurrence(start, end));
+        }
+        return new Expansion(occurrences, windowStart, windowEnd);
+    }
+
+    private static List<Instance> overlapping(List<Instance> instances, long start, long end) {
+        List<Instance> result = new ArrayList<>();
+        for (Instance instance : instances) {
+            long instanceEnd = instance.getEnd() != null ? instance.getEnd().getTime() : instance.getStart().getTime();
+            if (instance.getStart().getTime() < end && instanceEnd >= start) {
+                result.add(instance);
+            }
+        }
+        return result;
+    }
+
+    private void clear(HibBaseEventStamp stamp) {
+        HibEventTimeRangeIndex index = stamp.getTimeRangeIndex();
+        boolean wasRecurring = index != null && Boolean.TRUE.equals(index.getIsRecurring());
+        // avoid loading the occurrences of stamps that never had any
+        if (wasRecurring || stamp.getOccurrencesEnd() != null) {
+            stamp.getOccurrences().clear();
+        }
+        stamp.setOccurrencesWindow(null, null);
+    }
+
+    private static DateTime utc(long time) {
+        DateTime dateTime = new DateTime(time);
+        dateTime.setUtc(true);
+        return dateTime;
+    }
+
+    private static long parse(String utc) {
+        try {
+            return new DateTime(utc).getTime();
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid occurrences window " + utc, e);
+        }
+    }
+
+    /**
+     * Occurrences of a series in a window, see {@link EventOccurrenceIndexer#expand(HibBaseEventStamp, Date, Date)}.
+     */
+    public static final class Expansion {
+
+        private final Set<HibEventOccurrence> occurrences;
+
+        private final long start;
+
+        private final long end;
+
+        private Expansion(Set<HibEventOccurrence> occurrences, long start, long end) {
+            this.occurrences = occurrences;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Set<HibEventOccurrence> getOccurrences() {
+            return occurrences;
+        }
+
+        /**
+         * The start of the window as a UTC date-time.
+         */
+        public String getStart() {
+            return utc(start).toString();
+        }
+
+        /**
+         * The end of the window as a UTC date-time.
+         */
+        public String getEnd() {
+            return utc(end).toString();
+        }
+
+        /**
+         * Returns <code>true</code> if queries for the given range are answered from the occurrences in the window,
+         * in every timezone.
+         */
+        public boolean covers(Date rangeStart, Date rangeEnd) {
+            return start <= rangeStart.getTime() - FLOATING_MARGIN && end >= rangeEnd.getTime() + FLOATING_MARGIN;
+        }
+    }
+}
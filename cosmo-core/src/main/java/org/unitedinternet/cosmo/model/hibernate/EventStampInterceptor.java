@@ -70,9 +70,10 @@ public class EventStampInterceptor extends EmptyInterceptor {
             return false;
         }
         
-        // calculate time-range-index
+        // calculate time-range-index, unless it was calculated before the stamp was persisted
         HibBaseEventStamp es = (HibBaseEventStamp) object;
-        HibEventTimeRangeIndex index = calculateEventStampIndexes(es);
+        HibEventTimeRangeIndex index = es.getTimeRangeIndex() != null ? es.getTimeRangeIndex()
+                : calculateEventStampIndexes(es);
         
         if(index==null) {
             return false;
@@ -94,7 +95,7 @@ public class EventStampInterceptor extends EmptyInterceptor {
      * For recurring events, this means calculating the first start date
      * and the last end date for all occurences.
      */
-    protected HibEventTimeRangeIndex calculateEventStampIndexes(HibBaseEventStamp eventStamp) {
+    public HibEventTimeRangeIndex calculateEventStampIndexes(HibBaseEventStamp eventStamp) {
         Date startDate = eventStamp.getStartDate();
         Date endDate = eventStamp.getEndDate();
         
@@ -168,11 +169,13 @@ public class EventStampInterceptor extends EmptyInterceptor {
         
         timeRangeIndex.setIsFloating(isFloating);
         timeRangeIndex.setIsRecurring(isRecurring);
+        timeRangeIndex.setStartMillis(HibEventTimeRangeIndex.toStartMillis(timeRangeIndex.getStartDate(), isFloating));
+        timeRangeIndex.setEndMillis(HibEventTimeRangeIndex.toEndMillis(timeRangeIndex.getEndDate(), isFloating));
         
         return timeRangeIndex;
     }
     
-    private String fromDateToStringNoTimezone(Date date) {
+    static String fromDateToStringNoTimezone(Date date) {
         if(date==null) {
             return null;
         }
@@ -19,13 +19,18 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.time.temporal.TemporalAmount;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
+import javax.persistence.ElementCollection;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.Index;
+import javax.persistence.JoinColumn;
 import javax.persistence.PrimaryKeyJoinColumn;
 import javax.persistence.SecondaryTable;
 import javax.validation.ValidationException;
@@ -36,10 +41,12 @@ import org.unitedinternet.cosmo.CosmoValidationException;
 import org.unitedinternet.cosmo.calendar.ICalendarUtils;
 import org.unitedinternet.cosmo.calendar.util.CalendarUtils;
 import org.unitedinternet.cosmo.icalendar.ICalendarConstants;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
 import org.unitedinternet.cosmo.model.BaseEventStamp;
 import org.unitedinternet.cosmo.model.Item;
 import org.unitedinternet.cosmo.transform.TzHelper;
 
+import io.micrometer.core.instrument.Timer;
 import net.fortuna.ical4j.data.CalendarBuilder;
 import net.fortuna.ical4j.data.ParserException;
 import net.fortuna.ical4j.model.Calendar;
@@ -80,7 +87,8 @@ import net.fortuna.ical4j.model.property.Trigger;
                 @Index(name = "idx_startdt",columnList = "startDate"),
                 @Index(name = "idx_enddt",columnList = "endDate"),
                 @Index(name = "idx_floating",columnList = "isFloating"),
-                @Index(name = "idx_recurring",columnList = "isrecurring")}
+                @Index(name = "idx_recurring",columnList = "isrecurring"),
+                @Index(name = "idx_time_range",columnList = "startmillis, endmillis")}
 )
 @DiscriminatorValue("baseevent")
 @SuppressWarnings("serial")
@@ -92,12 +100,31 @@ public abstract class HibBaseEventStamp extends HibStamp implements ICalendarCon
     public static final String TIME_INFINITY = "Z-TIME-INFINITY";
     
     protected static final String VALUE_MISSING = "MISSING";
+
+    private static final Timer PARSE_TIMER = CosmoMetrics.timer(CosmoMetrics.CALENDAR_PARSE);
+
+    private static final Timer SERIALIZE_TIMER = CosmoMetrics.timer(CosmoMetrics.CALENDAR_SERIALIZE);
     
     @Column(table="event_stamp", name = "icaldata", length=102400000, nullable = false)
     private String icaldata = null;
 
     @Embedded
     private HibEventTimeRangeIndex timeRangeIndex = null;
+
+    /**
+     * Occurrences of a recurring series between <code>occurrencesStart</code> and <code>occurrencesEnd</code>,
+     * maintained by {@link EventOccurrenceIndexer}.
+     */
+    @ElementCollection
+    @CollectionTable(name = "event_occurrence", joinColumns = @JoinColumn(name = "stampid"),
+            indexes = {@Index(name = "idx_occurrence_range", columnList = "startdate, enddate")})
+    private Set<HibEventOccurrence> occurrences = new HashSet<HibEventOccurrence>(0);
+
+    @Column(table="event_stamp", name = "occurrencesstart", length=16)
+    private String occurrencesStart = null;
+
+    @Column(table="event_stamp", name = "occurrencesend", length=16)
+    private String occurrencesEnd = null;
     
     public HibBaseEventStamp() {
         //Default constructor
@@ -108,27 +135,61 @@ public abstract class HibBaseEventStamp extends HibStamp implements ICalendarCon
     }
 
     public void setIcaldata(String icaldata) {
+        EventCalendarCache.getInstance().invalidate(getId());
         this.icaldata = icaldata;
+        this.invalidateOccurrences();
     }
 
     public abstract VEvent getEvent();
     
+    /**
+     * Returns a private copy of the calendar held by this stamp. Parsed calendars of persistent stamps are kept in the
+     * shared {@link EventCalendarCache} so that subsequent calls only pay for the copy.
+     */
     @Override
     public Calendar getEventCalendar() {
-        if (this.icaldata == null) {
+        String data = this.icaldata;
+        if (data == null) {
             return null;
         }
-        return calendarFromString(this.icaldata);
+        EventCalendarCache cache = EventCalendarCache.getInstance();
+        Long id = getId();
+        Integer version = getItemVersion();
+        Calendar calendar = cache.get(id, version, data);
+        if (calendar != null) {
+            return calendar;
+        }
+        calendar = calendarFromString(data);
+        if (cache.put(id, version, data, calendar)) {
+            return CalendarUtils.copyCalendar(calendar);
+        }
+        return calendar;
     }
     
     @Override
     public void setEventCalendar(Calendar calendar) {
         TzHelper.correctTzParameterFrom(calendar);
+        EventCalendarCache.getInstance().invalidate(getId());
         this.icaldata = calendarToString(calendar);
+        this.invalidateOccurrences();
+    }
+
+    /**
+     * Indexed occurrences are stale until the series is indexed again.
+     */
+    private void invalidateOccurrences() {
+        this.occurrencesStart = null;
+        this.occurrencesEnd = null;
+    }
+    
+    private Integer getItemVersion() {
+        Item item = getItem();
+        return item instanceof HibItem ? ((HibItem) item).getVersion() : null;
     }
     
     
     private static Calendar calendarFromString(String icaldata) {
+        Timer.Sample sample = Timer.start(CosmoMetrics.registry());
         CalendarBuilder builder = new CalendarBuilder();
         Calendar calendar = null;
         try {
@@ -137,11 +198,14 @@ public abstract class HibBaseEventStamp extends HibStamp implements ICalendarCon
             throw new CosmoIOException("can not happen with StringReader", e);
         } catch (ParserException e) {
             throw new CosmoParseException(e);
+        } finally {
+            sample.stop(PARSE_TIMER);
         }
         return calendar;
     }
 
     private static String calendarToString(Calendar value) {
+        Timer.Sample sample = Timer.start(CosmoMetrics.registry());
         String calendar = null;
         try {
             calendar = CalendarUtils.outputCalendar(value);
@@ -149,6 +213,8 @@ public abstract class HibBaseEventStamp extends HibStamp implements ICalendarCon
             throw new CosmoValidationException(e);
         } catch (IOException e) {
             throw new CosmoIOException(e);
+        } finally {
+            sample.stop(SERIALIZE_TIMER);
         }
         return calendar;
     }
@@ -160,6 +226,33 @@ public abstract class HibBaseEventStamp extends HibStamp implements ICalendarCon
     public void setTimeRangeIndex(HibEventTimeRangeIndex timeRangeIndex) {
         this.timeRangeIndex = timeRangeIndex;
     }
+
+    public Set<HibEventOccurrence> getOccurrences() {
+        return occurrences;
+    }
+
+    /**
+     * The start of the window for which the occurrences of this series are indexed, as a UTC date-time or
+     * <code>null</code> if they are not indexed.
+     * @return start of the indexed window
+     */
+    public String getOccurrencesStart() {
+        return occurrencesStart;
+    }
+
+    /**
+     * The end of the window for which the occurrences of this series are indexed, as a UTC date-time or
+     * <code>null</code> if they are not indexed.
+     * @return end of the indexed window
+     */
+    public String getOccurrencesEnd() {
+        return occurrencesEnd;
+    }
+
+    public void setOccurrencesWindow(String occurrencesStart, String occurrencesEnd) {
+        this.occurrencesStart = occurrencesStart;
+        this.occurrencesEnd = occurrencesEnd;
+    }
     
       
     /**
@@ -0,0 +1,54 @@
+package org.unitedinternet.cosmo.model.hibernate;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Number of changes made to the children of a collection, kept apart from the <code>item</code> row of the collection
+ * so that concurrent writes into the same collection do not update, and conflict on, the collection itself.
+ * <p>
+ * Rows are only written by an atomic increment in the database, see
+ * {@link org.unitedinternet.cosmo.dao.hibernate.ContentDaoImpl#updateCollectionTimestamp}, and are never cached
+ * outside of the current session so that the collection ETag and CTag always reflect the latest change.
+ */
+@Entity
+@Immutable
+@BatchSize(size = 50)
+@Table(name = "collection_change")
+public class HibCollectionChange implements Serializable {
+
+    private static final long serialVersionUID = -4420391367409587140L;
+
+    @Id
+    @Column(name = "collectionid")
+    private Long collectionId;
+
+    @Column(name = "changes", nullable = false)
+    private long changes;
+
+    @Column(name = "modifieddate", nullable = false)
+    private long modifiedDate;
+
+    public HibCollectionChange() {
+        // Default constructor
+    }
+
+    public Long getCollectionId() {
+        return collectionId;
+    }
+
+    public long getChanges() {
+        return changes;
+    }
+
+    public long getModifiedDate() {
+        return modifiedDate;
+    }
+}
@@ -18,12 +18,17 @@ package org.unitedinternet.cosmo.model.hibernate;
 import static org.unitedinternet.cosmo.model.hibernate.CollectionItemConstants.ATTR_EXCLUDE_FREE_BUSY_ROLLUP;
 import static org.unitedinternet.cosmo.model.hibernate.CollectionItemConstants.ATTR_HUE;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.Set;
 
+import javax.persistence.ConstraintMode;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 
 import org.hibernate.annotations.Cascade;
@@ -50,6 +55,15 @@ public class HibCollectionItem extends HibItem implements CollectionItem {
     @Cascade( {CascadeType.DELETE }) 
     private Set<CollectionItemDetails> childDetails = new HashSet<CollectionItemDetails>(0);
 
+    /**
+     * Changes made to the children, kept in their own table as they are not written through this entity. The row is
+     * created together with the collection and only read when the tag, hash or modified date is asked for.
+     */
+    @ManyToOne(targetEntity = HibCollectionChange.class, fetch = FetchType.LAZY)
+    @JoinColumn(name = "id", referencedColumnName = "collectionid", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private HibCollectionChange change;
+
     private transient Set<Item> children = null;
 
     public HibCollectionItem() {
@@ -158,7 +172,36 @@ public class HibCollectionItem extends HibItem implements CollectionItem {
      * @see org.unitedinternet.cosmo.model.CollectionItem#generateHash()
      */
     public int generateHash() {
-        return getVersion();
+        return change != null ? getVersion() + (int) change.getChanges() : getVersion();
+    }
+
+    public void setChange(HibCollectionChange change) {
+        this.change = change;
+    }
+
+    /**
+     * Returns the last time either the collection itself or one of its children was modified.
+     */
+    @Override
+    public Long getModifiedDate() {
+        Long modifiedDate = super.getModifiedDate();
+        if (change == null || (modifiedDate != null && modifiedDate >= change.getModifiedDate())) {
+            return modifiedDate;
+        }
+        return change.getModifiedDate();
+    }
+
+    /**
+     * Returns the entity tag of the collection itself combined with the number of changes made to its children, so
+     * that the tag changes on every child write without the collection being updated.
+     */
+    @Override
+    public String getEntityTag() {
+        String etag = super.getEntityTag();
+        if (change == null || change.getChanges() == 0) {
+            return etag;
+        }
+        return encodeEntityTag((etag + ":" + change.getChanges()).getBytes(StandardCharsets.UTF_8));
     }
 
     public Item copy() {
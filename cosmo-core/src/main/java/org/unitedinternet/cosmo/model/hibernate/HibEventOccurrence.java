@@ -0,0 +1,57 @@
+package org.unitedinternet.cosmo.model.hibernate;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * Start and end of a single occurrence of a recurring event, in the same format as the
+ * {@link HibEventTimeRangeIndex} of the series: UTC for dates with a timezone, floating otherwise.
+ */
+@Embeddable
+public class HibEventOccurrence implements Serializable {
+
+    private static final long serialVersionUID = -2270465447093713263L;
+
+    @Column(name = "startdate", length = 16, nullable = false)
+    private String startDate;
+
+    @Column(name = "enddate", length = 16, nullable = false)
+    private String endDate;
+
+    public HibEventOccurrence() {
+        // Default constructor
+    }
+
+    public HibEventOccurrence(String startDate, String endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public String getStartDate() {
+        return startDate;
+    }
+
+    public String getEndDate() {
+        return endDate;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HibEventOccurrence)) {
+            return false;
+        }
+        HibEventOccurrence other = (HibEventOccurrence) obj;
+        return Objects.equals(startDate, other.startDate) && Objects.equals(endDate, other.endDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(startDate, endDate);
+    }
+}
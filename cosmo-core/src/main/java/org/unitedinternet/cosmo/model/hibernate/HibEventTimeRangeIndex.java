@@ -1,5 +1,11 @@
 package org.unitedinternet.cosmo.model.hibernate;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
 import javax.persistence.Column;
 import javax.persistence.Embeddable;
 
@@ -10,6 +16,18 @@ import javax.persistence.Embeddable;
  */
 @Embeddable
 public class HibEventTimeRangeIndex {
+
+    /**
+     * Largest offset east of UTC. A floating time can be this much earlier than the same wall clock time in UTC.
+     */
+    public static final long MAX_OFFSET_EAST = TimeUnit.HOURS.toMillis(14);
+
+    /**
+     * Largest offset west of UTC. A floating time can be this much later than the same wall clock time in UTC.
+     */
+    public static final long MAX_OFFSET_WEST = TimeUnit.HOURS.toMillis(12);
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
     
     @Column(table="event_stamp", name = "startdate", length=16)
     private String startDate = null;
@@ -17,6 +35,12 @@ public class HibEventTimeRangeIndex {
     @Column(table="event_stamp", name = "enddate", length=16)
     private String endDate = null;
     
+    @Column(table="event_stamp", name = "startmillis")
+    private Long startMillis = null;
+
+    @Column(table="event_stamp", name = "endmillis")
+    private Long endMillis = null;
+    
     @Column(table="event_stamp", name = "isfloating", columnDefinition = "tinyint(4)")
     private Boolean isFloating = null;
     
@@ -103,4 +127,84 @@ public class HibEventTimeRangeIndex {
     public void setIsRecurring(Boolean isRecurring) {
         this.isRecurring = isRecurring;
     }
+
+    /**
+     * The start of the event in milliseconds since the epoch. Floating events start at the earliest instant their
+     * start date can denote in any timezone.
+     * 
+     * @return start of the event in milliseconds since the epoch
+     */
+    public Long getStartMillis() {
+        return startMillis;
+    }
+
+    public void setStartMillis(Long startMillis) {
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * The end of the event in milliseconds since the epoch. Floating events end at the latest instant their end date
+     * can denote in any timezone. Infinite recurring events end at {@link Long#MAX_VALUE}.
+     * 
+     * @return end of the event in milliseconds since the epoch
+     */
+    public Long getEndMillis() {
+        return endMillis;
+    }
+
+    public void setEndMillis(Long endMillis) {
+        this.endMillis = endMillis;
+    }
+
+    /**
+     * Converts an indexed start date to the value of <code>startMillis</code>.
+     * 
+     * @param startDate
+     *            start date in one of the formats of {@link #getStartDate()}
+     * @param floating
+     *            whether the date is floating
+     * @return milliseconds since the epoch or <code>null</code> if <code>startDate</code> is <code>null</code>
+     */
+    public static Long toStartMillis(String startDate, boolean floating) {
+        if (startDate == null) {
+            return null;
+        }
+        long millis = toMillis(startDate);
+        return floating && millis != Long.MAX_VALUE ? millis - MAX_OFFSET_EAST : millis;
+    }
+
+    /**
+     * Converts an indexed end date to the value of <code>endMillis</code>.
+     * 
+     * @param endDate
+     *            end date in one of the formats of {@link #getEndDate()}
+     * @param floating
+     *            whether the date is floating
+     * @return milliseconds since the epoch or <code>null</code> if <code>endDate</code> is <code>null</code>
+     */
+    public static Long toEndMillis(String endDate, boolean floating) {
+        if (endDate == null) {
+            return null;
+        }
+        long millis = toMillis(endDate);
+        return floating && millis != Long.MAX_VALUE ? millis + MAX_OFFSET_WEST : millis;
+    }
+
+    /**
+     * Converts an indexed date to milliseconds since the epoch, taking floating dates as UTC.
+     * 
+     * @param date
+     *            date in one of the formats of {@link #getEndDate()}
+     * @return milliseconds since the epoch, {@link Long#MAX_VALUE} for {@link HibBaseEventStamp#TIME_INFINITY}
+     */
+    public static long toMillis(String date) {
+        if (HibBaseEventStamp.TIME_INFINITY.equals(date)) {
+            return Long.MAX_VALUE;
+        }
+        if (date.length() == 8) {
+            return LocalDate.parse(date, DateTimeFormatter.BASIC_ISO_DATE).atStartOfDay().toInstant(ZoneOffset.UTC)
+                    .toEpochMilli();
+        }
+        return LocalDateTime.parse(date.substring(0, 15), DATE_TIME_FORMAT).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
 }
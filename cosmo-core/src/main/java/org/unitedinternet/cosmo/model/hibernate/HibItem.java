@@ -71,6 +71,7 @@ import org.unitedinternet.cosmo.model.User;
         indexes={@Index(name = "idx_itemtype",columnList = "itemtype" ),
                  @Index(name = "idx_itemuid",columnList = "uid" ),
                  @Index(name = "idx_itemname",columnList = "itemname" ),
+                 @Index(name = "idx_task_range",columnList = "taskstartmillis,taskendmillis" ),
         }
 )
 @DiscriminatorColumn(
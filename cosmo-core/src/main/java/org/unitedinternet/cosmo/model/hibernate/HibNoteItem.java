@@ -23,6 +23,7 @@ import java.util.Set;
 
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
@@ -70,6 +71,9 @@ public class HibNoteItem extends HibICalendarItem implements NoteItem {
     
     @Column(name= "hasmodifications", columnDefinition = "tinyint(4)")
     private boolean hasModifications = false;
+
+    @Embedded
+    private HibTaskIndex taskIndex = null;
     
     /**
      * Constructor.
@@ -109,6 +113,15 @@ public class HibNoteItem extends HibICalendarItem implements NoteItem {
     
     public void setTaskJournalCalendar(Calendar calendar) {
         setCalendar(calendar);
+        taskIndex = calendar != null ? HibTaskIndex.of(calendar) : null;
+    }
+
+    /**
+     * @return index of the VTODO of the note, <code>null</code> if the note has no task, a task with overridden
+     *         occurrences or was not indexed yet
+     */
+    public HibTaskIndex getTaskIndex() {
+        return taskIndex;
     }
    
     public Item copy() {
@@ -0,0 +1,233 @@
+package org.unitedinternet.cosmo.model.hibernate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAmount;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.component.VToDo;
+import net.fortuna.ical4j.model.property.Categories;
+
+/**
+ * Contains the properties of a task that calendar-query filters on VTODO components match, so that the database
+ * can select the candidate tasks of a query instead of parsing every item of the collection.
+ * <p>
+ * A <code>null</code> value means that the property is unknown, either because the item was stored before it was
+ * indexed or because the value does not fit into its column. Queries have to keep such items as candidates.
+ */
+@Embeddable
+public class HibTaskIndex {
+
+    public static final int MAX_STATUS_LENGTH = 32;
+
+    public static final int MAX_CATEGORIES_LENGTH = 1024;
+
+    private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Column(name = "taskstartmillis")
+    private Long startMillis = null;
+
+    @Column(name = "taskendmillis")
+    private Long endMillis = null;
+
+    @Column(name = "taskdue")
+    private Long due = null;
+
+    @Column(name = "taskcompleted")
+    private Long completed = null;
+
+    @Column(name = "taskstatus", length = MAX_STATUS_LENGTH)
+    private String status = null;
+
+    @Column(name = "taskcategories", length = MAX_CATEGORIES_LENGTH)
+    private String categories = null;
+
+    /**
+     * Start of the time range in which the task overlaps a query range as defined by RFC 4791 section 9.9, in
+     * milliseconds since the epoch. Floating dates are moved to the earliest timezone.
+     */
+    public Long getStartMillis() {
+        return startMillis;
+    }
+
+    public void setStartMillis(Long startMillis) {
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * End of the time range in which the task overlaps a query range, {@link Long#MAX_VALUE} if the task has no
+     * end. Floating dates are moved to the latest timezone.
+     */
+    public Long getEndMillis() {
+        return endMillis;
+    }
+
+    public void setEndMillis(Long endMillis) {
+        this.endMillis = endMillis;
+    }
+
+    /**
+     * DUE of the task in milliseconds since the epoch, floating dates taken as UTC.
+     */
+    public Long getDue() {
+        return due;
+    }
+
+    public void setDue(Long due) {
+        this.due = due;
+    }
+
+    /**
+     * COMPLETED of the task in milliseconds since the epoch.
+     */
+    public Long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Long completed) {
+        this.completed = completed;
+    }
+
+    /**
+     * STATUS of the task, an empty string if the task has none.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Values of all CATEGORIES properties of the task separated by commas, an empty string if the task has none.
+     */
+    public String getCategories() {
+        return categories;
+    }
+
+    public void setCategories(String categories) {
+        this.categories = categories;
+    }
+
+    /**
+     * Indexes the task of the given calendar.
+     *
+     * @param calendar
+     *            task calendar of a note
+     * @return index of the task, <code>null</code> if the calendar has no VTODO or overridden occurrences, which may
+     *         differ in any indexed property
+     */
+    public static HibTaskIndex of(Calendar calendar) {
+        VToDo master = null;
+        for (Component component : calendar.getComponents(Component.VTODO)) {
+            if (component.getProperty(Property.RECURRENCE_ID) != null) {
+                return null;
+            }
+            master = (VToDo) component;
+        }
+        return master != null ? of(master) : null;
+    }
+
+    /**
+     * Indexes the given task.
+     *
+     * @param task
+     *            master VTODO of a task without overridden occurrences
+     * @return index of the task
+     */
+    public static HibTaskIndex of(VToDo task) {
+        HibTaskIndex index = new HibTaskIndex();
+        Date dtStart = task.getStartDate() != null ? task.getStartDate().getDate() : null;
+        Date due = task.getDue() != null ? task.getDue().getDate() : null;
+        Date completed = task.getDateCompleted() != null ? task.getDateCompleted().getDate() : null;
+        Date created = task.getCreated() != null ? task.getCreated().getDate() : null;
+
+        index.setDue(due != null ? toMillis(due) : null);
+        index.setCompleted(completed != null ? completed.getTime() : null);
+
+        if (!task.getProperties(Property.RRULE).isEmpty() || !task.getProperties(Property.RDATE).isEmpty()) {
+            // occurrences are only known after expansion, so the range covers the whole series
+            boolean bounded = dtStart != null && task.getProperties(Property.RDATE).isEmpty();
+            index.setStartMillis(bounded ? toStartMillis(dtStart) : Long.MIN_VALUE);
+            index.setEndMillis(Long.MAX_VALUE);
+        } else if (dtStart != null) {
+            long end = toMillis(dtStart);
+            if (task.getDuration() != null) {
+                end = Math.max(end, plus(end, task.getDuration().getDuration()));
+            } else if (!(dtStart instanceof DateTime)) {
+                end += ONE_DAY;
+            }
+            if (due != null) {
+                end = Math.max(end, toMillis(due));
+            }
+            index.setStartMillis(toStartMillis(dtStart));
+            index.setEndMillis(isFloating(dtStart) || (due != null && isFloating(due))
+                    ? end + HibEventTimeRangeIndex.MAX_OFFSET_WEST : end);
+        } else if (due != null) {
+            index.setStartMillis(toStartMillis(due));
+            index.setEndMillis(toEndMillis(due));
+        } else if (completed != null) {
+            long start = created != null ? Math.min(created.getTime(), completed.getTime()) : completed.getTime();
+            long end = created != null ? Math.max(created.getTime(), completed.getTime()) : completed.getTime();
+            index.setStartMillis(start);
+            index.setEndMillis(end);
+        } else if (created != null) {
+            index.setStartMillis(created.getTime());
+            index.setEndMillis(Long.MAX_VALUE);
+        } else {
+            index.setStartMillis(Long.MIN_VALUE);
+            index.setEndMillis(Long.MAX_VALUE);
+        }
+
+        String status = task.getStatus() != null ? task.getStatus().getValue() : "";
+        index.setStatus(status.length() <= MAX_STATUS_LENGTH ? status : null);
+
+        StringBuilder categories = new StringBuilder();
+        for (Property property : task.getProperties(Property.CATEGORIES)) {
+            if (categories.length() > 0) {
+                categories.append(',');
+            }
+            categories.append(((Categories) property).getValue());
+        }
+        index.setCategories(categories.length() <= MAX_CATEGORIES_LENGTH ? categories.toString() : null);
+
+        return index;
+    }
+
+    private static boolean isFloating(Date date) {
+        if (!(date instanceof DateTime)) {
+            return true;
+        }
+        DateTime dateTime = (DateTime) date;
+        return !dateTime.isUtc() && dateTime.getTimeZone() == null;
+    }
+
+    private static long toMillis(Date date) {
+        return HibEventTimeRangeIndex.toMillis(EventStampInterceptor.fromDateToStringNoTimezone(date));
+    }
+
+    private static long toStartMillis(Date date) {
+        return HibEventTimeRangeIndex.toStartMillis(EventStampInterceptor.fromDateToStringNoTimezone(date),
+                isFloating(date));
+    }
+
+    private static long toEndMillis(Date date) {
+        return HibEventTimeRangeIndex.toEndMillis(EventStampInterceptor.fromDateToStringNoTimezone(date),
+                isFloating(date));
+    }
+
+    private static long plus(long millis, TemporalAmount amount) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC).plus(amount)
+                .toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -33,6 +33,8 @@ import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 import org.unitedinternet.cosmo.model.Item;
@@ -45,6 +47,7 @@ import org.unitedinternet.cosmo.model.User;
  */
 @Entity
 @Table(name="tickets")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class HibTicket extends HibAuditableObject implements Comparable<Ticket>, Ticket {
 
     private static final long serialVersionUID = -3333589463226954251L;
@@ -63,6 +66,7 @@ public class HibTicket extends HibAuditableObject implements Comparable<Ticket>,
             joinColumns = @JoinColumn(name="ticketid")
     )
     @Fetch(FetchMode.JOIN)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @Column(name="privilege", nullable=false, length=255)
     private Set<String> privileges;
     
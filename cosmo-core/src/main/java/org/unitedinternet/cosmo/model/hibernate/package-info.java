@@ -19,7 +19,8 @@
  */
 @NamedQueries({
     // Item Queries
-        @NamedQuery(name = "homeCollection.by.ownerId", query = "from HibHomeCollectionItem where owner.id=:ownerid"),
+        @NamedQuery(name = "homeCollection.by.ownerId", query = "from HibHomeCollectionItem where owner.id=:ownerid",
+                cacheable = true),
         @NamedQuery(name = "item.by.ownerId.parentId.name", query = "select item from HibItem item join"
                 + " item.parentDetails pd where item.owner.id=:ownerid and "
                 + "pd.primaryKey.collection.id=:parentid and item.name=:name"),
@@ -42,6 +43,9 @@
         @NamedQuery(name = "contentItem.by.uid", query = "from HibContentItem i where i.uid=:uid"),
         @NamedQuery(name = "item.by.parent.name", query = "select item from HibItem item join"
                 + " item.parentDetails pd where pd.primaryKey.collection=:parent and item.name=:name"),
+        @NamedQuery(name = "item.by.parent.names", query = "select distinct item from HibItem item left join fetch"
+                + " item.stamps join item.parentDetails pd where pd.primaryKey.collection=:parent and"
+                + " item.name in (:names)"),
         // FIXME stfl .and.nullparent is not the correct name anymore!
         // FIXME check on class == HibCollectionItem  or select from HibCollectionItem
         @NamedQuery(name = "item.by.ownerName.name.nullParent", query = "select i from "
@@ -60,17 +64,19 @@
                 + "HibICalendarItem item join item.parentDetails pd where"
                 + " pd.primaryKey.collection.id=:parentid and item.icalUid=:icaluid"),
         @NamedQuery(name = "contentItem.by.owner", query = "from HibContentItem i where i.owner=:owner"),
+        @NamedQuery(name = "itemTombstone.by.parent.timestamp", query = "select ts from HibItemTombstone ts"
+                + " where ts.item=:parent and ts.timestamp>:timestamp"),
 
     // Ticket Queries
-    @NamedQuery(name="ticket.by.key", query="from HibTicket t where t.key=:key"),
+    @NamedQuery(name="ticket.by.key", query="from HibTicket t where t.key=:key", cacheable = true),
     
     
     // User Queries
-    @NamedQuery(name="user.byUsername", query="from HibUser where username=:username"),
-    @NamedQuery(name="user.byEmail", query="from HibUser where email=:email"),
+    @NamedQuery(name="user.byUsername", query="from HibUser where username=:username", cacheable = true),
+    @NamedQuery(name="user.byEmail", query="from HibUser where email=:email", cacheable = true),
         @NamedQuery(name = "user.byUsernameOrEmail", query = "from HibUser where"
                 + " id!=:userid and (username=:username or email=:email)"),
-        @NamedQuery(name = "user.byUid", query = "from HibUser where uid=:uid"),
+        @NamedQuery(name = "user.byUid", query = "from HibUser where uid=:uid", cacheable = true),
         @NamedQuery(name = "user.byActivationId", query = "from HibUser where activationid=:activationId"),
         @NamedQuery(name = "user.all", query = "from HibUser"),
         @NamedQuery(name = "user.count", query = "select count(id) from HibUser"),
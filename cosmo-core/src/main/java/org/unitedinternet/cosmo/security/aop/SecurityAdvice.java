@@ -23,6 +23,7 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.unitedinternet.cosmo.aop.OrderedAdvice;
 import org.unitedinternet.cosmo.dao.ContentDao;
@@ -40,6 +41,7 @@ import org.unitedinternet.cosmo.security.CosmoSecurityException;
 import org.unitedinternet.cosmo.security.CosmoSecurityManager;
 import org.unitedinternet.cosmo.security.ItemSecurityException;
 import org.unitedinternet.cosmo.security.Permission;
+import org.unitedinternet.cosmo.security.util.AuthorizationCache;
 import org.unitedinternet.cosmo.security.util.SecurityHelper;
 import org.unitedinternet.cosmo.service.triage.TriageStatusQueryContext;
 
@@ -58,9 +60,15 @@ public class SecurityAdvice extends OrderedAdvice {
     
     
     public SecurityAdvice(CosmoSecurityManager securityManager, ContentDao contentDao, UserDao userDao) {
+        this(securityManager, contentDao, userDao, null);
+    }
+
+    @Autowired
+    public SecurityAdvice(CosmoSecurityManager securityManager, ContentDao contentDao, UserDao userDao,
+            AuthorizationCache authorizationCache) {
         super();
         this.securityManager = securityManager;        
-        this.securityHelper = new SecurityHelper(contentDao, userDao);
+        this.securityHelper = new SecurityHelper(contentDao, userDao, authorizationCache);
     }
 
     @Around("execution(* org.unitedinternet.cosmo.service.ContentService.getRootItem(..)) &&" + "args(user)")
@@ -131,6 +139,21 @@ public class SecurityAdvice extends OrderedAdvice {
         return item;
     }
 
+    @Around("execution(* org.unitedinternet.cosmo.service.ContentService.findItemsByParentAndNames(..)) &&"
+            + "args(parent, names)")
+    public Object checkFindItemsByParentAndNames(ProceedingJoinPoint pjp, CollectionItem parent, Set<String> names)
+            throws Throwable {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("in checkFindItemsByParentAndNames(parent, names)");
+        }
+
+        if (!securityHelper.hasReadAccess(securityManager.getSecurityContext(), parent)) {
+            throwItemSecurityException(parent, Permission.READ);
+        }
+
+        return pjp.proceed();
+    }
+
     @Around("execution(* org.unitedinternet.cosmo.service.ContentService.addItemToCollection(..)) &&"
             + "args(item, collection)")
     public Object checkAddItemToCollection(ProceedingJoinPoint pjp, Item item, CollectionItem collection)
@@ -193,6 +216,21 @@ public class SecurityAdvice extends OrderedAdvice {
         return pjp.proceed();
     }
 
+    @Around("execution(* org.unitedinternet.cosmo.service.ContentService.loadTombstones(..)) &&"
+            + "args(collection, timestamp)")
+    public Object checkLoadTombstones(ProceedingJoinPoint pjp, CollectionItem collection, Long timestamp)
+            throws Throwable {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("in checkLoadTombstones(collection, timestamp)");
+        }
+
+        if (!securityHelper.hasReadAccess(securityManager.getSecurityContext(), collection)) {
+            throwItemSecurityException(collection, Permission.READ);
+        }
+
+        return pjp.proceed();
+    }
+
     @Around("execution(* org.unitedinternet.cosmo.service.ContentService.createCollection(..)) &&"
             + "args(parent, collection)")
     public Object checkCreateCollection(ProceedingJoinPoint pjp, CollectionItem parent, CollectionItem collection)
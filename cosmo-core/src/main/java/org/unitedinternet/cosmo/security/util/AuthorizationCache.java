@@ -0,0 +1,232 @@
+package org.unitedinternet.cosmo.security.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.unitedinternet.cosmo.model.CollectionItem;
+import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.Ticket;
+import org.unitedinternet.cosmo.security.CosmoSecurityContext;
+
+/**
+ * Access decisions of {@link SecurityHelper}, so that the checks made around every service call of a request don't
+ * walk the parents, tickets and subscriptions of the same item again.
+ * <p>
+ * Decisions are keyed on the principal, the tickets presented with the request, the item uid, the uids of its parents
+ * and the privilege, so that a decision doesn't follow an item that was moved elsewhere. They are always kept for the
+ * duration of the current request. When <code>cosmo.security.authorization.cache.ttl</code> is positive they are
+ * also shared between requests for that many milliseconds, in an LRU cache of
+ * <code>cosmo.security.authorization.cache.maxSize</code> entries. Creating or removing tickets and subscriptions and
+ * moving items invalidates all decisions, as a ticket can grant access to any principal that presents it and a move
+ * changes the ancestors of every descendant of the moved item.
+ */
+@Component
+public class AuthorizationCache {
+
+    public static final long DEFAULT_TTL = 0;
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    public static final String READ = "read";
+
+    public static final String WRITE = "write";
+
+    public static final String WRITE_TICKET = "write-ticket";
+
+    private static final String ATTRIBUTE = AuthorizationCache.class.getName();
+
+    @Value("${cosmo.security.authorization.cache.ttl:" + DEFAULT_TTL + "}")
+    private long ttl;
+
+    @Value("${cosmo.security.authorization.cache.maxSize:" + DEFAULT_MAX_SIZE + "}")
+    private int maxSize;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Map<String, Decision> entries = new LinkedHashMap<String, Decision>(256, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Decision> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * Default constructor.
+     */
+    public AuthorizationCache() {
+        this(DEFAULT_TTL, DEFAULT_MAX_SIZE);
+    }
+
+    public AuthorizationCache(long ttl, int maxSize) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the key of the decision on the given privilege of the security context on the item.
+     *
+     * @return the key, <code>null</code> if the decision can not be cached
+     */
+    public static String key(CosmoSecurityContext context, Item item, String privilege) {
+        if (item == null || item.getUid() == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(privilege).append(':').append(item.getUid()).append(':');
+        Set<CollectionItem> parents = item.getParents();
+        if (parents != null && !parents.isEmpty()) {
+            Set<String> parentUids = new TreeSet<>();
+            for (CollectionItem parent : parents) {
+                parentUids.add(parent.getUid());
+            }
+            key.append(parentUids).append(':');
+        }
+        if (context.getUser() != null) {
+            key.append("u:").append(context.getUser().getUsername());
+        } else if (context.getTicket() != null) {
+            key.append("t:").append(context.getTicket().getKey());
+        } else {
+            return null;
+        }
+        Set<Ticket> tickets = context.getTickets();
+        if (tickets != null && !tickets.isEmpty()) {
+            Set<String> ticketKeys = new TreeSet<>();
+            for (Ticket ticket : tickets) {
+                ticketKeys.add(ticket.getKey());
+            }
+            key.append(':').append(ticketKeys);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the cached decision for the given key.
+     *
+     * @param key
+     *            key as returned by {@link #key(CosmoSecurityContext, Item, String)}
+     * @return the decision, <code>null</code> if there is none
+     */
+    public Boolean get(String key) {
+        long currentGeneration = this.generation.get();
+        Map<String, Decision> requestEntries = requestEntries(false);
+        if (requestEntries != null) {
+            Decision decision = requestEntries.get(key);
+            if (decision != null && decision.generation == currentGeneration) {
+                return decision.granted;
+            }
+        }
+        if (this.ttl <= 0) {
+            return null;
+        }
+        Decision decision;
+        synchronized (this) {
+            decision = this.entries.get(key);
+        }
+        if (decision == null || decision.generation != currentGeneration
+                || decision.created + this.ttl < System.currentTimeMillis()) {
+            return null;
+        }
+        if (requestEntries != null) {
+            requestEntries.put(key, decision);
+        }
+        return decision.granted;
+    }
+
+    /**
+     * Returns the current generation of decisions, to be taken before a decision is made and passed to
+     * {@link #put(String, long, boolean)}, so that a decision made while the cache is invalidated is not cached.
+     */
+    public long generation() {
+        return this.generation.get();
+    }
+
+    /**
+     * Caches the decision for the given key.
+     *
+     * @param key
+     *            key as returned by {@link #key(CosmoSecurityContext, Item, String)}
+     * @param generation
+     *            generation taken before the decision was made
+     * @param granted
+     *            the decision
+     */
+    public void put(String key, long generation, boolean granted) {
+        if (generation != this.generation.get()) {
+            return;
+        }
+        Decision decision = new Decision(granted, generation, System.currentTimeMillis());
+        Map<String, Decision> requestEntries = requestEntries(true);
+        if (requestEntries != null) {
+            requestEntries.put(key, decision);
+        }
+        if (this.ttl > 0) {
+            synchronized (this) {
+                this.entries.put(key, decision);
+            }
+        }
+    }
+
+    /**
+     * Invalidates all decisions, including the ones cached by requests in progress. Within a transaction decisions are
+     * invalidated again once it commits, so that requests running concurrently can't cache the state before the
+     * commit.
+     */
+    public void invalidate() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        }
+    }
+
+    private void clear() {
+        this.generation.incrementAndGet();
+        synchronized (this) {
+            this.entries.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Decision> requestEntries(boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, Decision> requestEntries = (Map<String, Decision>) attributes.getAttribute(ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        if (requestEntries == null && create) {
+            requestEntries = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE, requestEntries, RequestAttributes.SCOPE_REQUEST);
+        }
+        return requestEntries;
+    }
+
+    private static class Decision {
+
+        private final boolean granted;
+        private final long generation;
+        private final long created;
+
+        Decision(boolean granted, long generation, long created) {
+            this.granted = granted;
+            this.generation = generation;
+            this.created = created;
+        }
+    }
+}
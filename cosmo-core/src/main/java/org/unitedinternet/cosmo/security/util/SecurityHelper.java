@@ -16,6 +16,7 @@
 package org.unitedinternet.cosmo.security.util;
 
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 import org.unitedinternet.cosmo.dao.ContentDao;
 import org.unitedinternet.cosmo.dao.UserDao;
@@ -36,9 +37,19 @@ import org.unitedinternet.cosmo.security.CosmoSecurityContext;
 public class SecurityHelper {
     
     private UserDao userDao;
+
+    private AuthorizationCache authorizationCache;
     
     public SecurityHelper(ContentDao contentDao, UserDao userDao) {
+        this(contentDao, userDao, null);
+    }
+
+    /**
+     * @param authorizationCache cache of access decisions, <code>null</code> to always check access
+     */
+    public SecurityHelper(ContentDao contentDao, UserDao userDao, AuthorizationCache authorizationCache) {
         this.userDao = userDao;
+        this.authorizationCache = authorizationCache;
     }
     
     /**
@@ -99,6 +110,10 @@ public class SecurityHelper {
      *         to view the item
      */
     public boolean hasReadAccess(CosmoSecurityContext context, Item item) {
+        return cached(context, item, AuthorizationCache.READ, () -> checkReadAccess(context, item));
+    }
+
+    private boolean checkReadAccess(CosmoSecurityContext context, Item item) {
         if(context.getUser()!=null) {
             return hasReadAccess(context.getUser(), item, context.getTickets());
         }
@@ -111,6 +126,10 @@ public class SecurityHelper {
     
    
     public boolean hasWriteTicketAccess(CosmoSecurityContext context, Item item) {
+        return cached(context, item, AuthorizationCache.WRITE_TICKET, () -> checkWriteTicketAccess(context, item));
+    }
+
+    private boolean checkWriteTicketAccess(CosmoSecurityContext context, Item item) {
         if (context.getUser() == null) {
             return false;
         }
@@ -143,6 +162,10 @@ public class SecurityHelper {
      *         to update the item
      */
     public boolean hasWriteAccess(CosmoSecurityContext context, Item item) {
+        return cached(context, item, AuthorizationCache.WRITE, () -> checkWriteAccess(context, item));
+    }
+
+    private boolean checkWriteAccess(CosmoSecurityContext context, Item item) {
         if(context.getUser()!=null) {
             return hasWriteAccess(context.getUser(), item, context.getTickets());
         }
@@ -153,6 +176,24 @@ public class SecurityHelper {
         return false;
     }
     
+    /**
+     * Returns the cached decision on the given privilege, making and caching the decision if there is none.
+     */
+    private boolean cached(CosmoSecurityContext context, Item item, String privilege, BooleanSupplier check) {
+        String key = authorizationCache != null ? AuthorizationCache.key(context, item, privilege) : null;
+        if (key == null) {
+            return check.getAsBoolean();
+        }
+        Boolean granted = authorizationCache.get(key);
+        if (granted != null) {
+            return granted;
+        }
+        long generation = authorizationCache.generation();
+        boolean decision = check.getAsBoolean();
+        authorizationCache.put(key, generation, decision);
+        return decision;
+    }
+    
     private boolean hasReadAccess(User user, Item item, Set<Ticket> tickets) {
         // Admin always has access
         if (user.getAdmin() != null && user.getAdmin().booleanValue()) {
@@ -0,0 +1,230 @@
+package org.unitedinternet.cosmo.security.util;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.unitedinternet.cosmo.model.Ticket;
+import org.unitedinternet.cosmo.model.hibernate.BaseModelObject;
+
+/**
+ * Index of tickets by key, so that requests presenting a ticket that was recently validated for the requested resource
+ * are authenticated without resolving the resource and walking its parents for the ticket again.
+ * <p>
+ * Each entry holds the id of the ticket, the uid of the item it was issued for, its privileges and the time it times
+ * out, along with the resource paths the ticket was found to be valid for. Entries expire when the ticket times out,
+ * and at the latest <code>cosmo.ticket.index.ttl</code> milliseconds after they were created, which bounds the
+ * staleness caused by changes made by other nodes. Creating or removing a ticket drops its entry, and moving or
+ * renaming an item drops the paths of all entries as they may then name other resources. Each invalidation increments
+ * a generation counter so that validations that started before the invalidation don't store what they found.
+ */
+@Component
+public class TicketIndex {
+
+    public static final long DEFAULT_TTL = 60000;
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    /**
+     * Maximum number of paths kept per ticket.
+     */
+    public static final int MAX_PATHS = 100;
+
+    private static final String TIMEOUT_PREFIX = "Second-";
+
+    @Value("${cosmo.ticket.index.ttl:" + DEFAULT_TTL + "}")
+    private long ttl;
+
+    @Value("${cosmo.ticket.index.maxSize:" + DEFAULT_MAX_SIZE + "}")
+    private int maxSize;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(256, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private long generation;
+
+    /**
+     * Default constructor.
+     */
+    public TicketIndex() {
+        this(DEFAULT_TTL, DEFAULT_MAX_SIZE);
+    }
+
+    public TicketIndex(long ttl, int maxSize) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return this.ttl > 0 && this.maxSize > 0;
+    }
+
+    /**
+     * Returns the current generation which must be passed when storing the result of a validation.
+     */
+    public synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Returns the entry of the ticket with the given key or <code>null</code> if there is none or it has expired.
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = this.entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expires < System.currentTimeMillis()) {
+            this.entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the id of the ticket with the given key or <code>null</code> if it is not indexed.
+     */
+    public Long getTicketId(String key) {
+        Entry entry = get(key);
+        return entry != null ? entry.ticketId : null;
+    }
+
+    /**
+     * Indexes the given ticket, optionally recording that it is valid for the resource at the given path.
+     *
+     * @param ticket
+     *            persistent ticket
+     * @param path
+     *            path of the resource the ticket was validated for, <code>null</code> if none
+     * @param generation
+     *            generation taken before the ticket was looked up
+     */
+    public synchronized void put(Ticket ticket, String path, long generation) {
+        if (!isEnabled() || generation != this.generation || !(ticket instanceof BaseModelObject)
+                || ticket.getKey() == null) {
+            return;
+        }
+        Long ticketId = ((BaseModelObject) ticket).getId();
+        if (ticketId == null || ticketId < 0) {
+            return;
+        }
+        Entry entry = this.entries.get(ticket.getKey());
+        if (entry == null || !entry.ticketId.equals(ticketId)) {
+            long now = System.currentTimeMillis();
+            long expires = Math.min(timesOut(ticket), now + this.ttl);
+            if (expires < now) {
+                return;
+            }
+            String itemUid = ticket.getItem() != null ? ticket.getItem().getUid() : null;
+            Set<String> privileges = ticket.getPrivileges() != null ? new HashSet<>(ticket.getPrivileges())
+                    : new HashSet<>();
+            entry = new Entry(ticketId, itemUid, Collections.unmodifiableSet(privileges), expires);
+            this.entries.put(ticket.getKey(), entry);
+        }
+        if (path != null && entry.paths.size() < MAX_PATHS) {
+            entry.paths.add(path);
+        }
+    }
+
+    /**
+     * Removes the entry of the ticket with the given key.
+     */
+    public synchronized void invalidate(String key) {
+        this.generation++;
+        if (key != null) {
+            this.entries.remove(key);
+        }
+    }
+
+    /**
+     * Removes the paths tickets were found to be valid for, to be called whenever an item is moved or renamed.
+     */
+    public synchronized void invalidatePaths() {
+        this.generation++;
+        for (Entry entry : this.entries.values()) {
+            entry.paths.clear();
+        }
+    }
+
+    public synchronized void clear() {
+        this.generation++;
+        this.entries.clear();
+    }
+
+    public synchronized int getSize() {
+        return this.entries.size();
+    }
+
+    private static long timesOut(Ticket ticket) {
+        String timeout = ticket.getTimeout();
+        if (timeout == null || timeout.equals(Ticket.TIMEOUT_INFINITE)) {
+            return Long.MAX_VALUE;
+        }
+        if (!timeout.startsWith(TIMEOUT_PREFIX) || ticket.getCreated() == null) {
+            return 0;
+        }
+        try {
+            return ticket.getCreated().getTime() + Long.parseLong(timeout.substring(TIMEOUT_PREFIX.length())) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Indexed ticket.
+     */
+    public static class Entry {
+
+        private final Long ticketId;
+        private final String itemUid;
+        private final Set<String> privileges;
+        private final long expires;
+        private final Set<String> paths = Collections.synchronizedSet(new HashSet<>());
+
+        Entry(Long ticketId, String itemUid, Set<String> privileges, long expires) {
+            this.ticketId = ticketId;
+            this.itemUid = itemUid;
+            this.privileges = privileges;
+            this.expires = expires;
+        }
+
+        public Long getTicketId() {
+            return ticketId;
+        }
+
+        public String getItemUid() {
+            return itemUid;
+        }
+
+        public Set<String> getPrivileges() {
+            return privileges;
+        }
+
+        public long getExpires() {
+            return expires;
+        }
+
+        /**
+         * Returns <code>true</code> if the ticket is known to be valid for the resource at the given path.
+         *
+         * @param path
+         *            path of the resource
+         * @param uid
+         *            uid of the resource if the path names it, <code>null</code> otherwise
+         */
+        public boolean isGranted(String path, String uid) {
+            return (uid != null && uid.equals(this.itemUid)) || this.paths.contains(path);
+        }
+    }
+}
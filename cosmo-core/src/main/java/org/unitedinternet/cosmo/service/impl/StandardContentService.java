@@ -38,6 +38,7 @@ import org.unitedinternet.cosmo.model.ContentItem;
 import org.unitedinternet.cosmo.model.EventStamp;
 import org.unitedinternet.cosmo.model.HomeCollectionItem;
 import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.ItemTombstone;
 import org.unitedinternet.cosmo.model.ModificationUid;
 import org.unitedinternet.cosmo.model.NoteItem;
 import org.unitedinternet.cosmo.model.NoteOccurrence;
@@ -216,6 +217,21 @@ public class StandardContentService implements ContentService {
         return contentDao.findItemParentByPath(path);
     }
 
+    /**
+     * Find the children of a collection that have one of the given names.
+     * 
+     * @param parent parent collection
+     * @param names names of the children to find
+     * @return set of children found, children that don't exist are not included
+     */
+    @Transactional(readOnly = true)
+    public Set<Item> findItemsByParentAndNames(CollectionItem parent, Set<String> names) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Finding {} children of collection {}", names.size(), parent.getUid());
+        }
+        return contentDao.findItemsByParentAndNames(parent, names);
+    }
+
    
     public void addItemToCollection(Item item, CollectionItem collection) {
         if (LOG.isDebugEnabled()) {
@@ -388,6 +404,21 @@ public class StandardContentService implements ContentService {
         return contentDao.loadChildren(collection, timestamp);
     }
 
+    /**
+     * Load the tombstones of all items that have been removed from a
+     * collection since a given timestamp.
+     * 
+     * @param collection
+     *            collection
+     * @param timestamp
+     *            timestamp
+     * @return tombstones of the items removed from collection after timestamp
+     */
+    @Transactional(readOnly = true)
+    public Set<ItemTombstone> loadTombstones(CollectionItem collection, Long timestamp) {
+        return contentDao.loadTombstones(collection, timestamp);
+    }
+
     /**
      * Create a new collection.
      * 
@@ -741,6 +772,7 @@ public class StandardContentService implements ContentService {
         }
         try {
             contentDao.createBatchContent(parent, contentItems);
+            contentDao.updateCollectionTimestamp(parent);
         } finally {
             lockManager.unlockCollection(parent);
         }   
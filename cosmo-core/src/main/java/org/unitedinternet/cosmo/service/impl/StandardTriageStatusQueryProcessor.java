@@ -34,6 +34,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.unitedinternet.cosmo.calendar.Instance;
 import org.unitedinternet.cosmo.calendar.InstanceList;
+import org.unitedinternet.cosmo.calendar.OccurrenceIterator;
 import org.unitedinternet.cosmo.calendar.RecurrenceExpander;
 import org.unitedinternet.cosmo.dao.ContentDao;
 import org.unitedinternet.cosmo.model.CollectionItem;
@@ -625,17 +626,16 @@ public class StandardTriageStatusQueryProcessor implements TriageStatusQueryProc
         NoteItem note = (NoteItem) event.getItem();
         RecurrenceExpander expander = new RecurrenceExpander();
         
-        InstanceList instances = expander.getOcurrences(event.getEvent(), 
+        OccurrenceIterator occurrences = expander.iterateOccurrences(event.getEvent(), 
                 event.getExceptions(), new DateTime(rangeStart), new DateTime(rangeEnd),
                 timezone );
      
-        // Find the first occurrence that begins after the start range
-        while(instances.size()>0) {
-            String firstKey = (String) instances.firstKey();
-            Instance instance = (Instance) instances.remove(firstKey);
-            if(instance.getStart().after(rangeStart)) {
-                if(instance.isOverridden()) {
-                    ModificationUid modUid = new ModificationUidImpl(note, instance.getRid());
+        // Find the first occurrence that begins after the start range,
+        // occurrences are expanded only as far as needed
+        while(occurrences.next()) {
+            if(occurrences.getStart() > rangeStart.getTime()) {
+                if(occurrences.isOverridden()) {
+                    ModificationUid modUid = new ModificationUidImpl(note, occurrences.getRecurrenceIdDate());
                     NoteItem mod = (NoteItem) contentDao.findItemByUid(modUid.toString());
                     // shouldn't happen, but log and continue if it does
                     if(mod==null) {
@@ -647,7 +647,7 @@ public class StandardTriageStatusQueryProcessor implements TriageStatusQueryProc
                         return mod;
                     }
                 } else {
-                    return NoteOccurrenceUtil.createNoteOccurrence(instance.getRid(), note);
+                    return NoteOccurrenceUtil.createNoteOccurrence(occurrences.getRecurrenceIdDate(), note);
                 }
             }   
         }
@@ -0,0 +1,351 @@
+package org.unitedinternet.cosmo.service.lock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.unitedinternet.cosmo.CosmoException;
+import org.unitedinternet.cosmo.CosmoInterruptedException;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
+import org.unitedinternet.cosmo.model.CollectionItem;
+
+import io.micrometer.core.instrument.Gauge;
+
+/**
+ * An implementation of <code>LockManager</code> that serializes writers across all nodes sharing the same database.
+ * <p>
+ * A lock is acquired in two stages. Threads of the same node first compete for a <code>ReentrantLock</code> of the
+ * collection uid, held in a concurrent map only while it is in use, so that writers of different collections never
+ * wait for each other and no global monitor is involved. The winner then takes a MariaDB advisory lock
+ * (<code>GET_LOCK</code>) named after the collection uid on the connection of the current transaction, which makes
+ * threads of other nodes wait as well. Advisory locks belong to the connection, so the database stage is skipped,
+ * with a warning, when there is no transaction. Both stages share the timeout passed to
+ * {@link #lockCollection(CollectionItem, long)}. Within a transaction, unlocking only releases both stages once the
+ * transaction has completed, so that the next writer reads the committed changes.
+ * <p>
+ * Enabled with <code>cosmo.lock.manager=database</code>. Lock wait time, the number of waiting threads and the number
+ * of locks in use are exposed as meters and through the getters of this class.
+ *
+ * @see LockManager
+ */
+@Component
+@ConditionalOnProperty(name = "cosmo.lock.manager", havingValue = "database")
+public class DatabaseLockManager implements LockManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatabaseLockManager.class);
+
+    /**
+     * Maximum length of a lock name accepted by <code>GET_LOCK</code>.
+     */
+    private static final int MAX_LOCK_NAME_LENGTH = 64;
+
+    private static final String LOCK_NAME_PREFIX = "cosmo:";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Local locks in use mapped by collection uid.
+     */
+    private final Map<String, UidLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Locks held by the current thread mapped by collection uid.
+     */
+    private final ThreadLocal<Map<String, Hold>> holds = ThreadLocal.withInitial(HashMap::new);
+
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final AtomicInteger maxWaitingThreads = new AtomicInteger();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Default constructor.
+     */
+    public DatabaseLockManager() {
+        Gauge.builder(CosmoMetrics.LOCK_COUNT, this.locks, Map::size).register(CosmoMetrics.registry());
+        Gauge.builder(CosmoMetrics.LOCK_WAITING, this.waitingThreads, AtomicInteger::get)
+                .register(CosmoMetrics.registry());
+    }
+
+    public DatabaseLockManager(EntityManager em) {
+        this();
+        this.em = em;
+    }
+
+    public void lockCollection(CollectionItem collection) {
+        lockCollection(collection, -1);
+    }
+
+    public boolean lockCollection(CollectionItem collection, long timeout) {
+        String uid = collection.getUid();
+        Map<String, Hold> threadHolds = this.holds.get();
+        Hold hold = threadHolds.get(uid);
+        if (hold != null) {
+            // already owned by the current thread
+            hold.count++;
+            return true;
+        }
+
+        long start = System.nanoTime();
+        UidLock lock = acquireLock(uid);
+        boolean acquired = false;
+        boolean dbLocked = false;
+        onWaitStarted();
+        try {
+            if (timeout < 0) {
+                lock.lockInterruptibly();
+            } else if (!lock.tryLock(timeout, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            try {
+                dbLocked = lockInDatabase(uid, remaining(timeout, start));
+                acquired = true;
+            } finally {
+                if (!acquired) {
+                    lock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new CosmoInterruptedException("thread interrupted, no lock acquired", e);
+        } catch (LockTimeoutException e) {
+            return false;
+        } finally {
+            if (!acquired) {
+                releaseLock(uid);
+            }
+            onWaitFinished(System.nanoTime() - start, acquired);
+        }
+
+        threadHolds.put(uid, new Hold(dbLocked));
+        LOG.debug("Lock collection: {}", uid);
+        return true;
+    }
+
+    public void unlockCollection(CollectionItem collection) {
+        String uid = collection.getUid();
+        Map<String, Hold> threadHolds = this.holds.get();
+        Hold hold = threadHolds.get(uid);
+        if (hold == null) {
+            throw new CosmoException("Current thread does not own lock", new CosmoException());
+        }
+        if (--hold.count > 0) {
+            return;
+        }
+        threadHolds.remove(uid);
+        if (hold.dbLocked && TransactionSynchronizationManager.isSynchronizationActive()) {
+            // other threads and nodes must not get the lock before the changes made under it are committed, the
+            // connection holding the advisory lock is only released after completion
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(uid, true);
+                }
+            });
+            return;
+        }
+        release(uid, hold.dbLocked);
+    }
+
+    private void release(String uid, boolean dbLocked) {
+        try {
+            if (dbLocked) {
+                unlockInDatabase(uid);
+            }
+        } finally {
+            this.locks.get(uid).unlock();
+            releaseLock(uid);
+            LOG.debug("Unlock collection: {}", uid);
+        }
+    }
+
+    /**
+     * @return number of collections locked or waited for on this node
+     */
+    public int getNumLocksInMemory() {
+        return this.locks.size();
+    }
+
+    /**
+     * @return number of threads currently waiting for a lock on this node
+     */
+    public int getNumWaitingThreads() {
+        return this.waitingThreads.get();
+    }
+
+    /**
+     * @return highest number of threads that waited for a lock at the same time
+     */
+    public int getMaxNumWaitingThreads() {
+        return this.maxWaitingThreads.get();
+    }
+
+    /**
+     * @return number of locks acquired
+     */
+    public long getAcquisitionCount() {
+        return this.acquisitions.sum();
+    }
+
+    /**
+     * @return number of lock attempts that timed out
+     */
+    public long getTimeoutCount() {
+        return this.timeouts.sum();
+    }
+
+    /**
+     * @return total time in milliseconds spent waiting for locks, including attempts that timed out
+     */
+    public long getTotalWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(this.totalWaitNanos.sum());
+    }
+
+    /**
+     * @return longest time in milliseconds a thread waited for a lock
+     */
+    public long getMaxWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos.get());
+    }
+
+    /**
+     * Check if a collection is locked by the current thread
+     *
+     * @param collection The collection.
+     * @return true if the current thread owns the lock of the collection
+     */
+    public boolean isHeldByCurrentThread(CollectionItem collection) {
+        return this.holds.get().containsKey(collection.getUid());
+    }
+
+    /**
+     * Takes the advisory lock if the current thread runs inside a transaction.
+     *
+     * @return <code>true</code> if the lock was taken, <code>false</code> if there is no transaction
+     * @throws LockTimeoutException if the lock couldn't be acquired within the given time
+     */
+    private boolean lockInDatabase(String uid, long timeout) {
+        if (this.em == null || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            LOG.warn("No active transaction, collection {} is only locked on this node", uid);
+            return false;
+        }
+        // GET_LOCK waits forever for a negative timeout and accepts fractions of a second
+        Object result = this.em.createNativeQuery("SELECT GET_LOCK(:name, :timeout)")
+                .setParameter("name", lockName(uid)).setParameter("timeout", timeout < 0 ? -1 : timeout / 1000.0)
+                .getSingleResult();
+        if (result != null && ((Number) result).intValue() == 1) {
+            return true;
+        }
+        if (result == null || timeout < 0) {
+            throw new CosmoException("Unable to acquire database lock of collection " + uid, new CosmoException());
+        }
+        throw new LockTimeoutException();
+    }
+
+    private void unlockInDatabase(String uid) {
+        Object result = this.em.createNativeQuery("SELECT RELEASE_LOCK(:name)").setParameter("name", lockName(uid))
+                .getSingleResult();
+        if (result == null || ((Number) result).intValue() != 1) {
+            LOG.warn("Database lock of collection {} was not held by this connection", uid);
+        }
+    }
+
+    static String lockName(String uid) {
+        String name = LOCK_NAME_PREFIX + uid;
+        if (name.length() > MAX_LOCK_NAME_LENGTH) {
+            name = LOCK_NAME_PREFIX + DigestUtils.sha1Hex(uid);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the local lock of the given uid, registering the current thread as one of its users.
+     */
+    private UidLock acquireLock(String uid) {
+        return this.locks.compute(uid, (key, lock) -> {
+            UidLock result = lock != null ? lock : new UidLock();
+            result.users++;
+            return result;
+        });
+    }
+
+    /**
+     * Unregisters the current thread as a user of the local lock of the given uid, dropping the lock once unused.
+     */
+    private void releaseLock(String uid) {
+        this.locks.computeIfPresent(uid, (key, lock) -> --lock.users > 0 ? lock : null);
+    }
+
+    private static long remaining(long timeout, long start) {
+        if (timeout < 0) {
+            return -1;
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return Math.max(0, timeout - elapsed);
+    }
+
+    private void onWaitStarted() {
+        int waiting = this.waitingThreads.incrementAndGet();
+        this.maxWaitingThreads.accumulateAndGet(waiting, Math::max);
+    }
+
+    private void onWaitFinished(long waitNanos, boolean acquired) {
+        this.waitingThreads.decrementAndGet();
+        this.totalWaitNanos.add(waitNanos);
+        this.maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        CosmoMetrics.timer(CosmoMetrics.LOCK_WAIT, "acquired", String.valueOf(acquired)).record(waitNanos,
+                TimeUnit.NANOSECONDS);
+        if (acquired) {
+            this.acquisitions.increment();
+        } else {
+            this.timeouts.increment();
+        }
+    }
+
+    private static class Hold {
+
+        private final boolean dbLocked;
+        private int count = 1;
+
+        Hold(boolean dbLocked) {
+            this.dbLocked = dbLocked;
+        }
+    }
+
+    /**
+     * Lock of a collection uid along with the number of threads holding or waiting for it, only changed while the
+     * map entry is computed.
+     */
+    private static class UidLock extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        private int users;
+    }
+
+    private static class LockTimeoutException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        LockTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+}
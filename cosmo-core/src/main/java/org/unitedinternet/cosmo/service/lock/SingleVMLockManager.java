@@ -19,15 +19,21 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.unitedinternet.cosmo.CosmoException;
 import org.unitedinternet.cosmo.CosmoInterruptedException;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
 import org.unitedinternet.cosmo.model.CollectionItem;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+
 /**
  * And implementation of <code>LockManager</code> that supports locking within a single JVM. Once a thread obtains a
  * lock, it owns the lock until the thread unlocks it. A thread that attempts to unlock something it doesn't own will
@@ -35,10 +41,14 @@ import org.unitedinternet.cosmo.model.CollectionItem;
  * 
  * Once a lock is released by a thread, it stays in memory. Unused locks are cleared from memory after maxLocks are in
  * memory to prevent memory leaks.
+ * 
+ * This is the default lock manager, set <code>cosmo.lock.manager=database</code> to use {@link DatabaseLockManager}
+ * when several nodes share the same database.
  *
  * @see LockManager
  */
 @Component
+@ConditionalOnProperty(name = "cosmo.lock.manager", havingValue = "local", matchIfMissing = true)
 public class SingleVMLockManager implements LockManager {
     
     private static final Logger LOG = LoggerFactory.getLogger(SingleVMLockManager.class);
@@ -50,6 +60,17 @@ public class SingleVMLockManager implements LockManager {
      */
     protected HashMap<String, CollectionLock> locks = new HashMap<String, CollectionLock>();
 
+    /**
+     * Number of threads waiting for a lock
+     */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public SingleVMLockManager() {
+        Gauge.builder(CosmoMetrics.LOCK_COUNT, this, SingleVMLockManager::getNumLocksInMemory)
+                .register(CosmoMetrics.registry());
+        Gauge.builder(CosmoMetrics.LOCK_WAITING, this.waiting, AtomicInteger::get).register(CosmoMetrics.registry());
+    }
+
     /**
      * @return number of maximum locks allowed in memory
      */
@@ -137,6 +158,9 @@ public class SingleVMLockManager implements LockManager {
         // Attempt to acquire the lock.
         // This will block until thread can acquire the lock, or
         // until timeout milliseconds have passed if timeout is > 0
+        Timer.Sample sample = Timer.start(CosmoMetrics.registry());
+        boolean acquired = false;
+        this.waiting.incrementAndGet();
         try {
             if (timeout < 0) {
                 lock.lock();
@@ -146,11 +170,14 @@ public class SingleVMLockManager implements LockManager {
                     return false;
                 }
             }
+            acquired = true;
         } catch (InterruptedException e) {
             throw new CosmoInterruptedException("thread interrupted, no lock acquired", e);
         } finally {
             // done calling lock(), so clear inUse flag
             lock.inUse = false;
+            this.waiting.decrementAndGet();
+            sample.stop(CosmoMetrics.timer(CosmoMetrics.LOCK_WAIT, "acquired", String.valueOf(acquired)));
         }
 
         return true;
@@ -26,6 +26,15 @@ CREATE TABLE `attribute` (
   CONSTRAINT `FKC7AA9CFF55C69C` FOREIGN KEY (`itemid`) REFERENCES `item` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+DROP TABLE IF EXISTS `collection_change`;
+CREATE TABLE `collection_change` (
+  `collectionid` bigint(20) NOT NULL,
+  `changes` bigint(20) NOT NULL,
+  `modifieddate` bigint(20) NOT NULL,
+  PRIMARY KEY (`collectionid`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+
 DROP TABLE IF EXISTS `collection_item`;
 CREATE TABLE `collection_item` (
   `createdate` bigint(20) NOT NULL,
@@ -85,16 +94,32 @@ CREATE TABLE `event_stamp` (
   `isfloating` tinyint(4) DEFAULT NULL,
   `isrecurring` tinyint(4) DEFAULT NULL,
   `startdate` varchar(16) DEFAULT NULL,
+  `startmillis` bigint(20) DEFAULT NULL,
+  `endmillis` bigint(20) DEFAULT NULL,
+  `occurrencesstart` varchar(16) DEFAULT NULL,
+  `occurrencesend` varchar(16) DEFAULT NULL,
   `stampid` bigint(20) NOT NULL,
   PRIMARY KEY (`stampid`),
   KEY `idx_floating` (`isfloating`),
   KEY `idx_recurring` (`isrecurring`),
   KEY `idx_startdt` (`startdate`),
   KEY `idx_enddt` (`enddate`),
+  KEY `idx_time_range` (`startmillis`,`endmillis`),
   CONSTRAINT `FK1ACFBDDE227B4573` FOREIGN KEY (`stampid`) REFERENCES `stamp` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 
+DROP TABLE IF EXISTS `event_occurrence`;
+CREATE TABLE `event_occurrence` (
+  `stampid` bigint(20) NOT NULL,
+  `startdate` varchar(16) NOT NULL,
+  `enddate` varchar(16) NOT NULL,
+  PRIMARY KEY (`stampid`,`startdate`,`enddate`),
+  KEY `idx_occurrence_range` (`startdate`,`enddate`),
+  CONSTRAINT `FK_OCCURRENCE_STAMPID` FOREIGN KEY (`stampid`) REFERENCES `stamp` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+
 DROP TABLE IF EXISTS `item`;
 CREATE TABLE `item` (
   `itemtype` varchar(16) NOT NULL,
@@ -124,10 +149,17 @@ CREATE TABLE `item` (
   `ownerid` bigint(20) NOT NULL,
   `contentdataid` bigint(20) DEFAULT NULL,
   `modifiesitemid` bigint(20) DEFAULT NULL,
+  `taskstartmillis` bigint(20) DEFAULT NULL,
+  `taskendmillis` bigint(20) DEFAULT NULL,
+  `taskdue` bigint(20) DEFAULT NULL,
+  `taskcompleted` bigint(20) DEFAULT NULL,
+  `taskstatus` varchar(32) DEFAULT NULL,
+  `taskcategories` varchar(1024) DEFAULT NULL,
   PRIMARY KEY (`id`),
   UNIQUE KEY `uid` (`uid`),
   KEY `idx_itemname` (`itemname`),
   KEY `idx_itemtype` (`itemtype`),
+  KEY `idx_task_range` (`taskstartmillis`,`taskendmillis`),
   KEY `FK317B137B89A346` (`contentdataid`),
   KEY `FK317B13FFE49D06` (`modifiesitemid`),
   KEY `FK317B136BE46F4` (`ownerid`),
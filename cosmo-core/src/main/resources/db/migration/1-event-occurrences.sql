@@ -0,0 +1,13 @@
+ALTER TABLE `event_stamp`
+  ADD COLUMN IF NOT EXISTS `occurrencesstart` varchar(16) DEFAULT NULL,
+  ADD COLUMN IF NOT EXISTS `occurrencesend` varchar(16) DEFAULT NULL;
+
+
+CREATE TABLE IF NOT EXISTS `event_occurrence` (
+  `stampid` bigint(20) NOT NULL,
+  `startdate` varchar(16) NOT NULL,
+  `enddate` varchar(16) NOT NULL,
+  PRIMARY KEY (`stampid`,`startdate`,`enddate`),
+  KEY `idx_occurrence_range` (`startdate`,`enddate`),
+  CONSTRAINT `FK_OCCURRENCE_STAMPID` FOREIGN KEY (`stampid`) REFERENCES `stamp` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
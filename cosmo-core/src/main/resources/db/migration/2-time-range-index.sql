@@ -0,0 +1,4 @@
+ALTER TABLE `event_stamp`
+  ADD COLUMN IF NOT EXISTS `startmillis` bigint(20) DEFAULT NULL,
+  ADD COLUMN IF NOT EXISTS `endmillis` bigint(20) DEFAULT NULL,
+  ADD INDEX IF NOT EXISTS `idx_time_range` (`startmillis`,`endmillis`);
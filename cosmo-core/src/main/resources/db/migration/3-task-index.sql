@@ -0,0 +1,8 @@
+ALTER TABLE `item`
+  ADD COLUMN IF NOT EXISTS `taskstartmillis` bigint(20) DEFAULT NULL,
+  ADD COLUMN IF NOT EXISTS `taskendmillis` bigint(20) DEFAULT NULL,
+  ADD COLUMN IF NOT EXISTS `taskdue` bigint(20) DEFAULT NULL,
+  ADD COLUMN IF NOT EXISTS `taskcompleted` bigint(20) DEFAULT NULL,
+  ADD COLUMN IF NOT EXISTS `taskstatus` varchar(32) DEFAULT NULL,
+  ADD COLUMN IF NOT EXISTS `taskcategories` varchar(1024) DEFAULT NULL,
+  ADD INDEX IF NOT EXISTS `idx_task_range` (`taskstartmillis`,`taskendmillis`);
@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS `collection_change` (
+  `collectionid` bigint(20) NOT NULL,
+  `changes` bigint(20) NOT NULL,
+  `modifieddate` bigint(20) NOT NULL,
+  PRIMARY KEY (`collectionid`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+
+INSERT IGNORE INTO `collection_change` (`collectionid`, `changes`, `modifieddate`)
+  SELECT i.`id`, 0, 0 FROM `item` i WHERE i.`itemtype` IN ('collection', 'homecollection')
+  AND NOT EXISTS (SELECT c.`collectionid` FROM `collection_change` c WHERE c.`collectionid` = i.`id`);
@@ -59,6 +59,7 @@ public class MockHelper extends TestHelper {
     private MockSecurityManager securityManager;
     private ServiceLocatorFactory serviceLocatorFactory;
     private SingleVMLockManager lockManager; 
+    private MockContentDao contentDao;
     private StandardContentService contentService;
     private StandardUserService userService;
     private ICalendarClientFilterManager clientFilterManager;
@@ -83,7 +84,7 @@ public class MockHelper extends TestHelper {
 
         MockDaoStorage storage = new MockDaoStorage();
         MockCalendarDao calendarDao = new MockCalendarDao(storage);
-        MockContentDao contentDao = new MockContentDao(storage);
+        contentDao = new MockContentDao(storage);
         MockUserDao userDao = new MockUserDao(storage);
         lockManager = new SingleVMLockManager();
         
@@ -167,6 +168,14 @@ public class MockHelper extends TestHelper {
         return serviceLocatorFactory;
     }
 
+    /**
+     * Gets content dao.
+     * @return The content dao.
+     */
+    public MockContentDao getContentDao() {
+        return contentDao;
+    }
+
     /**
      * Gets content service.
      * @return The content service.
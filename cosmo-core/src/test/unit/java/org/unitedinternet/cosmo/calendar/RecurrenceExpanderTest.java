@@ -198,6 +198,64 @@ public class RecurrenceExpanderTest {
         assertFalse(expander.isOccurrence(calendar, new DateTime("20070102T100001", ctz)));
     }
     
+    /**
+     * Tests that the occurrence iterator yields the instances of the instance list.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testIterateOccurrences() throws Exception {
+        RecurrenceExpander expander = new RecurrenceExpander();
+        TimeZone ctz = TIMEZONE_REGISTRY.getTimeZone("America/Chicago");
+        
+        for (String name : new String[] {"floating_recurring3.ics", "allday_recurring3.ics", "tz_recurring3.ics",
+                "withExceptions.ics"}) {
+            Calendar calendar = getCalendar(name);
+            DateTime rangeStart = new DateTime("20060101T000000Z");
+            DateTime rangeEnd = new DateTime("20150101T000000Z");
+            
+            InstanceList instances = expander.getOcurrences(calendar, rangeStart, rangeEnd, ctz);
+            OccurrenceIterator occurrences = expander.iterateOccurrences(calendar, rangeStart, rangeEnd, ctz);
+            
+            for (Instance instance : instances.values()) {
+                assertTrue(occurrences.next(), name);
+                assertEquals(instance.getRid(), occurrences.getRecurrenceIdDate(), name);
+                assertEquals(instance.getRid().getTime(), occurrences.getRecurrenceId(), name);
+                assertEquals(instance.getStart().getTime(), occurrences.getStart(), name);
+                assertEquals(instance.getEnd().getTime(), occurrences.getEnd(), name);
+                assertEquals(instance.isOverridden(), occurrences.isOverridden(), name);
+            }
+            assertFalse(occurrences.next(), name);
+        }
+    }
+    
+    /**
+     * Tests skipping occurrences.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testIterateOccurrencesSkipTo() throws Exception {
+        RecurrenceExpander expander = new RecurrenceExpander();
+        Calendar calendar = getCalendar("floating_recurring3.ics");
+        
+        OccurrenceIterator occurrences = expander.iterateOccurrences(calendar, new DateTime("20060101T000000"),
+                new DateTime("20110101T000000"), null);
+        
+        assertTrue(occurrences.next());
+        assertEquals(new DateTime("20061212T100000").getTime(), occurrences.getRecurrenceId());
+        
+        occurrences.skipTo(new DateTime("20070601T090000").getTime());
+        assertTrue(occurrences.next());
+        assertEquals(new DateTime("20070601T100000").getTime(), occurrences.getRecurrenceId());
+        assertEquals(new DateTime("20070601T120000").getTime(), occurrences.getEnd());
+        assertTrue(occurrences.next());
+        assertEquals(new DateTime("20070602T100000").getTime(), occurrences.getRecurrenceId());
+        
+        occurrences.skipTo(new DateTime("20090101T000000").getTime());
+        assertTrue(occurrences.next());
+        assertEquals(new DateTime("20101212T100000").getTime(), occurrences.getRecurrenceId());
+        assertFalse(occurrences.next());
+    }
+    
     /**
      * Gets calendar.
      * @param name The name.
@@ -19,6 +19,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 
 import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 
@@ -158,4 +161,40 @@ public class LimitRecurrenceSetTest {
         }   
     }
     
+    /**
+     * Tests that only the overrides that change the occurrences in the limit are kept, including the ones moved
+     * into or out of it and ones repeating the recurrence id of an override that already removed its occurrence.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testLimitRecurrenceSetMovedOverrides() throws Exception {
+        CalendarBuilder cb = new CalendarBuilder();
+        Calendar calendar = cb.build(this.getClass().getResourceAsStream("limit_recurr_moved_test.ics"));
+        
+        assertEquals(6, calendar.getComponents().getComponents("VEVENT").size());
+        
+        OutputFilter filter = new OutputFilter("test");
+        DateTime start = new DateTime("20060104T000000Z");
+        DateTime end = new DateTime("20060107T000000Z");
+        
+        Period period = new Period(start, end);
+        filter.setLimit(period);
+        filter.setAllSubComponents();
+        filter.setAllProperties();
+        
+        StringBuilder buffer = new StringBuilder();
+        filter.filter(calendar, buffer);
+        StringReader sr = new StringReader(buffer.toString());
+        
+        Calendar filterCal = cb.build(sr);
+        
+        Set<String> summaries = new HashSet<>();
+        ComponentList<VEvent> vevents = filterCal.getComponents().getComponents(VEvent.VEVENT);
+        for (VEvent c : vevents) {
+            summaries.add(c.getSummary().getValue());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("event", "event moved in", "event inside", "event moved out")),
+                summaries);
+    }
+    
 }
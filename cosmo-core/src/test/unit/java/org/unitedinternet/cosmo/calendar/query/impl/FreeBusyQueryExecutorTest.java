@@ -0,0 +1,114 @@
+package org.unitedinternet.cosmo.calendar.query.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Test FreeBusyQueryExecutor
+ */
+public class FreeBusyQueryExecutorTest {
+
+    private FreeBusyQueryExecutor executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = new FreeBusyQueryExecutor(mock(PlatformTransactionManager.class), 2, 200);
+        executor.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    public void shouldReturnResultsInOrderOfTasks() {
+        List<Supplier<String>> tasks = Arrays.asList(() -> "a", () -> "b", () -> "c");
+
+        assertEquals(Arrays.asList("a", "b", "c"), executor.invokeAll(tasks));
+    }
+
+    @Test
+    public void shouldDegradeSlowAndFailedTasks() {
+        CountDownLatch latch = new CountDownLatch(1);
+        Supplier<String> slow = () -> {
+            try {
+                latch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        };
+        Supplier<String> failing = () -> {
+            throw new IllegalStateException("failed");
+        };
+        try {
+            List<String> results = executor.invokeAll(Arrays.asList(() -> "a", slow, failing));
+
+            assertEquals("a", results.get(0));
+            assertNull(results.get(1));
+            assertNull(results.get(2));
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void shouldNotWaitForFullQueueBeyondDeadline() {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Supplier<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            tasks.add(() -> {
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            });
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<String> results = executor.invokeAll(tasks);
+
+            assertTrue(System.currentTimeMillis() - start < 5000);
+            assertEquals(40, results.size());
+            for (String result : results) {
+                assertNull(result);
+            }
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void shouldLeaveConnectionsToRequests() {
+        FreeBusyQueryExecutor limited = new FreeBusyQueryExecutor(mock(PlatformTransactionManager.class), 4, 200, 3);
+        limited.init();
+
+        assertFalse(limited.isEnabled());
+    }
+
+    @Test
+    public void shouldBeDisabledWithOneThread() {
+        FreeBusyQueryExecutor serial = new FreeBusyQueryExecutor(mock(PlatformTransactionManager.class), 1, 200);
+        serial.init();
+
+        assertFalse(serial.isEnabled());
+    }
+}
@@ -19,6 +19,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.transaction.PlatformTransactionManager;
 import org.unitedinternet.cosmo.TestHelper;
 import org.unitedinternet.cosmo.calendar.util.CalendarUtils;
 import org.unitedinternet.cosmo.dao.UserDao;
@@ -33,6 +39,7 @@ import org.unitedinternet.cosmo.model.FreeBusyItem;
 import org.unitedinternet.cosmo.model.NoteItem;
 import org.unitedinternet.cosmo.model.User;
 import org.unitedinternet.cosmo.model.hibernate.EntityConverter;
+import org.unitedinternet.cosmo.model.mock.MockCollectionItem;
 import org.unitedinternet.cosmo.model.mock.MockEntityFactory;
 
 import net.fortuna.ical4j.model.Calendar;
@@ -61,6 +68,7 @@ public class StandardCalendarQueryProcessorTest {
     private MockDaoStorage storage;
     private TestHelper testHelper;
     private StandardCalendarQueryProcessor queryProcessor;
+    private User user;
 
     protected static final TimeZoneRegistry TIMEZONE_REGISTRY =
         TimeZoneRegistryFactory.getInstance().createRegistry();
@@ -89,7 +97,7 @@ public class StandardCalendarQueryProcessorTest {
         queryProcessor = new StandardCalendarQueryProcessor(new EntityConverter(factory), contentDao, calendarDao);
         queryProcessor.setCalendarDao(calendarDao);
      
-        User user = testHelper.makeDummyUser();
+        user = testHelper.makeDummyUser();
         CollectionItem root = contentDao.createRootItem(user);
         
         CollectionItem calendar = generateCalendar("testcalendar", user);
@@ -187,6 +195,67 @@ public class StandardCalendarQueryProcessorTest {
         verifyPeriods(vfb, FbType.BUSY_UNAVAILABLE, "20060105T010000Z/20060105T020000Z");
     }
     
+    /**
+     * Tests free busy query answered from cached busy intervals.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testCachedFreeBusyQuery() throws Exception {
+        BusyIntervalCache cache = new BusyIntervalCache();
+        queryProcessor.setBusyIntervalCache(cache);
+        MockCollectionItem calendar = (MockCollectionItem) contentDao.findItemByUid(CALENDAR_UID);
+        calendar.setEntityTag("etag1");
+
+        Period period = new Period(new DateTime("20070507T051500Z"), new DateTime("20070516T051500Z"));
+        VFreeBusy vfb = queryProcessor.freeBusyQuery(calendar, period);
+        verifyPeriods(vfb, FbType.BUSY, "20070508T081500Z/20070508T091500Z,"
+                + "20070509T081500Z/20070509T091500Z,20070510T081500Z/20070510T091500Z,"
+                + "20070511T081500Z/20070511T091500Z,20070512T081500Z/20070512T091500Z,"
+                + "20070513T081500Z/20070513T091500Z,20070514T081500Z/20070514T091500Z,"
+                + "20070515T081500Z/20070515T091500Z");
+        verifyPeriods(vfb, FbType.BUSY_TENTATIVE, "20070508T101500Z/20070508T111500Z,"
+                + "20070515T101500Z/20070515T111500Z");
+        assertEquals(0, cache.getHitCount());
+
+        // same window, periods are clipped to the query
+        period = new Period(new DateTime("20070509T083000Z"), new DateTime("20070510T090000Z"));
+        vfb = queryProcessor.freeBusyQuery(calendar, period);
+        verifyPeriods(vfb, FbType.BUSY, "20070509T083000Z/20070509T091500Z,20070510T081500Z/20070510T090000Z");
+        assertEquals(1, cache.getHitCount());
+
+        // a write changes the entity tag
+        calendar.setEntityTag("etag2");
+        vfb = queryProcessor.freeBusyQuery(calendar, period);
+        verifyPeriods(vfb, FbType.BUSY, "20070509T083000Z/20070509T091500Z,20070510T081500Z/20070510T090000Z");
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+    
+    /**
+     * Tests free busy query of several users with the collections queried in parallel.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testParallelFreeBusyQuery() throws Exception {
+        Period period = new Period(new DateTime("20070507T051500Z"), new DateTime("200705016T051500Z"));
+        VFreeBusy expected = queryProcessor.freeBusyQuery(user, period);
+
+        FreeBusyQueryExecutor executor = new FreeBusyQueryExecutor(mock(PlatformTransactionManager.class), 2, 10000);
+        executor.init();
+        try {
+            queryProcessor.setFreeBusyQueryExecutor(executor);
+            List<VFreeBusy> results = queryProcessor.freeBusyQuery(Arrays.asList(user, user), period);
+
+            assertEquals(2, results.size());
+            for (VFreeBusy vfb : results) {
+                assertEquals(expected.getProperties(Property.FREEBUSY).toString(),
+                        vfb.getProperties(Property.FREEBUSY).toString());
+            }
+        } finally {
+            executor.destroy();
+        }
+    }
+    
     /**
      * Gets user.
      * @param userDao UserDao.
@@ -2,6 +2,7 @@ package org.unitedinternet.cosmo.dao.external;
 
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.HashSet;
@@ -102,6 +103,22 @@ public class ContentDaoInvocationHandlerTest {
         verify(contentDaoExternal, times(1)).findItems(filter);
     }
 
+    @Test
+    public void shouldRouteEachCallOnItsOwn() {
+        String internal = UUID.randomUUID().toString();
+        String external = UuidExternalGenerator.get().getNext();
+        String other = UuidExternalGenerator.get().getNext();
+        this.contentDaoProxy.findItemByPath(internal);
+        this.contentDaoProxy.findItemByPath(external);
+        this.contentDaoProxy.findItemByPath(other);
+        this.contentDaoProxy.findItemParentByPath(external);
+        verify(contentDaoInternal, times(1)).findItemByPath(internal);
+        verify(contentDaoInternal, times(1)).findItemParentByPath(external);
+        verify(contentDaoExternal, times(1)).findItemByPath(external);
+        verify(contentDaoExternal, times(1)).findItemByPath(other);
+        verifyNoMoreInteractions(contentDaoInternal, contentDaoExternal, contentDaoSub);
+    }
+
     @Test()
     public void shouldThrowExceptionWhenCreatingEventInExternalCalendar() {
         HibCollectionItem delegate = new HibCollectionItem();
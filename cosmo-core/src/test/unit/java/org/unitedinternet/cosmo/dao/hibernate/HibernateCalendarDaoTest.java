@@ -20,7 +20,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
@@ -168,6 +170,32 @@ public class HibernateCalendarDaoTest extends AbstractSpringDaoTestCase {
         assertEquals(5, queryEvents.size());
     }
 
+    @Test
+    public void shouldMatchEventOneWhenScanningInChunks() {
+        // RRULE can't be translated, so all chunks of the collection are evaluated
+        PropertyFilter rruleFilter = new PropertyFilter("RRULE");
+        rruleFilter.setIsNotDefinedFilter(new IsNotDefinedFilter());
+        this.eventFilter.getPropFilters().add(rruleFilter);
+        PropertyFilter summaryFilter = new PropertyFilter("SUMMARY");
+        summaryFilter.setTextMatchFilter(new TextMatchFilter("Visible"));
+        this.eventFilter.getPropFilters().add(summaryFilter);
+
+        Set<ICalendarItem> queryEvents = calendarDao.findCalendarItems(calendar, filter);
+        assertEquals(1, queryEvents.size());
+        assertEquals("test1.ics", queryEvents.iterator().next().getName());
+    }
+
+    @Test
+    public void shouldPassDataOfEveryEventWhenExporting() throws Exception {
+        List<String> data = new ArrayList<>();
+        calendarDao.forEachEventData(calendar, data::add);
+
+        assertEquals(5, data.size());
+        for (String icaldata : data) {
+            assertNotNull(CalendarUtils.parseCalendar(icaldata).getComponent("VEVENT"));
+        }
+    }
+
     @Test
     public void shouldMatchEventOneWithTimeRangeFilter() throws ParseException {
         // Time range test
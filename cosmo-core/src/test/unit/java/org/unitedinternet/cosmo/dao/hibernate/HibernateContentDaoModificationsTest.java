@@ -15,6 +15,10 @@
  */
 package org.unitedinternet.cosmo.dao.hibernate;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -23,8 +27,11 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import org.unitedinternet.cosmo.dao.UserDao;
 import org.unitedinternet.cosmo.model.CollectionItem;
+import org.unitedinternet.cosmo.model.ContentItem;
+import org.unitedinternet.cosmo.model.EventStamp;
 import org.unitedinternet.cosmo.model.NoteItem;
 import org.unitedinternet.cosmo.model.User;
+import org.unitedinternet.cosmo.model.hibernate.HibEventStamp;
 import org.unitedinternet.cosmo.model.hibernate.HibNoteItem;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -91,6 +98,46 @@ public class HibernateContentDaoModificationsTest extends AbstractSpringDaoTestC
         assertEquals(itemC.getModifies().getUid(), itemA.getUid());
     }
     
+    /**
+     * Test modifications created in a batch, listed before their master and written in several chunks.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testModificationsCreateBatch() throws Exception {
+        User user = getUser(userDao, "testuser");
+        CollectionItem root = (CollectionItem) contentDao.getRootItem(user);
+
+        NoteItem itemA = generateTestContent("A", "testuser");
+        HibEventStamp event = new HibEventStamp();
+        event.setEventCalendar(helper.getCalendar("cal1.ics"));
+        itemA.addStamp(event);
+        NoteItem itemB = generateTestContent("BModifesA", "testuser");
+        NoteItem itemC = generateTestContent("CModifesA", "testuser");
+        NoteItem itemD = generateTestContent("D", "testuser");
+        NoteItem itemE = generateTestContent("E", "testuser");
+        itemB.setModifies(itemA);
+        itemC.setModifies(itemA);
+
+        Set<ContentItem> items = new LinkedHashSet<ContentItem>(Arrays.asList(itemB, itemD, itemC, itemA, itemE));
+        contentDao.createBatchContent(root, items);
+        clearSession();
+
+        itemA = (NoteItem) contentDao.findItemByUid(itemA.getUid());
+        itemB = (NoteItem) contentDao.findItemByUid(itemB.getUid());
+        itemC = (NoteItem) contentDao.findItemByUid(itemC.getUid());
+
+        assertEquals(2, itemA.getModifications().size());
+        assertTrue(itemA.getModifications().contains(itemB));
+        assertTrue(itemA.getModifications().contains(itemC));
+        assertEquals(itemA.getUid(), itemB.getModifies().getUid());
+        assertNotNull(contentDao.findItemByUid(itemD.getUid()));
+        assertNotNull(contentDao.findItemByUid(itemE.getUid()));
+
+        event = (HibEventStamp) itemA.getStamp(EventStamp.class);
+        assertEquals("20050817T115000Z", event.getTimeRangeIndex().getStartDate());
+        assertEquals("20050817T131500Z", event.getTimeRangeIndex().getEndDate());
+    }
+
     /**
      * Test modification delete.
      * @throws Exception - if something is wrong this exception is thrown.
@@ -17,6 +17,7 @@ package org.unitedinternet.cosmo.dao.hibernate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -91,6 +92,7 @@ import org.unitedinternet.cosmo.model.hibernate.HibTimestampAttribute;
 import org.unitedinternet.cosmo.model.hibernate.HibTriageStatus;
 import org.unitedinternet.cosmo.model.hibernate.HibUser;
 import org.unitedinternet.cosmo.model.hibernate.HibXmlAttribute;
+import org.unitedinternet.cosmo.security.util.TicketIndex;
 import org.unitedinternet.cosmo.util.DomWriter;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -112,6 +114,9 @@ public class HibernateContentDaoTest extends AbstractSpringDaoTestCase {
     @Autowired
     private ContentDaoImpl contentDao;
 
+    @Autowired
+    private TicketIndex ticketIndex;
+
     /**
      * Constructor.
      */
@@ -596,6 +601,44 @@ public class HibernateContentDaoTest extends AbstractSpringDaoTestCase {
         assertEquals(a.getUid(), queryItem.getUid());
     }
 
+    /**
+     * Tests finding children of a collection by name.
+     *
+     * @throws Exception
+     *             - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testFindItemsByParentAndNames() throws Exception {
+        User user = getUser(userDao, "testuser2");
+        CollectionItem root = (CollectionItem) contentDao.getRootItem(user);
+
+        CollectionItem a = new HibCollectionItem();
+        a.setName("a");
+        a.setOwner(user);
+        a = contentDao.createCollection(root, a);
+
+        contentDao.createContent(a, generateTestContent("test1", "testuser2"));
+        contentDao.createContent(a, generateTestContent("test2", "testuser2"));
+        contentDao.createContent(a, generateTestContent("test3", "testuser2"));
+
+        clearSession();
+
+        a = (CollectionItem) contentDao.findItemByUid(a.getUid());
+        Set<String> names = new HashSet<String>();
+        names.add("test1");
+        names.add("test3");
+        names.add("missing");
+
+        Set<Item> children = contentDao.findItemsByParentAndNames(a, names);
+        assertEquals(2, children.size());
+        Set<String> found = new HashSet<String>();
+        for (Item child : children) {
+            found.add(child.getName());
+        }
+        assertTrue(found.contains("test1"));
+        assertTrue(found.contains("test3"));
+    }
+
     /**
      * Test content dao update content.
      * 
@@ -893,14 +936,26 @@ public class HibernateContentDaoTest extends AbstractSpringDaoTestCase {
         a = contentDao.createCollection(root, a);
         Integer ver = ((HibItem) a).getVersion();
         Long timestamp = a.getModifiedDate();
+        String etag = a.getEntityTag();
 
         clearSession();
         // FIXME this test is timing dependant!
         Thread.sleep(3);
 
         a = contentDao.updateCollectionTimestamp(a);
-        assertTrue(((HibItem) a).getVersion() == ver + 1);
+        assertEquals(ver, ((HibItem) a).getVersion());
         assertTrue(timestamp <= a.getModifiedDate());
+        assertNotEquals(etag, a.getEntityTag());
+
+        String updatedEtag = a.getEntityTag();
+        clearSession();
+
+        a = (CollectionItem) contentDao.findItemByUid(a.getUid());
+        assertEquals(ver, ((HibItem) a).getVersion());
+        assertEquals(updatedEtag, a.getEntityTag());
+
+        contentDao.updateCollectionTimestamp(a);
+        assertNotEquals(updatedEtag, a.getEntityTag());
     }
 
     /**
@@ -1170,6 +1225,109 @@ public class HibernateContentDaoTest extends AbstractSpringDaoTestCase {
         assertTrue(queryItem instanceof ContentItem);
     }
 
+    /**
+     * Tests that renaming a collection drops the cached paths below it and the cached absence of its new name.
+     * 
+     * @throws Exception
+     *             - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testRenameInvalidatesCachedPaths() throws Exception {
+        User testuser2 = getUser(userDao, "testuser2");
+        CollectionItem root = (CollectionItem) contentDao.getRootItem(testuser2);
+
+        CollectionItem a = new HibCollectionItem();
+        a.setName("a");
+        a.setOwner(testuser2);
+        a = contentDao.createCollection(root, a);
+
+        CollectionItem b = new HibCollectionItem();
+        b.setName("b");
+        b.setOwner(testuser2);
+        b = contentDao.createCollection(a, b);
+
+        CollectionItem c = new HibCollectionItem();
+        c.setName("c");
+        c.setOwner(testuser2);
+        c = contentDao.createCollection(b, c);
+
+        ContentItem d = generateTestContent("d", "testuser2");
+        d = contentDao.createContent(c, d);
+
+        clearSession();
+
+        assertNotNull(contentDao.findItemByPath("/testuser2/a/b/c/d"));
+        assertNull(contentDao.findItemByPath("/testuser2/a/bnew"));
+
+        clearSession();
+
+        b = (CollectionItem) contentDao.findItemByUid(b.getUid());
+        b.setName("bnew");
+        contentDao.updateCollection(b);
+
+        clearSession();
+
+        assertNull(contentDao.findItemByPath("/testuser2/a/b/c/d"));
+        assertNull(contentDao.findItemByPath("/testuser2/a/b/c"));
+        assertNotNull(contentDao.findItemByPath("/testuser2/a/bnew"));
+        Item queryItem = contentDao.findItemByPath("/testuser2/a/bnew/c/d");
+        assertNotNull(queryItem);
+        assertEquals(d.getUid(), queryItem.getUid());
+    }
+
+    /**
+     * Tests that renaming a collection drops the paths tickets were validated for, so that an item later created at
+     * the old path is not granted by the ticket.
+     * 
+     * @throws Exception
+     *             - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testRenameInvalidatesTicketPaths() throws Exception {
+        User testuser2 = getUser(userDao, "testuser2");
+        CollectionItem root = (CollectionItem) contentDao.getRootItem(testuser2);
+
+        CollectionItem a = new HibCollectionItem();
+        a.setName("a");
+        a.setOwner(testuser2);
+        a = contentDao.createCollection(root, a);
+
+        CollectionItem b = new HibCollectionItem();
+        b.setName("b");
+        b.setOwner(testuser2);
+        b = contentDao.createCollection(a, b);
+
+        Ticket ticket = new HibTicket();
+        ticket.setKey("renameticket");
+        ticket.setTimeout(Ticket.TIMEOUT_INFINITE);
+        ticket.setOwner(testuser2);
+        ticket.setPrivileges(new HashSet<String>());
+        ticket.getPrivileges().add(Ticket.PRIVILEGE_READ);
+        contentDao.createTicket(b, ticket);
+
+        clearSession();
+
+        ticket = contentDao.findTicket("renameticket");
+        ticketIndex.put(ticket, "/dav/testuser2/a/b", ticketIndex.getGeneration());
+        assertTrue(ticketIndex.get("renameticket").isGranted("/dav/testuser2/a/b", null));
+
+        b = (CollectionItem) contentDao.findItemByUid(b.getUid());
+        b.setName("bnew");
+        contentDao.updateCollection(b);
+
+        CollectionItem other = new HibCollectionItem();
+        other.setName("b");
+        other.setOwner(testuser2);
+        contentDao.createCollection((CollectionItem) contentDao.findItemByUid(a.getUid()), other);
+
+        clearSession();
+
+        TicketIndex.Entry entry = ticketIndex.get("renameticket");
+        assertNotNull(entry);
+        assertFalse(entry.isGranted("/dav/testuser2/a/b", null));
+        assertTrue(entry.isGranted("/collection/" + b.getUid(), b.getUid()));
+    }
+
     /**
      * Tests item dao copy.
      * 
@@ -1353,6 +1511,8 @@ public class HibernateContentDaoTest extends AbstractSpringDaoTestCase {
 
         queryTicket1 = contentDao.getTicket(newItem, "ticket1");
         assertNull(queryTicket1);
+        assertNull(contentDao.findTicket("ticket1"));
+        assertNotNull(contentDao.findTicket("ticket2"));
 
         Ticket queryTicket2 = contentDao.getTicket(newItem, "ticket2");
         assertNotNull(queryTicket2);
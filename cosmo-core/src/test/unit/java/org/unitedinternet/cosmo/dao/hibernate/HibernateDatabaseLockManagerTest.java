@@ -0,0 +1,39 @@
+package org.unitedinternet.cosmo.dao.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.Test;
+import org.unitedinternet.cosmo.model.CollectionItem;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionItem;
+import org.unitedinternet.cosmo.service.lock.DatabaseLockManager;
+
+/**
+ * Test DatabaseLockManager against the embedded database.
+ */
+public class HibernateDatabaseLockManagerTest extends AbstractSpringDaoTestCase {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Test
+    public void shouldHoldAdvisoryLockWhileCollectionIsLocked() {
+        DatabaseLockManager lockManager = new DatabaseLockManager(em);
+        CollectionItem collection = new HibCollectionItem();
+        collection.setUid("lockedcollection");
+
+        assertTrue(lockManager.lockCollection(collection, 100));
+        assertNotNull(isUsedLock("cosmo:lockedcollection"));
+
+        lockManager.unlockCollection(collection);
+        assertNull(isUsedLock("cosmo:lockedcollection"));
+    }
+
+    private Object isUsedLock(String name) {
+        return em.createNativeQuery("SELECT IS_USED_LOCK(:name)").setParameter("name", name).getSingleResult();
+    }
+}
@@ -18,16 +18,20 @@ package org.unitedinternet.cosmo.dao.hibernate;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.transaction.annotation.Transactional;
+import org.unitedinternet.cosmo.calendar.ICalendarUtils;
 import org.unitedinternet.cosmo.calendar.util.CalendarUtils;
 import org.unitedinternet.cosmo.dao.UserDao;
 import org.unitedinternet.cosmo.model.CalendarCollectionStamp;
@@ -43,6 +47,7 @@ import org.unitedinternet.cosmo.model.filter.ItemFilter;
 import org.unitedinternet.cosmo.model.filter.NoteItemFilter;
 import org.unitedinternet.cosmo.model.filter.Restrictions;
 import org.unitedinternet.cosmo.model.filter.StampFilter;
+import org.unitedinternet.cosmo.model.hibernate.HibBaseEventStamp;
 import org.unitedinternet.cosmo.model.hibernate.HibCalendarCollectionStamp;
 import org.unitedinternet.cosmo.model.hibernate.HibCollectionItem;
 import org.unitedinternet.cosmo.model.hibernate.HibEventStamp;
@@ -50,6 +55,11 @@ import org.unitedinternet.cosmo.model.hibernate.HibNoteItem;
 
 import net.fortuna.ical4j.model.DateTime;
 import net.fortuna.ical4j.model.Period;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.DtEnd;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.RRule;
+import net.fortuna.ical4j.model.property.Uid;
 
 /**
  * Test findItems() api in ItemDao.
@@ -64,6 +74,9 @@ public class HibernateItemDaoFilterTest extends AbstractSpringDaoTestCase {
 
     @Autowired
     protected UserDaoImpl userDao;
+
+    @Autowired
+    private OccurrenceWindowExtender windowExtender;
     
     protected static final String CALENDAR_UID_1 = "calendar1";
     protected static final String CALENDAR_UID_2 = "calendar2";
@@ -362,6 +375,67 @@ public class HibernateItemDaoFilterTest extends AbstractSpringDaoTestCase {
         assertEquals(36, results.size());
     }
     
+    /**
+     * Tests that time-range queries match recurring series by their indexed occurrences and that queries past the
+     * indexed window don't write.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testFilterByIndexedOccurrences() throws Exception {
+        CollectionItem calendar1 = (CollectionItem) contentDao.findItemByUid(CALENDAR_UID_1);
+        long hour = TimeUnit.HOURS.toMillis(1);
+        long day = TimeUnit.DAYS.toMillis(1);
+        long dtStart = System.currentTimeMillis() / hour * hour - 14 * day;
+
+        VEvent vEvent = new VEvent();
+        vEvent.getProperties().add(new Uid("weekly"));
+        vEvent.getProperties().add(new DtStart(utc(dtStart)));
+        vEvent.getProperties().add(new DtEnd(utc(dtStart + hour)));
+        vEvent.getProperties().add(new RRule("FREQ=WEEKLY"));
+        NoteItem event = generateNote("weekly.ics", "testuser");
+        event.setUid("weekly");
+        EventStamp evs = new HibEventStamp();
+        event.addStamp(evs);
+        evs.setEventCalendar(ICalendarUtils.createBaseCalendar(vEvent));
+        contentDao.createContent(calendar1, event);
+        clearSession();
+
+        HibBaseEventStamp stamp = (HibBaseEventStamp) contentDao.findItemByUid("weekly").getStamp(EventStamp.class);
+        String occurrencesEnd = stamp.getOccurrencesEnd();
+        assertNotNull(occurrencesEnd);
+
+        NoteItemFilter filter = new NoteItemFilter();
+        EventStampFilter eventFilter = new EventStampFilter();
+        filter.getStampFilters().add(eventFilter);
+        filter.setParent(calendar1);
+
+        // within the indexed window only the database decides
+        eventFilter.setPeriod(new Period(utc(dtStart + 21 * day - hour), utc(dtStart + 21 * day + hour)));
+        verifyItemInSet(contentDao.findItems(filter), "weekly");
+        eventFilter.setPeriod(new Period(utc(dtStart + 22 * day), utc(dtStart + 23 * day)));
+        assertEquals(0, contentDao.findItems(filter).size());
+
+        // past the window the series is expanded and the window is left as it is
+        eventFilter.setPeriod(new Period(utc(dtStart + 420 * day - hour), utc(dtStart + 420 * day + hour)));
+        verifyItemInSet(contentDao.findItems(filter), "weekly");
+        clearSession();
+        stamp = (HibBaseEventStamp) contentDao.findItemByUid("weekly").getStamp(EventStamp.class);
+        assertEquals(occurrencesEnd, stamp.getOccurrencesEnd());
+
+        // until it is extended
+        Long modified = contentDao.findItemByUid("weekly").getModifiedDate();
+        assertTrue(windowExtender.extendNow(stamp.getId(), utc(dtStart + 420 * day - hour),
+                utc(dtStart + 420 * day + hour)));
+        clearSession();
+        Item extended = contentDao.findItemByUid("weekly");
+        stamp = (HibBaseEventStamp) extended.getStamp(EventStamp.class);
+        assertTrue(stamp.getOccurrencesEnd().compareTo(utc(dtStart + 421 * day).toString()) >= 0);
+        assertEquals(modified, extended.getModifiedDate());
+        verifyItemInSet(contentDao.findItems(filter), "weekly");
+        eventFilter.setPeriod(new Period(utc(dtStart + 418 * day), utc(dtStart + 419 * day)));
+        assertEquals(0, contentDao.findItems(filter).size());
+    }
+
     /**
      * Tests multiple filters.
      * @throws Exception - if something is wrong this exception is thrown.
@@ -461,6 +535,17 @@ public class HibernateItemDaoFilterTest extends AbstractSpringDaoTestCase {
         return event;
     }
     
+    /**
+     * Creates UTC date-time.
+     * @param time The time in milliseconds.
+     * @return The date-time.
+     */
+    private static DateTime utc(long time) {
+        DateTime dateTime = new DateTime(time);
+        dateTime.setUtc(true);
+        return dateTime;
+    }
+
     /**
      * Verify item in set.
      * @param items The items.
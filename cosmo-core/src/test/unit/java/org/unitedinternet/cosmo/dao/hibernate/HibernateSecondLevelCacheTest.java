@@ -0,0 +1,50 @@
+package org.unitedinternet.cosmo.dao.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.unitedinternet.cosmo.model.User;
+import org.unitedinternet.cosmo.model.hibernate.HibUser;
+
+/**
+ * Test the DAOs with the second level and query cache enabled.
+ */
+@TestPropertySource(properties = { "cosmo.hibernate.cache.enabled=true", "cosmo.hibernate.cache.singleNode=true" })
+public class HibernateSecondLevelCacheTest extends AbstractSpringDaoTestCase {
+
+    @Autowired
+    private UserDaoImpl userDao;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void shouldCacheLoadedUsers() {
+        User user = new HibUser();
+        user.setUsername("cacheduser");
+        user.setFirstName("Cached");
+        user.setLastName("User");
+        user.setEmail("cacheduser@example.com");
+        user.setPassword("cacheduserpassword");
+        user.setAdmin(Boolean.FALSE);
+        user = userDao.createUser(user);
+        Long id = ((HibUser) user).getId();
+
+        clearSession();
+        assertFalse(entityManagerFactory.getCache().contains(HibUser.class, id));
+
+        User queryUser = userDao.getUser("cacheduser");
+        assertEquals(user.getUid(), queryUser.getUid());
+        assertTrue(entityManagerFactory.getCache().contains(HibUser.class, id));
+
+        clearSession();
+        queryUser = userDao.getUserByUid(user.getUid());
+        assertEquals("cacheduser@example.com", queryUser.getEmail());
+    }
+}
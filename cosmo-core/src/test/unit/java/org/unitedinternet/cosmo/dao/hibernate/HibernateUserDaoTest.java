@@ -197,6 +197,40 @@ public class HibernateUserDaoTest extends AbstractSpringDaoTestCase {
         assertEquals(queryUser1.getPassword(), "user2password");
     }
 
+    /**
+     * Tests that users are found by their new username and email after they were renamed.
+     */
+    @Test
+    public void testGetUserAfterRename() throws Exception {
+        User user1 = new HibUser();
+        user1.setUsername("user1");
+        user1.setFirstName("User");
+        user1.setLastName("1");
+        user1.setEmail("user1@user1.com");
+        user1.setPassword("user1password");
+        user1.setAdmin(Boolean.TRUE);
+
+        userDao.createUser(user1);
+        clearSession();
+
+        User queryUser1 = userDao.getUser("user1");
+        assertNotNull(queryUser1);
+        assertNotNull(userDao.getUserByEmail("user1@user1.com"));
+        clearSession();
+        queryUser1 = userDao.getUser("user1");
+        verifyUser(user1, queryUser1);
+
+        queryUser1.setUsername("user1renamed");
+        queryUser1.setEmail("user1renamed@user1.com");
+        userDao.updateUser(queryUser1);
+        clearSession();
+
+        assertNull(userDao.getUser("user1"));
+        assertNull(userDao.getUserByEmail("user1@user1.com"));
+        assertEquals(queryUser1.getUid(), userDao.getUser("user1renamed").getUid());
+        assertEquals(queryUser1.getUid(), userDao.getUserByEmail("user1renamed@user1.com").getUid());
+    }
+
     /**
      * Tests update user duplicate.
      * 
@@ -0,0 +1,73 @@
+package org.unitedinternet.cosmo.dao.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test PrincipalCache
+ */
+public class PrincipalCacheTest {
+
+    @Test
+    public void shouldInvalidateAllKeysOfUser() {
+        PrincipalCache cache = new PrincipalCache(60000, 100);
+        long generation = cache.getGeneration();
+        cache.putUserId(PrincipalCache.usernameKey("user1"), 1L, generation);
+        cache.putUserId(PrincipalCache.emailKey("user1@example.com"), 1L, generation);
+        cache.putUserId(PrincipalCache.usernameKey("user2"), 2L, generation);
+
+        cache.invalidate(1L);
+
+        assertNull(cache.getUserId(PrincipalCache.usernameKey("user1")));
+        assertNull(cache.getUserId(PrincipalCache.emailKey("user1@example.com")));
+        assertEquals(Long.valueOf(2L), cache.getUserId(PrincipalCache.usernameKey("user2")));
+    }
+
+    @Test
+    public void shouldNotStoreResultsOfOutdatedLookups() {
+        PrincipalCache cache = new PrincipalCache(60000, 100);
+        long generation = cache.getGeneration();
+
+        cache.invalidate(1L);
+        cache.putUserId(PrincipalCache.usernameKey("user1"), 1L, generation);
+
+        assertNull(cache.getUserId(PrincipalCache.usernameKey("user1")));
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        PrincipalCache cache = new PrincipalCache(60000, 100);
+        cache.getUserId(PrincipalCache.usernameKey("user1"));
+        cache.putUserId(PrincipalCache.usernameKey("user1"), 1L, cache.getGeneration());
+        cache.getUserId(PrincipalCache.usernameKey("user1"));
+        cache.getUserId(PrincipalCache.usernameKey("user1"));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldExpireEntries() throws Exception {
+        PrincipalCache cache = new PrincipalCache(1, 100);
+        cache.putUserId(PrincipalCache.usernameKey("user1"), 1L, cache.getGeneration());
+        Thread.sleep(5);
+
+        assertNull(cache.getUserId(PrincipalCache.usernameKey("user1")));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntries() {
+        PrincipalCache cache = new PrincipalCache(60000, 2);
+        long generation = cache.getGeneration();
+        cache.putUserId(PrincipalCache.usernameKey("user1"), 1L, generation);
+        cache.putUserId(PrincipalCache.usernameKey("user2"), 2L, generation);
+        cache.getUserId(PrincipalCache.usernameKey("user1"));
+        cache.putUserId(PrincipalCache.usernameKey("user3"), 3L, generation);
+
+        assertEquals(2, cache.getSize());
+        assertNull(cache.getUserId(PrincipalCache.usernameKey("user2")));
+        assertEquals(Long.valueOf(1L), cache.getUserId(PrincipalCache.usernameKey("user1")));
+    }
+}
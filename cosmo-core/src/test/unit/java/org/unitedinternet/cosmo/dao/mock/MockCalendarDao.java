@@ -17,14 +17,18 @@ package org.unitedinternet.cosmo.dao.mock;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
 import org.unitedinternet.cosmo.calendar.query.CalendarFilterEvaluater;
 import org.unitedinternet.cosmo.dao.CalendarDao;
+import org.unitedinternet.cosmo.model.BaseEventStamp;
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.ContentItem;
 import org.unitedinternet.cosmo.model.ICalendarItem;
 import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.NoteItem;
+import org.unitedinternet.cosmo.model.Stamp;
 import org.unitedinternet.cosmo.model.User;
 import org.unitedinternet.cosmo.model.hibernate.EntityConverter;
 
@@ -136,6 +140,20 @@ public class MockCalendarDao extends MockItemDao implements CalendarDao {
             boolean expandRecurringEvents) {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public void forEachEventData(CollectionItem collection, Consumer<String> consumer) {
+        for (Item item : collection.getChildren()) {
+            if (!(item instanceof NoteItem)) {
+                continue;
+            }
+            for (Stamp stamp : item.getStamps()) {
+                if (stamp instanceof BaseEventStamp) {
+                    consumer.accept(((BaseEventStamp) stamp).getEventCalendar().toString());
+                }
+            }
+        }
+    }
     
     
 }
@@ -23,6 +23,8 @@ import org.unitedinternet.cosmo.dao.ContentDao;
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.ContentItem;
 import org.unitedinternet.cosmo.model.Item;
+import org.unitedinternet.cosmo.model.ItemTombstone;
+import org.unitedinternet.cosmo.model.Tombstone;
 import org.unitedinternet.cosmo.model.UidInUseException;
 import org.unitedinternet.cosmo.model.User;
 import org.unitedinternet.cosmo.model.mock.MockCollectionItem;
@@ -320,6 +322,23 @@ public class MockContentDao extends MockItemDao implements ContentDao {
         return items;
     }
 
+    /**
+     * Loads tombstones.
+     * {@inheritDoc}
+     * @param collection The collection.
+     * @param timestamp The date.
+     * @return Set<ItemTombstone>.
+     */
+    public Set<ItemTombstone> loadTombstones(CollectionItem collection, Long timestamp) {
+        Set<ItemTombstone> tombstones = new HashSet<ItemTombstone>();
+        for (Tombstone tombstone : collection.getTombstones()) {
+            if (tombstone instanceof ItemTombstone && tombstone.getTimestamp() > timestamp) {
+                tombstones.add((ItemTombstone) tombstone);
+            }
+        }
+        return tombstones;
+    }
+
     @Override
     public void removeItemsFromCollection(CollectionItem collection) {
         
@@ -55,6 +55,10 @@ public class MockItemDao implements ItemDao {
 
     private MockDaoStorage storage;
 
+    private int findItemByPathCount;
+
+    private int findItemsByParentAndNamesCount;
+
     /**
      * Constructor.
      * @param storage Tge mock dao storage.
@@ -99,6 +103,7 @@ public class MockItemDao implements ItemDao {
      * @return item represented by path
      */
     public Item findItemByPath(String path) {
+        findItemByPathCount++;
         return storage.getItemByPath(decode(path));
     }
     
@@ -537,6 +542,34 @@ public class MockItemDao implements ItemDao {
         }
     }
 
+    /**
+     * Returns the number of items looked up by path.
+     * @return The number of calls of <code>findItemByPath(String)</code>.
+     */
+    public int getFindItemByPathCount() {
+        return findItemByPathCount;
+    }
+
+    /**
+     * Returns the number of bulk lookups of children by name.
+     * @return The number of calls of <code>findItemsByParentAndNames</code>.
+     */
+    public int getFindItemsByParentAndNamesCount() {
+        return findItemsByParentAndNamesCount;
+    }
+
+    @Override
+    public Set<Item> findItemsByParentAndNames(CollectionItem parent, Set<String> names) {
+        findItemsByParentAndNamesCount++;
+        Set<Item> children = new HashSet<Item>();
+        for (Item child : parent.getChildren()) {
+            if (names.contains(child.getName())) {
+                children.add(child);
+            }
+        }
+        return children;
+    }
+
     @Override
     public Set<CollectionItem> findCollectionItems(CollectionItem collectionItem) {
         Set<CollectionItem> collections = new HashSet<CollectionItem>();
@@ -23,10 +23,12 @@ import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
 import org.unitedinternet.cosmo.calendar.query.ComponentFilter;
+import org.unitedinternet.cosmo.calendar.query.IsNotDefinedFilter;
 import org.unitedinternet.cosmo.calendar.query.PropertyFilter;
 import org.unitedinternet.cosmo.calendar.query.TextMatchFilter;
 import org.unitedinternet.cosmo.calendar.query.TimeRangeFilter;
@@ -40,6 +42,7 @@ import org.unitedinternet.cosmo.model.filter.ILikeExpression;
 import org.unitedinternet.cosmo.model.filter.ItemFilter;
 import org.unitedinternet.cosmo.model.filter.LikeExpression;
 import org.unitedinternet.cosmo.model.filter.NoteItemFilter;
+import org.unitedinternet.cosmo.model.filter.NullExpression;
 import org.unitedinternet.cosmo.model.filter.StampFilter;
 import org.unitedinternet.cosmo.model.hibernate.HibCollectionItem;
 
@@ -156,6 +159,58 @@ public class CalendarFilterConverterTest {
         assertEquals(true, sf.isMissing());
     }
     
+    /**
+     * Tests get first pass filter for tasks with time range and property filters.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testGetFirstPassTaskFilter() throws Exception {
+        CollectionItem calendar = new HibCollectionItem();
+        CalendarFilter calFilter = new CalendarFilter();
+        ComponentFilter rootComp = new ComponentFilter();
+        rootComp.setName("VCALENDAR");
+        calFilter.setFilter(rootComp);
+        ComponentFilter taskComp = new ComponentFilter();
+        taskComp.setName("VTODO");
+        rootComp.getComponentFilters().add(taskComp);
+
+        Period period = new Period(new DateTime("20070101T100000Z"), new DateTime("20070201T100000Z"));
+        taskComp.setTimeRangeFilter(new TimeRangeFilter(period));
+
+        PropertyFilter completedFilter = new PropertyFilter("COMPLETED");
+        completedFilter.setIsNotDefinedFilter(new IsNotDefinedFilter());
+        taskComp.getPropFilters().add(completedFilter);
+
+        PropertyFilter statusFilter = new PropertyFilter("STATUS");
+        TextMatchFilter statusMatch = new TextMatchFilter("NEEDS-ACTION");
+        statusMatch.setCaseless(true);
+        statusFilter.setTextMatchFilter(statusMatch);
+        taskComp.getPropFilters().add(statusFilter);
+
+        PropertyFilter categoriesFilter = new PropertyFilter("CATEGORIES");
+        TextMatchFilter categoriesMatch = new TextMatchFilter("work");
+        categoriesMatch.setCaseless(false);
+        categoriesMatch.setNegateCondition(true);
+        categoriesFilter.setTextMatchFilter(categoriesMatch);
+        taskComp.getPropFilters().add(categoriesFilter);
+
+        NoteItemFilter noteFilter = (NoteItemFilter) converter.getFirstPassFilter(calendar, calFilter);
+        assertNotNull(noteFilter);
+        assertFalse(noteFilter.getIsModification().booleanValue());
+        assertEquals(1, noteFilter.getStampFilters().size());
+        assertEquals(period, noteFilter.getTaskPeriod());
+        assertTrue(noteFilter.getTaskCompleted() instanceof NullExpression);
+        assertFalse(((NullExpression) noteFilter.getTaskCompleted()).isNegated());
+        assertTrue(noteFilter.getTaskStatus() instanceof ILikeExpression);
+        verifyFilterExpressionValue(noteFilter.getTaskStatus(), "NEEDS-ACTION");
+        // negated text matches are left to the second pass
+        assertNull(noteFilter.getTaskCategories());
+
+        // a filter for calendars without tasks has no first pass
+        taskComp.setIsNotDefinedFilter(new IsNotDefinedFilter());
+        assertNull(converter.getFirstPassFilter(calendar, calFilter));
+    }
+    
     /**
      * Verify filter expression value.
      * @param fc Filter criteria.
@@ -0,0 +1,94 @@
+package org.unitedinternet.cosmo.dao.query.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test ItemPathCache
+ */
+public class ItemPathCacheTest {
+
+    @Test
+    public void shouldInvalidatePathsBelowItem() {
+        ItemPathCache cache = new ItemPathCache(60000, 100);
+        long generation = cache.getGeneration();
+        cache.putItemId("/user", 1L, generation);
+        cache.putItemId("/user/calendar", 2L, generation);
+        cache.putItemId("/user/calendar/event.ics", 3L, generation);
+        cache.putItemId("/user/calendar2", 4L, generation);
+
+        cache.invalidate(2L);
+
+        assertEquals(Long.valueOf(1L), cache.getItemId("/user"));
+        assertNull(cache.getItemId("/user/calendar"));
+        assertNull(cache.getItemId("/user/calendar/event.ics"));
+        assertEquals(Long.valueOf(4L), cache.getItemId("/user/calendar2"));
+    }
+
+    @Test
+    public void shouldNotStoreResultsOfOutdatedLookups() {
+        ItemPathCache cache = new ItemPathCache(60000, 100);
+        long generation = cache.getGeneration();
+
+        cache.invalidate(1L);
+        cache.putItemId("/user", 1L, generation);
+        cache.putMissing(1L, "missing", generation);
+
+        assertNull(cache.getItemId("/user"));
+        assertFalse(cache.isMissing(1L, "missing"));
+    }
+
+    @Test
+    public void shouldDropMissingEntryOnCreate() {
+        ItemPathCache cache = new ItemPathCache(60000, 100);
+        long generation = cache.getGeneration();
+        cache.putMissing(2L, "event.ics", generation);
+        cache.putMissing(2L, "other.ics", generation);
+        cache.putMissing(null, "user", generation);
+        assertTrue(cache.isMissing(2L, "event.ics"));
+
+        cache.invalidateMissing(2L, "event.ics");
+
+        assertFalse(cache.isMissing(2L, "event.ics"));
+        assertTrue(cache.isMissing(2L, "other.ics"));
+        assertTrue(cache.isMissing(null, "user"));
+        assertFalse(cache.isMissing(3L, "event.ics"));
+    }
+
+    @Test
+    public void shouldExpireEntries() throws Exception {
+        ItemPathCache cache = new ItemPathCache(1, 100);
+        cache.putItemId("/user", 1L, cache.getGeneration());
+        Thread.sleep(5);
+
+        assertNull(cache.getItemId("/user"));
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+        ItemPathCache cache = new ItemPathCache(0, 100);
+        cache.putItemId("/user", 1L, cache.getGeneration());
+
+        assertNull(cache.getItemId("/user"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void shouldCountLookups() {
+        ItemPathCache cache = new ItemPathCache(60000, 100);
+        cache.getItemId("/user");
+        cache.putItemId("/user", 1L, cache.getGeneration());
+        cache.putMissing(1L, "calendar", cache.getGeneration());
+        cache.getItemId("/user");
+        cache.isMissing(1L, "calendar");
+        cache.isMissing(1L, "tasks");
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissingHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+}
@@ -242,6 +242,35 @@ public class StandardItemFilterProcessorTest extends AbstractSpringDaoTestCase {
 
     }
 
+    /**
+     * Tests task query.
+     * 
+     * @throws Exception
+     *             - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testTaskQuery() throws Exception {
+        NoteItemFilter filter = new NoteItemFilter();
+        filter.setParent(new HibCollectionItem());
+        filter.setIsModification(false);
+        filter.getStampFilters().add(new StampFilter(EventStamp.class, true));
+        filter.setTaskPeriod(new Period(new DateTime("20070101T100000Z"), new DateTime("20070201T100000Z")));
+        filter.setTaskCompleted(Restrictions.isNull());
+        filter.setTaskStatus(Restrictions.ilike("NEEDS-ACTION"));
+
+        QueryImpl<Item> query = queryBuilder.buildQuery(filter);
+        assertEquals("select i from HibNoteItem i join i.parentDetails pd where pd.primaryKey.collection=:parent "
+                + "and not exists (select s.id from HibStamp s where s.item=i and s.class=HibEventStamp) "
+                + "and i.modifies is null and (i.taskIndex.startMillis is null or "
+                + "(i.taskIndex.startMillis <= :taskEndMillis and i.taskIndex.endMillis >= :taskStartMillis)) "
+                + "and (i.taskIndex.startMillis is null or i.taskIndex.completed is null) "
+                + "and (i.taskIndex.startMillis is null or i.taskIndex.status is null or "
+                + "lower(i.taskIndex.status) like :param3)", query.getQueryString());
+        assertEquals(Long.valueOf(1167645600000L), query.getParameterValue("taskStartMillis"));
+        assertEquals(Long.valueOf(1170324000000L), query.getParameterValue("taskEndMillis"));
+        assertEquals("%needs-action%", query.getParameterValue("param3"));
+    }
+
     /**
      * Tests event stamp query.
      * 
@@ -291,14 +320,57 @@ public class StandardItemFilterProcessorTest extends AbstractSpringDaoTestCase {
         QueryImpl<Item> query = queryBuilder.buildQuery(filter);
         assertEquals("select i from HibNoteItem i join i.parentDetails pd, "
                 + "HibBaseEventStamp es where pd.primaryKey.collection=:parent and es.item=i "
-                + "and ( (es.timeRangeIndex.isFloating=true and "
-                + "es.timeRangeIndex.startDate < '20070201T040000' and "
-                + "es.timeRangeIndex.endDate > '20070101T040000') or " + "(es.timeRangeIndex.isFloating=false and "
-                + "es.timeRangeIndex.startDate < '20070201T100000Z' and "
-                + "es.timeRangeIndex.endDate > '20070101T100000Z') or "
+                + "and es.timeRangeIndex.startMillis < :utcEndMillis "
+                + "and es.timeRangeIndex.endMillis >= :utcStartMillis "
+                + "and ((es.timeRangeIndex.isFloating=false and (es.timeRangeIndex.endMillis > :utcStartMillis or "
+                + "es.timeRangeIndex.startMillis=es.timeRangeIndex.endMillis)) or "
+                + "(es.timeRangeIndex.isFloating=true and ((es.timeRangeIndex.startDate < :floatEnd and "
+                + "es.timeRangeIndex.endDate > :floatStart) or "
                 + "(es.timeRangeIndex.startDate=es.timeRangeIndex.endDate and "
-                + "(es.timeRangeIndex.startDate='20070101T040000' or "
-                + "es.timeRangeIndex.startDate='20070101T100000Z')))", query.getQueryString());
+                + "es.timeRangeIndex.startDate=:floatStart)))) "
+                + "and (es.timeRangeIndex.isRecurring=false or es.occurrencesEnd is null or "
+                + "es.occurrencesStart > :occurrencesLower or es.occurrencesEnd < :occurrencesUpper or "
+                + "exists (select os.id from HibBaseEventStamp os join os.occurrences o where os=es and "
+                + "((es.timeRangeIndex.isFloating=true and o.startDate < :floatEnd and o.endDate > :floatStart) "
+                + "or (es.timeRangeIndex.isFloating=false and o.startDate < :utcEnd and o.endDate > :utcStart) "
+                + "or (o.startDate=o.endDate and (o.startDate=:floatStart or o.startDate=:utcStart)))))",
+                query.getQueryString());
+        assertEquals(Long.valueOf(1167645600000L), query.getParameterValue("utcStartMillis"));
+        assertEquals(Long.valueOf(1170324000000L), query.getParameterValue("utcEndMillis"));
+        assertEquals("20070101T040000", query.getParameterValue("floatStart"));
+        assertEquals("20070201T040000", query.getParameterValue("floatEnd"));
+        assertEquals("20070101T100000Z", query.getParameterValue("utcStart"));
+        assertEquals("20070201T100000Z", query.getParameterValue("utcEnd"));
+        assertEquals("20070101T040000", query.getParameterValue("occurrencesLower"));
+        assertEquals("20070201T100000Z", query.getParameterValue("occurrencesUpper"));
+    }
+
+    /**
+     * Tests that time range queries of different ranges translate to the same HQL and share one query plan.
+     * 
+     * @throws Exception
+     *             - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testEventStampTimeRangeQueryTemplate() throws Exception {
+        CollectionItem parent = new HibCollectionItem();
+        QueryImpl<Item> january = queryBuilder.buildQuery(timeRangeFilter(parent, "20070101T100000Z",
+                "20070201T100000Z"));
+        QueryImpl<Item> march = queryBuilder.buildQuery(timeRangeFilter(parent, "20070301T100000Z",
+                "20070401T100000Z"));
+
+        assertEquals(january.getQueryString(), march.getQueryString());
+        assertEquals("20070301T100000Z", march.getParameterValue("utcStart"));
+    }
+
+    private NoteItemFilter timeRangeFilter(CollectionItem parent, String start, String end) throws Exception {
+        EventStampFilter eventFilter = new EventStampFilter();
+        eventFilter.setPeriod(new Period(new DateTime(start), new DateTime(end)));
+        eventFilter.setTimezone(registry.getTimeZone("America/Chicago"));
+        NoteItemFilter filter = new NoteItemFilter();
+        filter.setParent(parent);
+        filter.getStampFilters().add(eventFilter);
+        return filter;
     }
 
     /**
@@ -16,14 +16,20 @@
 package org.unitedinternet.cosmo.dav.caldav.report;
 
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import org.apache.jackrabbit.webdav.version.report.ReportInfo;
+import org.unitedinternet.cosmo.dao.mock.MockContentDao;
 import org.unitedinternet.cosmo.dav.BadRequestException;
 import org.unitedinternet.cosmo.dav.BaseDavTestCase;
 import org.unitedinternet.cosmo.dav.CosmoDavException;
 import org.unitedinternet.cosmo.dav.impl.DavCalendarCollection;
 import org.unitedinternet.cosmo.dav.impl.DavEvent;
+import org.unitedinternet.cosmo.model.CollectionItem;
+import org.unitedinternet.cosmo.model.CollectionSubscription;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionSubscription;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionSubscriptionItem;
 import org.w3c.dom.Document;
 
 /**
@@ -135,6 +141,59 @@ public class MultigetReportTest extends BaseDavTestCase {
         report.init(de, makeReportInfo("multiget5.xml"));
     }
 
+    /**
+     * Tests that hrefs below the dav path of the collection are resolved with a single lookup.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testDavPathHrefsResolvedInBulk() throws Exception {
+        DavCalendarCollection dcc =
+            testHelper.initializeDavCalendarCollection("multiget");
+        testHelper.initializeDavEvent(dcc, "foo.ics");
+        testHelper.initializeDavEvent(dcc, "bar baz.ics");
+        MockContentDao contentDao = testHelper.getContentDao();
+        int bulkLookups = contentDao.getFindItemsByParentAndNamesCount();
+        int pathLookups = contentDao.getFindItemByPathCount();
+
+        MultigetReport report = new MultigetReport();
+        report.init(dcc, makeReportInfo("multiget7.xml"));
+        report.runQuery();
+
+        assertEquals(bulkLookups + 1, contentDao.getFindItemsByParentAndNamesCount());
+        assertEquals(pathLookups, contentDao.getFindItemByPathCount());
+    }
+
+    /**
+     * Tests that hrefs of a subscribed collection, whose members belong to the target collection, are resolved one
+     * at a time.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testSubscriptionHrefsResolvedByPath() throws Exception {
+        DavCalendarCollection dcc =
+            testHelper.initializeDavCalendarCollection("multiget");
+        testHelper.initializeDavEvent(dcc, "foo.ics");
+        testHelper.initializeDavEvent(dcc, "bar baz.ics");
+        HibCollectionSubscriptionItem item = new HibCollectionSubscriptionItem();
+        item.setUid("subscription");
+        item.setName("multiget");
+        CollectionSubscription subscription = new HibCollectionSubscription();
+        subscription.setTargetCollection((CollectionItem) dcc.getItem());
+        item.setSubscription(subscription);
+        DavCalendarCollection subscribed = new DavCalendarCollection(item, dcc.getResourceLocator(),
+                testHelper.getResourceFactory(), testHelper.getEntityFactory());
+        MockContentDao contentDao = testHelper.getContentDao();
+        int bulkLookups = contentDao.getFindItemsByParentAndNamesCount();
+        int pathLookups = contentDao.getFindItemByPathCount();
+
+        MultigetReport report = new MultigetReport();
+        report.init(subscribed, makeReportInfo("multiget7.xml"));
+        report.runQuery();
+
+        assertEquals(bulkLookups, contentDao.getFindItemsByParentAndNamesCount());
+        assertEquals(pathLookups + 3, contentDao.getFindItemByPathCount());
+    }
+
     /**
      * Tests incorrect hrefs.
      * @throws Exception - if something is wrong this exception is thrown.
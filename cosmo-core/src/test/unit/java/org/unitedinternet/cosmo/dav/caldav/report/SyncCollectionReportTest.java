@@ -0,0 +1,90 @@
+package org.unitedinternet.cosmo.dav.caldav.report;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.jackrabbit.webdav.version.report.ReportInfo;
+import org.junit.jupiter.api.Test;
+import org.unitedinternet.cosmo.dav.BadRequestException;
+import org.unitedinternet.cosmo.dav.BaseDavTestCase;
+import org.unitedinternet.cosmo.dav.CosmoDavException;
+import org.unitedinternet.cosmo.dav.InvalidSyncTokenException;
+import org.unitedinternet.cosmo.dav.WebDavResource;
+import org.unitedinternet.cosmo.dav.impl.DavCalendarCollection;
+import org.unitedinternet.cosmo.dav.impl.DavEvent;
+import org.w3c.dom.Document;
+
+/**
+ * Test case for <code>SyncCollectionReport</code>.
+ */
+public class SyncCollectionReportTest extends BaseDavTestCase {
+
+    @Test
+    public void testWrongType() throws Exception {
+        DavCalendarCollection dcc = testHelper.initializeDavCalendarCollection("sync");
+
+        SyncCollectionReport report = new SyncCollectionReport();
+        assertThrows(CosmoDavException.class, () -> report.init(dcc, makeReportInfo("freebusy1.xml")));
+    }
+
+    @Test
+    public void testNoSyncToken() throws Exception {
+        DavCalendarCollection dcc = testHelper.initializeDavCalendarCollection("sync");
+
+        SyncCollectionReport report = new SyncCollectionReport();
+        assertThrows(BadRequestException.class, () -> report.init(dcc, makeReportInfo("sync1.xml")));
+    }
+
+    @Test
+    public void testUnsupportedSyncLevel() throws Exception {
+        DavCalendarCollection dcc = testHelper.initializeDavCalendarCollection("sync");
+
+        SyncCollectionReport report = new SyncCollectionReport();
+        assertThrows(BadRequestException.class, () -> report.init(dcc, makeReportInfo("sync2.xml")));
+    }
+
+    @Test
+    public void testInitialSync() throws Exception {
+        DavCalendarCollection dcc = testHelper.initializeDavCalendarCollection("sync");
+
+        DavEvent foo = testHelper.initializeDavEvent(dcc, "foo.ics");
+        DavEvent bar = testHelper.initializeDavEvent(dcc, "bar.ics");
+
+        SyncCollectionReport report = new SyncCollectionReport();
+        report.init(dcc, makeReportInfo("sync3.xml"));
+        report.runQuery();
+
+        Set<String> hrefs = new HashSet<>();
+        for (WebDavResource member : report.getResults()) {
+            hrefs.add(member.getResourceLocator().getHref(false));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(foo.getResourceLocator().getHref(false),
+                bar.getResourceLocator().getHref(false))), hrefs);
+        assertTrue(report.getRemovedHrefs().isEmpty());
+        assertEquals(dcc.getSyncToken(), report.getNewSyncToken());
+    }
+
+    @Test
+    public void testSyncToken() throws Exception {
+        DavCalendarCollection dcc = testHelper.initializeDavCalendarCollection("sync");
+        DavCalendarCollection other = testHelper.initializeDavCalendarCollection("other");
+
+        assertNull(dcc.parseSyncToken(""));
+        Long modifiedDate = dcc.getItem().getModifiedDate();
+        assertEquals(modifiedDate != null ? modifiedDate : 0L, dcc.parseSyncToken(dcc.getSyncToken()));
+        assertThrows(InvalidSyncTokenException.class, () -> dcc.parseSyncToken(other.getSyncToken()));
+        assertThrows(InvalidSyncTokenException.class, () -> dcc.parseSyncToken(dcc.getSyncToken() + "x"));
+        assertThrows(InvalidSyncTokenException.class, () -> dcc.parseSyncToken("http://example.com/sync/1"));
+    }
+
+    private ReportInfo makeReportInfo(String resource) throws Exception {
+        Document doc = testHelper.loadXml(this.getClass().getResourceAsStream(resource));
+        return new ReportInfo(doc.getDocumentElement(), DEPTH_1);
+    }
+}
@@ -0,0 +1,70 @@
+package org.unitedinternet.cosmo.dav.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+import org.unitedinternet.cosmo.calendar.ICalendarUtils;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.TimeZoneRegistry;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.RecurrenceId;
+import net.fortuna.ical4j.model.property.Uid;
+
+/**
+ * Test CalendarStreamWriter
+ */
+public class CalendarStreamWriterTest {
+
+    private final TimeZoneRegistry registry = TimeZoneRegistryFactory.getInstance().createRegistry();
+
+    @Test
+    public void shouldWriteFirstEventOfEachCalendarAndEachTimezoneOnce() throws Exception {
+        TimeZone berlin = registry.getTimeZone("Europe/Berlin");
+        TimeZone tokyo = registry.getTimeZone("Asia/Tokyo");
+
+        Calendar first = event("1", berlin);
+        first.getComponents().add(berlin.getVTimeZone());
+        // only the first event of a stored calendar is exported
+        VEvent exception = new VEvent(new DateTime("20200102T100000", berlin), "moved");
+        exception.getProperties().add(new Uid("1"));
+        exception.getProperties().add(new RecurrenceId(new DateTime("20200102T090000", berlin)));
+        first.getComponents().add(exception);
+
+        Calendar second = event("2", berlin);
+        second.getComponents().add(0, berlin.getVTimeZone());
+        Calendar third = event("3", tokyo);
+        third.getComponents().add(tokyo.getVTimeZone());
+
+        StringWriter out = new StringWriter();
+        CalendarStreamWriter writer = new CalendarStreamWriter(out);
+        writer.begin("-//Test//EN");
+        writer.accept(first.toString());
+        writer.accept(second.toString());
+        writer.accept(third.toString());
+        writer.end();
+
+        assertEquals(3, writer.getEventCount());
+        Calendar result = new CalendarBuilder().build(new StringReader(out.toString()));
+        assertEquals("-//Test//EN", result.getProductId().getValue());
+        assertEquals(3, result.getComponents(Component.VEVENT).size());
+        assertEquals(2, result.getComponents(Component.VTIMEZONE).size());
+        for (Object event : result.getComponents(Component.VEVENT)) {
+            assertEquals(null, ((VEvent) event).getRecurrenceId());
+        }
+    }
+
+    private Calendar event(String uid, TimeZone tz) throws Exception {
+        VEvent event = new VEvent(new DateTime("20200101T090000", tz), "event " + uid);
+        event.getProperties().add(new Uid(uid));
+        return ICalendarUtils.createBaseCalendar(event);
+    }
+}
@@ -0,0 +1,67 @@
+package org.unitedinternet.cosmo.dav.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.jackrabbit.webdav.DavConstants;
+import org.apache.jackrabbit.webdav.MultiStatusResponse;
+import org.apache.jackrabbit.webdav.property.DavPropertyName;
+import org.apache.jackrabbit.webdav.property.DefaultDavProperty;
+import org.apache.jackrabbit.webdav.xml.DomUtil;
+import org.apache.jackrabbit.webdav.xml.ElementIterator;
+import org.junit.jupiter.api.Test;
+import org.unitedinternet.cosmo.dav.caldav.CaldavConstants;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Test MultiStatusWriter
+ */
+public class MultiStatusWriterTest {
+
+    @Test
+    public void shouldWriteResponsesAsMultistatus() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MultiStatusWriter writer = new MultiStatusWriter(out);
+
+        MultiStatusResponse found = new MultiStatusResponse("/dav/user/calendar/1.ics", null);
+        found.add(new DefaultDavProperty<String>(
+                DavPropertyName.create("calendar-data", CaldavConstants.NAMESPACE_CALDAV), "BEGIN:VCALENDAR <&>"));
+        writer.write(found);
+        writer.write(new MultiStatusResponse("/dav/user/calendar/2.ics", 404));
+        writer.finish();
+
+        Element multistatus = parse(out.toByteArray()).getDocumentElement();
+        assertEquals(DavConstants.XML_MULTISTATUS, multistatus.getLocalName());
+        assertEquals(DavConstants.NAMESPACE.getURI(), multistatus.getNamespaceURI());
+
+        List<Element> responses = new ArrayList<Element>();
+        for (ElementIterator i = DomUtil.getChildren(multistatus, DavConstants.XML_RESPONSE,
+                DavConstants.NAMESPACE); i.hasNext();) {
+            responses.add(i.nextElement());
+        }
+        assertEquals(2, responses.size());
+        assertEquals("/dav/user/calendar/1.ics",
+                DomUtil.getChildTextTrim(responses.get(0), DavConstants.XML_HREF, DavConstants.NAMESPACE));
+
+        Element prop = DomUtil.getChildElement(
+                DomUtil.getChildElement(responses.get(0), DavConstants.XML_PROPSTAT, DavConstants.NAMESPACE),
+                DavConstants.XML_PROP, DavConstants.NAMESPACE);
+        Element calendarData = DomUtil.getChildElement(prop, "calendar-data", CaldavConstants.NAMESPACE_CALDAV);
+        assertNotNull(calendarData);
+        assertEquals("BEGIN:VCALENDAR <&>", DomUtil.getText(calendarData));
+    }
+
+    private static Document parse(byte[] bytes) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(bytes));
+    }
+}
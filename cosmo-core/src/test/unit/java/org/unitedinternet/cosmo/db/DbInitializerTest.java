@@ -0,0 +1,179 @@
+package org.unitedinternet.cosmo.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.unitedinternet.cosmo.calendar.ICalendarUtils.createBaseCalendar;
+
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.unitedinternet.cosmo.dao.hibernate.AbstractSpringDaoTestCase;
+import org.unitedinternet.cosmo.dao.hibernate.ContentDaoImpl;
+import org.unitedinternet.cosmo.dao.hibernate.UserDaoImpl;
+import org.unitedinternet.cosmo.model.CollectionItem;
+import org.unitedinternet.cosmo.model.EventStamp;
+import org.unitedinternet.cosmo.model.NoteItem;
+import org.unitedinternet.cosmo.model.ServerProperty;
+import org.unitedinternet.cosmo.model.hibernate.HibCalendarCollectionStamp;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionItem;
+import org.unitedinternet.cosmo.model.hibernate.HibEventStamp;
+import org.unitedinternet.cosmo.model.hibernate.HibEventTimeRangeIndex;
+import org.unitedinternet.cosmo.model.hibernate.HibNoteItem;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.component.VToDo;
+import net.fortuna.ical4j.model.property.DtEnd;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.Due;
+import net.fortuna.ical4j.model.property.RRule;
+import net.fortuna.ical4j.model.property.RecurrenceId;
+import net.fortuna.ical4j.model.property.Status;
+import net.fortuna.ical4j.model.property.Uid;
+
+/**
+ * Test DbInitializer
+ */
+public class DbInitializerTest extends AbstractSpringDaoTestCase {
+
+    @Autowired
+    private ContentDaoImpl contentDao;
+
+    @Autowired
+    private UserDaoImpl userDao;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private DbInitializer initializer;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CollectionItem calendar;
+
+    @BeforeEach
+    public void setUpInitializer() {
+        this.initializer = new DbInitializer();
+        this.initializer.setDataSource(this.dataSource);
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+
+        CollectionItem root = (CollectionItem) contentDao.getRootItem(helper.getUser(userDao, contentDao, "testuser"));
+        this.calendar = new HibCollectionItem();
+        this.calendar.setName("calendar");
+        this.calendar.setOwner(root.getOwner());
+        this.calendar.addStamp(new HibCalendarCollectionStamp());
+        this.calendar = contentDao.createCollection(root, this.calendar);
+    }
+
+    @Test
+    public void shouldBackfillTimeRangeIndex() throws Exception {
+        long utc = createEvent("utc", new DateTime("20070212T134500Z"), new DateTime("20070212T154500Z"));
+        long floating = createEvent("floating", new DateTime("20070212T074500"), new DateTime("20070212T094500"));
+        this.jdbcTemplate.update("update event_stamp set startmillis=null, endmillis=null");
+
+        assertEquals(2, this.initializer.backfillTimeRangeIndex());
+
+        Map<String, Object> row = this.indexOf(utc);
+        assertEquals(new DateTime("20070212T134500Z").getTime(), row.get("startmillis"));
+        assertEquals(new DateTime("20070212T154500Z").getTime(), row.get("endmillis"));
+        row = this.indexOf(floating);
+        assertEquals(new DateTime("20070212T074500Z").getTime() - HibEventTimeRangeIndex.MAX_OFFSET_EAST,
+                row.get("startmillis"));
+        assertEquals(new DateTime("20070212T094500Z").getTime() + HibEventTimeRangeIndex.MAX_OFFSET_WEST,
+                row.get("endmillis"));
+    }
+
+    @Test
+    public void shouldBackfillTaskIndex() throws Exception {
+        VToDo task = new VToDo();
+        task.getProperties().add(new Uid("task"));
+        task.getProperties().add(new Due(new DateTime("20070212T134500Z")));
+        task.getProperties().add(Status.VTODO_IN_PROCESS);
+        long plain = createTask("task", createBaseCalendar(task));
+        VToDo master = (VToDo) task.copy();
+        master.getProperties().add(new RRule("FREQ=WEEKLY"));
+        Calendar overridden = createBaseCalendar(master);
+        VToDo override = (VToDo) task.copy();
+        override.getProperties().add(new RecurrenceId(new DateTime("20070219T134500Z")));
+        overridden.getComponents().add(override);
+        long withOverride = createTask("override", overridden);
+        this.jdbcTemplate.update("update item set taskstartmillis=null, taskendmillis=null, taskdue=null, "
+                + "taskstatus=null where id=?", plain);
+        // indexed from the master alone before overrides were taken into account
+        this.jdbcTemplate.update("update item set taskstartmillis=0, taskendmillis=0, taskstatus='' where id=?",
+                withOverride);
+
+        assertEquals(2, this.initializer.backfillTaskIndex());
+
+        Map<String, Object> row = this.taskIndexOf(plain);
+        assertEquals(new DateTime("20070212T134500Z").getTime(), row.get("taskdue"));
+        assertEquals(Status.VTODO_IN_PROCESS.getValue(), row.get("taskstatus"));
+        assertNotNull(row.get("taskstartmillis"));
+        row = this.taskIndexOf(withOverride);
+        assertNull(row.get("taskstartmillis"));
+        assertNull(row.get("taskstatus"));
+    }
+
+    @Test
+    public void shouldNotMigrateTwice() throws Exception {
+        long utc = createEvent("utc", new DateTime("20070212T134500Z"), new DateTime("20070212T154500Z"));
+        this.jdbcTemplate.update("update event_stamp set startmillis=null, endmillis=null");
+        this.jdbcTemplate.update("insert into server_properties (propertyname, propertyvalue) values (?, ?)",
+                ServerProperty.PROP_SCHEMA_VERSION, "4");
+
+        this.initializer.migrate();
+
+        assertEquals(4, this.initializer.getSchemaVersion());
+        assertNull(this.indexOf(utc).get("startmillis"));
+    }
+
+    private long createEvent(String uid, DateTime start, DateTime end) throws Exception {
+        VEvent vEvent = new VEvent();
+        vEvent.getProperties().add(new Uid(uid));
+        vEvent.getProperties().add(new DtStart(start));
+        vEvent.getProperties().add(new DtEnd(end));
+        NoteItem event = new HibNoteItem();
+        event.setUid(uid);
+        event.setName(uid + ".ics");
+        event.setOwner(this.calendar.getOwner());
+        EventStamp stamp = new HibEventStamp();
+        event.addStamp(stamp);
+        stamp.setEventCalendar(createBaseCalendar(vEvent));
+        event = (NoteItem) contentDao.createContent(this.calendar, event);
+        this.em.flush();
+        return ((HibEventStamp) event.getStamp(EventStamp.class)).getId();
+    }
+
+    private long createTask(String uid, Calendar calendar) throws Exception {
+        HibNoteItem note = new HibNoteItem();
+        note.setUid(uid);
+        note.setName(uid + ".ics");
+        note.setOwner(this.calendar.getOwner());
+        note.setTaskJournalCalendar(calendar);
+        note = (HibNoteItem) contentDao.createContent(this.calendar, note);
+        this.em.flush();
+        return note.getId();
+    }
+
+    private Map<String, Object> taskIndexOf(long itemId) {
+        return this.jdbcTemplate.queryForMap("select taskstartmillis, taskdue, taskstatus from item where id=?",
+                itemId);
+    }
+
+    private Map<String, Object> indexOf(long stampId) {
+        return this.jdbcTemplate.queryForMap("select startmillis, endmillis from event_stamp where stampid=?",
+                stampId);
+    }
+}
@@ -0,0 +1,149 @@
+package org.unitedinternet.cosmo.ext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.unitedinternet.cosmo.calendar.ICalendarUtils.createBaseCalendar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.unitedinternet.cosmo.calendar.util.CalendarUtils;
+import org.unitedinternet.cosmo.model.NoteItem;
+import org.unitedinternet.cosmo.model.hibernate.EntityConverter;
+import org.unitedinternet.cosmo.model.hibernate.HibEntityFactory;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.DtEnd;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.Uid;
+
+/**
+ * Test UrlContentSource
+ */
+public class UrlContentSourceTest {
+
+    private static final String URL = "http://localhost/calendar.ics";
+
+    private ContentConverter converter;
+
+    private StubReader reader;
+
+    private UrlContentSource instanceUnderTest;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        this.converter = new ContentConverter(new EntityConverter(new HibEntityFactory()));
+        this.reader = new StubReader();
+        this.instanceUnderTest = new UrlContentSource(reader, converter);
+        this.instanceUnderTest.setTtl(60000);
+        this.instanceUnderTest.setMaxSize(10);
+    }
+
+    @Test
+    public void shouldServeFreshItemsFromCache() {
+        Set<NoteItem> first = instanceUnderTest.getContent(URL);
+        Set<NoteItem> second = instanceUnderTest.getContent(URL);
+
+        assertEquals(1, reader.reads.get());
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertNotSame(first.iterator().next(), second.iterator().next());
+        assertEquals(first.iterator().next().getName(), second.iterator().next().getName());
+    }
+
+    @Test
+    public void shouldRevalidateExpiredContent() {
+        instanceUnderTest.setTtl(1);
+        instanceUnderTest.getContent(URL);
+        sleep(5);
+        instanceUnderTest.getContent(URL);
+        assertEquals("\"1\"", reader.lastEntityTag);
+
+        reader.notModified = true;
+        sleep(5);
+        Set<NoteItem> items = instanceUnderTest.getContent(URL);
+
+        assertEquals(3, reader.reads.get());
+        assertEquals("\"2\"", reader.lastEntityTag);
+        assertEquals(1, items.size());
+    }
+
+    @Test
+    public void shouldReadOnceForConcurrentRequests() throws Exception {
+        reader.delay = 200;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Thread thread = new Thread(() -> instanceUnderTest.getContent(URL));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, reader.reads.get());
+    }
+
+    @Test
+    public void shouldDropLeastRecentlyUsedContent() {
+        for (int i = 0; i < 20; i++) {
+            instanceUnderTest.getContent(URL);
+            instanceUnderTest.getContent(URL + "?" + i);
+        }
+
+        assertEquals(10, instanceUnderTest.getSize());
+        assertEquals(21, reader.reads.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class StubReader implements UrlContentReader {
+
+        private final AtomicInteger reads = new AtomicInteger();
+        private volatile boolean notModified;
+        private volatile long delay;
+        private volatile String lastEntityTag;
+
+        @Override
+        public Set<NoteItem> getContent(String url, int timeoutInMillis) {
+            return getContent(url, timeoutInMillis, null, null).getItems();
+        }
+
+        @Override
+        public UrlContent getContent(String url, int timeoutInMillis, String entityTag, String lastModified) {
+            int read = reads.incrementAndGet();
+            lastEntityTag = entityTag;
+            sleep(delay);
+            if (notModified && entityTag != null) {
+                return null;
+            }
+            Calendar calendar = newCalendar();
+            return new UrlContent(converter.asItems(CalendarUtils.copyCalendar(calendar)), calendar,
+                    "\"" + read + "\"", null);
+        }
+
+        private Calendar newCalendar() {
+            try {
+                VEvent event = new VEvent();
+                event.getProperties().add(new Uid("event"));
+                event.getProperties().add(new DtStart(new DateTime("20070212T074500")));
+                event.getProperties().add(new DtEnd(new DateTime("20070212T094500")));
+                return createBaseCalendar(event);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
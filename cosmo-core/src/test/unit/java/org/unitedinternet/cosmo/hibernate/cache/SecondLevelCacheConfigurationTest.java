@@ -0,0 +1,90 @@
+package org.unitedinternet.cosmo.hibernate.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.unitedinternet.cosmo.model.hibernate.HibItem;
+import org.unitedinternet.cosmo.model.hibernate.HibTicket;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+
+/**
+ * Test SecondLevelCacheConfiguration
+ */
+public class SecondLevelCacheConfigurationTest {
+
+    private SecondLevelCacheConfiguration instanceUnderTest;
+
+    @BeforeEach
+    public void setUp() {
+        this.instanceUnderTest = new SecondLevelCacheConfiguration(
+                new StaticListableBeanFactory().getBeanProvider(CacheInvalidationBroadcaster.class));
+        ReflectionTestUtils.setField(instanceUnderTest, "singleNode", true);
+        ReflectionTestUtils.setField(instanceUnderTest, "ttl", 1000L);
+        ReflectionTestUtils.setField(instanceUnderTest, "itemsMaxSize", 100L);
+        ReflectionTestUtils.setField(instanceUnderTest, "stampsMaxSize", 50L);
+        ReflectionTestUtils.setField(instanceUnderTest, "usersMaxSize", 10L);
+        ReflectionTestUtils.setField(instanceUnderTest, "ticketsMaxSize", 5L);
+        ReflectionTestUtils.setField(instanceUnderTest, "queriesEnabled", true);
+        ReflectionTestUtils.setField(instanceUnderTest, "queriesMaxSize", 20L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.instanceUnderTest.destroy();
+    }
+
+    @Test
+    public void shouldEnableSecondLevelAndQueryCache() {
+        Map<String, Object> properties = new HashMap<>();
+        instanceUnderTest.customize(properties);
+
+        assertEquals(Boolean.TRUE, properties.get("hibernate.cache.use_second_level_cache"));
+        assertEquals(Boolean.TRUE, properties.get("hibernate.cache.use_query_cache"));
+        assertEquals("jcache", properties.get("hibernate.cache.region.factory_class"));
+        assertSame(instanceUnderTest.getCacheManager(), properties.get("hibernate.javax.cache.cache_manager"));
+    }
+
+    @Test
+    public void shouldRequireBroadcasterWhenNotSingleNode() {
+        ReflectionTestUtils.setField(instanceUnderTest, "singleNode", false);
+
+        assertThrows(IllegalStateException.class, () -> instanceUnderTest.customize(new HashMap<>()));
+    }
+
+    @Test
+    public void shouldSizeRegionsPerGroup() {
+        CacheManager cacheManager = instanceUnderTest.getCacheManager();
+
+        assertEquals(OptionalLong.of(100L), configurationOf(cacheManager, HibItem.class.getName()).getMaximumSize());
+        assertEquals(OptionalLong.of(5L), configurationOf(cacheManager, HibTicket.class.getName()).getMaximumSize());
+        assertEquals(OptionalLong.of(5L),
+                configurationOf(cacheManager, HibItem.class.getName() + ".tickets").getMaximumSize());
+        assertEquals(OptionalLong.of(20L),
+                configurationOf(cacheManager, SecondLevelCacheConfiguration.QUERY_RESULTS_REGION).getMaximumSize());
+        assertEquals(OptionalLong.of(1000000000L),
+                configurationOf(cacheManager, HibItem.class.getName()).getExpireAfterWrite());
+        assertNotNull(cacheManager.getCache(SecondLevelCacheConfiguration.UPDATE_TIMESTAMPS_REGION));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CaffeineConfiguration<Object, Object> configurationOf(CacheManager cacheManager, String name) {
+        Cache<Object, Object> cache = cacheManager.getCache(name);
+        assertNotNull(cache, name);
+        return cache.getConfiguration(CaffeineConfiguration.class);
+    }
+}
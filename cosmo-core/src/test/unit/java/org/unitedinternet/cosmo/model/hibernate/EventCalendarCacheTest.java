@@ -0,0 +1,106 @@
+package org.unitedinternet.cosmo.model.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.unitedinternet.cosmo.calendar.ICalendarUtils.createBaseCalendar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.DtEnd;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.Summary;
+
+/**
+ * Test EventCalendarCache
+ */
+public class EventCalendarCacheTest {
+
+    private EventCalendarCache previous;
+    private EventCalendarCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        previous = EventCalendarCache.getInstance();
+        cache = new EventCalendarCache(EventCalendarCache.DEFAULT_MAX_WEIGHT);
+        EventCalendarCache.setInstance(cache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        EventCalendarCache.setInstance(previous);
+    }
+
+    @Test
+    public void shouldServeCopiesOfCachedCalendar() throws Exception {
+        HibEventStamp stamp = newStamp(1L, "summary");
+
+        Calendar first = stamp.getEventCalendar();
+        Calendar second = stamp.getEventCalendar();
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertNotSame(first, second);
+        assertEquals(first.toString(), second.toString());
+
+        first.getComponents().clear();
+        assertNotNull(stamp.getEvent());
+    }
+
+    @Test
+    public void shouldInvalidateOnSetEventCalendar() throws Exception {
+        HibEventStamp stamp = newStamp(1L, "summary");
+        stamp.getEventCalendar();
+
+        Calendar calendar = stamp.getEventCalendar();
+        ((VEvent) calendar.getComponent(VEvent.VEVENT)).getSummary().setValue("changed");
+        stamp.setEventCalendar(calendar);
+
+        assertEquals("changed", stamp.getEvent().getSummary().getValue());
+    }
+
+    @Test
+    public void shouldNotCacheTransientStamps() throws Exception {
+        HibEventStamp stamp = newStamp(-1L, "summary");
+        stamp.getEventCalendar();
+        stamp.getEventCalendar();
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void shouldEvictWhenMaxWeightIsExceeded() throws Exception {
+        HibEventStamp stamp1 = newStamp(1L, "summary");
+        HibEventStamp stamp2 = newStamp(2L, "summary");
+        cache = new EventCalendarCache(stamp1.getIcaldata().length() + 1);
+        EventCalendarCache.setInstance(cache);
+
+        stamp1.getEventCalendar();
+        stamp2.getEventCalendar();
+
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(1L, null, stamp1.getIcaldata()));
+        assertNotNull(cache.get(2L, null, stamp2.getIcaldata()));
+    }
+
+    private static HibEventStamp newStamp(Long id, String summary) throws Exception {
+        HibNoteItem note = new HibNoteItem();
+        HibEventStamp stamp = new HibEventStamp(note);
+        stamp.setId(id);
+        VEvent vEvent = new VEvent();
+        vEvent.getProperties().add(new DtStart(new DateTime("20070212T074500")));
+        vEvent.getProperties().add(new DtEnd(new DateTime("20070212T094500")));
+        vEvent.getProperties().add(new Summary(summary));
+        stamp.setEventCalendar(createBaseCalendar(vEvent));
+        note.addStamp(stamp);
+        return stamp;
+    }
+}
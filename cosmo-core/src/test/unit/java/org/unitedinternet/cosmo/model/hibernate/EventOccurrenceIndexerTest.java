@@ -0,0 +1,139 @@
+package org.unitedinternet.cosmo.model.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.unitedinternet.cosmo.calendar.ICalendarUtils.createBaseCalendar;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.TimeZoneRegistry;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.DtEnd;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.RRule;
+
+/**
+ * Test EventOccurrenceIndexer
+ */
+public class EventOccurrenceIndexerTest {
+
+    private final TimeZoneRegistry registry = TimeZoneRegistryFactory.getInstance().createRegistry();
+
+    @Test
+    public void shouldIndexOccurrencesOfRecurringEvent() throws Exception {
+        HibEventStamp eventStamp = createStamp("FREQ=DAILY;COUNT=5");
+        EventOccurrenceIndexer indexer = new EventOccurrenceIndexer(365, 730, 5000);
+
+        indexer.index(eventStamp, new DateTime("20070201T000000Z"), new DateTime("20070301T000000Z"));
+
+        assertEquals(5, eventStamp.getOccurrences().size());
+        assertTrue(eventStamp.getOccurrences().contains(new HibEventOccurrence("20070212T134500Z", "20070212T154500Z")));
+        assertTrue(eventStamp.getOccurrences().contains(new HibEventOccurrence("20070216T134500Z", "20070216T154500Z")));
+        assertTrue(eventStamp.getOccurrencesStart().compareTo("20070201T000000Z") <= 0);
+        assertTrue(eventStamp.getOccurrencesEnd().compareTo("20070301T000000Z") >= 0);
+    }
+
+    @Test
+    public void shouldCapIndexedOccurrences() throws Exception {
+        HibEventStamp eventStamp = createStamp("FREQ=DAILY;COUNT=5");
+        EventOccurrenceIndexer indexer = new EventOccurrenceIndexer(365, 730, 3);
+
+        indexer.index(eventStamp, new DateTime("20070201T000000Z"), new DateTime("20070301T000000Z"));
+
+        assertEquals(3, eventStamp.getOccurrences().size());
+        assertTrue(eventStamp.getOccurrences()
+                .contains(new HibEventOccurrence("20070214T134500Z", "20070214T154500Z")));
+        assertTrue(eventStamp.getOccurrencesStart().compareTo("20070201T000000Z") <= 0);
+        assertEquals("20070214T134500Z", eventStamp.getOccurrencesEnd());
+    }
+
+    @Test
+    public void shouldNotIndexWhenCapIsReachedBeforeWindow() throws Exception {
+        HibEventStamp eventStamp = createStamp("FREQ=DAILY;COUNT=5");
+        EventOccurrenceIndexer indexer = new EventOccurrenceIndexer(365, 730, 1);
+
+        indexer.index(eventStamp, new DateTime("20070214T000000Z"), new DateTime("20070301T000000Z"));
+
+        assertTrue(eventStamp.getOccurrences().isEmpty());
+        assertNull(eventStamp.getOccurrencesStart());
+        assertNull(eventStamp.getOccurrencesEnd());
+    }
+
+    @Test
+    public void shouldStartCappedWindowAtCurrentTime() throws Exception {
+        long now = System.currentTimeMillis();
+        HibEventStamp eventStamp = createStamp(utc(now - TimeUnit.DAYS.toMillis(60)), "FREQ=HOURLY");
+        EventOccurrenceIndexer indexer = new EventOccurrenceIndexer(30, 180, 250);
+
+        indexer.index(eventStamp);
+
+        assertEquals(250, eventStamp.getOccurrences().size());
+        assertTrue(eventStamp.getOccurrencesStart().compareTo(utc(now).toString()) >= 0);
+        assertTrue(eventStamp.getOccurrencesEnd().compareTo(utc(now).toString()) > 0);
+    }
+
+    @Test
+    public void shouldExpandWithoutChangingStamp() throws Exception {
+        HibEventStamp eventStamp = createStamp("FREQ=DAILY;COUNT=5");
+        EventOccurrenceIndexer indexer = new EventOccurrenceIndexer(365, 730, 5000);
+
+        EventOccurrenceIndexer.Expansion expansion = indexer.expand(eventStamp, new DateTime("20070201T000000Z"),
+                new DateTime("20070301T000000Z"));
+
+        assertEquals(5, expansion.getOccurrences().size());
+        assertTrue(expansion.covers(new DateTime("20070201T000000Z"), new DateTime("20070301T000000Z")));
+        assertTrue(eventStamp.getOccurrences().isEmpty());
+        assertNull(eventStamp.getOccurrencesEnd());
+    }
+
+    @Test
+    public void shouldInvalidateWindowWhenEventChanges() throws Exception {
+        HibEventStamp eventStamp = createStamp("FREQ=DAILY;COUNT=5");
+        EventOccurrenceIndexer indexer = new EventOccurrenceIndexer(365, 730, 5000);
+        indexer.index(eventStamp, new DateTime("20070201T000000Z"), new DateTime("20070301T000000Z"));
+        assertNotNull(eventStamp.getOccurrencesEnd());
+
+        eventStamp.setEventCalendar(eventStamp.getEventCalendar());
+
+        assertNull(eventStamp.getOccurrencesStart());
+        assertNull(eventStamp.getOccurrencesEnd());
+    }
+
+    private HibEventStamp createStamp(String rrule) throws Exception {
+        TimeZone ctz = registry.getTimeZone("America/Chicago");
+        return createStamp(new DateTime("20070212T074500", ctz), rrule);
+    }
+
+    private HibEventStamp createStamp(DateTime start, String rrule) throws Exception {
+        HibNoteItem master = new HibNoteItem();
+        HibEventStamp eventStamp = new HibEventStamp(master);
+        DateTime end = new DateTime(start.getTime() + TimeUnit.HOURS.toMillis(2));
+        if (start.isUtc()) {
+            end.setUtc(true);
+        } else {
+            end.setTimeZone(start.getTimeZone());
+        }
+        VEvent vEvent = new VEvent();
+        vEvent.getProperties().add(new DtStart(start));
+        vEvent.getProperties().add(new DtEnd(end));
+        vEvent.getProperties().add(new RRule(rrule));
+        Calendar calendar = createBaseCalendar(vEvent);
+        eventStamp.setEventCalendar(calendar);
+        master.addStamp(eventStamp);
+        return eventStamp;
+    }
+
+    private static DateTime utc(long time) {
+        DateTime dateTime = new DateTime(time);
+        dateTime.setUtc(true);
+        return dateTime;
+    }
+}
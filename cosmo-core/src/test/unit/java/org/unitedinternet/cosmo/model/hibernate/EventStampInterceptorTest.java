@@ -62,6 +62,9 @@ public class EventStampInterceptorTest {
         assertEquals("20070212T074500", index.getStartDate());
         assertEquals("20070212T094500", index.getEndDate());
         assertTrue(index.getIsFloating().booleanValue());
+        // floating window covers UTC+14 to UTC-12
+        assertEquals(Long.valueOf(1171215900000L), index.getStartMillis());
+        assertEquals(Long.valueOf(1171316700000L), index.getEndMillis());
         
         TimeZone ctz = registry.getTimeZone("America/Chicago");
         DateTime start = new DateTime("20070212T074500", ctz);
@@ -78,6 +81,8 @@ public class EventStampInterceptorTest {
         assertEquals("20070212T134500Z", index.getStartDate());
         assertEquals(HibEventStamp.TIME_INFINITY, index.getEndDate());
         assertFalse(index.getIsFloating().booleanValue());
+        assertEquals(Long.valueOf(1171287900000L), index.getStartMillis());
+        assertEquals(Long.valueOf(Long.MAX_VALUE), index.getEndMillis());
     }
     
     /**
@@ -101,6 +106,8 @@ public class EventStampInterceptorTest {
         assertEquals("20070212", index.getStartDate());
         assertEquals("20070213", index.getEndDate());
         assertTrue(index.getIsFloating().booleanValue());
+        assertEquals(Long.valueOf(1171188000000L), index.getStartMillis());
+        assertEquals(Long.valueOf(1171368000000L), index.getEndMillis());
       
         vEvent.getProperties().add(new RRule("FREQ=DAILY;"));
         eventStamp.setEventCalendar(calendar);
@@ -0,0 +1,115 @@
+package org.unitedinternet.cosmo.model.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.unitedinternet.cosmo.calendar.ICalendarUtils.createBaseCalendar;
+
+import org.junit.jupiter.api.Test;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.TimeZoneRegistry;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.component.VJournal;
+import net.fortuna.ical4j.model.component.VToDo;
+import net.fortuna.ical4j.model.property.Categories;
+import net.fortuna.ical4j.model.property.Completed;
+import net.fortuna.ical4j.model.property.Created;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.Due;
+import net.fortuna.ical4j.model.property.RRule;
+import net.fortuna.ical4j.model.property.RecurrenceId;
+import net.fortuna.ical4j.model.property.Status;
+
+/**
+ * Test HibTaskIndex
+ */
+public class HibTaskIndexTest {
+
+    private final TimeZoneRegistry registry = TimeZoneRegistryFactory.getInstance().createRegistry();
+
+    @Test
+    public void shouldIndexStartAndDue() throws Exception {
+        TimeZone ctz = registry.getTimeZone("America/Chicago");
+        VToDo task = new VToDo();
+        task.getProperties().add(new DtStart(new DateTime("20070212T074500", ctz)));
+        task.getProperties().add(new Due(new DateTime("20070213T074500", ctz)));
+
+        HibTaskIndex index = HibTaskIndex.of(task);
+
+        assertEquals(new DateTime("20070212T134500Z").getTime(), index.getStartMillis().longValue());
+        assertEquals(new DateTime("20070213T134500Z").getTime(), index.getEndMillis().longValue());
+        assertEquals(index.getEndMillis(), index.getDue());
+        assertNull(index.getCompleted());
+        assertEquals("", index.getStatus());
+        assertEquals("", index.getCategories());
+    }
+
+    @Test
+    public void shouldWidenFloatingDue() throws Exception {
+        VToDo task = new VToDo();
+        task.getProperties().add(new Due(new DateTime("20070213T074500")));
+
+        HibTaskIndex index = HibTaskIndex.of(task);
+
+        long due = new DateTime("20070213T074500Z").getTime();
+        assertEquals(due, index.getDue().longValue());
+        assertEquals(due - HibEventTimeRangeIndex.MAX_OFFSET_EAST, index.getStartMillis().longValue());
+        assertEquals(due + HibEventTimeRangeIndex.MAX_OFFSET_WEST, index.getEndMillis().longValue());
+    }
+
+    @Test
+    public void shouldIndexCompletedTask() throws Exception {
+        VToDo task = new VToDo();
+        task.getProperties().add(new Created(new DateTime("20070201T100000Z")));
+        task.getProperties().add(new Completed(new DateTime("20070210T100000Z")));
+        task.getProperties().add(Status.VTODO_COMPLETED);
+        task.getProperties().add(new Categories("work"));
+        task.getProperties().add(new Categories("home,errands"));
+
+        HibTaskIndex index = HibTaskIndex.of(task);
+
+        assertEquals(new DateTime("20070201T100000Z").getTime(), index.getStartMillis().longValue());
+        assertEquals(new DateTime("20070210T100000Z").getTime(), index.getEndMillis().longValue());
+        assertEquals(index.getEndMillis(), index.getCompleted());
+        assertEquals("COMPLETED", index.getStatus());
+        assertEquals("work,home,errands", index.getCategories());
+    }
+
+    @Test
+    public void shouldCoverAllTimeWithoutDates() {
+        HibTaskIndex index = HibTaskIndex.of(new VToDo());
+
+        assertEquals(Long.MIN_VALUE, index.getStartMillis().longValue());
+        assertEquals(Long.MAX_VALUE, index.getEndMillis().longValue());
+    }
+
+    @Test
+    public void shouldIndexTaskOfNote() throws Exception {
+        HibNoteItem note = new HibNoteItem();
+        note.setTaskJournalCalendar(createBaseCalendar(new VToDo()));
+        assertNotNull(note.getTaskIndex());
+
+        note.setTaskJournalCalendar(createBaseCalendar(new VJournal()));
+        assertNull(note.getTaskIndex());
+    }
+
+    @Test
+    public void shouldNotIndexTaskWithOverrides() throws Exception {
+        VToDo master = new VToDo();
+        master.getProperties().add(new DtStart(new DateTime("20070212T074500Z")));
+        master.getProperties().add(new RRule("FREQ=DAILY;COUNT=5"));
+        VToDo override = new VToDo();
+        override.getProperties().add(new RecurrenceId(new DateTime("20070213T074500Z")));
+        override.getProperties().add(new Completed(new DateTime("20070213T100000Z")));
+        Calendar calendar = createBaseCalendar(master);
+        calendar.getComponents().add(override);
+
+        HibNoteItem note = new HibNoteItem();
+        note.setTaskJournalCalendar(calendar);
+
+        assertNull(note.getTaskIndex());
+    }
+}
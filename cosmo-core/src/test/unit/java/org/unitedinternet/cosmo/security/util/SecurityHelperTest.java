@@ -23,6 +23,9 @@ import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.unitedinternet.cosmo.TestHelper;
 import org.unitedinternet.cosmo.dao.mock.MockContentDao;
 import org.unitedinternet.cosmo.dao.mock.MockDaoStorage;
@@ -320,6 +323,88 @@ public class SecurityHelperTest {
         
     }
     
+    @Test
+    public void shouldCacheDecisionsUntilInvalidated() {
+        AuthorizationCache cache = new AuthorizationCache(60000, 100);
+        SecurityHelper helper = new SecurityHelper(contentDao, userDao, cache);
+        User sharer = testHelper.makeDummyUser("sharer", "passwd1");
+        this.userDao.createUser(sharer);
+        User sharee = testHelper.makeDummyUser("sharee", "passwd2");
+        this.userDao.createUser(sharee);
+        
+        MockCollectionItem collectionItem = new MockCollectionItem();
+        collectionItem.setOwner(sharer);
+        collectionItem.setUid("col1");
+        
+        CosmoSecurityContext context = this.getSecurityContext(sharee);
+        assertFalse(helper.hasWriteAccess(context, collectionItem));
+        
+        Ticket ticket = testHelper.makeDummyTicket(sharer);
+        ticket.getPrivileges().add(Ticket.PRIVILEGE_WRITE);
+        ticket.setItem(collectionItem);
+        collectionItem.addTicket(ticket);
+        CollectionSubscription subscription = testHelper.makeDummySubscription(collectionItem, ticket);
+        subscription.setOwner(sharee);
+        subscription.setTargetCollection(collectionItem);
+        subscription.setTicket(ticket);
+        sharee.getSubscriptions().add(subscription);
+        
+        // the earlier decision is served until tickets or subscriptions are known to have changed
+        assertFalse(helper.hasWriteAccess(context, collectionItem));
+        assertTrue(this.securityHelper.hasWriteAccess(context, collectionItem));
+        cache.invalidate();
+        assertTrue(helper.hasWriteAccess(context, collectionItem));
+    }
+    
+    @Test
+    public void shouldCacheDecisionsForTheCurrentRequest() {
+        SecurityHelper helper = new SecurityHelper(contentDao, userDao, new AuthorizationCache());
+        User user1 = testHelper.makeDummyUser("user1", "password");
+        User user2 = testHelper.makeDummyUser("user2", "password");
+        MockCollectionItem col1 = new MockCollectionItem();
+        col1.setOwner(user1);
+        col1.setUid("col1");
+        MockNoteItem note = new MockNoteItem();
+        note.setUid("note1");
+        note.setOwner(user1);
+        note.addParent(col1);
+        
+        CosmoSecurityContext context = getSecurityContext(user2);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertFalse(helper.hasReadAccess(context, note));
+            col1.setOwner(user2);
+            assertFalse(helper.hasReadAccess(context, note));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        // decisions don't outlive the request unless a time to live is configured
+        assertTrue(helper.hasReadAccess(context, note));
+    }
+    
+    @Test
+    public void shouldNotServeDecisionsOfMovedItems() {
+        SecurityHelper helper = new SecurityHelper(contentDao, userDao, new AuthorizationCache(60000, 100));
+        User user1 = testHelper.makeDummyUser("user1", "password");
+        User user2 = testHelper.makeDummyUser("user2", "password");
+        MockCollectionItem col1 = new MockCollectionItem();
+        col1.setOwner(user1);
+        col1.setUid("col1");
+        MockCollectionItem col2 = new MockCollectionItem();
+        col2.setOwner(user2);
+        col2.setUid("col2");
+        MockNoteItem note = new MockNoteItem();
+        note.setUid("note1");
+        note.setOwner(user1);
+        note.addParent(col1);
+        
+        CosmoSecurityContext context = getSecurityContext(user2);
+        assertFalse(helper.hasReadAccess(context, note));
+        note.removeParent(col1);
+        note.addParent(col2);
+        assertTrue(helper.hasReadAccess(context, note));
+    }
+    
     /**
      * Gets security context.
      * @param user The user.
@@ -0,0 +1,111 @@
+package org.unitedinternet.cosmo.security.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+import org.unitedinternet.cosmo.model.Ticket;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionItem;
+import org.unitedinternet.cosmo.model.hibernate.HibTicket;
+
+/**
+ * Test TicketIndex
+ */
+public class TicketIndexTest {
+
+    @Test
+    public void shouldIndexTicketWithValidatedPaths() {
+        TicketIndex index = new TicketIndex(60000, 100);
+        index.put(ticket(1L, "key1", Ticket.TIMEOUT_INFINITE), "/dav/user/calendar/event.ics", index.getGeneration());
+
+        TicketIndex.Entry entry = index.get("key1");
+        assertNotNull(entry);
+        assertEquals(Long.valueOf(1L), entry.getTicketId());
+        assertEquals("col1", entry.getItemUid());
+        assertTrue(entry.getPrivileges().contains(Ticket.PRIVILEGE_READ));
+        assertTrue(entry.isGranted("/dav/user/calendar/event.ics", null));
+        assertTrue(entry.isGranted("/collection/col1", "col1"));
+        assertFalse(entry.isGranted("/dav/user/other/event.ics", null));
+        assertFalse(entry.isGranted("/collection/col2", "col2"));
+    }
+
+    @Test
+    public void shouldExpireEntryWhenTicketTimesOut() throws Exception {
+        TicketIndex index = new TicketIndex(60000, 100);
+        HibTicket ticket = ticket(1L, "key1", "Second-1");
+        ticket.setCreated(new Date(System.currentTimeMillis() - 1005));
+        index.put(ticket, null, index.getGeneration());
+
+        assertNull(index.get("key1"));
+
+        index.put(ticket(2L, "key2", "Second-3600"), null, index.getGeneration());
+        assertTrue(index.get("key2").getExpires() <= System.currentTimeMillis() + 60000);
+    }
+
+    @Test
+    public void shouldNotStoreResultsOfOutdatedLookups() {
+        TicketIndex index = new TicketIndex(60000, 100);
+        long generation = index.getGeneration();
+
+        index.invalidate("key1");
+        index.put(ticket(1L, "key1", Ticket.TIMEOUT_INFINITE), null, generation);
+
+        assertNull(index.get("key1"));
+    }
+
+    @Test
+    public void shouldDropEntryOnInvalidation() {
+        TicketIndex index = new TicketIndex(60000, 100);
+        index.put(ticket(1L, "key1", Ticket.TIMEOUT_INFINITE), null, index.getGeneration());
+        index.put(ticket(2L, "key2", Ticket.TIMEOUT_INFINITE), null, index.getGeneration());
+
+        index.invalidate("key1");
+
+        assertNull(index.getTicketId("key1"));
+        assertEquals(Long.valueOf(2L), index.getTicketId("key2"));
+    }
+
+    @Test
+    public void shouldDropPathsWhenItemsMove() {
+        TicketIndex index = new TicketIndex(60000, 100);
+        index.put(ticket(1L, "key1", Ticket.TIMEOUT_INFINITE), "/dav/user/calendar/event.ics", index.getGeneration());
+        long generation = index.getGeneration();
+
+        index.invalidatePaths();
+        index.put(ticket(1L, "key1", Ticket.TIMEOUT_INFINITE), "/dav/user/other/event.ics", generation);
+
+        TicketIndex.Entry entry = index.get("key1");
+        assertFalse(entry.isGranted("/dav/user/calendar/event.ics", null));
+        assertFalse(entry.isGranted("/dav/user/other/event.ics", null));
+        assertTrue(entry.isGranted("/collection/col1", "col1"));
+    }
+
+    @Test
+    public void shouldNotIndexWhenDisabled() {
+        TicketIndex index = new TicketIndex(0, 100);
+        index.put(ticket(1L, "key1", Ticket.TIMEOUT_INFINITE), null, index.getGeneration());
+
+        assertNull(index.get("key1"));
+        assertEquals(0, index.getSize());
+    }
+
+    private static HibTicket ticket(Long id, String key, String timeout) {
+        HibCollectionItem item = new HibCollectionItem();
+        item.setUid("col1");
+        HibTicket ticket = new HibTicket();
+        ticket.setId(id);
+        ticket.setKey(key);
+        ticket.setTimeout(timeout);
+        ticket.setCreated(new Date());
+        ticket.setPrivileges(new HashSet<String>());
+        ticket.getPrivileges().add(Ticket.PRIVILEGE_READ);
+        ticket.setItem(item);
+        return ticket;
+    }
+}
@@ -0,0 +1,160 @@
+package org.unitedinternet.cosmo.service.lock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.unitedinternet.cosmo.CosmoException;
+import org.unitedinternet.cosmo.model.CollectionItem;
+import org.unitedinternet.cosmo.model.hibernate.HibCollectionItem;
+
+/**
+ * Test DatabaseLockManager, mostly without a transaction, i.e. the local stage only.
+ */
+public class DatabaseLockManagerTest {
+
+    private DatabaseLockManager lockManager = new DatabaseLockManager();
+
+    @Test
+    public void shouldTimeOutWhileLockedByAnotherThread() throws Exception {
+        CollectionItem collection = newCollection("1");
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread owner = new Thread(() -> {
+            lockManager.lockCollection(collection);
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lockManager.unlockCollection(collection);
+        });
+        owner.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        assertFalse(lockManager.lockCollection(collection, 100));
+        assertEquals(1, lockManager.getTimeoutCount());
+        assertTrue(lockManager.getMaxWaitTime() >= 100);
+
+        release.countDown();
+        owner.join();
+        assertTrue(lockManager.lockCollection(collection, 100));
+        lockManager.unlockCollection(collection);
+
+        assertEquals(2, lockManager.getAcquisitionCount());
+        assertEquals(0, lockManager.getNumWaitingThreads());
+        assertEquals(1, lockManager.getMaxNumWaitingThreads());
+    }
+
+    @Test
+    public void shouldBeReentrant() {
+        CollectionItem collection = newCollection("1");
+
+        assertTrue(lockManager.lockCollection(collection, 0));
+        assertTrue(lockManager.lockCollection(collection, 0));
+        lockManager.unlockCollection(collection);
+        assertTrue(lockManager.isHeldByCurrentThread(collection));
+        lockManager.unlockCollection(collection);
+
+        assertFalse(lockManager.isHeldByCurrentThread(collection));
+    }
+
+    @Test
+    public void shouldReleaseAfterTransactionCompletion() {
+        EntityManager em = mock(EntityManager.class);
+        Query query = mock(Query.class);
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(1);
+        DatabaseLockManager lockManager = new DatabaseLockManager(em);
+        CollectionItem collection = newCollection("1");
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertTrue(lockManager.lockCollection(collection, 0));
+            lockManager.unlockCollection(collection);
+            verify(em, never()).createNativeQuery("SELECT RELEASE_LOCK(:name)");
+            assertEquals(1, lockManager.getNumLocksInMemory());
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+                    .getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(em).createNativeQuery("SELECT RELEASE_LOCK(:name)");
+        assertEquals(0, lockManager.getNumLocksInMemory());
+    }
+
+    @Test
+    public void shouldNotUnlockWhatIsNotOwned() {
+        assertTrue(lockManager.lockCollection(newCollection("1"), 0));
+
+        assertThrows(CosmoException.class, () -> lockManager.unlockCollection(newCollection("2")));
+    }
+
+    @Test
+    public void shouldNotWaitForLocksOfOtherCollections() throws Exception {
+        CollectionItem collection = newCollection("1");
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread owner = new Thread(() -> {
+            lockManager.lockCollection(collection);
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lockManager.unlockCollection(collection);
+        });
+        owner.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        for (int i = 2; i < 1000; i++) {
+            CollectionItem other = newCollection(String.valueOf(i));
+            assertTrue(lockManager.lockCollection(other, 0));
+            lockManager.unlockCollection(other);
+        }
+        assertEquals(1, lockManager.getNumLocksInMemory());
+
+        release.countDown();
+        owner.join();
+        assertEquals(0, lockManager.getNumLocksInMemory());
+    }
+
+    @Test
+    public void shouldShortenLongLockNames() {
+        String uid = "0123456789012345678901234567890123456789012345678901234567890123456789";
+
+        assertEquals("cosmo:1", DatabaseLockManager.lockName("1"));
+        assertTrue(DatabaseLockManager.lockName(uid).length() <= 64);
+    }
+
+    private static CollectionItem newCollection(String uid) {
+        CollectionItem collection = new HibCollectionItem();
+        collection.setUid(uid);
+        return collection;
+    }
+}
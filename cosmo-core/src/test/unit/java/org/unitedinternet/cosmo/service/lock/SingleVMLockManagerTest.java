@@ -21,10 +21,18 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.unitedinternet.cosmo.CosmoInterruptedException;
+import org.unitedinternet.cosmo.metrics.CosmoMetrics;
 import org.unitedinternet.cosmo.model.CollectionItem;
 import org.unitedinternet.cosmo.model.hibernate.HibCollectionItem;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * Test StandardLockManager
  */
@@ -131,6 +139,35 @@ public class SingleVMLockManagerTest {
         }        
     }
     
+    /**
+     * Tests that the time spent waiting for locks is recorded.
+     * @throws Exception - if something is wrong this exception is thrown.
+     */
+    @Test
+    public void testLockWaitMetrics() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            CollectionItem col = new HibCollectionItem();
+            col.setUid("metrics");
+            assertTrue(lockManager.lockCollection(col, 100));
+
+            AtomicBoolean acquired = new AtomicBoolean(true);
+            Thread other = new Thread(() -> acquired.set(lockManager.lockCollection(col, 50)));
+            other.start();
+            other.join();
+            lockManager.unlockCollection(col);
+            assertFalse(acquired.get());
+
+            assertEquals(1, registry.get(CosmoMetrics.LOCK_WAIT).tag("acquired", "true").timer().count());
+            Timer timedOut = registry.get(CosmoMetrics.LOCK_WAIT).tag("acquired", "false").timer();
+            assertEquals(1, timedOut.count());
+            assertTrue(timedOut.totalTime(TimeUnit.MILLISECONDS) >= 50);
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+    
     /**
      * Lock test thread class.
      *